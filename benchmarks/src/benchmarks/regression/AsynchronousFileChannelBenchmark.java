@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks.regression;
+
+import com.google.caliper.AfterExperiment;
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Param;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Future;
+
+/**
+ * Compares batches of outstanding {@link AsynchronousFileChannel} reads of cached data with
+ * the same positional reads done synchronously through a {@link FileChannel}. Run with
+ * {@code -Dsun.nio.ch.asyncFileNoWaitReads=true} to measure reads completed without the
+ * executor.
+ */
+public class AsynchronousFileChannelBenchmark {
+    @Param({"1", "16"}) int outstanding;
+    @Param({"4096", "65536"}) int readSize;
+
+    private File file;
+    private AsynchronousFileChannel asyncChannel;
+    private FileChannel channel;
+    private ByteBuffer[] buffers;
+    private Future<?>[] futures;
+
+    @BeforeExperiment
+    protected void setUp() throws Exception {
+        file = File.createTempFile(getClass().getName(), null);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[outstanding * readSize]);
+        }
+        asyncChannel = AsynchronousFileChannel.open(file.toPath(), StandardOpenOption.READ);
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        buffers = new ByteBuffer[outstanding];
+        for (int i = 0; i < outstanding; i++) {
+            buffers[i] = ByteBuffer.allocateDirect(readSize);
+        }
+        futures = new Future<?>[outstanding];
+    }
+
+    @AfterExperiment
+    protected void tearDown() throws Exception {
+        asyncChannel.close();
+        channel.close();
+        file.delete();
+    }
+
+    public void timeAsynchronousRead(int reps) throws Exception {
+        for (int rep = 0; rep < reps; ++rep) {
+            for (int i = 0; i < outstanding; i++) {
+                buffers[i].clear();
+                futures[i] = asyncChannel.read(buffers[i], (long) i * readSize);
+            }
+            for (int i = 0; i < outstanding; i++) {
+                futures[i].get();
+            }
+        }
+    }
+
+    public void timeFileChannelRead(int reps) throws Exception {
+        for (int rep = 0; rep < reps; ++rep) {
+            for (int i = 0; i < outstanding; i++) {
+                buffers[i].clear();
+                channel.read(buffers[i], (long) i * readSize);
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks.regression;
+
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Param;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Arithmetic on money-like values, whose unscaled values fit in a long. The "large" amounts
+ * are close enough to the long range that rescaling them needs overflow checks.
+ */
+public class BigDecimalBenchmark {
+    @Param({ "small", "large" })
+    private String magnitude;
+
+    private BigDecimal price;
+    private BigDecimal quantity;
+    private BigDecimal rate;
+    private String priceString;
+
+    @BeforeExperiment
+    protected void setUp() throws Exception {
+        if (magnitude.equals("small")) {
+            price = new BigDecimal("1234.56");
+            quantity = new BigDecimal("17");
+        } else {
+            price = new BigDecimal("12345678901234567.89");
+            quantity = new BigDecimal("30.5");
+        }
+        rate = new BigDecimal("0.0725");
+        priceString = price.toString();
+    }
+
+    public void timeAdd(int reps) {
+        for (int i = 0; i < reps; ++i) {
+            price.add(rate);
+        }
+    }
+
+    public void timeSubtract(int reps) {
+        for (int i = 0; i < reps; ++i) {
+            price.subtract(rate);
+        }
+    }
+
+    public void timeMultiply(int reps) {
+        for (int i = 0; i < reps; ++i) {
+            price.multiply(quantity);
+        }
+    }
+
+    public void timeDivideWithRounding(int reps) {
+        for (int i = 0; i < reps; ++i) {
+            price.divide(quantity, 4, RoundingMode.HALF_EVEN);
+        }
+    }
+
+    public void timeSetScale(int reps) {
+        for (int i = 0; i < reps; ++i) {
+            price.setScale(4);
+        }
+    }
+
+    public void timeSetScaleWithRounding(int reps) {
+        for (int i = 0; i < reps; ++i) {
+            price.setScale(1, RoundingMode.HALF_UP);
+        }
+    }
+
+    public void timeCompareTo(int reps) {
+        for (int i = 0; i < reps; ++i) {
+            price.compareTo(rate);
+        }
+    }
+
+    public void timeToString(int reps) {
+        for (int i = 0; i < reps; ++i) {
+            // toString() caches its result, so use a new instance each time.
+            price.negate().toString();
+        }
+    }
+
+    public void timeToPlainString(int reps) {
+        for (int i = 0; i < reps; ++i) {
+            price.toPlainString();
+        }
+    }
+
+    public void timeParse(int reps) {
+        for (int i = 0; i < reps; ++i) {
+            new BigDecimal(priceString);
+        }
+    }
+
+    public void timeInvoiceLine(int reps) {
+        for (int i = 0; i < reps; ++i) {
+            BigDecimal net = price.multiply(quantity);
+            net.add(net.multiply(rate)).setScale(2, RoundingMode.HALF_EVEN).toString();
+        }
+    }
+}
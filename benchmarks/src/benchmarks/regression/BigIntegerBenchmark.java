@@ -16,34 +16,74 @@
 
 package benchmarks.regression;
 
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Param;
 import java.math.BigInteger;
 import java.util.Random;
 
 public class BigIntegerBenchmark {
+    @Param({ "64", "256", "1024", "2048", "4096", "8192" })
+    private int bits;
+
+    private BigInteger x;
+    private BigInteger y;
+    private BigInteger product;
+    private BigInteger exponent;
+    private BigInteger oddModulus;
+
+    @BeforeExperiment
+    protected void setUp() throws Exception {
+        Random r = new Random(0);
+        x = new BigInteger(bits, r);
+        y = new BigInteger(bits, r).setBit(bits - 1);
+        product = x.multiply(y).add(new BigInteger(bits, r));
+        exponent = new BigInteger(bits, r);
+        oddModulus = y.setBit(0);
+    }
+
     public void timeRandomDivision(int reps) throws Exception {
-        Random r = new Random();
-        BigInteger x = new BigInteger(1024, r);
-        BigInteger y = new BigInteger(1024, r);
         for (int i = 0; i < reps; ++i) {
             x.divide(y);
         }
     }
 
+    public void timeRandomDivisionDoubleLength(int reps) throws Exception {
+        for (int i = 0; i < reps; ++i) {
+            product.divideAndRemainder(y);
+        }
+    }
+
     public void timeRandomGcd(int reps) throws Exception {
-        Random r = new Random();
-        BigInteger x = new BigInteger(1024, r);
-        BigInteger y = new BigInteger(1024, r);
         for (int i = 0; i < reps; ++i) {
             x.gcd(y);
         }
     }
 
     public void timeRandomMultiplication(int reps) throws Exception {
-        Random r = new Random();
-        BigInteger x = new BigInteger(1024, r);
-        BigInteger y = new BigInteger(1024, r);
         for (int i = 0; i < reps; ++i) {
             x.multiply(y);
         }
     }
+
+    public void timeRandomSquaring(int reps) throws Exception {
+        for (int i = 0; i < reps; ++i) {
+            x.multiply(x);
+        }
+    }
+
+    public void timeRandomModPow(int reps) throws Exception {
+        for (int i = 0; i < reps; ++i) {
+            x.modPow(exponent, oddModulus);
+        }
+    }
+
+    // A chain of operations on values that were parsed from strings, as in arbitrary-precision
+    // workloads that never touch the bit-level API.
+    public void timeMultiplyAddChain(int reps) throws Exception {
+        BigInteger a = new BigInteger(x.toString());
+        BigInteger b = new BigInteger(y.toString());
+        for (int i = 0; i < reps; ++i) {
+            a.multiply(b).add(a).mod(b);
+        }
+    }
 }
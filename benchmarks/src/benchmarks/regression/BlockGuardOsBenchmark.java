@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks.regression;
+
+import android.system.OsConstants;
+import com.google.caliper.AfterExperiment;
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Param;
+import dalvik.system.BlockGuard;
+import java.io.FileDescriptor;
+import libcore.io.Libcore;
+
+/**
+ * Measures the cost that BlockGuardOs adds to a small read(2), by comparing it with a read
+ * through the raw Os.
+ */
+public class BlockGuardOsBenchmark {
+    enum ThreadPolicy {
+        LAX,
+        /** A policy that does nothing but, unlike LAX_POLICY, has to be dispatched to. */
+        NO_OP,
+    }
+
+    @Param ThreadPolicy threadPolicy;
+    @Param({"false", "true"}) boolean ioStats;
+
+    private final byte[] buffer = new byte[1];
+    private FileDescriptor fd;
+    private BlockGuard.Policy oldPolicy;
+
+    @BeforeExperiment
+    protected void setUp() throws Exception {
+        fd = Libcore.rawOs.open("/dev/zero", OsConstants.O_RDONLY, 0);
+        oldPolicy = BlockGuard.getThreadPolicy();
+        if (threadPolicy == ThreadPolicy.NO_OP) {
+            BlockGuard.setThreadPolicy(new NoOpPolicy());
+        }
+        BlockGuard.setIoStatsEnabled(ioStats);
+    }
+
+    @AfterExperiment
+    protected void tearDown() throws Exception {
+        BlockGuard.setIoStatsEnabled(false);
+        BlockGuard.setThreadPolicy(oldPolicy);
+        Libcore.rawOs.close(fd);
+    }
+
+    public void timeRead_rawOs(int reps) throws Exception {
+        for (int i = 0; i < reps; i++) {
+            Libcore.rawOs.read(fd, buffer, 0, 1);
+        }
+    }
+
+    public void timeRead_blockGuardOs(int reps) throws Exception {
+        for (int i = 0; i < reps; i++) {
+            Libcore.os.read(fd, buffer, 0, 1);
+        }
+    }
+
+    private static final class NoOpPolicy implements BlockGuard.Policy {
+        @Override public void onWriteToDisk() {}
+        @Override public void onReadFromDisk() {}
+        @Override public void onNetwork() {}
+        @Override public void onUnbufferedIO() {}
+        @Override public void onExplicitGc() {}
+        @Override public int getPolicyMask() { return 0; }
+    }
+}
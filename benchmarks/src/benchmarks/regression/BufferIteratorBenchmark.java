@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks.regression;
+
+import com.google.caliper.AfterExperiment;
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Param;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.IntBuffer;
+import libcore.io.BufferIterator;
+import libcore.io.MemoryMappedFile;
+
+/**
+ * Compares per-element reads from a memory-mapped file with the bulk and zero-copy reads.
+ */
+public class BufferIteratorBenchmark {
+    @Param({"16", "256", "4096"}) int count;
+
+    private File file;
+    private MemoryMappedFile mappedFile;
+    private int[] ints;
+    private long[] longs;
+
+    @BeforeExperiment
+    protected void setUp() throws Exception {
+        file = File.createTempFile(getClass().getName(), null);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            byte[] bytes = new byte[count * Long.BYTES];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) i;
+            }
+            out.write(bytes);
+        }
+        mappedFile = MemoryMappedFile.mmapRO(file.getPath());
+        ints = new int[count];
+        longs = new long[count];
+    }
+
+    @AfterExperiment
+    protected void tearDown() throws Exception {
+        mappedFile.close();
+        file.delete();
+    }
+
+    public void timeReadInt_loop(int reps) {
+        for (int rep = 0; rep < reps; ++rep) {
+            BufferIterator it = mappedFile.bigEndianIterator();
+            for (int i = 0; i < count; ++i) {
+                ints[i] = it.readInt();
+            }
+        }
+    }
+
+    public void timeReadIntArray(int reps) {
+        for (int rep = 0; rep < reps; ++rep) {
+            BufferIterator it = mappedFile.bigEndianIterator();
+            it.readIntArray(ints, 0, count);
+        }
+    }
+
+    public void timeAsIntBuffer(int reps) {
+        for (int rep = 0; rep < reps; ++rep) {
+            BufferIterator it = mappedFile.bigEndianIterator();
+            IntBuffer view = it.asIntBuffer(count);
+            for (int i = 0; i < count; ++i) {
+                ints[i] = view.get(i);
+            }
+        }
+    }
+
+    public void timeReadLong_loop(int reps) {
+        for (int rep = 0; rep < reps; ++rep) {
+            BufferIterator it = mappedFile.bigEndianIterator();
+            for (int i = 0; i < count; ++i) {
+                longs[i] = it.readLong();
+            }
+        }
+    }
+
+    public void timeReadLongArray(int reps) {
+        for (int rep = 0; rep < reps; ++rep) {
+            BufferIterator it = mappedFile.bigEndianIterator();
+            it.readLongArray(longs, 0, count);
+        }
+    }
+}
@@ -17,6 +17,11 @@
 package benchmarks.regression;
 
 import com.google.caliper.Param;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
 
 public class CharsetBenchmark {
     @Param({ "1", "10", "100", "1000", "10000" })
@@ -66,6 +71,60 @@ public class CharsetBenchmark {
         }
     }
 
+    public void time_CharsetDecoder_decode(int reps) throws Exception {
+        CharsetDecoder decoder = Charset.forName(name).newDecoder();
+        ByteBuffer in = ByteBuffer.wrap(makeBytes(makeString(length)));
+        CharBuffer out = CharBuffer.allocate(length);
+        for (int i = 0; i < reps; ++i) {
+            decode(decoder, in, out);
+        }
+    }
+
+    public void time_CharsetDecoder_decodeDirect(int reps) throws Exception {
+        CharsetDecoder decoder = Charset.forName(name).newDecoder();
+        ByteBuffer in = ByteBuffer.allocateDirect(length);
+        in.put(makeBytes(makeString(length))).flip();
+        CharBuffer out = ByteBuffer.allocateDirect(length * 2).asCharBuffer();
+        for (int i = 0; i < reps; ++i) {
+            decode(decoder, in, out);
+        }
+    }
+
+    public void time_CharsetEncoder_encode(int reps) throws Exception {
+        CharsetEncoder encoder = Charset.forName(name).newEncoder();
+        CharBuffer in = CharBuffer.wrap(makeString(length).toCharArray());
+        // Enough for any of the charsets, including a UTF-16 byte order mark.
+        ByteBuffer out = ByteBuffer.allocate(length * 2 + 2);
+        for (int i = 0; i < reps; ++i) {
+            encode(encoder, in, out);
+        }
+    }
+
+    public void time_CharsetEncoder_encodeDirect(int reps) throws Exception {
+        CharsetEncoder encoder = Charset.forName(name).newEncoder();
+        CharBuffer in = CharBuffer.wrap(makeString(length).toCharArray());
+        ByteBuffer out = ByteBuffer.allocateDirect(length * 2 + 2);
+        for (int i = 0; i < reps; ++i) {
+            encode(encoder, in, out);
+        }
+    }
+
+    private static void decode(CharsetDecoder decoder, ByteBuffer in, CharBuffer out) {
+        decoder.reset();
+        in.rewind();
+        out.clear();
+        decoder.decode(in, out, true);
+        decoder.flush(out);
+    }
+
+    private static void encode(CharsetEncoder encoder, CharBuffer in, ByteBuffer out) {
+        encoder.reset();
+        in.rewind();
+        out.clear();
+        encoder.encode(in, out, true);
+        encoder.flush(out);
+    }
+
     private static String makeString(int length) {
         StringBuilder result = new StringBuilder(length);
         for (int i = 0; i < length; ++i) {
@@ -36,9 +36,34 @@ public class CharsetForNameBenchmark {
     })
     private String charsetName;
 
+    private static final int THREAD_COUNT = 4;
+
     public void timeCharsetForName(int reps) throws Exception {
         for (int i = 0; i < reps; ++i) {
             Charset.forName(charsetName);
         }
     }
+
+    /**
+     * Looks up {@link #charsetName} alternately with other common charsets from several threads
+     * at once, so that no single most-recently-used charset is shared by all lookups.
+     */
+    public void timeCharsetForName_multiThreadedMixed(final int reps) throws Exception {
+        final String[] names = { charsetName, "UTF-8", "ISO-8859-1", "windows-1252" };
+        Thread[] threads = new Thread[THREAD_COUNT];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t;
+            threads[t] = new Thread() {
+                @Override public void run() {
+                    for (int i = 0; i < reps; ++i) {
+                        Charset.forName(names[(i + offset) % names.length]);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
 }
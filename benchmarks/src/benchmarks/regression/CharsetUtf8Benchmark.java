@@ -17,12 +17,17 @@ package benchmarks.regression;
 
 import android.icu.lang.UCharacter;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
 import java.nio.charset.StandardCharsets;
 
 /**
  * Decode the same size of ASCII, BMP, Supplementary character using fast-path UTF-8 decoder.
- * The fast-path code is in {@link StringFactory#newStringFromBytes(byte[], int, int, Charset)}
+ * The fast-path code is in {@link StringFactory#newStringFromBytes(byte[], int, int, Charset)}.
+ * The {@code decoder} variants decode the same data with a {@link CharsetDecoder}, as
+ * {@code InputStreamReader} does.
  */
 public class CharsetUtf8Benchmark {
 
@@ -66,4 +71,30 @@ public class CharsetUtf8Benchmark {
     public void time_supplementary() {
         new String(SUPPLEMENTARY, StandardCharsets.UTF_8);
     }
+
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+    private final CharBuffer chars = CharBuffer.allocate(NO_OF_BYTES);
+
+    private void decode(byte[] bytes) {
+        decoder.reset();
+        chars.clear();
+        decoder.decode(ByteBuffer.wrap(bytes), chars, true);
+        decoder.flush(chars);
+    }
+
+    public void time_decoder_ascii() {
+        decode(ASCII);
+    }
+
+    public void time_decoder_bmp2() {
+        decode(BMP2);
+    }
+
+    public void time_decoder_bmp3() {
+        decode(BMP3);
+    }
+
+    public void time_decoder_supplementary() {
+        decode(SUPPLEMENTARY);
+    }
 }
@@ -131,6 +131,12 @@ public class CipherBenchmark {
         cipherDecrypt.init(Cipher.DECRYPT_MODE, key, spec);
     }
 
+    public void timeGetInstance(int reps) throws Exception {
+        for (int i = 0; i < reps; ++i) {
+            Cipher.getInstance(cipherAlgorithm, providerName);
+        }
+    }
+
     public void timeEncrypt(int reps) throws Exception {
         for (int i = 0; i < reps; ++i) {
             cipherEncrypt.doFinal(DATA, 0, inputSize, output);
@@ -16,33 +16,63 @@
 
 package benchmarks.regression;
 
+import com.google.caliper.Param;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 
 public class DnsBenchmark {
+    private static final String[] HOSTS = new String[] {
+        "www.amazon.com",
+        "z-ecx.images-amazon.com",
+        "g-ecx.images-amazon.com",
+        "ecx.images-amazon.com",
+        "ad.doubleclick.com",
+        "bpx.a9.com",
+        "d3dtik4dz1nej0.cloudfront.net",
+        "uac.advertising.com",
+        "servedby.advertising.com",
+        "view.atdmt.com",
+        "rmd.atdmt.com",
+        "spe.atdmt.com",
+        "www.google.com",
+        "www.cnn.com",
+        "bad.host.mtv.corp.google.com",
+    };
+
+    @Param({"1", "2", "4", "8"}) int threadCount;
+
     public void timeDns(int reps) throws Exception {
-        String[] hosts = new String[] {
-            "www.amazon.com",
-            "z-ecx.images-amazon.com",
-            "g-ecx.images-amazon.com",
-            "ecx.images-amazon.com",
-            "ad.doubleclick.com",
-            "bpx.a9.com",
-            "d3dtik4dz1nej0.cloudfront.net",
-            "uac.advertising.com",
-            "servedby.advertising.com",
-            "view.atdmt.com",
-            "rmd.atdmt.com",
-            "spe.atdmt.com",
-            "www.google.com",
-            "www.cnn.com",
-            "bad.host.mtv.corp.google.com",
-        };
         for (int i = 0; i < reps; ++i) {
-            try {
-                InetAddress.getByName(hosts[i % hosts.length]);
-            } catch (UnknownHostException ex) {
-            }
+            lookup(HOSTS[i % HOSTS.length]);
+        }
+    }
+
+    /**
+     * Like {@link #timeDns} but spreads the lookups over {@code threadCount} threads, each
+     * starting at a different host, to measure contention on the address cache.
+     */
+    public void timeDnsConcurrent(final int reps) throws Exception {
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threads.length; ++t) {
+            final int offset = t;
+            threads[t] = new Thread() {
+                @Override public void run() {
+                    for (int i = offset; i < reps; i += threadCount) {
+                        lookup(HOSTS[i % HOSTS.length]);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private static void lookup(String host) {
+        try {
+            InetAddress.getByName(host);
+        } catch (UnknownHostException ex) {
         }
     }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks.regression;
+
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Param;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Parses a configuration-like document into a DOM with and without the compact DOM feature.
+ * Run with caliper's allocation instrument to compare the memory each mode uses.
+ */
+public class DomBenchmark {
+    private static final String COMPACT_DOM = "http://android.com/xml/features/compact-dom";
+
+    @Param({ "false", "true" })
+    private boolean compact;
+
+    @Param({ "10", "1000" })
+    private int entries;
+
+    private DocumentBuilder builder;
+    private byte[] xml;
+
+    @BeforeExperiment
+    protected void setUp() throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setFeature(COMPACT_DOM, compact);
+        builder = factory.newDocumentBuilder();
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
+        sb.append("<resources xmlns:tools=\"http://schemas.android.com/tools\">\n");
+        for (int i = 0; i < entries; i++) {
+            sb.append("  <!-- entry ").append(i).append(" -->\n");
+            sb.append("  <entry name=\"entry_").append(i).append("\" type=\"string\"");
+            sb.append(" tools:ignore=\"MissingTranslation\">\n");
+            sb.append("    <value locale=\"en\">Value number ").append(i).append("</value>\n");
+            sb.append("    <value locale=\"fr\">Valeur num&#233;ro ").append(i).append("</value>\n");
+            sb.append("    <flag enabled=\"").append(i % 2 == 0).append("\"/>\n");
+            sb.append("  </entry>\n");
+        }
+        sb.append("</resources>\n");
+        xml = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public void timeParse(int reps) throws Exception {
+        for (int i = 0; i < reps; ++i) {
+            builder.parse(new ByteArrayInputStream(xml));
+        }
+    }
+
+    /** Parses and reads a single entry, as a lookup in a large configuration file would. */
+    public void timeParseAndReadOne(int reps) throws Exception {
+        for (int i = 0; i < reps; ++i) {
+            Document document = builder.parse(new ByteArrayInputStream(xml));
+            Node entry = document.getDocumentElement().getFirstChild();
+            while (!(entry instanceof Element)) {
+                entry = entry.getNextSibling();
+            }
+            ((Element) entry).getAttribute("name");
+            entry.getTextContent();
+        }
+    }
+
+    public void timeParseAndTraverse(int reps) throws Exception {
+        for (int i = 0; i < reps; ++i) {
+            traverse(builder.parse(new ByteArrayInputStream(xml)));
+        }
+    }
+
+    private static int traverse(Node node) {
+        int count = 1;
+        NamedNodeMap attributes = node.getAttributes();
+        if (attributes != null) {
+            for (int i = 0; i < attributes.getLength(); i++) {
+                attributes.item(i).getNodeValue();
+                count++;
+            }
+        }
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            count += traverse(child);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks.regression;
+
+import com.google.caliper.Param;
+
+/**
+ * Measures the throughput of allocating objects with a finalizer, each of which is registered
+ * with {@code java.lang.ref.FinalizerReference}, from several threads at once.
+ */
+public class FinalizableAllocationBenchmark {
+    @Param({"1", "2", "4", "8", "16"}) int threadCount;
+
+    static final class Finalizable {
+        @Override protected void finalize() {
+        }
+    }
+
+    public void timeAllocate(final int reps) throws Exception {
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override public void run() {
+                    for (int i = 0; i < reps; i++) {
+                        new Finalizable();
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+}
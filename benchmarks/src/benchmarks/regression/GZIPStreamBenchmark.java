@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks.regression;
+
+import com.google.caliper.AfterExperiment;
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Param;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZStreamPool;
+
+/**
+ * Measures short-lived gzip streams, such as those used to decode HTTP responses, with and
+ * without reuse of their native zlib streams.
+ */
+public class GZIPStreamBenchmark {
+    @Param({"1024", "16384"}) int size;
+    @Param({"true", "false"}) boolean pooled;
+
+    private byte[] data;
+    private byte[] compressed;
+    private final byte[] buffer = new byte[8192];
+
+    @BeforeExperiment
+    protected void setUp() throws Exception {
+        ZStreamPool.setEnabled(pooled);
+        data = new byte[size];
+        Random random = new Random(0);
+        // Half random, half repeated, so that the data compresses like typical text.
+        for (int i = 0; i < size; i++) {
+            data[i] = (i % 2 == 0) ? (byte) random.nextInt(16) : (byte) 'a';
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        }
+        compressed = bytes.toByteArray();
+    }
+
+    @AfterExperiment
+    protected void tearDown() {
+        ZStreamPool.setEnabled(true);
+    }
+
+    public void timeGunzip(int reps) throws IOException {
+        for (int i = 0; i < reps; i++) {
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+                while (in.read(buffer) != -1) {
+                }
+            }
+        }
+    }
+
+    public void timeGzip(int reps) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(size);
+        for (int i = 0; i < reps; i++) {
+            bytes.reset();
+            try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+                out.write(data);
+            }
+        }
+    }
+}
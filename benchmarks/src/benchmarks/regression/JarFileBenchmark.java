@@ -16,10 +16,21 @@
 
 package benchmarks.regression;
 
+import com.google.caliper.AfterExperiment;
+import com.google.caliper.BeforeExperiment;
 import com.google.caliper.Param;
 import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
 
 public class JarFileBenchmark {
     @Param({
@@ -28,6 +39,53 @@ public class JarFileBenchmark {
     })
     private String filename;
 
+    private JarFile jarFile;
+    private String[] entryNames;
+    private ZipEntry[] storedEntries;
+    private ZipEntry[] deflatedEntries;
+    private final byte[] buffer = new byte[8192];
+    // A copy of the file whose modification time changes between verifications, so that they
+    // are not skipped as already done.
+    private File copy;
+    private long copyModified;
+    private ForkJoinPool singleThreadPool;
+
+    @BeforeExperiment
+    protected void setUp() throws Exception {
+        jarFile = new JarFile(filename);
+        List<String> names = new ArrayList<>();
+        List<ZipEntry> stored = new ArrayList<>();
+        List<ZipEntry> deflated = new ArrayList<>();
+        for (Enumeration<? extends ZipEntry> e = jarFile.entries(); e.hasMoreElements(); ) {
+            ZipEntry entry = e.nextElement();
+            names.add(entry.getName());
+            if (entry.isDirectory()) {
+                continue;
+            }
+            if (entry.getMethod() == ZipEntry.STORED) {
+                stored.add(entry);
+            } else {
+                deflated.add(entry);
+            }
+        }
+        entryNames = names.toArray(new String[names.size()]);
+        storedEntries = stored.toArray(new ZipEntry[stored.size()]);
+        deflatedEntries = deflated.toArray(new ZipEntry[deflated.size()]);
+
+        copy = File.createTempFile(getClass().getName(), ".jar");
+        Files.copy(new File(filename).toPath(), copy.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        copyModified = copy.lastModified();
+        singleThreadPool = new ForkJoinPool(1);
+    }
+
+    @AfterExperiment
+    protected void tearDown() throws Exception {
+        jarFile.close();
+        copy.delete();
+        singleThreadPool.shutdown();
+    }
+
     public void time(int reps) throws Exception {
         File f = new File(filename);
         for (int i = 0; i < reps; ++i) {
@@ -36,4 +94,89 @@ public class JarFileBenchmark {
             jf.close();
         }
     }
+
+    public void timeReopen(int reps) throws Exception {
+        File f = new File(filename);
+        for (int i = 0; i < reps; ++i) {
+            new JarFile(f).close();
+        }
+    }
+
+    public void timeGetEntry_random(int reps) throws Exception {
+        for (int i = 0; i < reps; ++i) {
+            // Step through the entries with a stride that is unlikely to divide their count.
+            jarFile.getEntry(entryNames[(int) ((i * 7919L) % entryNames.length)]);
+        }
+    }
+
+    // Files without STORED (or DEFLATED) entries read nothing in the corresponding benchmark.
+    public void timeRead_stored(int reps) throws Exception {
+        readEntries(storedEntries, reps);
+    }
+
+    public void timeRead_deflated(int reps) throws Exception {
+        readEntries(deflatedEntries, reps);
+    }
+
+    private void readEntries(ZipEntry[] entries, int reps) throws Exception {
+        if (entries.length == 0) {
+            return;
+        }
+        for (int i = 0; i < reps; ++i) {
+            try (InputStream in = jarFile.getInputStream(entries[i % entries.length])) {
+                while (in.read(buffer) != -1) {
+                }
+            }
+        }
+    }
+
+    // Unsigned files verify nothing in the benchmarks below.
+
+    /** Verifies every entry by reading it, one after another. */
+    public void timeVerify_read(int reps) throws Exception {
+        for (int i = 0; i < reps; ++i) {
+            touchCopy();
+            try (JarFile jf = new JarFile(copy)) {
+                for (Enumeration<JarEntry> e = jf.entries(); e.hasMoreElements(); ) {
+                    JarEntry entry = e.nextElement();
+                    if (entry.isDirectory()) {
+                        continue;
+                    }
+                    try (InputStream in = jf.getInputStream(entry)) {
+                        while (in.read(buffer) != -1) {
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public void timeVerifyAllEntries_singleThread(int reps) throws Exception {
+        verifyAllEntries(reps, singleThreadPool, true);
+    }
+
+    public void timeVerifyAllEntries_commonPool(int reps) throws Exception {
+        verifyAllEntries(reps, ForkJoinPool.commonPool(), true);
+    }
+
+    /** Reopens and verifies the same unmodified file, which skips digesting the entries. */
+    public void timeVerifyAllEntries_reopen(int reps) throws Exception {
+        verifyAllEntries(reps, ForkJoinPool.commonPool(), false);
+    }
+
+    private void verifyAllEntries(int reps, ForkJoinPool pool, boolean touch) throws Exception {
+        for (int i = 0; i < reps; ++i) {
+            if (touch) {
+                touchCopy();
+            }
+            try (JarFile jf = new JarFile(copy)) {
+                jf.verifyAllEntries(pool);
+            }
+        }
+    }
+
+    private void touchCopy() {
+        copyModified += 1000;
+        copy.setLastModified(copyModified);
+    }
 }
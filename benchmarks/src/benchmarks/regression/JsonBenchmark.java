@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks.regression;
+
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Param;
+import java.io.StringReader;
+import org.json.JSONStreamTokener;
+import org.json.JSONTokener;
+
+/**
+ * Parses a JSON array of records with {@link JSONTokener} and {@link JSONStreamTokener}. Run
+ * with caliper's allocation instrument to compare the memory each approach allocates.
+ */
+public class JsonBenchmark {
+    @Param({ "1", "1024", "51200" })
+    private int kilobytes;
+
+    private String json;
+    private JSONStreamTokener tokener;
+
+    @BeforeExperiment
+    protected void setUp() throws Exception {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; sb.length() < kilobytes * 1024; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":").append(i)
+                    .append(",\"name\":\"record ").append(i).append('"')
+                    .append(",\"price\":").append(i % 1000).append('.').append(i % 100)
+                    .append(",\"tags\":[\"a\",\"b\",\"c\"]")
+                    .append(",\"location\":{\"lat\":37.4220,\"lng\":-122.0841}")
+                    .append(",\"active\":").append(i % 3 == 0)
+                    .append('}');
+        }
+        sb.append(']');
+        json = sb.toString();
+        tokener = new JSONStreamTokener(new StringReader(""));
+    }
+
+    public void timeJSONTokener(int reps) throws Exception {
+        for (int i = 0; i < reps; ++i) {
+            new JSONTokener(json).nextValue();
+        }
+    }
+
+    public void timeStreamNextValue(int reps) throws Exception {
+        for (int i = 0; i < reps; ++i) {
+            tokener.reset(new StringReader(json));
+            tokener.nextValue();
+        }
+    }
+
+    public void timeStreamSkipValue(int reps) throws Exception {
+        for (int i = 0; i < reps; ++i) {
+            tokener.reset(new StringReader(json));
+            tokener.skipValue();
+        }
+    }
+
+    /** Reads one number from each record and skips the rest. */
+    public void timeStreamSelect(int reps) throws Exception {
+        for (int i = 0; i < reps; ++i) {
+            tokener.reset(new StringReader(json));
+            tokener.beginArray();
+            while (tokener.hasNext()) {
+                tokener.beginObject();
+                while (tokener.hasNext()) {
+                    if (tokener.nextName().equals("price")) {
+                        tokener.nextValue();
+                    } else {
+                        tokener.skipValue();
+                    }
+                }
+                tokener.endObject();
+            }
+            tokener.endArray();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks.regression;
+
+import android.system.Os;
+import com.google.caliper.AfterExperiment;
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Param;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import libcore.io.IoUtils;
+import libcore.io.Streams;
+
+/**
+ * Compares copies done in the kernel with sendfile(2) and splice(2), and gathering writes of
+ * heap buffers, with the equivalent copies through user space buffers.
+ */
+public class KernelCopyBenchmark {
+    @Param({"4096", "1048576"}) int size;
+
+    private File file;
+    private byte[] data;
+    private FileOutputStream devNull;
+    private FileChannel devNullChannel;
+    private final byte[] copyBuffer = new byte[8192];
+    private ByteBuffer[] heapBuffers;
+    private ByteBuffer[] directBuffers;
+
+    @BeforeExperiment
+    protected void setUp() throws Exception {
+        data = new byte[size];
+        file = File.createTempFile(getClass().getName(), null);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(data);
+        }
+        devNull = new FileOutputStream("/dev/null");
+        devNullChannel = devNull.getChannel();
+        // The payload split into sixteen buffers, as a gathering write of framed data would be.
+        heapBuffers = new ByteBuffer[16];
+        directBuffers = new ByteBuffer[16];
+        for (int i = 0; i < heapBuffers.length; i++) {
+            int bufferSize = Math.max(1, size / heapBuffers.length);
+            heapBuffers[i] = ByteBuffer.allocate(bufferSize);
+            directBuffers[i] = ByteBuffer.allocateDirect(bufferSize);
+        }
+    }
+
+    @AfterExperiment
+    protected void tearDown() throws Exception {
+        devNull.close();
+        file.delete();
+    }
+
+    public void timeStreamsCopy_file(int reps) throws IOException {
+        for (int i = 0; i < reps; i++) {
+            try (FileInputStream in = new FileInputStream(file)) {
+                Streams.copy(in, devNull);
+            }
+        }
+    }
+
+    public void timeBufferCopy_file(int reps) throws IOException {
+        for (int i = 0; i < reps; i++) {
+            try (FileInputStream in = new FileInputStream(file)) {
+                bufferCopy(in, devNull);
+            }
+        }
+    }
+
+    public void timeStreamsCopy_pipe(int reps) throws Exception {
+        for (int i = 0; i < reps; i++) {
+            copyFromPipe(true);
+        }
+    }
+
+    public void timeBufferCopy_pipe(int reps) throws Exception {
+        for (int i = 0; i < reps; i++) {
+            copyFromPipe(false);
+        }
+    }
+
+    public void timeTransferTo(int reps) throws IOException {
+        for (int i = 0; i < reps; i++) {
+            try (FileChannel in = new FileInputStream(file).getChannel()) {
+                in.transferTo(0, size, devNullChannel);
+            }
+        }
+    }
+
+    public void timeTransferTo_arbitraryChannel(int reps) throws IOException {
+        // Wrapping the target hides its file descriptor, which forces a buffered copy.
+        WritableByteChannel target = Channels.newChannel(devNull);
+        for (int i = 0; i < reps; i++) {
+            try (FileChannel in = new FileInputStream(file).getChannel()) {
+                in.transferTo(0, size, target);
+            }
+        }
+    }
+
+    public void timeGatheringWrite_heap(int reps) throws IOException {
+        for (int i = 0; i < reps; i++) {
+            for (ByteBuffer buffer : heapBuffers) {
+                buffer.clear();
+            }
+            devNullChannel.write(heapBuffers);
+        }
+    }
+
+    public void timeGatheringWrite_direct(int reps) throws IOException {
+        for (int i = 0; i < reps; i++) {
+            for (ByteBuffer buffer : directBuffers) {
+                buffer.clear();
+            }
+            devNullChannel.write(directBuffers);
+        }
+    }
+
+    private void copyFromPipe(boolean streamsCopy) throws Exception {
+        FileDescriptor[] pipe = Os.pipe();
+        Thread writer = new Thread(() -> {
+            try {
+                new FileOutputStream(pipe[1]).write(data);
+                IoUtils.close(pipe[1]);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        });
+        writer.start();
+        try {
+            FileInputStream in = new FileInputStream(pipe[0]);
+            if (streamsCopy) {
+                Streams.copy(in, devNull);
+            } else {
+                bufferCopy(in, devNull);
+            }
+        } finally {
+            writer.join();
+            IoUtils.closeQuietly(pipe[0]);
+        }
+    }
+
+    private void bufferCopy(InputStream in, OutputStream out) throws IOException {
+        int count;
+        while ((count = in.read(copyBuffer)) != -1) {
+            out.write(copyBuffer, 0, count);
+        }
+    }
+}
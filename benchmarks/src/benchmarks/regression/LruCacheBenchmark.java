@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks.regression;
+
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Param;
+import libcore.util.BasicLruCache;
+import libcore.util.ConcurrentLruCache;
+
+/**
+ * Compares {@link BasicLruCache} and {@link ConcurrentLruCache} when read from
+ * several threads at once. Each thread reads keys from a working set that is
+ * slightly larger than the cache, so most reads hit and a few create and evict.
+ */
+public class LruCacheBenchmark {
+    private static final int MAX_SIZE = 64;
+    private static final int KEY_COUNT = 80;
+
+    enum CacheType { BASIC, CONCURRENT }
+
+    @Param CacheType cacheType;
+    @Param({"1", "2", "4", "8"}) int threadCount;
+
+    private Cache cache;
+    private Integer[] keys;
+
+    /** The minimal surface shared by both caches. */
+    private interface Cache {
+        Integer get(Integer key);
+    }
+
+    @BeforeExperiment
+    protected void setUp() throws Exception {
+        keys = new Integer[KEY_COUNT];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+        }
+        if (cacheType == CacheType.BASIC) {
+            final BasicLruCache<Integer, Integer> basic =
+                    new BasicLruCache<Integer, Integer>(MAX_SIZE) {
+                @Override protected Integer create(Integer key) {
+                    return key;
+                }
+            };
+            cache = new Cache() {
+                @Override public Integer get(Integer key) {
+                    return basic.get(key);
+                }
+            };
+        } else {
+            final ConcurrentLruCache<Integer, Integer> concurrent =
+                    new ConcurrentLruCache<Integer, Integer>(MAX_SIZE) {
+                @Override protected Integer create(Integer key) {
+                    return key;
+                }
+            };
+            cache = new Cache() {
+                @Override public Integer get(Integer key) {
+                    return concurrent.get(key);
+                }
+            };
+        }
+    }
+
+    public void timeGet(final int reps) throws Exception {
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t * 7;
+            threads[t] = new Thread() {
+                @Override public void run() {
+                    for (int i = 0; i < reps; i++) {
+                        cache.get(keys[(i * 13 + offset) % KEY_COUNT]);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+}
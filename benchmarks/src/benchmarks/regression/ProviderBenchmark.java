@@ -16,8 +16,12 @@
 
 package benchmarks.regression;
 
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.Provider;
 import java.security.Security;
+import java.security.Signature;
 import javax.crypto.Cipher;
 
 public class ProviderBenchmark {
@@ -27,6 +31,34 @@ public class ProviderBenchmark {
         }
     }
 
+    public void timeMessageDigestGetInstance(int reps) throws Exception {
+        for (int i = 0; i < reps; ++i) {
+            MessageDigest.getInstance("SHA-256");
+        }
+    }
+
+    public void timeSignatureGetInstance(int reps) throws Exception {
+        for (int i = 0; i < reps; ++i) {
+            Signature.getInstance("SHA256withRSA");
+        }
+    }
+
+    public void timeKeyFactoryGetInstance(int reps) throws Exception {
+        for (int i = 0; i < reps; ++i) {
+            KeyFactory.getInstance("EC");
+        }
+    }
+
+    /** Looks up an algorithm that no provider supports. */
+    public void timeMissingAlgorithm(int reps) throws Exception {
+        for (int i = 0; i < reps; ++i) {
+            try {
+                MessageDigest.getInstance("MISSING");
+            } catch (NoSuchAlgorithmException expected) {
+            }
+        }
+    }
+
     public void timeWithNewProvider(int reps) throws Exception {
         for (int i = 0; i < reps; ++i) {
             Security.addProvider(new MockProvider());
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks.regression;
+
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Param;
+import java.security.Provider;
+import java.security.Security;
+
+/**
+ * Looks up services of the default providers from several threads at once, as crypto-heavy apps
+ * do, to measure contention on the providers.
+ */
+public class ProviderGetServiceBenchmark {
+    private static final String[][] SERVICES = {
+        { "MessageDigest", "SHA-256" },
+        { "Signature", "SHA256withECDSA" },
+        { "Mac", "HmacSHA256" },
+        { "Cipher", "AES/GCM/NoPadding" },
+        { "KeyFactory", "EC" },
+    };
+
+    @Param({ "1", "2", "4", "8", "16" })
+    private int threadCount;
+
+    private Provider[] providers;
+
+    @BeforeExperiment
+    protected void setUp() throws Exception {
+        providers = Security.getProviders();
+    }
+
+    public void timeGetService(final int reps) throws Exception {
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t;
+            threads[t] = new Thread() {
+                @Override public void run() {
+                    for (int i = 0; i < reps; ++i) {
+                        String[] service = SERVICES[(i + offset) % SERVICES.length];
+                        for (Provider provider : providers) {
+                            provider.getService(service[0], service[1]);
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    public void timeGetServices(final int reps) throws Exception {
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override public void run() {
+                    for (int i = 0; i < reps; ++i) {
+                        for (Provider provider : providers) {
+                            provider.getServices();
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+}
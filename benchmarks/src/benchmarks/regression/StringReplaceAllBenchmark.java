@@ -73,4 +73,22 @@ public class StringReplaceAllBenchmark {
             s.value.replaceAll("qrst", "0");
         }
     }
+
+    public void timeReplaceAllCharacterClass(int reps) {
+        for (int i = 0; i < reps; ++i) {
+            s.value.replaceAll("[aeiou]+", "_");
+        }
+    }
+
+    public void timeReplaceFirstGroup(int reps) {
+        for (int i = 0; i < reps; ++i) {
+            s.value.replaceFirst("(q)(r)", "$2$1");
+        }
+    }
+
+    public void timeMatches(int reps) {
+        for (int i = 0; i < reps; ++i) {
+            s.value.matches("[a-p]*qrstuvwx");
+        }
+    }
 }
@@ -56,4 +56,16 @@ public class StringSplitBenchmark {
             "this,is,a,harder,example".split("[,]");
         }
     }
+
+    public void timeStringSplitWhitespace(int reps) {
+        for (int i = 0; i < reps; ++i) {
+            "this  is\ta harder\n example".split("\\s+");
+        }
+    }
+
+    public void timePatternCompileSplitWhitespace(int reps) {
+        for (int i = 0; i < reps; ++i) {
+            Pattern.compile("\\s+").split("this  is\ta harder\n example");
+        }
+    }
 }
@@ -16,9 +16,19 @@
 
 package benchmarks.regression;
 
+import com.google.caliper.BeforeExperiment;
+import java.util.Arrays;
 import java.util.TimeZone;
 
 public class TimeZoneBenchmark {
+    private String[] manyIds;
+
+    @BeforeExperiment
+    protected void setUp() throws Exception {
+        String[] ids = TimeZone.getAvailableIDs();
+        manyIds = Arrays.copyOf(ids, Math.min(500, ids.length));
+    }
+
     public void timeTimeZone_getDefault(int reps) throws Exception {
         for (int rep = 0; rep < reps; ++rep) {
             TimeZone.getDefault();
@@ -57,4 +67,18 @@ public class TimeZoneBenchmark {
             TimeZone.getTimeZone("GMT+10");
         }
     }
+
+    // Rotates through up to 500 different zones, as a server formatting times for users
+    // around the world might. This mostly misses any small cache of parsed zones.
+    public void timeTimeZone_getTimeZone_rotating(int reps) throws Exception {
+        for (int rep = 0; rep < reps; ++rep) {
+            TimeZone.getTimeZone(manyIds[rep % manyIds.length]);
+        }
+    }
+
+    public void timeTimeZone_getAvailableIDs_rawOffset(int reps) throws Exception {
+        for (int rep = 0; rep < reps; ++rep) {
+            TimeZone.getAvailableIDs(3600000);
+        }
+    }
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks.regression;
+
+import com.google.caliper.BeforeExperiment;
+import com.google.caliper.Param;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import libcore.java.security.TestKeyStore;
+import sun.security.x509.X509CertImpl;
+
+/**
+ * Converts the certificates of a server chain to {@link X509CertImpl}, as certification path
+ * validation does for every chain it checks, from several threads at once.
+ */
+public class X509CertChainBenchmark {
+    @Param({ "1", "4", "16" })
+    private int threadCount;
+
+    private X509Certificate[] chain;
+    private byte[][] encodedChain;
+
+    @BeforeExperiment
+    protected void setUp() throws Exception {
+        Certificate[] certificates =
+                TestKeyStore.getServer().getPrivateKey("RSA", "RSA").getCertificateChain();
+        chain = new X509Certificate[certificates.length];
+        encodedChain = new byte[certificates.length][];
+        for (int i = 0; i < certificates.length; i++) {
+            chain[i] = (X509Certificate) certificates[i];
+            encodedChain[i] = certificates[i].getEncoded();
+        }
+    }
+
+    /** Looks up each certificate in the cache of parsed certificates. */
+    public void timeToImpl(final int reps) throws Exception {
+        runThreads(new Runnable() {
+            @Override public void run() {
+                try {
+                    for (int i = 0; i < reps; ++i) {
+                        for (X509Certificate certificate : chain) {
+                            X509CertImpl.toImpl(certificate);
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+    }
+
+    /** Parses each certificate without the cache. */
+    public void timeParse(final int reps) throws Exception {
+        runThreads(new Runnable() {
+            @Override public void run() {
+                try {
+                    for (int i = 0; i < reps; ++i) {
+                        for (byte[] encoded : encodedChain) {
+                            new X509CertImpl(encoded);
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+    }
+
+    private void runThreads(Runnable runnable) throws Exception {
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(runnable);
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks.regression;
+
+import com.google.caliper.BeforeExperiment;
+import java.security.cert.Certificate;
+import libcore.java.security.TestKeyStore;
+import sun.security.x509.X509CertImpl;
+
+/**
+ * Parses the certificates of a server chain with {@link X509CertImpl}, which backs certificate
+ * path validation and JAR verification. Run with caliper's allocation instrument to see the memory
+ * each certificate costs.
+ */
+public class X509CertParseBenchmark {
+    private byte[][] encodedChain;
+
+    @BeforeExperiment
+    protected void setUp() throws Exception {
+        Certificate[] certificates =
+                TestKeyStore.getServer().getPrivateKey("RSA", "RSA").getCertificateChain();
+        encodedChain = new byte[certificates.length][];
+        for (int i = 0; i < certificates.length; i++) {
+            encodedChain[i] = certificates[i].getEncoded();
+        }
+    }
+
+    public void timeParse(int reps) throws Exception {
+        for (int i = 0; i < reps; ++i) {
+            for (byte[] encoded : encodedChain) {
+                new X509CertImpl(encoded);
+            }
+        }
+    }
+
+    /** Parses and reads one extension and the critical ones, as path validation does. */
+    public void timeParseAndCheckExtensions(int reps) throws Exception {
+        for (int i = 0; i < reps; ++i) {
+            for (byte[] encoded : encodedChain) {
+                X509CertImpl certificate = new X509CertImpl(encoded);
+                certificate.getCriticalExtensionOIDs();
+                certificate.getBasicConstraints();
+            }
+        }
+    }
+}
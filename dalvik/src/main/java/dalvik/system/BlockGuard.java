@@ -20,6 +20,7 @@ import libcore.util.NonNull;
 
 import dalvik.annotation.compat.UnsupportedAppUsage;
 import java.util.Objects;
+import libcore.io.IoTracker;
 
 /**
  * Interface that enables {@code StrictMode} to install callbacks to implement
@@ -254,5 +255,65 @@ public final class BlockGuard {
         vmPolicy = Objects.requireNonNull(policy);
     }
 
+    /**
+     * Enables or disables the collection of I/O statistics by the core libraries, for telemetry.
+     * While enabled, the size and latency of every read and write system call made through
+     * {@code libcore.io.Libcore.os} is recorded in process-wide histograms. Collection is
+     * disabled by default.
+     *
+     * @hide
+     */
+    public static void setIoStatsEnabled(boolean enabled) {
+        IoTracker.setStatsEnabled(enabled);
+    }
+
+    /**
+     * Returns whether I/O statistics are being collected.
+     *
+     * @hide
+     */
+    public static boolean isIoStatsEnabled() {
+        return IoTracker.isStatsEnabled();
+    }
+
+    /**
+     * Returns a copy of the histogram of read or write system call sizes for the given kind of
+     * file descriptor. Element {@code i} counts the calls that transferred between
+     * {@code 2^(i-1)} and {@code 2^i - 1} bytes; element {@code 0} counts those that
+     * transferred nothing.
+     *
+     * @param fdType {@link IoTracker#FD_TYPE_FILE} or {@link IoTracker#FD_TYPE_SOCKET}
+     * @param write {@code true} for writes, {@code false} for reads
+     * @hide
+     */
+    public static @NonNull long[] getIoSizeHistogram(int fdType, boolean write) {
+        return IoTracker.getSizeHistogram(
+                fdType, write ? IoTracker.Mode.WRITE : IoTracker.Mode.READ);
+    }
+
+    /**
+     * Returns a copy of the histogram of read or write system call latencies for the given kind
+     * of file descriptor. Element {@code i} counts the calls that took between
+     * {@code 2^(i-1)} and {@code 2^i - 1} nanoseconds; the last element also counts all slower
+     * calls.
+     *
+     * @param fdType {@link IoTracker#FD_TYPE_FILE} or {@link IoTracker#FD_TYPE_SOCKET}
+     * @param write {@code true} for writes, {@code false} for reads
+     * @hide
+     */
+    public static @NonNull long[] getIoLatencyHistogram(int fdType, boolean write) {
+        return IoTracker.getLatencyHistogram(
+                fdType, write ? IoTracker.Mode.WRITE : IoTracker.Mode.READ);
+    }
+
+    /**
+     * Clears the I/O statistics collected so far.
+     *
+     * @hide
+     */
+    public static void resetIoStats() {
+        IoTracker.resetStats();
+    }
+
     private BlockGuard() {}
 }
@@ -17,6 +17,7 @@
 package dalvik.system;
 
 import dalvik.annotation.compat.UnsupportedAppUsage;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * CloseGuard is a mechanism for flagging implicit finalizer cleanup of
@@ -134,6 +135,12 @@ public final class CloseGuard {
      */
     private static volatile Tracker currentTracker = null; // Disabled by default.
 
+    /**
+     * While stack capture and tracking are enabled, only one in this many calls to open()
+     * captures a stack and is tracked. The others behave as if CloseGuard was disabled.
+     */
+    private static volatile int sampleInterval = 1;
+
     /**
      * Returns a CloseGuard instance. {@code #open(String)} can be used to set
      * up the instance to warn on failure to close.
@@ -191,8 +198,8 @@ public final class CloseGuard {
      * The Tracker is invoked only if CloseGuard {@link #isEnabled()} held when {@link #open()}
      * was called. A null argument disables tracking.
      *
-     * <p>This is only intended for use by {@code dalvik.system.CloseGuardSupport} class and so
-     * MUST NOT be used for any other purposes.
+     * <p>This is only intended for use by {@code dalvik.system.CloseGuardSupport} class and
+     * {@link SampledCloseGuardTracker} and so MUST NOT be used for any other purposes.
      */
     public static void setTracker(Tracker tracker) {
         currentTracker = tracker;
@@ -202,13 +209,41 @@ public final class CloseGuard {
      * Returns {@link #setTracker(Tracker) last Tracker that was set}, or null to indicate
      * there is none.
      *
-     * <p>This is only intended for use by {@code dalvik.system.CloseGuardSupport} class and so
-     * MUST NOT be used for any other purposes.
+     * <p>This is only intended for use by {@code dalvik.system.CloseGuardSupport} class and
+     * {@link SampledCloseGuardTracker} and so MUST NOT be used for any other purposes.
      */
     public static Tracker getTracker() {
         return currentTracker;
     }
 
+    /**
+     * Sets how many calls to {@link #open(String)} share one stack capture while CloseGuard
+     * {@link #isEnabled() is enabled}: a value of {@code n} captures the stack of, and reports
+     * to the {@link Tracker} and {@link Reporter}, about one in {@code n} opened resources,
+     * picked at random. Resources opened without capturing a stack behave as if CloseGuard was
+     * disabled when they were opened. The default of 1 captures every stack.
+     *
+     * @throws IllegalArgumentException if {@code interval} is less than 1.
+     */
+    public static void setSampleInterval(int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("interval < 1: " + interval);
+        }
+        sampleInterval = interval;
+    }
+
+    /**
+     * Returns the value last passed to {@link #setSampleInterval(int)}.
+     */
+    public static int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    private static boolean isSampled() {
+        int interval = sampleInterval;
+        return interval == 1 || ThreadLocalRandom.current().nextInt(interval) == 0;
+    }
+
     @UnsupportedAppUsage
     private CloseGuard() {}
 
@@ -228,8 +263,8 @@ public final class CloseGuard {
         if (closer == null) {
             throw new NullPointerException("closer == null");
         }
-        // ...but avoid allocating an allocation stack if "disabled"
-        if (!stackAndTrackingEnabled) {
+        // ...but avoid allocating an allocation stack if "disabled" or not sampled
+        if (!stackAndTrackingEnabled || !isSampled()) {
             closerNameOrAllocationInfo = closer;
             return;
         }
@@ -283,6 +318,10 @@ public final class CloseGuard {
                         "A resource was acquired at attached stack trace but never released. ";
                 message += "See java.io.Closeable for information on avoiding resource leaks.";
                 Throwable stack = (Throwable) closerNameOrAllocationInfo;
+                Tracker tracker = currentTracker;
+                if (tracker != null) {
+                    tracker.leaked(stack);
+                }
                 reporter.report(message, stack);
             }
         }
@@ -291,12 +330,19 @@ public final class CloseGuard {
     /**
      * Interface to allow customization of tracking behaviour.
      *
-     * <p>This is only intended for use by {@code dalvik.system.CloseGuardSupport} class and so
-     * MUST NOT be used for any other purposes.
+     * <p>This is only intended for use by {@code dalvik.system.CloseGuardSupport} class and
+     * {@link SampledCloseGuardTracker} and so MUST NOT be used for any other purposes.
      */
     public interface Tracker {
         void open(Throwable allocationSite);
         void close(Throwable allocationSite);
+
+        /**
+         * Called when a resource whose {@link #open(Throwable)} was tracked is found to be
+         * unreachable without having been closed. Its owner may still call close() afterwards.
+         */
+        default void leaked(Throwable allocationSite) {
+        }
     }
 
     /**
@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dalvik.system;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link CloseGuard.Tracker} that aggregates opened, closed and leaked resources by the call
+ * site that opened them, cheaply enough to be left on in production when combined with
+ * {@link CloseGuard#setSampleInterval(int) sampling}.
+ *
+ * <p>Call sites are identified by the innermost 16 frames of the stack captured by
+ * {@link CloseGuard#open(String)}. They are told apart by a hash of the frames as the runtime
+ * recorded them, so the stack trace elements are only built for the first resource opened at
+ * each call site. At most 512 distinct call sites are kept; resources opened elsewhere are
+ * counted against a single call site with an empty stack.
+ *
+ * @hide
+ */
+public final class SampledCloseGuardTracker implements CloseGuard.Tracker {
+
+    /** Number of frames, below {@code CloseGuard.open}, that identify a call site. */
+    private static final int MAX_FRAMES = 16;
+
+    /** Maximum number of distinct call sites kept. */
+    private static final int MAX_CALL_SITES = 512;
+
+    /**
+     * Maximum number of sampled resources that are open at the same time and tracked. Further
+     * resources are only counted as opened, and as {@link #getDroppedOpenCount() dropped}.
+     */
+    private static final int MAX_OPEN = 16 * 1024;
+
+    /** Number of locks the open resources are split between. A power of two. */
+    private static final int OPEN_STRIPES = 16;
+
+    // Keyed by the Long hash of the recorded frames, or by a CallSiteKey when the runtime did not
+    // record them.
+    private final ConcurrentHashMap<Object, CallSite> callSites = new ConcurrentHashMap<>();
+
+    private final CallSite overflow = new CallSite(new StackTraceElement[0]);
+
+    // The call site of each open, tracked resource, split by the identity hash of its allocation
+    // site. Each map is guarded by itself and holds at most MAX_OPEN / OPEN_STRIPES entries.
+    private final Map<Throwable, CallSite>[] open;
+
+    private final LongAdder droppedOpens = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public SampledCloseGuardTracker() {
+        open = new Map[OPEN_STRIPES];
+        for (int i = 0; i < OPEN_STRIPES; i++) {
+            open[i] = new IdentityHashMap<>();
+        }
+    }
+
+    /**
+     * Enables CloseGuard with the given {@link CloseGuard#setSampleInterval(int) sample
+     * interval} and installs a new tracker. Returns the tracker.
+     */
+    public static SampledCloseGuardTracker install(int sampleInterval) {
+        SampledCloseGuardTracker tracker = new SampledCloseGuardTracker();
+        CloseGuard.setSampleInterval(sampleInterval);
+        CloseGuard.setTracker(tracker);
+        CloseGuard.setEnabled(true);
+        return tracker;
+    }
+
+    @Override
+    public void open(Throwable allocationSite) {
+        CallSite callSite = getCallSite(allocationSite);
+        callSite.opened.increment();
+        Map<Throwable, CallSite> stripe = openStripe(allocationSite);
+        synchronized (stripe) {
+            if (stripe.size() < MAX_OPEN / OPEN_STRIPES) {
+                stripe.put(allocationSite, callSite);
+                return;
+            }
+        }
+        droppedOpens.increment();
+    }
+
+    @Override
+    public void close(Throwable allocationSite) {
+        CallSite callSite = removeOpen(allocationSite);
+        // Owners often close a resource in their finalizer after it was reported as leaked;
+        // that close is not counted.
+        if (callSite != null) {
+            callSite.closed.increment();
+        }
+    }
+
+    @Override
+    public void leaked(Throwable allocationSite) {
+        CallSite callSite = removeOpen(allocationSite);
+        if (callSite != null) {
+            callSite.leaked.increment();
+        }
+    }
+
+    /**
+     * Returns the counts for every call site that opened a tracked resource, ordered by the
+     * number of leaked resources, most first.
+     */
+    public List<CallSiteStats> snapshot() {
+        List<CallSiteStats> result = new ArrayList<>(callSites.size() + 1);
+        for (CallSite callSite : callSites.values()) {
+            result.add(callSite.snapshot());
+        }
+        if (overflow.opened.sum() != 0) {
+            result.add(overflow.snapshot());
+        }
+        result.sort((a, b) -> Long.compare(b.getLeakedCount(), a.getLeakedCount()));
+        return result;
+    }
+
+    /**
+     * Returns the number of sampled resources that were not tracked because too many others,
+     * about 16K, were open. Their close or leak is not counted.
+     */
+    public long getDroppedOpenCount() {
+        return droppedOpens.sum();
+    }
+
+    /**
+     * Discards all counts. Resources that are currently open are no longer tracked.
+     */
+    public void reset() {
+        for (Map<Throwable, CallSite> stripe : open) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+        callSites.clear();
+        overflow.reset();
+        droppedOpens.reset();
+    }
+
+    private Map<Throwable, CallSite> openStripe(Throwable allocationSite) {
+        return open[System.identityHashCode(allocationSite) & (OPEN_STRIPES - 1)];
+    }
+
+    private CallSite removeOpen(Throwable allocationSite) {
+        Map<Throwable, CallSite> stripe = openStripe(allocationSite);
+        synchronized (stripe) {
+            return stripe.remove(allocationSite);
+        }
+    }
+
+    private CallSite getCallSite(Throwable allocationSite) {
+        // Skip CloseGuard.open itself.
+        long hash = Throwable.getStackTraceHash(allocationSite, 1, MAX_FRAMES);
+        Object key = null;
+        if (hash != 0) {
+            key = hash;
+            CallSite callSite = callSites.get(key);
+            if (callSite != null) {
+                return callSite;
+            }
+            if (callSites.size() >= MAX_CALL_SITES) {
+                return overflow;
+            }
+        }
+        StackTraceElement[] stack = allocationSite.getStackTrace();
+        int from = Math.min(1, stack.length);
+        int to = Math.min(stack.length, from + MAX_FRAMES);
+        StackTraceElement[] frames = Arrays.copyOfRange(stack, from, to);
+        if (key == null) {
+            key = new CallSiteKey(frames);
+        }
+        CallSite callSite = callSites.get(key);
+        if (callSite == null) {
+            if (callSites.size() >= MAX_CALL_SITES) {
+                return overflow;
+            }
+            CallSite newCallSite = new CallSite(frames);
+            callSite = callSites.putIfAbsent(key, newCallSite);
+            if (callSite == null) {
+                callSite = newCallSite;
+            }
+        }
+        return callSite;
+    }
+
+    /**
+     * Counts of resources opened at one call site.
+     */
+    public static final class CallSiteStats {
+        private final StackTraceElement[] stackTrace;
+        private final long openedCount;
+        private final long closedCount;
+        private final long leakedCount;
+
+        CallSiteStats(StackTraceElement[] stackTrace, long openedCount, long closedCount,
+                long leakedCount) {
+            this.stackTrace = stackTrace;
+            this.openedCount = openedCount;
+            this.closedCount = closedCount;
+            this.leakedCount = leakedCount;
+        }
+
+        /** Returns the innermost frames of the call site, or an empty array for overflow. */
+        public StackTraceElement[] getStackTrace() {
+            return stackTrace.clone();
+        }
+
+        /** Returns the number of sampled resources opened at this call site. */
+        public long getOpenedCount() {
+            return openedCount;
+        }
+
+        /** Returns the number of those that were closed explicitly. */
+        public long getClosedCount() {
+            return closedCount;
+        }
+
+        /** Returns the number of those that became unreachable without being closed. */
+        public long getLeakedCount() {
+            return leakedCount;
+        }
+    }
+
+    private static final class CallSite {
+        final StackTraceElement[] frames;
+        final LongAdder opened = new LongAdder();
+        final LongAdder closed = new LongAdder();
+        final LongAdder leaked = new LongAdder();
+
+        CallSite(StackTraceElement[] frames) {
+            this.frames = frames;
+        }
+
+        void reset() {
+            opened.reset();
+            closed.reset();
+            leaked.reset();
+        }
+
+        CallSiteStats snapshot() {
+            return new CallSiteStats(frames, opened.sum(), closed.sum(), leaked.sum());
+        }
+    }
+
+    private static final class CallSiteKey {
+        final StackTraceElement[] frames;
+        final int hash;
+
+        CallSiteKey(StackTraceElement[] frames) {
+            this.frames = frames;
+            this.hash = Arrays.hashCode(frames);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CallSiteKey
+                    && ((CallSiteKey) o).hash == hash
+                    && Arrays.equals(((CallSiteKey) o).frames, frames);
+        }
+    }
+}
@@ -20,6 +20,7 @@ import dalvik.annotation.compat.UnsupportedAppUsage;
 import dalvik.annotation.optimization.FastNative;
 import java.io.FileDescriptor;
 import java.io.IOException;
+import java.lang.Daemons;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -593,4 +594,27 @@ public final class VMDebug {
      */
     @libcore.api.CorePlatformApi
     public static native void setAllocTrackerStackDepth(int stackDepth);
+
+    /**
+     * Enables or disables recording of per-class finalization statistics.
+     *
+     * @param enabled whether to record statistics for objects finalized from now on.
+     */
+    @libcore.api.CorePlatformApi
+    public static void setFinalizerStatsEnabled(boolean enabled) {
+        Daemons.setFinalizerStatsEnabled(enabled);
+    }
+
+    /**
+     * Returns the finalization statistics recorded since they were enabled, keyed by class
+     * name. Each value holds the number of finalized instances, the total time spent in their
+     * {@code finalize()} methods and the longest single call, in that order, with times in
+     * nanoseconds.
+     *
+     * @return a map from class names to finalization statistics.
+     */
+    @libcore.api.CorePlatformApi
+    public static Map<String, long[]> getFinalizerStats() {
+        return Daemons.getFinalizerStats();
+    }
 }
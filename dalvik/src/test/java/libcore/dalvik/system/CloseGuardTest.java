@@ -15,6 +15,13 @@
  */
 package libcore.dalvik.system;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TestRule;
@@ -22,6 +29,8 @@ import org.junit.runner.Description;
 import org.junit.runners.model.Statement;
 
 import dalvik.system.CloseGuard;
+import dalvik.system.SampledCloseGuardTracker;
+import dalvik.system.SampledCloseGuardTracker.CallSiteStats;
 
 /**
  * Tests {@link CloseGuard}.
@@ -48,6 +57,16 @@ public class CloseGuardTest {
         };
     }
 
+    @Before
+    public void setUp() {
+        CloseGuard.setSampleInterval(1);
+    }
+
+    @After
+    public void tearDown() {
+        CloseGuard.setSampleInterval(1);
+    }
+
     @Test
     public void testEnabled_NotOpen() throws Throwable {
         CloseGuard.setEnabled(true);
@@ -130,6 +149,82 @@ public class CloseGuardTest {
         assertUnreleasedResources(owner, 1);
     }
 
+    @Test
+    public void testSampleInterval_Invalid() {
+        try {
+            CloseGuard.setSampleInterval(0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(1, CloseGuard.getSampleInterval());
+    }
+
+    @Test
+    public void testSampleInterval_MostResourcesNotTracked() throws Throwable {
+        CloseGuard.setEnabled(true);
+        CloseGuard.setSampleInterval(Integer.MAX_VALUE);
+        // The chance of any of these being sampled is negligible.
+        for (int i = 0; i < 10; i++) {
+            ResourceOwner owner = new ResourceOwner();
+            owner.open();
+            assertUnreleasedResources(owner, 0);
+        }
+    }
+
+    @Test
+    public void testSampledTracker() throws Throwable {
+        CloseGuard.Tracker oldTracker = CloseGuard.getTracker();
+        CloseGuard.Reporter oldReporter = CloseGuard.getReporter();
+        CloseGuard.setReporter((message, allocationSite) -> {});
+        SampledCloseGuardTracker tracker = SampledCloseGuardTracker.install(1);
+        try {
+            // Open all resources on the same line so that they share a call site.
+            for (int i = 0; i < 4; i++) {
+                ResourceOwner owner = new ResourceOwner();
+                owner.open();
+                if (i < 3) {
+                    owner.close();
+                } else {
+                    owner.finalize();
+                    // Closing a resource after it was reported as leaked is not counted.
+                    owner.close();
+                }
+            }
+
+            List<CallSiteStats> stats = tracker.snapshot();
+            assertEquals(1, stats.size());
+            CallSiteStats callSite = stats.get(0);
+            assertEquals(4, callSite.getOpenedCount());
+            assertEquals(3, callSite.getClosedCount());
+            assertEquals(1, callSite.getLeakedCount());
+            assertEquals(ResourceOwner.class.getName(),
+                    callSite.getStackTrace()[0].getClassName());
+            assertTrue(callSite.getStackTrace().length <= 16);
+            assertEquals(0, tracker.getDroppedOpenCount());
+
+            tracker.reset();
+            assertTrue(tracker.snapshot().isEmpty());
+        } finally {
+            CloseGuard.setTracker(oldTracker);
+            CloseGuard.setReporter(oldReporter);
+        }
+    }
+
+    @Test
+    public void testSampledTracker_DropsOpensPastLimit() {
+        SampledCloseGuardTracker tracker = new SampledCloseGuardTracker();
+        int count = 20000;
+        for (int i = 0; i < count; i++) {
+            tracker.open(new Throwable());
+        }
+        // At most 16K resources are tracked while open.
+        assertTrue(tracker.getDroppedOpenCount() >= count - 16 * 1024);
+        assertEquals(count, tracker.snapshot().get(0).getOpenedCount());
+
+        tracker.reset();
+        assertEquals(0, tracker.getDroppedOpenCount());
+    }
+
     private void assertUnreleasedResources(ResourceOwner owner, int expectedCount)
             throws Throwable {
         try {
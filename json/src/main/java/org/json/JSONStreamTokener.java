@@ -0,0 +1,941 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Parses JSON from a {@link Reader} through a fixed-size buffer, so that the
+ * input never has to be held in memory at once. This accepts the same lenient
+ * syntax as {@link JSONTokener}, and {@link #nextValue} returns the same
+ * values.
+ *
+ * <p>Besides reading whole values, callers can step through objects and
+ * arrays and skip the values they don't need without building them: <pre>
+ * JSONStreamTokener tokener = new JSONStreamTokener(in);
+ * tokener.beginObject();
+ * while (tokener.hasNext()) {
+ *     if (tokener.nextName().equals("locations")) {
+ *         JSONArray locations = (JSONArray) tokener.nextValue();
+ *         ...
+ *     } else {
+ *         tokener.skipValue();
+ *     }
+ * }
+ * tokener.endObject();</pre>
+ *
+ * <p>Numbers are parsed directly from the buffer. A tokener can be {@link
+ * #reset reset} to parse another input with the same buffer. Instances of
+ * this class are not thread safe.
+ *
+ * @hide
+ */
+public final class JSONStreamTokener {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /*
+     * The states of an enclosing array or object. The PEEKED states mean that
+     * hasNext() has returned true and the element or name is yet to be read.
+     */
+    private static final int ARRAY_START = 1;
+    private static final int ARRAY_AFTER_VALUE = 2;
+    private static final int ARRAY_AFTER_SEPARATOR = 3;
+    private static final int ARRAY_PEEKED_VALUE = 4;
+    /** An omitted element, as in "[1,,2]". Its separator has been read. */
+    private static final int ARRAY_PEEKED_NULL = 5;
+    /** An omitted last element, as in "[1,]". */
+    private static final int ARRAY_PEEKED_LAST_NULL = 6;
+    private static final int ARRAY_END = 7;
+    private static final int OBJECT_START = 8;
+    private static final int OBJECT_AFTER_VALUE = 9;
+    private static final int OBJECT_PEEKED_NAME = 10;
+    private static final int OBJECT_DANGLING_NAME = 11;
+    private static final int OBJECT_END = 12;
+
+    /** Doubles that are exactly powers of ten. */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+    };
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private Reader in;
+
+    /** The index in buffer of the next character to read. */
+    private int pos;
+
+    /** The index in buffer after the last character read from in. */
+    private int limit;
+
+    /** The number of input characters before buffer[0]. */
+    private long offset;
+
+    private boolean atStart;
+
+    private int[] stack = new int[32];
+    private int stackSize;
+
+    /** The result of the last successful parseLong(). */
+    private long parsedLong;
+
+    /**
+     * @param in the JSON input. The caller remains responsible for closing it.
+     */
+    public JSONStreamTokener(Reader in) {
+        reset(in);
+    }
+
+    /**
+     * @param in the UTF-8 encoded JSON input. The caller remains responsible
+     *     for closing it.
+     */
+    public JSONStreamTokener(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Discards the rest of the current input and starts parsing {@code in},
+     * reusing this tokener's buffer.
+     */
+    public void reset(Reader in) {
+        if (in == null) {
+            throw new NullPointerException("in == null");
+        }
+        this.in = in;
+        pos = 0;
+        limit = 0;
+        offset = 0;
+        atStart = true;
+        stackSize = 0;
+    }
+
+    /**
+     * Returns the next value from the input. In an array, an omitted element
+     * yields null, like it does in the arrays built by {@link JSONTokener}.
+     *
+     * @return a {@link JSONObject}, {@link JSONArray}, String, Boolean,
+     *     Integer, Long, Double, {@link JSONObject#NULL} or null.
+     * @throws JSONException if the input is malformed.
+     */
+    public Object nextValue() throws JSONException {
+        if (beforeValue()) {
+            return null;
+        }
+        return readValue();
+    }
+
+    /**
+     * Skips the next value, including any nested values, without building it.
+     *
+     * @throws JSONException if the input is malformed.
+     */
+    public void skipValue() throws JSONException {
+        if (beforeValue()) {
+            return;
+        }
+        int c = nextCleanInternal();
+        switch (c) {
+            case -1:
+                throw syntaxError("End of input");
+
+            case '{':
+                push(OBJECT_START);
+                while (hasNext()) {
+                    nextName();
+                    skipValue();
+                }
+                endObject();
+                return;
+
+            case '[':
+                push(ARRAY_START);
+                while (hasNext()) {
+                    skipValue();
+                }
+                endArray();
+                return;
+
+            case '\'':
+            case '"':
+                skipString((char) c);
+                return;
+
+            default:
+                pos--;
+                if (!skipLiteral()) {
+                    throw syntaxError("Expected literal value");
+                }
+        }
+    }
+
+    /**
+     * Consumes the opening brace of the next value, which must be an object.
+     * Use {@link #hasNext}, {@link #nextName} and the value methods to read
+     * its members, then {@link #endObject}.
+     */
+    public void beginObject() throws JSONException {
+        if (beforeValue() || nextCleanInternal() != '{') {
+            throw syntaxError("Expected an object");
+        }
+        push(OBJECT_START);
+    }
+
+    /**
+     * Consumes the closing brace of the current object, which must have no
+     * more members.
+     */
+    public void endObject() throws JSONException {
+        int scope = peekScope();
+        if (scope < OBJECT_START) {
+            throw new IllegalStateException("Not in an object");
+        }
+        if (hasNext()) {
+            throw new IllegalStateException("The object has more members");
+        }
+        nextCleanInternal(); // the '}' found by hasNext()
+        stackSize--;
+    }
+
+    /**
+     * Consumes the opening bracket of the next value, which must be an array.
+     * Use {@link #hasNext} and the value methods to read its elements, then
+     * {@link #endArray}.
+     */
+    public void beginArray() throws JSONException {
+        if (beforeValue() || nextCleanInternal() != '[') {
+            throw syntaxError("Expected an array");
+        }
+        push(ARRAY_START);
+    }
+
+    /**
+     * Consumes the closing bracket of the current array, which must have no
+     * more elements.
+     */
+    public void endArray() throws JSONException {
+        int scope = peekScope();
+        if (scope >= OBJECT_START) {
+            throw new IllegalStateException("Not in an array");
+        }
+        if (hasNext()) {
+            throw new IllegalStateException("The array has more elements");
+        }
+        nextCleanInternal(); // the ']' found by hasNext()
+        stackSize--;
+    }
+
+    /**
+     * Returns true if the current object or array has another member or
+     * element.
+     */
+    public boolean hasNext() throws JSONException {
+        int scope = peekScope();
+        switch (scope) {
+            case ARRAY_PEEKED_VALUE:
+            case ARRAY_PEEKED_NULL:
+            case ARRAY_PEEKED_LAST_NULL:
+            case OBJECT_PEEKED_NAME:
+                return true;
+
+            case ARRAY_END:
+            case OBJECT_END:
+                return false;
+
+            case ARRAY_AFTER_VALUE:
+                switch (nextCleanInternal()) {
+                    case ']':
+                        pos--;
+                        stack[stackSize - 1] = ARRAY_END;
+                        return false;
+                    case ',':
+                    case ';':
+                        break;
+                    default:
+                        throw syntaxError("Unterminated array");
+                }
+                // fall through
+            case ARRAY_START:
+            case ARRAY_AFTER_SEPARATOR:
+                int c = nextCleanInternal();
+                switch (c) {
+                    case -1:
+                        throw syntaxError("Unterminated array");
+                    case ']':
+                        pos--;
+                        /* A separator before the end means a null element. */
+                        if (scope == ARRAY_START) {
+                            stack[stackSize - 1] = ARRAY_END;
+                            return false;
+                        }
+                        stack[stackSize - 1] = ARRAY_PEEKED_LAST_NULL;
+                        return true;
+                    case ',':
+                    case ';':
+                        /* A separator without a value first means "null". */
+                        stack[stackSize - 1] = ARRAY_PEEKED_NULL;
+                        return true;
+                    default:
+                        pos--;
+                        stack[stackSize - 1] = ARRAY_PEEKED_VALUE;
+                        return true;
+                }
+
+            case OBJECT_START:
+                int first = nextCleanInternal();
+                if (first == '}') {
+                    pos--;
+                    stack[stackSize - 1] = OBJECT_END;
+                    return false;
+                } else if (first != -1) {
+                    pos--;
+                }
+                stack[stackSize - 1] = OBJECT_PEEKED_NAME;
+                return true;
+
+            case OBJECT_AFTER_VALUE:
+                switch (nextCleanInternal()) {
+                    case '}':
+                        pos--;
+                        stack[stackSize - 1] = OBJECT_END;
+                        return false;
+                    case ';':
+                    case ',':
+                        stack[stackSize - 1] = OBJECT_PEEKED_NAME;
+                        return true;
+                    default:
+                        throw syntaxError("Unterminated object");
+                }
+
+            case OBJECT_DANGLING_NAME:
+                throw new IllegalStateException("Expected a value");
+
+            default:
+                throw new IllegalStateException("Not in an object or array");
+        }
+    }
+
+    /**
+     * Returns the name of the next member of the current object, and
+     * consumes the separator that follows it.
+     */
+    public String nextName() throws JSONException {
+        int scope = peekScope();
+        if (scope < OBJECT_START) {
+            throw new IllegalStateException("Not in an object");
+        }
+        if (!hasNext()) {
+            throw syntaxError("Expected a name");
+        }
+
+        Object name = readValue();
+        if (!(name instanceof String)) {
+            if (name == null) {
+                throw syntaxError("Names cannot be null");
+            } else {
+                throw syntaxError("Names must be strings, but " + name
+                        + " is of type " + name.getClass().getName());
+            }
+        }
+
+        /*
+         * Expect the name/value separator to be either a colon ':', an
+         * equals sign '=', or an arrow "=>". The last two are bogus but we
+         * include them because that's what the original implementation did.
+         */
+        int separator = nextCleanInternal();
+        if (separator != ':' && separator != '=') {
+            throw syntaxError("Expected ':' after " + name);
+        }
+        if ((pos < limit || fill()) && buffer[pos] == '>') {
+            pos++;
+        }
+
+        stack[stackSize - 1] = OBJECT_DANGLING_NAME;
+        return (String) name;
+    }
+
+    /**
+     * Prepares the enclosing scope for a value. Returns true if the value is
+     * an omitted array element, which has already been consumed.
+     */
+    private boolean beforeValue() throws JSONException {
+        if (stackSize == 0) {
+            return false;
+        }
+        int scope = stack[stackSize - 1];
+        if (scope >= OBJECT_START) {
+            if (scope != OBJECT_DANGLING_NAME) {
+                throw new IllegalStateException("Expected a name");
+            }
+            stack[stackSize - 1] = OBJECT_AFTER_VALUE;
+            return false;
+        }
+        if (!hasNext()) {
+            throw syntaxError("Expected a value");
+        }
+        switch (stack[stackSize - 1]) {
+            case ARRAY_PEEKED_NULL:
+                stack[stackSize - 1] = ARRAY_AFTER_SEPARATOR;
+                return true;
+            case ARRAY_PEEKED_LAST_NULL:
+                stack[stackSize - 1] = ARRAY_END;
+                return true;
+            default:
+                stack[stackSize - 1] = ARRAY_AFTER_VALUE;
+                return false;
+        }
+    }
+
+    private Object readValue() throws JSONException {
+        int c = nextCleanInternal();
+        switch (c) {
+            case -1:
+                throw syntaxError("End of input");
+
+            case '{':
+                push(OBJECT_START);
+                JSONObject object = new JSONObject();
+                while (hasNext()) {
+                    String name = nextName();
+                    object.put(name, nextValue());
+                }
+                endObject();
+                return object;
+
+            case '[':
+                push(ARRAY_START);
+                JSONArray array = new JSONArray();
+                while (hasNext()) {
+                    array.put(nextValue());
+                }
+                endArray();
+                return array;
+
+            case '\'':
+            case '"':
+                return nextString((char) c);
+
+            default:
+                pos--;
+                return readLiteral();
+        }
+    }
+
+    private int peekScope() {
+        if (stackSize == 0) {
+            throw new IllegalStateException("Not in an object or array");
+        }
+        return stack[stackSize - 1];
+    }
+
+    private void push(int scope) {
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize++] = scope;
+    }
+
+    private int nextCleanInternal() throws JSONException {
+        while (pos < limit || fill()) {
+            int c = buffer[pos++];
+            switch (c) {
+                case '\t':
+                case ' ':
+                case '\n':
+                case '\r':
+                    continue;
+
+                case '/':
+                    if (pos == limit && !fill()) {
+                        return c;
+                    }
+
+                    char peek = buffer[pos];
+                    switch (peek) {
+                        case '*':
+                            // skip a /* c-style comment */
+                            pos++;
+                            skipComment();
+                            continue;
+
+                        case '/':
+                            // skip a // end-of-line comment
+                            pos++;
+                            skipToEndOfLine();
+                            continue;
+
+                        default:
+                            return c;
+                    }
+
+                case '#':
+                    // Skip a # hash end-of-line comment, like JSONTokener.
+                    skipToEndOfLine();
+                    continue;
+
+                default:
+                    return c;
+            }
+        }
+
+        return -1;
+    }
+
+    private void skipComment() throws JSONException {
+        boolean star = false;
+        while (pos < limit || fill()) {
+            char c = buffer[pos++];
+            if (star && c == '/') {
+                return;
+            }
+            star = (c == '*');
+        }
+        throw syntaxError("Unterminated comment");
+    }
+
+    /**
+     * Advances the position until after the next newline character. If the line
+     * is terminated by "\r\n", the '\n' must be consumed as whitespace by the
+     * caller.
+     */
+    private void skipToEndOfLine() throws JSONException {
+        while (pos < limit || fill()) {
+            char c = buffer[pos++];
+            if (c == '\r' || c == '\n') {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns the string up to but not including {@code quote}, unescaping any
+     * character escape sequences encountered along the way. The opening quote
+     * should have already been read. This consumes the closing quote, but does
+     * not include it in the returned string.
+     */
+    private String nextString(char quote) throws JSONException {
+        /*
+         * Strings that are free of escape sequences and fit in the buffer are
+         * created directly from it. Otherwise we use a StringBuilder.
+         */
+        StringBuilder builder = null;
+
+        /* the index of the first character not yet appended to the builder. */
+        int start = pos;
+
+        while (true) {
+            if (pos == limit) {
+                if (builder == null) {
+                    builder = new StringBuilder();
+                }
+                builder.append(buffer, start, pos - start);
+                if (!fill()) {
+                    throw syntaxError("Unterminated string");
+                }
+                start = pos;
+            }
+
+            char c = buffer[pos++];
+            if (c == quote) {
+                if (builder == null) {
+                    return new String(buffer, start, pos - 1 - start);
+                } else {
+                    builder.append(buffer, start, pos - 1 - start);
+                    return builder.toString();
+                }
+            }
+
+            if (c == '\\') {
+                if (builder == null) {
+                    builder = new StringBuilder();
+                }
+                builder.append(buffer, start, pos - 1 - start);
+                builder.append(readEscapeCharacter());
+                start = pos;
+            }
+        }
+    }
+
+    private void skipString(char quote) throws JSONException {
+        while (pos < limit || fill()) {
+            char c = buffer[pos++];
+            if (c == quote) {
+                return;
+            }
+            if (c == '\\') {
+                readEscapeCharacter();
+            }
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    /**
+     * Unescapes the character identified by the character or characters that
+     * immediately follow a backslash. The backslash '\' should have already
+     * been read.
+     */
+    private char readEscapeCharacter() throws JSONException {
+        if (pos == limit && !fill()) {
+            throw syntaxError("Unterminated escape sequence");
+        }
+        char escaped = buffer[pos++];
+        switch (escaped) {
+            case 'u':
+                while (limit - pos < 4) {
+                    if (!fill()) {
+                        throw syntaxError("Unterminated escape sequence");
+                    }
+                }
+                if (!parseLong(buffer, pos, pos + 4, 16)) {
+                    throw syntaxError("Invalid escape sequence: "
+                            + new String(buffer, pos, 4));
+                }
+                pos += 4;
+                return (char) parsedLong;
+
+            case 't':
+                return '\t';
+
+            case 'b':
+                return '\b';
+
+            case 'n':
+                return '\n';
+
+            case 'r':
+                return '\r';
+
+            case 'f':
+                return '\f';
+
+            case '\'':
+            case '"':
+            case '\\':
+            default:
+                return escaped;
+        }
+    }
+
+    /**
+     * Reads a null, boolean, numeric or unquoted string literal value, like
+     * {@link JSONTokener} does.
+     */
+    private Object readLiteral() throws JSONException {
+        int start = pos;
+        StringBuilder builder = null;
+        while (true) {
+            if (pos == limit) {
+                if (limit - start == buffer.length) {
+                    // This literal fills the buffer. It can't be a number we
+                    // parse from the buffer, so collect it instead.
+                    if (builder == null) {
+                        builder = new StringBuilder();
+                    }
+                    builder.append(buffer, start, pos - start);
+                    start = pos;
+                }
+                boolean more = fill(start);
+                start = 0;
+                if (!more) {
+                    break;
+                }
+            }
+            if (isLiteralEnd(buffer[pos])) {
+                break;
+            }
+            pos++;
+        }
+
+        if (builder != null) {
+            // Such a long literal can only be an unquoted string or a number
+            // with thousands of digits; JSONTokener will tell which.
+            builder.append(buffer, start, pos - start);
+            return new JSONTokener(builder.toString()).nextValue();
+        }
+
+        int length = pos - start;
+        if (length == 0) {
+            throw syntaxError("Expected literal value");
+        } else if (literalEquals(start, length, "null")) {
+            return JSONObject.NULL;
+        } else if (literalEquals(start, length, "true")) {
+            return Boolean.TRUE;
+        } else if (literalEquals(start, length, "false")) {
+            return Boolean.FALSE;
+        }
+
+        /* try to parse as an integral type... */
+        boolean hasDot = false;
+        for (int i = start; i < pos; i++) {
+            if (buffer[i] == '.') {
+                hasDot = true;
+                break;
+            }
+        }
+        if (!hasDot) {
+            int base = 10;
+            int numberStart = start;
+            if (length >= 2 && buffer[start] == '0'
+                    && (buffer[start + 1] == 'x' || buffer[start + 1] == 'X')) {
+                numberStart += 2;
+                base = 16;
+            } else if (buffer[start] == '0' && length > 1) {
+                numberStart += 1;
+                base = 8;
+            }
+            if (parseLong(buffer, numberStart, pos, base)) {
+                long longValue = parsedLong;
+                if (longValue <= Integer.MAX_VALUE && longValue >= Integer.MIN_VALUE) {
+                    return (int) longValue;
+                } else {
+                    return longValue;
+                }
+            }
+        }
+
+        /* ...next try to parse as a floating point... */
+        try {
+            return parseDouble(start, pos);
+        } catch (NumberFormatException ignored) {
+        }
+
+        /* ... finally give up. We have an unquoted string */
+        return new String(buffer, start, length);
+    }
+
+    /** Skips a literal and returns false if it was empty. */
+    private boolean skipLiteral() throws JSONException {
+        boolean empty = true;
+        while ((pos < limit || fill()) && !isLiteralEnd(buffer[pos])) {
+            pos++;
+            empty = false;
+        }
+        return !empty;
+    }
+
+    private static boolean isLiteralEnd(char c) {
+        switch (c) {
+            case '{':
+            case '}':
+            case '[':
+            case ']':
+            case '/':
+            case '\\':
+            case ':':
+            case ',':
+            case '=':
+            case ';':
+            case '#':
+            case ' ':
+            case '\t':
+            case '\f':
+            case '\r':
+            case '\n':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private boolean literalEquals(int start, int length, String lowerCase) {
+        if (length != lowerCase.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (Character.toLowerCase(buffer[start + i]) != lowerCase.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses {@code chars[start, end)} like {@link Long#parseLong(String, int)}
+     * and stores the result in {@link #parsedLong}. Returns false if the
+     * characters are not a long.
+     */
+    private boolean parseLong(char[] chars, int start, int end, int radix) {
+        if (start == end) {
+            return false;
+        }
+        int i = start;
+        boolean negative = false;
+        long limit = -Long.MAX_VALUE;
+        char first = chars[i];
+        if (first < '0') {
+            if (first == '-') {
+                negative = true;
+                limit = Long.MIN_VALUE;
+            } else if (first != '+') {
+                return false;
+            }
+            if (end - start == 1) {
+                return false;
+            }
+            i++;
+        }
+        long multmin = limit / radix;
+        long result = 0;
+        while (i < end) {
+            // Accumulating negatively avoids surprises near MAX_VALUE
+            int digit = Character.digit(chars[i++], radix);
+            if (digit < 0 || result < multmin) {
+                return false;
+            }
+            result *= radix;
+            if (result < limit + digit) {
+                return false;
+            }
+            result -= digit;
+        }
+        parsedLong = negative ? result : -result;
+        return true;
+    }
+
+    /**
+     * Parses {@code buffer[start, end)} like {@link Double#valueOf(String)}.
+     * Plain decimal numbers with up to 15 significant digits and small
+     * exponents are converted exactly with one double multiplication or
+     * division; anything else goes through {@link Double#valueOf(String)}.
+     */
+    private Double parseDouble(int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (buffer[i] == '-' || buffer[i] == '+') {
+            negative = (buffer[i] == '-');
+            i++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean hasDigits = false;
+        for (; i < end && buffer[i] >= '0' && buffer[i] <= '9'; i++) {
+            hasDigits = true;
+            mantissa = mantissa * 10 + (buffer[i] - '0');
+            if (mantissa != 0) {
+                significantDigits++;
+            }
+        }
+        if (i < end && buffer[i] == '.') {
+            for (i++; i < end && buffer[i] >= '0' && buffer[i] <= '9'; i++) {
+                hasDigits = true;
+                mantissa = mantissa * 10 + (buffer[i] - '0');
+                if (mantissa != 0) {
+                    significantDigits++;
+                }
+                exponent--;
+            }
+        }
+        if (i < end && (buffer[i] == 'e' || buffer[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+                negativeExponent = (buffer[i] == '-');
+                i++;
+            }
+            int explicitExponent = 0;
+            int exponentStart = i;
+            for (; i < end && buffer[i] >= '0' && buffer[i] <= '9'
+                    && explicitExponent < 1000; i++) {
+                explicitExponent = explicitExponent * 10 + (buffer[i] - '0');
+            }
+            if (i == exponentStart) {
+                hasDigits = false;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+
+        if (i == end && hasDigits && significantDigits <= 15) {
+            double value;
+            if (mantissa == 0) {
+                value = 0.0;
+            } else if (exponent >= 0 && exponent < POWERS_OF_TEN.length) {
+                value = mantissa * POWERS_OF_TEN[exponent];
+            } else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+                value = mantissa / POWERS_OF_TEN[-exponent];
+            } else {
+                return Double.valueOf(new String(buffer, start, end - start));
+            }
+            return negative ? -value : value;
+        }
+        return Double.valueOf(new String(buffer, start, end - start));
+    }
+
+    /**
+     * Reads more input, keeping the last character read so that it can be
+     * unread. Returns false if the input is exhausted.
+     */
+    private boolean fill() throws JSONException {
+        return fill(pos > 0 ? pos - 1 : 0);
+    }
+
+    /**
+     * Discards the characters before {@code keep}, then reads more input
+     * after the remaining ones. Returns false if the input is exhausted.
+     */
+    private boolean fill(int keep) throws JSONException {
+        if (keep > 0) {
+            limit -= keep;
+            pos -= keep;
+            offset += keep;
+            System.arraycopy(buffer, keep, buffer, 0, limit);
+        }
+        try {
+            int count = in.read(buffer, limit, buffer.length - limit);
+            if (count == -1) {
+                return false;
+            }
+            limit += count;
+        } catch (IOException e) {
+            throw new JSONException("Failed to read input" + this, e);
+        }
+        if (atStart) {
+            // consume an optional byte order mark (BOM) if it exists
+            atStart = false;
+            if (buffer[pos] == '\ufeff') {
+                pos++;
+                offset--;
+                if (pos == limit) {
+                    return fill();
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns an exception containing the given message plus the current
+     * position.
+     */
+    public JSONException syntaxError(String message) {
+        return new JSONException(message + this);
+    }
+
+    /**
+     * Returns the current position.
+     */
+    @Override public String toString() {
+        return " at character " + (offset + pos);
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.org.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import junit.framework.TestCase;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONStreamTokener;
+import org.json.JSONTokener;
+
+public class JSONStreamTokenerTest extends TestCase {
+
+    public void testStepThroughObject() throws JSONException {
+        JSONStreamTokener tokener = new JSONStreamTokener(new StringReader(
+                "{\"skipped\": {\"a\": [1, {\"b\": 'c'}, \"]\"]}, /* comment */"
+                + " \"kept\": [1, 2.5, \"three\"]; \"last\"=> null}"));
+        tokener.beginObject();
+        assertTrue(tokener.hasNext());
+        assertEquals("skipped", tokener.nextName());
+        tokener.skipValue();
+        assertTrue(tokener.hasNext());
+        assertEquals("kept", tokener.nextName());
+        JSONArray kept = (JSONArray) tokener.nextValue();
+        assertEquals("[1,2.5,\"three\"]", kept.toString());
+        assertEquals("last", tokener.nextName());
+        assertSame(JSONObject.NULL, tokener.nextValue());
+        assertFalse(tokener.hasNext());
+        tokener.endObject();
+    }
+
+    public void testStepThroughArray() throws JSONException {
+        JSONStreamTokener tokener = new JSONStreamTokener(new StringReader("[1,,{},[true],]"));
+        tokener.beginArray();
+        assertEquals(1, tokener.nextValue());
+        assertNull(tokener.nextValue());
+        tokener.skipValue();
+        tokener.beginArray();
+        assertEquals(Boolean.TRUE, tokener.nextValue());
+        assertFalse(tokener.hasNext());
+        tokener.endArray();
+        assertTrue(tokener.hasNext());
+        assertNull(tokener.nextValue());
+        assertFalse(tokener.hasNext());
+        tokener.endArray();
+    }
+
+    public void testSkipValueRejectsMalformedInput() {
+        assertSkipFails("{\"a\": 1");
+        assertSkipFails("[1 2]");
+        assertSkipFails("\"unterminated");
+        assertSkipFails("{\"a\" 1}");
+        assertSkipFails("/* unterminated");
+    }
+
+    public void testMisuse() throws JSONException {
+        JSONStreamTokener tokener = new JSONStreamTokener(new StringReader("{\"a\": [1]}"));
+        try {
+            tokener.hasNext();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        tokener.beginObject();
+        try {
+            tokener.nextValue();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            tokener.endArray();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            tokener.endObject();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals("a", tokener.nextName());
+        try {
+            tokener.beginObject();
+            fail();
+        } catch (JSONException expected) {
+        }
+    }
+
+    public void testValuesSpanningBufferBoundaries() throws JSONException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 5000; i++) {
+            json.append("12345.678e-2, \"caf\\u00e9 ").append(i).append("\", -9876543210,");
+        }
+        json.append(" \"").append(repeat('x', 20000)).append("\", ");
+        json.append(repeat('y', 20000)).append(", /* ").append(repeat('*', 20000)).append(" */ 1]");
+
+        Object expected = new JSONTokener(json.toString()).nextValue();
+        Object actual = new JSONStreamTokener(new OneCharReader(json.toString())).nextValue();
+        assertEquals(expected.toString(), actual.toString());
+        actual = new JSONStreamTokener(new StringReader(json.toString())).nextValue();
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    public void testReset() throws JSONException {
+        JSONStreamTokener tokener = new JSONStreamTokener(new StringReader("[1, 2"));
+        tokener.beginArray();
+        assertEquals(1, tokener.nextValue());
+        tokener.reset(new StringReader("{\"a\": 3}"));
+        assertEquals("{\"a\":3}", tokener.nextValue().toString());
+    }
+
+    public void testInputStreamAndByteOrderMark() throws JSONException {
+        byte[] utf8 = "\ufeff{\"name\": \"\u00e9t\u00e9\"}".getBytes(StandardCharsets.UTF_8);
+        JSONObject object =
+                (JSONObject) new JSONStreamTokener(new ByteArrayInputStream(utf8)).nextValue();
+        assertEquals("\u00e9t\u00e9", object.getString("name"));
+    }
+
+    public void testSyntaxErrorPosition() {
+        try {
+            new JSONStreamTokener(new StringReader("[1, 2 3]")).nextValue();
+            fail();
+        } catch (JSONException e) {
+            assertEquals("Unterminated array at character 7", e.getMessage());
+        }
+    }
+
+    private static void assertSkipFails(String json) {
+        try {
+            new JSONStreamTokener(new StringReader(json)).skipValue();
+            fail("Skipped malformed input: \"" + json + "\"");
+        } catch (JSONException expected) {
+        }
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    /** A reader that returns one character at a time. */
+    private static class OneCharReader extends Reader {
+        private final String s;
+        private int pos;
+
+        OneCharReader(String s) {
+            this.s = s;
+        }
+
+        @Override public int read(char[] buffer, int offset, int count) {
+            if (pos == s.length()) {
+                return -1;
+            }
+            buffer[offset] = s.charAt(pos++);
+            return 1;
+        }
+
+        @Override public void close() {
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package libcore.org.json;
 
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -27,6 +28,7 @@ import junit.framework.TestCase;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONStreamTokener;
 import org.json.JSONTokener;
 
 public class ParsingTest extends TestCase {
@@ -220,6 +222,11 @@ public class ParsingTest extends TestCase {
         } catch (StackOverflowError e) {
             fail("Stack overflowed on input: \"" + malformedJson + "\"");
         }
+        try {
+            new JSONStreamTokener(new StringReader(malformedJson)).nextValue();
+            fail("Successfully streamed: \"" + malformedJson + "\"");
+        } catch (JSONException e) {
+        }
     }
 
     private JSONArray array(Object... elements) {
@@ -239,6 +246,10 @@ public class ParsingTest extends TestCase {
         actual = canonicalize(actual);
         expected = canonicalize(expected);
         assertEquals("For input \"" + json + "\" " + message, expected, actual);
+
+        Object streamed = new JSONStreamTokener(new StringReader(json)).nextValue();
+        assertEquals("For streamed input \"" + json + "\" " + message,
+                expected, canonicalize(streamed));
     }
 
     private void assertParsed(Object expected, String json) throws JSONException {
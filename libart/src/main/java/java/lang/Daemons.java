@@ -23,10 +23,15 @@ import dalvik.system.VMRuntime;
 import java.lang.ref.FinalizerReference;
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
 import libcore.util.EmptyArray;
 
 /**
@@ -59,6 +64,22 @@ public final class Daemons {
 
     private static boolean postZygoteFork = false;
 
+    // Upper bound for setFinalizerWorkerCount().
+    private static final int MAX_FINALIZER_WORKERS = 4;
+
+    // Number of threads finalizing objects, including FinalizerDaemon itself, or 0 to use the
+    // libcore.finalizer.workers system property. Read when the daemons are started, and when
+    // setFinalizerWorkerCount() is called while they run.
+    private static volatile int finalizerWorkerCount = 0;
+
+    // Whether FinalizerDaemon records per-class statistics. Off by default, because that reads
+    // the clock twice per finalized object.
+    private static volatile boolean finalizerStatsEnabled = false;
+
+    // Finalization statistics, keyed by class name so that classes are not kept alive.
+    private static final ConcurrentHashMap<String, FinalizerClassStats> finalizerStats =
+            new ConcurrentHashMap<>();
+
     @UnsupportedAppUsage
     public static void start() {
         for (Daemon daemon : DAEMONS) {
@@ -80,6 +101,84 @@ public final class Daemons {
         }
     }
 
+    /**
+     * Sets the number of threads that run finalizers, clamped to [1, 4]. Finalizers on
+     * different threads run concurrently, so a single slow finalizer no longer holds up all
+     * others; the watchdog times out each thread separately. Takes effect immediately if the
+     * daemons are running. Threads that are no longer needed exit once they are done with
+     * the finalizer they are running. If this was never called, the count is read from the
+     * {@code libcore.finalizer.workers} system property, and defaults to 1.
+     */
+    public static void setFinalizerWorkerCount(int count) {
+        finalizerWorkerCount = count;
+        FinalizerDaemon.INSTANCE.updateWorkerCount();
+    }
+
+    /**
+     * Enables or disables recording of per-class finalization statistics, returned by
+     * {@link #getFinalizerStats()}.
+     */
+    public static void setFinalizerStatsEnabled(boolean enabled) {
+        finalizerStatsEnabled = enabled;
+    }
+
+    /**
+     * Returns the finalization statistics recorded while {@link #setFinalizerStatsEnabled}
+     * was on, keyed by class name. Each value holds the number of finalized instances, the
+     * total time spent in their {@code finalize()} methods and the longest single call, in
+     * that order, with times in nanoseconds.
+     */
+    public static Map<String, long[]> getFinalizerStats() {
+        Map<String, long[]> result = new HashMap<>();
+        for (Map.Entry<String, FinalizerClassStats> entry : finalizerStats.entrySet()) {
+            FinalizerClassStats stats = entry.getValue();
+            result.put(entry.getKey(), new long[] {
+                    stats.count.get(), stats.totalNanos.get(), stats.maxNanos.get() });
+        }
+        return result;
+    }
+
+    /**
+     * Discards all recorded finalization statistics.
+     */
+    public static void resetFinalizerStats() {
+        finalizerStats.clear();
+    }
+
+    /**
+     * Waits until the other finalizer workers, if any, have finished the finalizers they are
+     * running. FinalizerReference.finalizeAllEnqueued() calls this from the finalizer of its
+     * sentinel, so that it does not return while an object enqueued before the sentinel is
+     * still being finalized by another worker.
+     */
+    public static void awaitOtherFinalizerWorkers() {
+        FinalizerWatchdogDaemon.INSTANCE.awaitOtherWorkers();
+    }
+
+    private static void recordFinalization(Object object, long nanos) {
+        String className = object.getClass().getName();
+        FinalizerClassStats stats = finalizerStats.get(className);
+        if (stats == null) {
+            FinalizerClassStats newStats = new FinalizerClassStats();
+            stats = finalizerStats.putIfAbsent(className, newStats);
+            if (stats == null) {
+                stats = newStats;
+            }
+        }
+        stats.count.incrementAndGet();
+        stats.totalNanos.addAndGet(nanos);
+        long max;
+        while (nanos > (max = stats.maxNanos.get())
+                && !stats.maxNanos.compareAndSet(max, nanos)) {
+        }
+    }
+
+    private static final class FinalizerClassStats {
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong totalNanos = new AtomicLong();
+        final AtomicLong maxNanos = new AtomicLong();
+    }
+
     private static void waitForDaemonStart() throws Exception {
         if (postZygoteFork) {
             POST_ZYGOTE_START_LATCH.await();
@@ -236,11 +335,79 @@ public final class Daemons {
         @UnsupportedAppUsage
         private Object finalizingObject = null;
 
+        // For additional workers (see setFinalizerWorkerCount), the daemon that starts and stops
+        // them. Null for INSTANCE.
+        private final FinalizerDaemon primary;
+        // The thread running this worker.
+        private volatile Thread workerThread;
+        // For INSTANCE, whether its additional workers should keep running. Read by them for
+        // every reference, so it is volatile rather than guarded by the daemon's lock.
+        private volatile boolean workersRunning;
+        // For additional workers, whether setFinalizerWorkerCount() asked this one to exit.
+        private volatile boolean retired;
+
+        // Guards workers, and the starting and stopping of additional workers.
+        private static final Object workersLock = new Object();
+        // For INSTANCE, all running workers, itself first. Null while it is not running.
+        private FinalizerDaemon[] workers;
+
+        // Whether this worker is blocked waiting for a reference to finalize. Only accessed in
+        // synchronized methods of FinalizerWatchdogDaemon.
+        private boolean idle = false;
+
+        // Held by whichever worker is taking a reference from the queue, including while it is
+        // blocked in queue.remove(). A worker records the reference as taken before releasing
+        // it, so awaitOtherWorkers() sees every reference taken before the sentinel.
+        private static final ReentrantLock takeLock = new ReentrantLock();
+
+        // Guards the fields below.
+        private final Object progressLock = new Object();
+        // Number of references this worker has taken from the queue.
+        private long takenCount;
+        // Number of references this worker has finished finalizing.
+        private long finishedCount;
+        // Whether this worker is in awaitOtherWorkers(), running a sentinel's finalizer.
+        private boolean awaitingOthers;
+        // Number of threads waiting on progressLock.
+        private int waiters;
+
         FinalizerDaemon() {
-            super("FinalizerDaemon");
+            this("FinalizerDaemon", null);
+        }
+
+        private FinalizerDaemon(String name, FinalizerDaemon primary) {
+            super(name);
+            this.primary = primary;
+        }
+
+        @Override protected boolean isRunning() {
+            // Additional workers run for as long as the primary daemon does, unless retired.
+            return primary == null ? super.isRunning() : primary.workersRunning && !retired;
         }
 
         @Override public void runInternal() {
+            if (primary == null) {
+                workerThread = Thread.currentThread();
+                synchronized (workersLock) {
+                    workersRunning = true;
+                    workers = new FinalizerDaemon[] { this };
+                    resizeWorkers(requestedWorkerCount());
+                }
+                finalizeUntilStopped();
+                synchronized (workersLock) {
+                    workersRunning = false;
+                    resizeWorkers(1);
+                    workers = null;
+                }
+            } else {
+                finalizeUntilStopped();
+            }
+        }
+
+        private void finalizeUntilStopped() {
+            // We may find work without blocking, so make sure the watchdog is watching us.
+            FinalizerWatchdogDaemon.INSTANCE.wakeUp(this);
+
             // This loop may be performance critical, since we need to keep up with mutator
             // generation of finalizable objects.
             // We minimize the amount of work we do per finalizable object. For example, we avoid
@@ -256,10 +423,21 @@ public final class Daemons {
             int localProgressCounter = progressCounter.get();
 
             while (isRunning()) {
+                FinalizerReference<?> finalizingReference = null;
                 try {
                     // Use non-blocking poll to avoid FinalizerWatchdogDaemon communication
-                    // when busy.
-                    FinalizerReference<?> finalizingReference = (FinalizerReference<?>)queue.poll();
+                    // when busy. If another worker holds takeLock, it is either taking a
+                    // reference or blocked because the queue is empty, so take the slow path.
+                    if (takeLock.tryLock()) {
+                        try {
+                            finalizingReference = (FinalizerReference<?>)queue.poll();
+                            if (finalizingReference != null) {
+                                recordTaken();
+                            }
+                        } finally {
+                            takeLock.unlock();
+                        }
+                    }
                     if (finalizingReference != null) {
                         finalizingObject = finalizingReference.get();
                         progressCounter.lazySet(++localProgressCounter);
@@ -267,24 +445,180 @@ public final class Daemons {
                         finalizingObject = null;
                         progressCounter.lazySet(++localProgressCounter);
                         // Slow path; block.
-                        FinalizerWatchdogDaemon.INSTANCE.goToSleep();
-                        finalizingReference = (FinalizerReference<?>)queue.remove();
+                        FinalizerWatchdogDaemon.INSTANCE.goToSleep(this);
+                        takeLock.lockInterruptibly();
+                        try {
+                            finalizingReference = (FinalizerReference<?>)queue.remove();
+                            recordTaken();
+                        } finally {
+                            takeLock.unlock();
+                        }
                         finalizingObject = finalizingReference.get();
                         progressCounter.set(++localProgressCounter);
-                        FinalizerWatchdogDaemon.INSTANCE.wakeUp();
+                        FinalizerWatchdogDaemon.INSTANCE.wakeUp(this);
                     }
                     doFinalize(finalizingReference);
                 } catch (InterruptedException ignored) {
                 } catch (OutOfMemoryError ignored) {
+                } finally {
+                    if (finalizingReference != null) {
+                        recordFinished();
+                    }
+                }
+            }
+            // Not finalizing anything any more; don't let the watchdog time us out.
+            FinalizerWatchdogDaemon.INSTANCE.goToSleep(this);
+        }
+
+        private void recordTaken() {
+            synchronized (progressLock) {
+                takenCount++;
+            }
+        }
+
+        private void recordFinished() {
+            synchronized (progressLock) {
+                finishedCount++;
+                if (waiters != 0) {
+                    progressLock.notifyAll();
+                }
+            }
+        }
+
+        private void setAwaitingOthers(boolean awaiting) {
+            synchronized (progressLock) {
+                awaitingOthers = awaiting;
+                if (waiters != 0) {
+                    progressLock.notifyAll();
+                }
+            }
+        }
+
+        /**
+         * Returns whether this worker is in awaitOtherWorkers(). It is then waiting for other
+         * workers, not running a user finalizer, so the watchdog does not time it out.
+         */
+        boolean isAwaitingOthers() {
+            synchronized (progressLock) {
+                return awaitingOthers;
+            }
+        }
+
+        /**
+         * Waits until this worker has finished finalizing every reference it had taken from the
+         * queue when this was called. A reference this worker is itself holding in
+         * awaitOtherWorkers() is a sentinel, which does not need to be waited for; waiting for it
+         * would deadlock two concurrent runFinalization() calls.
+         */
+        void awaitFinishedTaken() throws InterruptedException {
+            synchronized (progressLock) {
+                long target = takenCount;
+                waiters++;
+                try {
+                    while (finishedCount < target && !awaitingOthers) {
+                        progressLock.wait();
+                    }
+                } finally {
+                    waiters--;
+                }
+            }
+        }
+
+        private static int requestedWorkerCount() {
+            int requested = finalizerWorkerCount;
+            if (requested == 0) {
+                requested = Integer.getInteger("libcore.finalizer.workers", 1);
+            }
+            return Math.max(1, Math.min(requested, MAX_FINALIZER_WORKERS));
+        }
+
+        /**
+         * Starts or stops additional workers to match setFinalizerWorkerCount(), if this
+         * daemon is running.
+         */
+        void updateWorkerCount() {
+            synchronized (workersLock) {
+                if (workers != null && workersRunning) {
+                    resizeWorkers(requestedWorkerCount());
+                }
+            }
+        }
+
+        /**
+         * Starts or stops additional workers so that {@code count} workers run, including this
+         * daemon, and registers them with the watchdog. Workers that are stopped exit as soon
+         * as they are interrupted or done with their current finalizer. Called with
+         * workersLock held.
+         */
+        private void resizeWorkers(int count) {
+            FinalizerDaemon[] current = workers;
+            if (count > current.length) {
+                FinalizerDaemon[] resized = new FinalizerDaemon[count];
+                System.arraycopy(current, 0, resized, 0, current.length);
+                for (int i = current.length; i < count; i++) {
+                    resized[i] = new FinalizerDaemon("FinalizerDaemon-" + i, this);
+                }
+                FinalizerWatchdogDaemon.INSTANCE.setWorkers(resized);
+                for (int i = current.length; i < count; i++) {
+                    startWorker(resized[i], "FinalizerDaemon-" + i);
+                }
+                workers = resized;
+            } else if (count < current.length) {
+                for (int i = count; i < current.length; i++) {
+                    current[i].retired = true;
+                    current[i].workerThread.interrupt();
+                }
+                for (int i = count; i < current.length; i++) {
+                    Thread thread = current[i].workerThread;
+                    if (thread == Thread.currentThread()) {
+                        // A finalizer changed the count; this thread exits when it returns.
+                        continue;
+                    }
+                    while (true) {
+                        try {
+                            thread.join();
+                            break;
+                        } catch (InterruptedException ignored) {
+                        } catch (OutOfMemoryError ignored) {
+                        }
+                    }
                 }
+                FinalizerDaemon[] resized = new FinalizerDaemon[count];
+                System.arraycopy(current, 0, resized, 0, count);
+                FinalizerWatchdogDaemon.INSTANCE.setWorkers(resized);
+                workers = resized;
             }
         }
 
+        private static void startWorker(final FinalizerDaemon worker, String name) {
+            Thread thread = new Thread(ThreadGroup.systemThreadGroup, new Runnable() {
+                @Override public void run() {
+                    if (postZygoteFork) {
+                        VMRuntime.getRuntime().setSystemDaemonThreadPriority();
+                    }
+                    worker.runInternal();
+                }
+            }, name);
+            thread.setDaemon(true);
+            thread.setSystemDaemon(true);
+            worker.workerThread = thread;
+            thread.start();
+        }
+
+        /**
+         * Returns the current stack trace of the thread running this worker.
+         */
+        StackTraceElement[] getWorkerStackTrace() {
+            Thread thread = workerThread;
+            return thread != null ? thread.getStackTrace() : EmptyArray.STACK_TRACE_ELEMENT;
+        }
+
         @FindBugsSuppressWarnings("FI_EXPLICIT_INVOCATION")
         private void doFinalize(FinalizerReference<?> reference) {
             FinalizerReference.remove(reference);
             Object object = reference.get();
             reference.clear();
+            long startNanos = finalizerStatsEnabled ? System.nanoTime() : 0;
             try {
                 object.finalize();
             } catch (Throwable ex) {
@@ -294,13 +628,16 @@ public final class Daemons {
                 // Done finalizing, stop holding the object as live.
                 finalizingObject = null;
             }
+            if (startNanos != 0) {
+                recordFinalization(object, System.nanoTime() - startNanos);
+            }
         }
     }
 
     /**
      * The watchdog exits the VM if the finalizer ever gets stuck. We consider
-     * the finalizer to be stuck if it spends more than MAX_FINALIZATION_MILLIS
-     * on one instance.
+     * the finalizer to be stuck if any of its workers spends more than
+     * MAX_FINALIZATION_MILLIS on one instance.
      */
     private static class FinalizerWatchdogDaemon extends Daemon {
         @UnsupportedAppUsage
@@ -308,6 +645,12 @@ public final class Daemons {
 
         private boolean needToWork = true;  // Only accessed in synchronized methods.
 
+        // The finalizer workers being watched. Only accessed in synchronized methods.
+        private FinalizerDaemon[] workers = { FinalizerDaemon.INSTANCE };
+
+        // The worker that timed out, set by waitForFinalization(). Only used by this daemon.
+        private FinalizerDaemon timedOutWorker;
+
         private long finalizerTimeoutMs = 0;  // Lazily initialized.
 
         FinalizerWatchdogDaemon() {
@@ -322,7 +665,7 @@ public final class Daemons {
                 }
                 final Object finalizing = waitForFinalization();
                 if (finalizing != null && !VMRuntime.getRuntime().isDebuggerActive()) {
-                    finalizerTimedOut(finalizing);
+                    finalizerTimedOut(finalizing, timedOutWorker);
                     break;
                 }
             }
@@ -348,23 +691,81 @@ public final class Daemons {
         }
 
         /**
-         * Notify daemon that it's OK to sleep until notified that something is ready to be
-         * finalized.
+         * Notify daemon that {@code worker} is waiting for something to be finalized, so it's OK
+         * to sleep once all workers are.
          */
-        private synchronized void goToSleep() {
-            needToWork = false;
+        private synchronized void goToSleep(FinalizerDaemon worker) {
+            worker.idle = true;
+            needToWork = !allWorkersIdle();
         }
 
         /**
-         * Notify daemon that there is something ready to be finalized.
+         * Notify daemon that {@code worker} has something to finalize.
          */
-        private synchronized void wakeUp() {
+        private synchronized void wakeUp(FinalizerDaemon worker) {
+            worker.idle = false;
             needToWork = true;
             notify();
         }
 
-        private synchronized boolean getNeedToWork() {
-            return needToWork;
+        /**
+         * Replaces the set of workers being watched.
+         */
+        private synchronized void setWorkers(FinalizerDaemon[] newWorkers) {
+            workers = newWorkers;
+            needToWork = !allWorkersIdle();
+            if (needToWork) {
+                notify();
+            }
+        }
+
+        private synchronized FinalizerDaemon[] getWorkers() {
+            return workers;
+        }
+
+        private boolean allWorkersIdle() {
+            for (FinalizerDaemon worker : workers) {
+                if (!worker.idle) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private synchronized boolean isBusy(FinalizerDaemon worker) {
+            return !worker.idle;
+        }
+
+        /**
+         * Waits until every worker other than the calling one has finished finalizing the
+         * references it had taken from the queue when this was called. Called by the worker
+         * running a sentinel, which took the sentinel after those references.
+         */
+        private void awaitOtherWorkers() {
+            FinalizerDaemon self = null;
+            Thread current = Thread.currentThread();
+            FinalizerDaemon[] watched = getWorkers();
+            for (FinalizerDaemon worker : watched) {
+                if (worker.workerThread == current) {
+                    self = worker;
+                }
+            }
+            if (self == null || watched.length == 1) {
+                return;
+            }
+            self.setAwaitingOthers(true);
+            try {
+                for (FinalizerDaemon worker : watched) {
+                    if (worker != self) {
+                        worker.awaitFinishedTaken();
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Daemons.stop may have interrupted us; let the worker loop see that.
+                Thread.currentThread().interrupt();
+            } finally {
+                self.setAwaitingOthers(false);
+            }
         }
 
         /**
@@ -396,9 +797,9 @@ public final class Daemons {
 
         /**
          * Return an object that took too long to finalize or return null.
-         * Wait VMRuntime.getFinalizerTimeoutMs.  If the FinalizerDaemon took essentially the
-         * whole time processing a single reference, return that reference.  Otherwise return
-         * null.  Only called from a single thread.
+         * Wait VMRuntime.getFinalizerTimeoutMs.  If a FinalizerDaemon worker took essentially
+         * the whole time processing a single reference, return that reference and set
+         * timedOutWorker.  Otherwise return null.  Only called from a single thread.
          */
         private Object waitForFinalization() {
             if (finalizerTimeoutMs == 0) {
@@ -406,47 +807,60 @@ public final class Daemons {
                 // Temporary app backward compatibility. Remove eventually.
                 MAX_FINALIZE_NANOS = NANOS_PER_MILLI * finalizerTimeoutMs;
             }
-            long startCount = FinalizerDaemon.INSTANCE.progressCounter.get();
+            FinalizerDaemon[] watched = getWorkers();
+            int[] startCounts = new int[watched.length];
+            for (int i = 0; i < watched.length; i++) {
+                startCounts[i] = watched[i].progressCounter.get();
+            }
             // Avoid remembering object being finalized, so as not to keep it alive.
             if (!sleepForMillis(finalizerTimeoutMs)) {
                 // Don't report possibly spurious timeout if we are interrupted.
                 return null;
             }
-            if (getNeedToWork() && FinalizerDaemon.INSTANCE.progressCounter.get() == startCount) {
-                // We assume that only remove() and doFinalize() may take time comparable to
-                // the finalizer timeout.
-                // We observed neither the effect of the gotoSleep() nor the increment preceding a
-                // later wakeUp. Any remove() call by the FinalizerDaemon during our sleep
-                // interval must have been followed by a wakeUp call before we checked needToWork.
-                // But then we would have seen the counter increment.  Thus there cannot have
-                // been such a remove() call.
-                // The FinalizerDaemon must not have progressed (from either the beginning or the
-                // last progressCounter increment) to either the next increment or gotoSleep()
-                // call.  Thus we must have taken essentially the whole finalizerTimeoutMs in a
-                // single doFinalize() call.  Thus it's OK to time out.  finalizingObject was set
-                // just before the counter increment, which preceded the doFinalize call.  Thus we
-                // are guaranteed to get the correct finalizing value below, unless doFinalize()
-                // just finished as we were timing out, in which case we may get null or a later
-                // one.  In this last case, we are very likely to discard it below.
-                Object finalizing = FinalizerDaemon.INSTANCE.finalizingObject;
-                sleepForMillis(500);
-                // Recheck to make it even less likely we report the wrong finalizing object in
-                // the case which a very slow finalization just finished as we were timing out.
-                if (getNeedToWork()
-                        && FinalizerDaemon.INSTANCE.progressCounter.get() == startCount) {
-                    return finalizing;
+            for (int i = 0; i < watched.length; i++) {
+                FinalizerDaemon worker = watched[i];
+                // A worker waiting in awaitOtherWorkers() is only as slow as the workers it
+                // waits for, which are checked themselves.
+                if (isBusy(worker) && worker.progressCounter.get() == startCounts[i]
+                        && !worker.isAwaitingOthers()) {
+                    // We assume that only remove() and doFinalize() may take time comparable to
+                    // the finalizer timeout.
+                    // We observed neither the effect of the worker's gotoSleep() nor the
+                    // increment preceding a later wakeUp. Any remove() call by the worker during
+                    // our sleep interval must have been followed by a wakeUp call before we
+                    // checked isBusy.  But then we would have seen the counter increment.  Thus
+                    // there cannot have been such a remove() call.
+                    // The worker must not have progressed (from either the beginning or the last
+                    // progressCounter increment) to either the next increment or gotoSleep()
+                    // call.  Thus we must have taken essentially the whole finalizerTimeoutMs in
+                    // a single doFinalize() call.  Thus it's OK to time out.  finalizingObject
+                    // was set just before the counter increment, which preceded the doFinalize
+                    // call.  Thus we are guaranteed to get the correct finalizing value below,
+                    // unless doFinalize() just finished as we were timing out, in which case we
+                    // may get null or a later one.  In this last case, we are very likely to
+                    // discard it below.
+                    Object finalizing = worker.finalizingObject;
+                    sleepForMillis(500);
+                    // Recheck to make it even less likely we report the wrong finalizing object
+                    // in the case which a very slow finalization just finished as we were timing
+                    // out.
+                    if (isBusy(worker) && worker.progressCounter.get() == startCounts[i]
+                            && !worker.isAwaitingOthers()) {
+                        timedOutWorker = worker;
+                        return finalizing;
+                    }
                 }
             }
             return null;
         }
 
-        private static void finalizerTimedOut(Object object) {
+        private static void finalizerTimedOut(Object object, FinalizerDaemon worker) {
             // The current object has exceeded the finalization deadline; abort!
             String message = object.getClass().getName() + ".finalize() timed out after "
                     + VMRuntime.getRuntime().getFinalizerTimeoutMs() / 1000 + " seconds";
             Exception syntheticException = new TimeoutException(message);
             // We use the stack from where finalize() was running to show where it was stuck.
-            syntheticException.setStackTrace(FinalizerDaemon.INSTANCE.getStackTrace());
+            syntheticException.setStackTrace(worker.getWorkerStackTrace());
 
             // Send SIGQUIT to get native stack traces.
             try {
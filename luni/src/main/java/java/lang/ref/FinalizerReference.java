@@ -18,6 +18,7 @@ package java.lang.ref;
 
 import dalvik.annotation.compat.UnsupportedAppUsage;
 import dalvik.annotation.optimization.FastNative;
+import java.lang.Daemons;
 
 /**
  * @hide
@@ -27,15 +28,27 @@ public final class FinalizerReference<T> extends Reference<T> {
     @UnsupportedAppUsage
     public static final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
 
-    // Guards the list (not the queue).
-    private static final Object LIST_LOCK = new Object();
+    // Finalizable objects are registered on one of SHARD_COUNT lists, chosen by the identity
+    // hash of their FinalizerReference, so that threads allocating finalizable objects
+    // concurrently rarely contend for the same lock. Each shard's lock guards its list (not the
+    // queue). The count is fixed because this class may be initialized when the boot image is
+    // compiled.
+    private static final int SHARD_COUNT = 16;
+
+    private static final Shard[] SHARDS = new Shard[SHARD_COUNT];
+    static {
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            SHARDS[i] = new Shard();
+        }
+    }
 
-    // This list contains a FinalizerReference for every finalizable object in the heap.
-    // Objects in this list may or may not be eligible for finalization yet.
+    // The list of shard 0. The lists of the other shards are held by their Shard objects.
+    // Together they contain a FinalizerReference for every finalizable object in the heap.
+    // Objects in these lists may or may not be eligible for finalization yet.
     @UnsupportedAppUsage
     private static FinalizerReference<?> head = null;
 
-    // The links used to construct the list.
+    // The links used to construct the list of this reference's shard.
     private FinalizerReference<?> prev;
     @UnsupportedAppUsage
     private FinalizerReference<?> next;
@@ -59,19 +72,22 @@ public final class FinalizerReference<T> extends Reference<T> {
     @UnsupportedAppUsage
     public static void add(Object referent) {
         FinalizerReference<?> reference = new FinalizerReference<Object>(referent, queue);
-        synchronized (LIST_LOCK) {
+        int index = shardIndex(reference);
+        synchronized (SHARDS[index]) {
+            FinalizerReference<?> oldHead = getHead(index);
             reference.prev = null;
-            reference.next = head;
-            if (head != null) {
-                head.prev = reference;
+            reference.next = oldHead;
+            if (oldHead != null) {
+                oldHead.prev = reference;
             }
-            head = reference;
+            setHead(index, reference);
         }
     }
 
     @UnsupportedAppUsage
     public static void remove(FinalizerReference<?> reference) {
-        synchronized (LIST_LOCK) {
+        int index = shardIndex(reference);
+        synchronized (SHARDS[index]) {
             FinalizerReference<?> next = reference.next;
             FinalizerReference<?> prev = reference.prev;
             reference.next = null;
@@ -79,7 +95,7 @@ public final class FinalizerReference<T> extends Reference<T> {
             if (prev != null) {
                 prev.next = next;
             } else {
-                head = next;
+                setHead(index, next);
             }
             if (next != null) {
                 next.prev = prev;
@@ -87,6 +103,24 @@ public final class FinalizerReference<T> extends Reference<T> {
         }
     }
 
+    private static int shardIndex(FinalizerReference<?> reference) {
+        // The identity hash is stable for the life of the object, so remove() finds the shard
+        // add() chose without storing it in the reference, whose layout the runtime mirrors.
+        return System.identityHashCode(reference) & (SHARD_COUNT - 1);
+    }
+
+    private static FinalizerReference<?> getHead(int index) {
+        return index == 0 ? head : SHARDS[index].head;
+    }
+
+    private static void setHead(int index, FinalizerReference<?> reference) {
+        if (index == 0) {
+            head = reference;
+        } else {
+            SHARDS[index].head = reference;
+        }
+    }
+
     /**
      * Waits for all currently-enqueued references to be finalized.
      */
@@ -103,37 +137,41 @@ public final class FinalizerReference<T> extends Reference<T> {
     }
 
     private static boolean enqueueSentinelReference(Sentinel sentinel) {
-        synchronized (LIST_LOCK) {
-            // When a finalizable object is allocated, a FinalizerReference is added to the list.
-            // We search the list for that FinalizerReference (it should be at or near the head),
-            // and then put it on the queue so that it can be finalized.
-            for (FinalizerReference<?> r = head; r != null; r = r.next) {
-                // Use getReferent() instead of directly accessing the referent field not to race
-                // with GC reference processing. Can't use get() either because it's overridden to
-                // return the zombie.
-                if (r.getReferent() == sentinel) {
-                    FinalizerReference<Sentinel> sentinelReference = (FinalizerReference<Sentinel>) r;
-                    sentinelReference.clearReferent();
-                    sentinelReference.zombie = sentinel;
-                    // Make a single element list, then enqueue the reference on the daemon unenqueued
-                    // list. This is required instead of enqueuing directly on the finalizer queue
-                    // since there could be recently freed objects in the unqueued list which are not
-                    // yet on the finalizer queue. This could cause the sentinel to run before the
-                    // objects are finalized. b/17381967
-                    // Make circular list if unenqueued goes through native so that we can prevent
-                    // races where the GC updates the pendingNext before we do. If it is non null, then
-                    // we update the pending next to make a circular list while holding a lock.
-                    // b/17462553
-                    if (!sentinelReference.makeCircularListIfUnenqueued()) {
-                        return false;
+        // When a finalizable object is allocated, a FinalizerReference is added to the list of
+        // one of the shards. We search the lists for the FinalizerReference (it should be at or
+        // near the head of one of them), and then put it on the queue so that it can be
+        // finalized.
+        for (int index = 0; index < SHARD_COUNT; index++) {
+            synchronized (SHARDS[index]) {
+                for (FinalizerReference<?> r = getHead(index); r != null; r = r.next) {
+                    // Use getReferent() instead of directly accessing the referent field not to
+                    // race with GC reference processing. Can't use get() either because it's
+                    // overridden to return the zombie.
+                    if (r.getReferent() == sentinel) {
+                        FinalizerReference<Sentinel> sentinelReference =
+                                (FinalizerReference<Sentinel>) r;
+                        sentinelReference.clearReferent();
+                        sentinelReference.zombie = sentinel;
+                        // Make a single element list, then enqueue the reference on the daemon
+                        // unenqueued list. This is required instead of enqueuing directly on the
+                        // finalizer queue since there could be recently freed objects in the
+                        // unqueued list which are not yet on the finalizer queue. This could cause
+                        // the sentinel to run before the objects are finalized. b/17381967
+                        // Make circular list if unenqueued goes through native so that we can
+                        // prevent races where the GC updates the pendingNext before we do. If it
+                        // is non null, then we update the pending next to make a circular list
+                        // while holding a lock. b/17462553
+                        if (!sentinelReference.makeCircularListIfUnenqueued()) {
+                            return false;
+                        }
+                        ReferenceQueue.add(sentinelReference);
+                        return true;
                     }
-                    ReferenceQueue.add(sentinelReference);
-                    return true;
                 }
             }
         }
         // We just created a finalizable object and still hold a reference to it.
-        // It must be on the list.
+        // It must be on one of the lists.
         throw new AssertionError("newly-created live Sentinel not on list!");
     }
 
@@ -142,6 +180,14 @@ public final class FinalizerReference<T> extends Reference<T> {
     @FastNative
     private native boolean makeCircularListIfUnenqueued();
 
+    /**
+     * One of the lists finalizable objects are registered on. Instances are their own lock.
+     * The list of shard 0 is kept in {@link #head} instead.
+     */
+    private static final class Shard {
+        FinalizerReference<?> head;
+    }
+
     /**
      * A marker object that we can immediately enqueue. When this object's
      * finalize() method is called, we know all previously-enqueued finalizable
@@ -150,12 +196,18 @@ public final class FinalizerReference<T> extends Reference<T> {
     private static class Sentinel {
         boolean finalized = false;
 
-        @Override protected synchronized void finalize() throws Throwable {
-            if (finalized) {
-                throw new AssertionError();
+        @Override protected void finalize() throws Throwable {
+            // With several finalizer threads, objects enqueued before this one may still be
+            // being finalized elsewhere. Wait without holding our lock, which the thread in
+            // awaitFinalization() needs in order to time out.
+            Daemons.awaitOtherFinalizerWorkers();
+            synchronized (this) {
+                if (finalized) {
+                    throw new AssertionError();
+                }
+                finalized = true;
+                notifyAll();
             }
-            finalized = true;
-            notifyAll();
         }
 
         synchronized void awaitFinalization(long timeout) throws InterruptedException {
@@ -747,8 +747,11 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>, Serial
         // Let be:  this = [u1,s1]  and  augend = [u2,s2]
         if (diffScale == 0) {
             // case s1 == s2: [u1 + u2 , s1]
-            if (Math.max(this.bitLength, augend.bitLength) + 1 < 64) {
-                return valueOf(this.smallValue + augend.smallValue, this.scale);
+            if (this.bitLength < 64 && augend.bitLength < 64) {
+                long sum = this.smallValue + augend.smallValue;
+                if (((this.smallValue ^ sum) & (augend.smallValue ^ sum)) >= 0) {
+                    return valueOf(sum, this.scale);
+                }
             }
             return new BigDecimal(this.getUnscaledValue().add(augend.getUnscaledValue()), this.scale);
         } else if (diffScale > 0) {
@@ -760,14 +763,17 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>, Serial
     }
 
     private static BigDecimal addAndMult10(BigDecimal thisValue,BigDecimal augend, int diffScale) {
-        if(diffScale < MathUtils.LONG_POWERS_OF_TEN.length &&
-                Math.max(thisValue.bitLength,augend.bitLength+LONG_POWERS_OF_TEN_BIT_LENGTH[diffScale])+1<64) {
-            return valueOf(thisValue.smallValue+augend.smallValue*MathUtils.LONG_POWERS_OF_TEN[diffScale],thisValue.scale);
-        } else {
-            BigInt bi = Multiplication.multiplyByTenPow(augend.getUnscaledValue(),diffScale).getBigInt();
-            bi.add(thisValue.getUnscaledValue().getBigInt());
-            return new BigDecimal(new BigInteger(bi), thisValue.scale);
+        if (diffScale < MathUtils.LONG_POWERS_OF_TEN.length &&
+                thisValue.bitLength < 64 && augend.bitLength < 64) {
+            long scaled = multiplyByTenPowOrMinValue(augend.smallValue, diffScale);
+            long sum = thisValue.smallValue + scaled;
+            if (scaled != Long.MIN_VALUE && ((thisValue.smallValue ^ sum) & (scaled ^ sum)) >= 0) {
+                return valueOf(sum, thisValue.scale);
+            }
         }
+        // Don't add in place: the product may be a shared constant such as ZERO.
+        BigInteger product = Multiplication.multiplyByTenPow(augend.getUnscaledValue(), diffScale);
+        return new BigDecimal(product.add(thisValue.getUnscaledValue()), thisValue.scale);
     }
 
     /**
@@ -851,23 +857,36 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>, Serial
         // Let be: this = [u1,s1] and subtrahend = [u2,s2] so:
         if (diffScale == 0) {
             // case s1 = s2 : [u1 - u2 , s1]
-            if (Math.max(this.bitLength, subtrahend.bitLength) + 1 < 64) {
-                return valueOf(this.smallValue - subtrahend.smallValue,this.scale);
+            if (this.bitLength < 64 && subtrahend.bitLength < 64) {
+                long difference = this.smallValue - subtrahend.smallValue;
+                if (((this.smallValue ^ subtrahend.smallValue) & (this.smallValue ^ difference)) >= 0) {
+                    return valueOf(difference, this.scale);
+                }
             }
             return new BigDecimal(this.getUnscaledValue().subtract(subtrahend.getUnscaledValue()), this.scale);
         } else if (diffScale > 0) {
             // case s1 > s2 : [ u1 - u2 * 10 ^ (s1 - s2) , s1 ]
-            if(diffScale < MathUtils.LONG_POWERS_OF_TEN.length &&
-                    Math.max(this.bitLength,subtrahend.bitLength+LONG_POWERS_OF_TEN_BIT_LENGTH[diffScale])+1<64) {
-                return valueOf(this.smallValue-subtrahend.smallValue*MathUtils.LONG_POWERS_OF_TEN[diffScale],this.scale);
+            if (diffScale < MathUtils.LONG_POWERS_OF_TEN.length &&
+                    this.bitLength < 64 && subtrahend.bitLength < 64) {
+                long scaled = multiplyByTenPowOrMinValue(subtrahend.smallValue, diffScale);
+                long difference = this.smallValue - scaled;
+                if (scaled != Long.MIN_VALUE
+                        && ((this.smallValue ^ scaled) & (this.smallValue ^ difference)) >= 0) {
+                    return valueOf(difference, this.scale);
+                }
             }
             return new BigDecimal(this.getUnscaledValue().subtract(
                     Multiplication.multiplyByTenPow(subtrahend.getUnscaledValue(),diffScale)), this.scale);
         } else {// case s2 > s1 : [ u1 * 10 ^ (s2 - s1) - u2 , s2 ]
             diffScale = -diffScale;
-            if(diffScale < MathUtils.LONG_POWERS_OF_TEN.length &&
-                    Math.max(this.bitLength+LONG_POWERS_OF_TEN_BIT_LENGTH[diffScale],subtrahend.bitLength)+1<64) {
-                return valueOf(this.smallValue*MathUtils.LONG_POWERS_OF_TEN[diffScale]-subtrahend.smallValue,subtrahend.scale);
+            if (diffScale < MathUtils.LONG_POWERS_OF_TEN.length &&
+                    this.bitLength < 64 && subtrahend.bitLength < 64) {
+                long scaled = multiplyByTenPowOrMinValue(this.smallValue, diffScale);
+                long difference = scaled - subtrahend.smallValue;
+                if (scaled != Long.MIN_VALUE
+                        && ((scaled ^ subtrahend.smallValue) & (scaled ^ difference)) >= 0) {
+                    return valueOf(difference, subtrahend.scale);
+                }
             }
             return new BigDecimal(Multiplication.multiplyByTenPow(this.getUnscaledValue(),diffScale)
             .subtract(subtrahend.getUnscaledValue()), subtrahend.scale);
@@ -945,6 +964,11 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>, Serial
             if (!longMultiplicationOverflowed) {
                 return valueOf(unscaledValue, safeLongToInt(newScale));
             }
+        } else if (this.bitLength < 64 && multiplicand.bitLength < 64) {
+            long unscaledValue = multiplyOrMinValue(this.smallValue, multiplicand.smallValue);
+            if (unscaledValue != Long.MIN_VALUE) {
+                return valueOf(unscaledValue, safeLongToInt(newScale));
+            }
         }
         return new BigDecimal(this.getUnscaledValue().multiply(
                 multiplicand.getUnscaledValue()), safeLongToInt(newScale));
@@ -1049,20 +1073,26 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>, Serial
                             roundingMode);
                 }
             } else if(diffScale > 0) {
-                if(diffScale < MathUtils.LONG_POWERS_OF_TEN.length &&
-                        divisor.bitLength + LONG_POWERS_OF_TEN_BIT_LENGTH[(int)diffScale] < 64) {
-                    return dividePrimitiveLongs(this.smallValue,
-                            divisor.smallValue*MathUtils.LONG_POWERS_OF_TEN[(int)diffScale],
-                            scale,
-                            roundingMode);
+                if(diffScale < MathUtils.LONG_POWERS_OF_TEN.length) {
+                    long scaledDivisor =
+                            multiplyByTenPowOrMinValue(divisor.smallValue, (int)diffScale);
+                    if (scaledDivisor != Long.MIN_VALUE) {
+                        return dividePrimitiveLongs(this.smallValue,
+                                scaledDivisor,
+                                scale,
+                                roundingMode);
+                    }
                 }
             } else { // diffScale < 0
-                if(-diffScale < MathUtils.LONG_POWERS_OF_TEN.length &&
-                        this.bitLength + LONG_POWERS_OF_TEN_BIT_LENGTH[(int)-diffScale] < 64) {
-                    return dividePrimitiveLongs(this.smallValue*MathUtils.LONG_POWERS_OF_TEN[(int)-diffScale],
-                            divisor.smallValue,
-                            scale,
-                            roundingMode);
+                if(-diffScale < MathUtils.LONG_POWERS_OF_TEN.length) {
+                    long scaledDividend =
+                            multiplyByTenPowOrMinValue(this.smallValue, (int)-diffScale);
+                    if (scaledDividend != Long.MIN_VALUE) {
+                        return dividePrimitiveLongs(scaledDividend,
+                                divisor.smallValue,
+                                scale,
+                                roundingMode);
+                    }
                 }
 
             }
@@ -1846,7 +1876,9 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>, Serial
      *             precision.
      */
     public BigDecimal round(MathContext mc) {
-        BigDecimal thisBD = new BigDecimal(getUnscaledValue(), scale);
+        BigDecimal thisBD = (bitLength < 64)
+                ? new BigDecimal(smallValue, scale)
+                : new BigDecimal(getUnscaledValue(), scale);
 
         thisBD.inplaceRound(mc);
         return thisBD;
@@ -1885,9 +1917,11 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>, Serial
         }
         if(diffScale > 0) {
         // return  [u * 10^(s2 - s), newScale]
-            if(diffScale < MathUtils.LONG_POWERS_OF_TEN.length &&
-                    (this.bitLength + LONG_POWERS_OF_TEN_BIT_LENGTH[(int)diffScale]) < 64 ) {
-                return valueOf(this.smallValue*MathUtils.LONG_POWERS_OF_TEN[(int)diffScale],newScale);
+            if(diffScale < MathUtils.LONG_POWERS_OF_TEN.length && this.bitLength < 64) {
+                long scaled = multiplyByTenPowOrMinValue(this.smallValue, (int)diffScale);
+                if (scaled != Long.MIN_VALUE) {
+                    return valueOf(scaled, newScale);
+                }
             }
             return new BigDecimal(Multiplication.multiplyByTenPow(getUnscaledValue(),(int)diffScale), newScale);
         }
@@ -2089,6 +2123,23 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>, Serial
                 return (smallValue < val.smallValue) ? -1 : (smallValue > val.smallValue) ? 1 : 0;
             }
             long diffScale = (long)this.scale - val.scale;
+            if (this.bitLength < 64 && val.bitLength < 64) {
+                // Scale the operand with the smaller scale. If that overflows, its magnitude is
+                // the larger one.
+                if (diffScale < 0 && -diffScale < MathUtils.LONG_POWERS_OF_TEN.length) {
+                    long scaled = multiplyByTenPowOrMinValue(smallValue, (int)-diffScale);
+                    if (scaled == Long.MIN_VALUE) {
+                        return thisSign;
+                    }
+                    return (scaled < val.smallValue) ? -1 : (scaled > val.smallValue) ? 1 : 0;
+                } else if (diffScale > 0 && diffScale < MathUtils.LONG_POWERS_OF_TEN.length) {
+                    long scaled = multiplyByTenPowOrMinValue(val.smallValue, (int)diffScale);
+                    if (scaled == Long.MIN_VALUE) {
+                        return -thisSign;
+                    }
+                    return (smallValue < scaled) ? -1 : (smallValue > scaled) ? 1 : 0;
+                }
+            }
             int diffPrecision = this.approxPrecision() - val.approxPrecision();
             if (diffPrecision > diffScale + 1) {
                 return thisSign;
@@ -2195,7 +2246,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>, Serial
         if (toStringImage != null) {
             return toStringImage;
         }
-        if(bitLength < 32) {
+        if(bitLength < 64) {
             toStringImage = Conversion.toDecimalScaledString(smallValue,scale);
             return toStringImage;
         }
@@ -2244,11 +2295,13 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>, Serial
      *         if necessary.
      */
     public String toEngineeringString() {
-        String intString = getUnscaledValue().toString();
+        String intString = (bitLength < 64)
+                ? Long.toString(smallValue)
+                : getUnscaledValue().toString();
         if (scale == 0) {
             return intString;
         }
-        int begin = (getUnscaledValue().signum() < 0) ? 2 : 1;
+        int begin = (signum() < 0) ? 2 : 1;
         int end = intString.length();
         long exponent = -(long)scale + end - begin;
         StringBuilder result = new StringBuilder(intString);
@@ -2266,7 +2319,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>, Serial
 
             if (rem != 0) {
                 // adjust exponent so it is a multiple of three
-                if (getUnscaledValue().signum() == 0) {
+                if (isZero()) {
                     // zero value
                     rem = (rem < 0) ? -rem : 3 - rem;
                     exponent += rem;
@@ -2313,7 +2366,9 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>, Serial
      * @return a string representation of {@code this} without exponent part.
      */
     public String toPlainString() {
-        String intStr = getUnscaledValue().toString();
+        String intStr = (bitLength < 64)
+                ? Long.toString(smallValue)
+                : getUnscaledValue().toString();
         if ((scale == 0) || ((isZero()) && (scale < 0))) {
             return intStr;
         }
@@ -2956,6 +3011,31 @@ public class BigDecimal extends Number implements Comparable<BigDecimal>, Serial
         }
     }
 
+    /**
+     * Returns {@code value * 10^n} for {@code 0 < n < 19}, or {@code Long.MIN_VALUE} if that
+     * does not fit in a {@code long}. {@code Long.MIN_VALUE} is not a multiple of ten, so it is
+     * never a valid result.
+     */
+    private static long multiplyByTenPowOrMinValue(long value, int n) {
+        if (bitLength(value) + LONG_POWERS_OF_TEN_BIT_LENGTH[n] < 64) {
+            return value * MathUtils.LONG_POWERS_OF_TEN[n];
+        }
+        return multiplyOrMinValue(value, MathUtils.LONG_POWERS_OF_TEN[n]);
+    }
+
+    /**
+     * Returns {@code a * b}, or {@code Long.MIN_VALUE} if the product is {@code Long.MIN_VALUE}
+     * or does not fit in a {@code long}. Callers fall back to {@code BigInteger} arithmetic in
+     * either case.
+     */
+    private static long multiplyOrMinValue(long a, long b) {
+        long product = a * b;
+        if (a != 0 && product / a != b) {
+            return Long.MIN_VALUE;
+        }
+        return product;
+    }
+
     private static int bitLength(long smallValue) {
         if(smallValue < 0) {
             smallValue = ~smallValue;
@@ -93,6 +93,20 @@ public class BigInteger extends Number
     /** Cache for the hash code. */
     private transient int hashCode = 0;
 
+    /**
+     * Length in ints of the longest operand for which {@link #multiply}, {@link #divide},
+     * {@link #remainder} and {@link #mod} use the Java representation, which avoids a JNI call
+     * and a native allocation for every result. Above it, BoringSSL's assembly is faster.
+     */
+    private static final int JAVA_ARITHMETIC_MAX_LENGTH = 512;
+
+    /**
+     * Length in ints of the longest odd modulus for which {@link #modPow} uses the Java
+     * representation. BoringSSL's assembly Montgomery multiplication overtakes Java sooner
+     * than its multiplication does.
+     */
+    private static final int JAVA_MOD_POW_MAX_LENGTH = 32;
+
     BigInteger(BigInt bigInt) {
         if (bigInt == null || !bigInt.hasNativeBignum()) {
             throw new AssertionError();
@@ -101,9 +115,9 @@ public class BigInteger extends Number
     }
 
     BigInteger(int sign, long value) {
-        BigInt bigInt = new BigInt();
-        bigInt.putULongInt(value, (sign < 0));
-        setBigInt(bigInt);
+        // Small values mostly feed arithmetic that is done in Java, so there is no need for a
+        // native representation until one is asked for.
+        setJavaRepresentation(sign, 2, new int[] { (int) value, (int) (value >>> 32) });
     }
 
     /**
@@ -362,6 +376,25 @@ public class BigInteger extends Number
         }
     }
 
+    /** Returns the length of the magnitude in ints, without computing the Java representation. */
+    private int intLength() {
+        return javaIsValid ? numberLength : (getBigInt().bitLength() + 31) >> 5;
+    }
+
+    /**
+     * Returns true, having prepared the Java representation of both numbers, if arithmetic on
+     * {@code this} and {@code value} should be done in Java: that is if neither is longer than
+     * {@code maxLength} ints.
+     */
+    private boolean useJavaArithmetic(BigInteger value, int maxLength) {
+        if (intLength() > maxLength || value.intLength() > maxLength) {
+            return false;
+        }
+        prepareJavaRepresentation();
+        value.prepareJavaRepresentation();
+        return true;
+    }
+
     /** Returns a {@code BigInteger} whose value is equal to {@code value}. */
     @NonNull public static BigInteger valueOf(long value) {
         if (value < 0) {
@@ -389,6 +422,9 @@ public class BigInteger extends Number
      * this}.
      */
     @NonNull public BigInteger abs() {
+        if (javaIsValid) {
+            return (sign >= 0) ? this : Elementary.negate(this);
+        }
         BigInt bigInt = getBigInt();
         if (bigInt.sign() >= 0) {
             return this;
@@ -402,6 +438,9 @@ public class BigInteger extends Number
      * Returns a {@code BigInteger} whose value is the {@code -this}.
      */
     @NonNull public BigInteger negate() {
+        if (javaIsValid) {
+            return Elementary.negate(this);
+        }
         BigInt bigInt = getBigInt();
         int sign = bigInt.sign();
         if (sign == 0) {
@@ -416,6 +455,9 @@ public class BigInteger extends Number
      * Returns a {@code BigInteger} whose value is {@code this + value}.
      */
     @NonNull public BigInteger add(@NonNull BigInteger value) {
+        if (javaIsValid && value.javaIsValid) {
+            return Elementary.add(this, value);
+        }
         BigInt lhs = getBigInt();
         BigInt rhs = value.getBigInt();
         if (rhs.sign() == 0) {
@@ -431,6 +473,9 @@ public class BigInteger extends Number
      * Returns a {@code BigInteger} whose value is {@code this - value}.
      */
     @NonNull public BigInteger subtract(@NonNull BigInteger value) {
+        if (javaIsValid && value.javaIsValid) {
+            return Elementary.subtract(this, value);
+        }
         BigInt lhs = getBigInt();
         BigInt rhs = value.getBigInt();
         if (rhs.sign() == 0) {
@@ -489,6 +534,10 @@ public class BigInteger extends Number
         if (sign == 0) {
             return this;
         }
+        if (!nativeIsValid && n != Integer.MIN_VALUE) {
+            // Keep numbers that only have a Java representation in Java.
+            return (n > 0) ? BitLevel.shiftLeft(this, n) : BitLevel.shiftRight(this, -n);
+        }
         if ((sign > 0) || (n >= 0)) {
             return new BigInteger(BigInt.shift(getBigInt(), n));
         } else {
@@ -802,6 +851,9 @@ public class BigInteger extends Number
      * @throws NullPointerException if {@code value == null}.
      */
     public int compareTo(@NonNull BigInteger value) {
+        if (javaIsValid && value.javaIsValid) {
+            return Elementary.compare(this, value);
+        }
         return BigInt.cmp(getBigInt(), value.getBigInt());
     }
 
@@ -914,6 +966,9 @@ public class BigInteger extends Number
      * @throws NullPointerException if {@code value == null}.
      */
     @NonNull public BigInteger multiply(@NonNull BigInteger value) {
+        if (useJavaArithmetic(value, JAVA_ARITHMETIC_MAX_LENGTH)) {
+            return Multiplication.multiply(this, value);
+        }
         return new BigInteger(BigInt.product(getBigInt(), value.getBigInt()));
     }
 
@@ -940,6 +995,9 @@ public class BigInteger extends Number
      * @see #remainder
      */
     public @NonNull BigInteger @NonNull [] divideAndRemainder(@NonNull BigInteger divisor) {
+        if (useJavaArithmetic(divisor, JAVA_ARITHMETIC_MAX_LENGTH)) {
+            return Division.divideAndRemainder(this, divisor);
+        }
         BigInt divisorBigInt = divisor.getBigInt();
         BigInt quotient = new BigInt();
         BigInt remainder = new BigInt();
@@ -956,6 +1014,9 @@ public class BigInteger extends Number
      * @throws ArithmeticException if {@code divisor == 0}.
      */
     @NonNull public BigInteger divide(@NonNull BigInteger divisor) {
+        if (useJavaArithmetic(divisor, JAVA_ARITHMETIC_MAX_LENGTH)) {
+            return Division.divideAndRemainder(this, divisor)[0];
+        }
         BigInt quotient = new BigInt();
         BigInt.division(getBigInt(), divisor.getBigInt(), quotient, null);
         return new BigInteger(quotient);
@@ -971,6 +1032,9 @@ public class BigInteger extends Number
      * @throws ArithmeticException if {@code divisor == 0}.
      */
     @NonNull public BigInteger remainder(@NonNull BigInteger divisor) {
+        if (useJavaArithmetic(divisor, JAVA_ARITHMETIC_MAX_LENGTH)) {
+            return Division.divideAndRemainder(this, divisor)[1];
+        }
         BigInt remainder = new BigInt();
         BigInt.division(getBigInt(), divisor.getBigInt(), null, remainder);
         return new BigInteger(remainder);
@@ -1016,6 +1080,11 @@ public class BigInteger extends Number
             return ONE.mod(modulus);
         }
         BigInteger base = exponentSignum < 0 ? modInverse(modulus) : this;
+        if (modulus.intLength() <= JAVA_MOD_POW_MAX_LENGTH && modulus.testBit(0)
+                && base.useJavaArithmetic(exponent, JAVA_ARITHMETIC_MAX_LENGTH)) {
+            // As for BigInt.modExp, the sign of the exponent is ignored.
+            return Division.oddModPow(base.mod(modulus), exponent, modulus);
+        }
         return new BigInteger(BigInt.modExp(base.getBigInt(), exponent.getBigInt(), modulus.getBigInt()));
     }
 
@@ -1035,6 +1104,10 @@ public class BigInteger extends Number
         if (m.signum() <= 0) {
             throw new ArithmeticException("m.signum() <= 0");
         }
+        if (useJavaArithmetic(m, JAVA_ARITHMETIC_MAX_LENGTH)) {
+            BigInteger remainder = Division.divideAndRemainder(this, m)[1];
+            return (remainder.sign < 0) ? Elementary.add(remainder, m) : remainder;
+        }
         return new BigInteger(BigInt.modulus(getBigInt(), m.getBigInt()));
     }
 
@@ -132,6 +132,33 @@ class BitLevel {
         return new BigInteger(source.sign, resLen, resDigits);
     }
 
+    /**
+     * Returns {@code source << count} for a {@code source} with a valid Java representation
+     * and {@code count >= 0}. Unlike {@link BigInteger#shiftLeft(int)}, this never needs the
+     * native representation.
+     */
+    static BigInteger shiftLeft(BigInteger source, int count) {
+        if (source.sign == 0 || count == 0) {
+            return source;
+        }
+        int intCount = count >> 5;
+        count &= 31;
+        int srcLen = source.numberLength;
+        int resLength = srcLen + intCount + ((count == 0) ? 0 : 1);
+        int[] resDigits = new int[resLength];
+        if (count == 0) {
+            System.arraycopy(source.digits, 0, resDigits, intCount, srcLen);
+        } else {
+            int rightShiftCount = 32 - count;
+            int[] digits = source.digits;
+            for (int i = srcLen - 1; i >= 0; i--) {
+                resDigits[i + intCount + 1] |= digits[i] >>> rightShiftCount;
+                resDigits[i + intCount] = digits[i] << count;
+            }
+        }
+        return new BigInteger(source.sign, resLength, resDigits);
+    }
+
     /** @see BigInteger#shiftRight(int) */
     static BigInteger shiftRight(BigInteger source, int count) {
         source.prepareJavaRepresentation();
@@ -293,15 +293,12 @@ class Conversion {
         return result1.toString();
     }
 
-    /* can process only 32-bit numbers */
+    /* can process any long, including Long.MIN_VALUE */
     static String toDecimalScaledString(long value, int scale) {
         int resLengthInChars;
         int currentChar;
         char[] result;
         boolean negNumber = value < 0;
-        if(negNumber) {
-            value = -value;
-        }
         if (value == 0) {
             switch (scale) {
                 case 0: return "0";
@@ -322,8 +319,8 @@ class Conversion {
                     return result1.toString();
             }
         }
-        // one 32-bit unsigned value may contains 10 decimal digits
-        resLengthInChars = 18;
+        // one 64-bit value may contains 19 decimal digits
+        resLengthInChars = 27;
         // Explanation why +1+7:
         // +1 - one char for sign if needed.
         // +7 - For "special case 2" (see below) we have 7 free chars for
@@ -332,11 +329,12 @@ class Conversion {
         //  Allocated [resLengthInChars+1] characters.
         // a free latest character may be used for "special case 1" (see below)
         currentChar = resLengthInChars;
-        long v = value;
+        // Work with the negated magnitude, which also represents Long.MIN_VALUE
+        long v = negNumber ? value : -value;
         do {
             long prev = v;
             v /= 10;
-            result[--currentChar] = (char) (0x0030 + (prev - v * 10));
+            result[--currentChar] = (char) (0x0030 + (v * 10 - prev));
         } while (v != 0);
 
         long exponent = (long)resLengthInChars - (long)currentChar - scale - 1L;
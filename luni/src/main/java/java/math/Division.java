@@ -17,6 +17,8 @@
 
 package java.math;
 
+import java.util.Arrays;
+
 /**
  * Static library that provides all operations related with division and modular
  * arithmetic to {@link BigInteger}. Some methods are provided in both mutable
@@ -40,6 +42,268 @@ package java.math;
  */
 class Division {
 
+    /**
+     * Length in ints of the divisor from which {@link #divideAndRemainder(BigInteger,
+     * BigInteger)} uses the Burnikel-Ziegler algorithm rather than Knuth's.
+     */
+    static final int BURNIKEL_ZIEGLER_THRESHOLD = 80;
+
+    /**
+     * Number of ints by which the dividend must be longer than the divisor for the
+     * Burnikel-Ziegler algorithm to be used.
+     */
+    static final int BURNIKEL_ZIEGLER_OFFSET = 40;
+
+    /**
+     * Exponent lengths in bits up to which {@link #oddModPow(BigInteger, BigInteger,
+     * BigInteger)} uses windows of 1, 2, ... 6 bits; longer exponents use 7 bits.
+     */
+    private static final int[] MOD_POW_WINDOW_THRESHOLDS = { 7, 25, 81, 241, 673, 1793 };
+
+    private static final long INT_MASK = 0xffffffffL;
+
+    /**
+     * Returns {@code a / b} and {@code a % b}, with the signs of
+     * {@link BigInteger#divideAndRemainder(BigInteger)}. Both numbers must have a valid Java
+     * representation, and so do the results.
+     *
+     * @throws ArithmeticException if {@code b == 0}.
+     */
+    static BigInteger[] divideAndRemainder(BigInteger a, BigInteger b) {
+        if (b.sign == 0) {
+            throw new ArithmeticException("BigInteger division by zero");
+        }
+        BigInteger[] qr;
+        if (b.numberLength < BURNIKEL_ZIEGLER_THRESHOLD
+                || a.numberLength - b.numberLength < BURNIKEL_ZIEGLER_OFFSET) {
+            qr = divideAndRemainderKnuth(a, b);
+        } else {
+            qr = divideAndRemainderBurnikelZiegler(a, b);
+        }
+        // The magnitudes were divided; the quotient takes the sign of a * b, and the
+        // remainder the sign of a.
+        if (qr[0].sign != 0 && a.sign != b.sign) {
+            qr[0] = Elementary.negate(qr[0]);
+        }
+        if (qr[1].sign != 0 && a.sign < 0) {
+            qr[1] = Elementary.negate(qr[1]);
+        }
+        return qr;
+    }
+
+    /**
+     * Returns {@code |a| / |b|} and {@code |a| % |b|}, using Knuth's algorithm D. See D. Knuth,
+     * The Art of Computer Programming, vol. 2, section 4.3.1.
+     */
+    private static BigInteger[] divideAndRemainderKnuth(BigInteger a, BigInteger b) {
+        int aLen = a.numberLength;
+        int bLen = b.numberLength;
+        if (a.sign == 0 || Elementary.compareArrays(a.digits, aLen, b.digits, bLen) < 0) {
+            return new BigInteger[] { BigInteger.ZERO, (a.sign < 0) ? Elementary.negate(a) : a };
+        }
+        int[] quotient = new int[aLen - bLen + 1];
+        int[] remainder;
+        if (bLen == 1) {
+            remainder = new int[] { divideArrayByInt(quotient, a.digits, aLen, b.digits[0]) };
+        } else {
+            remainder = divideArrays(quotient, a.digits, aLen, b.digits, bLen);
+        }
+        return new BigInteger[] {
+                new BigInteger(1, quotient.length, quotient),
+                new BigInteger(1, remainder.length, remainder) };
+    }
+
+    /**
+     * Divides the magnitude {@code a[0, aLen)} by {@code b[0, bLen)}, where {@code bLen >= 2},
+     * {@code b} has no leading zero ints and {@code a >= b}. Stores the {@code aLen - bLen + 1}
+     * ints of the quotient in {@code quotient} and returns the {@code bLen} ints of the
+     * remainder.
+     */
+    static int[] divideArrays(int[] quotient, int[] a, int aLen, int[] b, int bLen) {
+        // Normalize so that the top bit of the divisor is set; the quotient is unchanged.
+        int shift = Integer.numberOfLeadingZeros(b[bLen - 1]);
+        int[] bn = new int[bLen];
+        int[] an = new int[aLen + 1];
+        if (shift == 0) {
+            System.arraycopy(b, 0, bn, 0, bLen);
+            System.arraycopy(a, 0, an, 0, aLen);
+        } else {
+            for (int i = bLen - 1; i > 0; i--) {
+                bn[i] = (b[i] << shift) | (b[i - 1] >>> (32 - shift));
+            }
+            bn[0] = b[0] << shift;
+            an[aLen] = a[aLen - 1] >>> (32 - shift);
+            for (int i = aLen - 1; i > 0; i--) {
+                an[i] = (a[i] << shift) | (a[i - 1] >>> (32 - shift));
+            }
+            an[0] = a[0] << shift;
+        }
+
+        long bTop = bn[bLen - 1] & INT_MASK;
+        long bNext = bn[bLen - 2] & INT_MASK;
+        for (int j = aLen - bLen; j >= 0; j--) {
+            // Estimate the quotient digit from the top two digits of the current remainder,
+            // then correct the estimate using the next digit. It is then at most one too big.
+            long top = ((long) an[j + bLen] << 32) | (an[j + bLen - 1] & INT_MASK);
+            long qHat = Long.divideUnsigned(top, bTop);
+            long rHat = Long.remainderUnsigned(top, bTop);
+            while (qHat > INT_MASK || Long.compareUnsigned(qHat * bNext,
+                    (rHat << 32) | (an[j + bLen - 2] & INT_MASK)) > 0) {
+                qHat--;
+                rHat += bTop;
+                if (rHat > INT_MASK) {
+                    break;
+                }
+            }
+
+            // Subtract qHat * bn from the current remainder.
+            long carry = 0;
+            long borrow = 0;
+            for (int i = 0; i < bLen; i++) {
+                long product = qHat * (bn[i] & INT_MASK) + carry;
+                carry = product >>> 32;
+                borrow += (an[i + j] & INT_MASK) - (product & INT_MASK);
+                an[i + j] = (int) borrow;
+                borrow >>= 32;
+            }
+            borrow += (an[j + bLen] & INT_MASK) - carry;
+            an[j + bLen] = (int) borrow;
+
+            if (borrow < 0) {
+                // qHat was one too big; add bn back.
+                qHat--;
+                carry = 0;
+                for (int i = 0; i < bLen; i++) {
+                    carry += (an[i + j] & INT_MASK) + (bn[i] & INT_MASK);
+                    an[i + j] = (int) carry;
+                    carry >>>= 32;
+                }
+                an[j + bLen] += (int) carry;
+            }
+            quotient[j] = (int) qHat;
+        }
+
+        // Undo the normalization of the remainder.
+        int[] remainder = new int[bLen];
+        if (shift == 0) {
+            System.arraycopy(an, 0, remainder, 0, bLen);
+        } else {
+            for (int i = 0; i < bLen; i++) {
+                remainder[i] = (an[i] >>> shift) | (an[i + 1] << (32 - shift));
+            }
+        }
+        return remainder;
+    }
+
+    /**
+     * Returns {@code |a| / |b|} and {@code |a| % |b|} using the recursive division algorithm of
+     * C. Burnikel and J. Ziegler, "Fast Recursive Division", MPI-I-98-1-022.
+     */
+    private static BigInteger[] divideAndRemainderBurnikelZiegler(BigInteger a, BigInteger b) {
+        if (a.sign < 0) {
+            a = Elementary.negate(a);
+        }
+        if (b.sign < 0) {
+            b = Elementary.negate(b);
+        }
+        if (Elementary.compare(a, b) < 0) {
+            return new BigInteger[] { BigInteger.ZERO, a };
+        }
+        int s = b.numberLength;
+
+        // Choose the block length n, in ints, as a multiple of a power of two m such that
+        // recursive halving of the divisor reaches the threshold.
+        int m = 1 << (32 - Integer.numberOfLeadingZeros(s / BURNIKEL_ZIEGLER_THRESHOLD));
+        int n = ((s + m - 1) / m) * m;
+        int n32 = 32 * n;
+
+        // Shift both operands so that the divisor is exactly n ints long with its top bit set.
+        int sigma = Math.max(0, n32 - BitLevel.bitLength(b));
+        BigInteger bShifted = BitLevel.shiftLeft(b, sigma);
+        BigInteger aShifted = BitLevel.shiftLeft(a, sigma);
+
+        // Split the dividend into t >= 2 blocks of n ints, with room for one more bit, so that
+        // the top block is less than half the divisor.
+        int t = Math.max((BitLevel.bitLength(aShifted) + n32) / n32, 2);
+
+        // Divide the top two blocks, then repeatedly append the next block to the remainder.
+        int[] quotient = new int[(t - 1) * n];
+        BigInteger z = Elementary.slice(aShifted, (t - 2) * n, t * n);
+        BigInteger[] qr;
+        for (int i = t - 2; ; i--) {
+            qr = divide2n1n(z, bShifted);
+            BigInteger qi = qr[0];
+            System.arraycopy(qi.digits, 0, quotient, i * n, Math.min(qi.numberLength, n));
+            if (i == 0) {
+                break;
+            }
+            z = Elementary.add(BitLevel.shiftLeft(qr[1], n32),
+                    Elementary.slice(aShifted, (i - 1) * n, i * n));
+        }
+        return new BigInteger[] {
+                new BigInteger(1, quotient.length, quotient),
+                BitLevel.shiftRight(qr[1], sigma) };
+    }
+
+    /**
+     * Divides {@code a} by the {@code n}-int {@code b}, where {@code 0 <= a < b * 2^(32n)} and
+     * the top bit of {@code b} is set. Returns the quotient and remainder.
+     */
+    private static BigInteger[] divide2n1n(BigInteger a, BigInteger b) {
+        int n = b.numberLength;
+        if ((n & 1) != 0 || n < BURNIKEL_ZIEGLER_THRESHOLD) {
+            return divideAndRemainderKnuth(a, b);
+        }
+        int half = n / 2;
+        // View a as [a1, a2, a3, a4] with blocks of n/2 ints and divide [a1, a2, a3] by b...
+        BigInteger[] qr1 = divide3n2n(Elementary.slice(a, half, a.numberLength), b);
+        // ...then [r1, a4], where r1 is the remainder of the first step.
+        BigInteger[] qr2 = divide3n2n(
+                Elementary.add(BitLevel.shiftLeft(qr1[1], 32 * half), Elementary.slice(a, 0, half)),
+                b);
+        return new BigInteger[] {
+                Elementary.add(BitLevel.shiftLeft(qr1[0], 32 * half), qr2[0]),
+                qr2[1] };
+    }
+
+    /**
+     * Divides the {@code 3n}-int {@code a} by the {@code 2n}-int {@code b}, where
+     * {@code 0 <= a < b * 2^(32n)} and the top bit of {@code b} is set. Returns the quotient
+     * and remainder.
+     */
+    private static BigInteger[] divide3n2n(BigInteger a, BigInteger b) {
+        int n = b.numberLength / 2;
+        BigInteger a12 = Elementary.slice(a, n, a.numberLength);
+        BigInteger a1 = Elementary.slice(a, 2 * n, a.numberLength);
+        BigInteger b1 = Elementary.slice(b, n, 2 * n);
+        BigInteger b2 = Elementary.slice(b, 0, n);
+
+        // Estimate the quotient by dividing the top 2n ints of a by the top n ints of b.
+        BigInteger q;
+        BigInteger r1;
+        if (Elementary.compare(a1, b1) < 0) {
+            BigInteger[] qr = divide2n1n(a12, b1);
+            q = qr[0];
+            r1 = qr[1];
+        } else {
+            // The estimate is 2^(32n) - 1, and r1 = a12 - q * b1.
+            int[] ones = new int[n];
+            Arrays.fill(ones, -1);
+            q = new BigInteger(1, n, ones);
+            r1 = Elementary.add(Elementary.subtract(a12, BitLevel.shiftLeft(b1, 32 * n)), b1);
+        }
+
+        // The estimate is at most two too big; correct it.
+        BigInteger r = Elementary.subtract(
+                Elementary.add(BitLevel.shiftLeft(r1, 32 * n), Elementary.slice(a, 0, n)),
+                Multiplication.multiply(q, b2));
+        while (r.sign < 0) {
+            r = Elementary.add(r, b);
+            q = Elementary.subtract(q, BigInteger.ONE);
+        }
+        return new BigInteger[] { q, r };
+    }
+
     /**
      * Divides an array by an integer value. Implements the Knuth's division
      * algorithm. See D. Knuth, The Art of Computer Programming, vol. 2.
@@ -88,4 +352,150 @@ class Division {
         }
         return (int) rem;
     }
+
+    /**
+     * Returns {@code base^|exponent| mod modulus} for an odd {@code modulus},
+     * {@code 0 <= base < modulus} and {@code exponent != 0}. Uses Montgomery multiplication and a
+     * sliding window over the exponent. All numbers must have a valid Java representation, and
+     * so does the result.
+     */
+    static BigInteger oddModPow(BigInteger base, BigInteger exponent, BigInteger modulus) {
+        int k = modulus.numberLength;
+        int[] n = modulus.digits;
+        int[] scratch = new int[k + 2];
+
+        // -1 / n mod 2^32 by Newton's iteration; each step doubles the number of correct bits,
+        // starting with three since n * n == 1 mod 8 for any odd n.
+        int n0 = n[0];
+        int inverse = n0;
+        for (int i = 0; i < 4; i++) {
+            inverse *= 2 - n0 * inverse;
+        }
+        int nInverse = -inverse;
+
+        int[] e = exponent.digits;
+        int eLen = exponent.numberLength;
+        int eBits = 32 * eLen - Integer.numberOfLeadingZeros(e[eLen - 1]);
+        int windowBits = 1;
+        while (windowBits <= MOD_POW_WINDOW_THRESHOLDS.length
+                && eBits > MOD_POW_WINDOW_THRESHOLDS[windowBits - 1]) {
+            windowBits++;
+        }
+
+        // table[i] holds base^(2i + 1) in Montgomery form.
+        int[][] table = new int[1 << (windowBits - 1)][];
+        table[0] = toMontgomery(base, modulus);
+        if (table.length > 1) {
+            int[] square = new int[k];
+            montgomeryMultiply(square, table[0], table[0], n, k, nInverse, scratch);
+            for (int i = 1; i < table.length; i++) {
+                table[i] = new int[k];
+                montgomeryMultiply(table[i], table[i - 1], square, n, k, nInverse, scratch);
+            }
+        }
+
+        // Scan the exponent from the top, consuming zero bits one at a time and one bits in
+        // windows of at most windowBits bits that end with a one.
+        int[] x = null;
+        int i = eBits - 1;
+        while (i >= 0) {
+            if (!testBit(e, i)) {
+                montgomeryMultiply(x, x, x, n, k, nInverse, scratch);
+                i--;
+                continue;
+            }
+            int low = Math.max(i - windowBits + 1, 0);
+            while (!testBit(e, low)) {
+                low++;
+            }
+            int window = 0;
+            for (int j = i; j >= low; j--) {
+                window = (window << 1) | (testBit(e, j) ? 1 : 0);
+            }
+            if (x == null) {
+                x = table[window >> 1].clone();
+            } else {
+                for (int j = low; j <= i; j++) {
+                    montgomeryMultiply(x, x, x, n, k, nInverse, scratch);
+                }
+                montgomeryMultiply(x, x, table[window >> 1], n, k, nInverse, scratch);
+            }
+            i = low - 1;
+        }
+
+        // Leave Montgomery form by multiplying by 1.
+        int[] one = new int[k];
+        one[0] = 1;
+        montgomeryMultiply(x, x, one, n, k, nInverse, scratch);
+        return new BigInteger(1, k, x);
+    }
+
+    private static boolean testBit(int[] digits, int n) {
+        return ((digits[n >> 5] >>> (n & 31)) & 1) != 0;
+    }
+
+    /** Returns the {@code k}-int magnitude of {@code x * 2^(32k) mod modulus}. */
+    private static int[] toMontgomery(BigInteger x, BigInteger modulus) {
+        int k = modulus.numberLength;
+        BigInteger r = divideAndRemainder(BitLevel.shiftLeft(x, 32 * k), modulus)[1];
+        int[] res = new int[k];
+        System.arraycopy(r.digits, 0, res, 0, r.numberLength);
+        return res;
+    }
+
+    /**
+     * Stores {@code a * b / 2^(32k) mod n} in {@code res}, which may be {@code a} or {@code b},
+     * for {@code k}-int {@code a, b < n}. {@code nInverse} is {@code -1 / n mod 2^32}, and
+     * {@code scratch} has room for {@code k + 2} ints.
+     */
+    private static void montgomeryMultiply(int[] res, int[] a, int[] b, int[] n, int k,
+            int nInverse, int[] scratch) {
+        int[] t = scratch;
+        Arrays.fill(t, 0);
+        for (int i = 0; i < k; i++) {
+            // t += a[i] * b
+            long ai = a[i] & INT_MASK;
+            long c = 0;
+            for (int j = 0; j < k; j++) {
+                c += (t[j] & INT_MASK) + ai * (b[j] & INT_MASK);
+                t[j] = (int) c;
+                c >>>= 32;
+            }
+            c += t[k] & INT_MASK;
+            t[k] = (int) c;
+            t[k + 1] = (int) (c >>> 32);
+
+            // t = (t + m * n) / 2^32, with m chosen to make the division exact.
+            long m = (t[0] * nInverse) & INT_MASK;
+            c = ((t[0] & INT_MASK) + m * (n[0] & INT_MASK)) >>> 32;
+            for (int j = 1; j < k; j++) {
+                c += (t[j] & INT_MASK) + m * (n[j] & INT_MASK);
+                t[j - 1] = (int) c;
+                c >>>= 32;
+            }
+            c += t[k] & INT_MASK;
+            t[k - 1] = (int) c;
+            t[k] = t[k + 1] + (int) (c >>> 32);
+        }
+
+        // Now t < 2n; subtract n once if t >= n.
+        boolean subtract = t[k] != 0;
+        if (!subtract) {
+            int i = k - 1;
+            while (i >= 0 && t[i] == n[i]) {
+                i--;
+            }
+            subtract = i < 0 || (t[i] & INT_MASK) > (n[i] & INT_MASK);
+        }
+        if (subtract) {
+            long borrow = 0;
+            for (int i = 0; i < k; i++) {
+                borrow += (t[i] & INT_MASK) - (n[i] & INT_MASK);
+                res[i] = (int) borrow;
+                borrow >>= 32;
+            }
+        } else {
+            System.arraycopy(t, 0, res, 0, k);
+        }
+    }
 }
@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package java.math;
+
+/**
+ * Addition, subtraction and comparison of {@link BigInteger} numbers in their Java
+ * representation. These let arithmetic on Java-represented numbers produce Java-represented
+ * results, without allocating a native {@code BIGNUM} for each intermediate value.
+ *
+ * <p>All {@code BigInteger} arguments must have a valid Java representation.
+ */
+final class Elementary {
+
+    private static final long INT_MASK = 0xffffffffL;
+
+    /** Just to denote that this class can't be instantiated. */
+    private Elementary() {}
+
+    /** Returns -1, 0 or 1 as {@code a} is less than, equal to or greater than {@code b}. */
+    static int compare(BigInteger a, BigInteger b) {
+        if (a.sign != b.sign) {
+            return (a.sign < b.sign) ? -1 : 1;
+        }
+        if (a.sign == 0) {
+            return 0;
+        }
+        int cmp = compareArrays(a.digits, a.numberLength, b.digits, b.numberLength);
+        return (a.sign > 0) ? cmp : -cmp;
+    }
+
+    /**
+     * Compares the magnitudes {@code a[0, aLen)} and {@code b[0, bLen)}, neither of which may
+     * have leading zero ints.
+     */
+    static int compareArrays(int[] a, int aLen, int[] b, int bLen) {
+        if (aLen != bLen) {
+            return (aLen < bLen) ? -1 : 1;
+        }
+        for (int i = aLen - 1; i >= 0; i--) {
+            if (a[i] != b[i]) {
+                return ((a[i] & INT_MASK) < (b[i] & INT_MASK)) ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+
+    /** @see BigInteger#add(BigInteger) */
+    static BigInteger add(BigInteger a, BigInteger b) {
+        return add(a, b, b.sign);
+    }
+
+    /** @see BigInteger#subtract(BigInteger) */
+    static BigInteger subtract(BigInteger a, BigInteger b) {
+        return add(a, b, -b.sign);
+    }
+
+    /** Returns {@code a + bSign * |b|}. */
+    private static BigInteger add(BigInteger a, BigInteger b, int bSign) {
+        if (bSign == 0) {
+            return a;
+        }
+        if (a.sign == 0) {
+            return (bSign == b.sign) ? b : negate(b);
+        }
+        int aLen = a.numberLength;
+        int bLen = b.numberLength;
+        if (a.sign == bSign) {
+            int[] res = (aLen >= bLen)
+                    ? addArrays(a.digits, aLen, b.digits, bLen)
+                    : addArrays(b.digits, bLen, a.digits, aLen);
+            return new BigInteger(a.sign, res.length, res);
+        }
+        int cmp = compareArrays(a.digits, aLen, b.digits, bLen);
+        if (cmp == 0) {
+            return BigInteger.ZERO;
+        }
+        if (cmp > 0) {
+            return new BigInteger(a.sign, aLen, subtractArrays(a.digits, aLen, b.digits, bLen));
+        }
+        return new BigInteger(bSign, bLen, subtractArrays(b.digits, bLen, a.digits, aLen));
+    }
+
+    /** @see BigInteger#negate() */
+    static BigInteger negate(BigInteger a) {
+        // The digits are never modified once a number is constructed, so they can be shared.
+        return (a.sign == 0) ? a : new BigInteger(-a.sign, a.numberLength, a.digits);
+    }
+
+    /**
+     * Returns {@code a[0, aLen) + b[0, bLen)} in a new array of {@code aLen + 1} ints. Requires
+     * {@code aLen >= bLen}.
+     */
+    static int[] addArrays(int[] a, int aLen, int[] b, int bLen) {
+        int[] res = new int[aLen + 1];
+        long carry = 0;
+        int i = 0;
+        for (; i < bLen; i++) {
+            carry += (a[i] & INT_MASK) + (b[i] & INT_MASK);
+            res[i] = (int) carry;
+            carry >>>= 32;
+        }
+        for (; i < aLen; i++) {
+            carry += a[i] & INT_MASK;
+            res[i] = (int) carry;
+            carry >>>= 32;
+        }
+        res[aLen] = (int) carry;
+        return res;
+    }
+
+    /**
+     * Returns {@code a[0, aLen) - b[0, bLen)} in a new array of {@code aLen} ints. Requires the
+     * first magnitude to be at least the second.
+     */
+    static int[] subtractArrays(int[] a, int aLen, int[] b, int bLen) {
+        int[] res = new int[aLen];
+        long borrow = 0;
+        int i = 0;
+        for (; i < bLen; i++) {
+            borrow += (a[i] & INT_MASK) - (b[i] & INT_MASK);
+            res[i] = (int) borrow;
+            borrow >>= 32;
+        }
+        for (; i < aLen; i++) {
+            borrow += a[i] & INT_MASK;
+            res[i] = (int) borrow;
+            borrow >>= 32;
+        }
+        return res;
+    }
+
+    /**
+     * Adds {@code b[0, bLen)} to {@code a} starting at {@code a[offset]}, propagating the carry.
+     * The sum must fit in {@code a}.
+     */
+    static void inplaceAdd(int[] a, int offset, int[] b, int bLen) {
+        long carry = 0;
+        int i = 0;
+        for (; i < bLen; i++) {
+            carry += (a[offset + i] & INT_MASK) + (b[i] & INT_MASK);
+            a[offset + i] = (int) carry;
+            carry >>>= 32;
+        }
+        for (i += offset; carry != 0; i++) {
+            carry += a[i] & INT_MASK;
+            a[i] = (int) carry;
+            carry >>>= 32;
+        }
+    }
+
+    /**
+     * Subtracts {@code b[0, bLen)} from {@code a}, propagating the borrow. The difference must
+     * not be negative.
+     */
+    static void inplaceSubtract(int[] a, int[] b, int bLen) {
+        long borrow = 0;
+        int i = 0;
+        for (; i < bLen; i++) {
+            borrow += (a[i] & INT_MASK) - (b[i] & INT_MASK);
+            a[i] = (int) borrow;
+            borrow >>= 32;
+        }
+        for (; borrow != 0; i++) {
+            borrow += a[i] & INT_MASK;
+            a[i] = (int) borrow;
+            borrow >>= 32;
+        }
+    }
+
+    /**
+     * Returns the non-negative number made of the ints {@code [from, to)} of the magnitude of
+     * {@code a}, which may extend past its length.
+     */
+    static BigInteger slice(BigInteger a, int from, int to) {
+        to = Math.min(to, a.numberLength);
+        if (from >= to) {
+            return BigInteger.ZERO;
+        }
+        int[] res = new int[to - from];
+        System.arraycopy(a.digits, from, res, 0, to - from);
+        return new BigInteger(1, res.length, res);
+    }
+}
@@ -79,9 +79,172 @@ class Multiplication {
         }
     }
 
-    // BEGIN android-note: multiply has been removed in favor of using OpenSSL BIGNUM
+    // BEGIN android-note: multiply uses OpenSSL BIGNUM for numbers longer than
+    // BigInteger's Java arithmetic limit
     // END android-note
 
+    /**
+     * Length in ints of the shorter operand from which {@link #multiply(BigInteger, BigInteger)}
+     * uses Karatsuba rather than pencil and paper multiplication.
+     */
+    static final int KARATSUBA_THRESHOLD = 80;
+
+    /**
+     * Length in ints of the longer operand from which {@link #multiply(BigInteger, BigInteger)}
+     * uses 3-way Toom-Cook rather than Karatsuba multiplication.
+     */
+    static final int TOOM_COOK_THRESHOLD = 240;
+
+    private static final long INT_MASK = 0xffffffffL;
+
+    /**
+     * Returns {@code a * b}. Both numbers must have a valid Java representation, and so does
+     * the result.
+     */
+    static BigInteger multiply(BigInteger a, BigInteger b) {
+        if (a.sign == 0 || b.sign == 0) {
+            return BigInteger.ZERO;
+        }
+        int aLen = a.numberLength;
+        int bLen = b.numberLength;
+        if (aLen < KARATSUBA_THRESHOLD || bLen < KARATSUBA_THRESHOLD
+                || (aLen < TOOM_COOK_THRESHOLD && bLen < TOOM_COOK_THRESHOLD)) {
+            int[] resDigits = multiplyArrays(a.digits, aLen, b.digits, bLen);
+            return new BigInteger(a.sign * b.sign, aLen + bLen, resDigits);
+        }
+        return multiplyToomCook3(a, b);
+    }
+
+    /**
+     * Returns the product of the magnitudes {@code a[0, aLen)} and {@code b[0, bLen)} in a new
+     * array of {@code aLen + bLen} ints, using Karatsuba multiplication for long operands.
+     */
+    static int[] multiplyArrays(int[] a, int aLen, int[] b, int bLen) {
+        if (aLen < bLen) {
+            int[] tmp = a;
+            a = b;
+            b = tmp;
+            int tmpLen = aLen;
+            aLen = bLen;
+            bLen = tmpLen;
+        }
+        int[] res = new int[aLen + bLen];
+        if (bLen < KARATSUBA_THRESHOLD) {
+            multArraysPAP(a, aLen, b, bLen, res);
+            return res;
+        }
+        // Split both operands at the middle of the longer one: a = a1 * B + a0, b = b1 * B + b0.
+        int half = (aLen + 1) >> 1;
+        int[] a1 = new int[aLen - half];
+        System.arraycopy(a, half, a1, 0, aLen - half);
+        if (bLen <= half) {
+            // b has no upper half: a * b = (a1 * b) * B + a0 * b.
+            int[] low = multiplyArrays(a, half, b, bLen);
+            int[] high = multiplyArrays(a1, a1.length, b, bLen);
+            System.arraycopy(low, 0, res, 0, low.length);
+            Elementary.inplaceAdd(res, half, high, high.length);
+            return res;
+        }
+        int[] b1 = new int[bLen - half];
+        System.arraycopy(b, half, b1, 0, bLen - half);
+        int[] z0 = multiplyArrays(a, half, b, half);
+        int[] z2 = multiplyArrays(a1, a1.length, b1, b1.length);
+        // z1 = (a0 + a1) * (b0 + b1) - z0 - z2 = a0 * b1 + a1 * b0
+        int[] z1 = multiplyArrays(Elementary.addArrays(a, half, a1, a1.length), half + 1,
+                Elementary.addArrays(b, half, b1, b1.length), half + 1);
+        Elementary.inplaceSubtract(z1, z0, z0.length);
+        Elementary.inplaceSubtract(z1, z2, z2.length);
+        System.arraycopy(z0, 0, res, 0, z0.length);
+        System.arraycopy(z2, 0, res, z0.length, z2.length);
+        int z1Len = z1.length;
+        while (z1Len > 0 && z1[z1Len - 1] == 0) {
+            z1Len--;
+        }
+        Elementary.inplaceAdd(res, half, z1, z1Len);
+        return res;
+    }
+
+    /**
+     * Multiplies the magnitudes {@code a[0, aLen)} and {@code b[0, bLen)} with the pencil and
+     * paper algorithm, storing the product in the zeroed {@code res[0, aLen + bLen)}.
+     */
+    static void multArraysPAP(int[] a, int aLen, int[] b, int bLen, int[] res) {
+        for (int i = 0; i < aLen; i++) {
+            long ai = a[i] & INT_MASK;
+            if (ai == 0) {
+                continue;
+            }
+            long carry = 0;
+            for (int j = 0; j < bLen; j++) {
+                // At most (2^32 - 1)^2 + 2 * (2^32 - 1) = 2^64 - 1, which fits unsigned.
+                carry += ai * (b[j] & INT_MASK) + (res[i + j] & INT_MASK);
+                res[i + j] = (int) carry;
+                carry >>>= 32;
+            }
+            res[i + bLen] = (int) carry;
+        }
+    }
+
+    /**
+     * Multiplies two long numbers with the 3-way Toom-Cook algorithm, using the evaluation
+     * points 0, 1, -1, 2 and infinity and Bodrato's interpolation sequence, as described in
+     * M. Bodrato, "Towards Optimal Toom-Cook Multiplication for Univariate and Multivariate
+     * Polynomials in Characteristic 2 and 0".
+     */
+    private static BigInteger multiplyToomCook3(BigInteger a, BigInteger b) {
+        int largest = Math.max(a.numberLength, b.numberLength);
+        // Split both operands into three slices of k ints: a = a2 * B^2 + a1 * B + a0.
+        int k = (largest + 2) / 3;
+
+        BigInteger a0 = Elementary.slice(a, 0, k);
+        BigInteger a1 = Elementary.slice(a, k, 2 * k);
+        BigInteger a2 = Elementary.slice(a, 2 * k, largest);
+        BigInteger b0 = Elementary.slice(b, 0, k);
+        BigInteger b1 = Elementary.slice(b, k, 2 * k);
+        BigInteger b2 = Elementary.slice(b, 2 * k, largest);
+
+        // Evaluate both polynomials at the five points and multiply pointwise.
+        BigInteger v0 = multiply(a0, b0);
+        BigInteger da1 = Elementary.add(a2, a0);
+        BigInteger db1 = Elementary.add(b2, b0);
+        BigInteger vm1 = multiply(Elementary.subtract(da1, a1), Elementary.subtract(db1, b1));
+        da1 = Elementary.add(da1, a1);
+        db1 = Elementary.add(db1, b1);
+        BigInteger v1 = multiply(da1, db1);
+        BigInteger v2 = multiply(
+                Elementary.subtract(BitLevel.shiftLeft(Elementary.add(da1, a2), 1), a0),
+                Elementary.subtract(BitLevel.shiftLeft(Elementary.add(db1, b2), 1), b0));
+        BigInteger vinf = multiply(a2, b2);
+
+        // Interpolate. Every division here is exact.
+        BigInteger t2 = exactDivideBy3(Elementary.subtract(v2, vm1));
+        BigInteger tm1 = BitLevel.shiftRight(Elementary.subtract(v1, vm1), 1);
+        BigInteger t1 = Elementary.subtract(v1, v0);
+        t2 = BitLevel.shiftRight(Elementary.subtract(t2, t1), 1);
+        t1 = Elementary.subtract(Elementary.subtract(t1, tm1), vinf);
+        t2 = Elementary.subtract(t2, BitLevel.shiftLeft(vinf, 1));
+        tm1 = Elementary.subtract(tm1, t2);
+
+        // Recompose: (((vinf * B + t2) * B + t1) * B + tm1) * B + v0.
+        int shift = k * 32;
+        BigInteger result = Elementary.add(BitLevel.shiftLeft(vinf, shift), t2);
+        result = Elementary.add(BitLevel.shiftLeft(result, shift), t1);
+        result = Elementary.add(BitLevel.shiftLeft(result, shift), tm1);
+        result = Elementary.add(BitLevel.shiftLeft(result, shift), v0);
+        return (a.sign == b.sign) ? result : Elementary.negate(result);
+    }
+
+    /** Returns {@code val / 3} for a {@code val} that is known to be a multiple of 3. */
+    private static BigInteger exactDivideBy3(BigInteger val) {
+        if (val.sign == 0) {
+            return val;
+        }
+        int len = val.numberLength;
+        int[] quotient = new int[len];
+        Division.divideArrayByInt(quotient, val.digits, len, 3);
+        return new BigInteger(val.sign, len, quotient);
+    }
+
     /**
      * Multiplies a number by a positive integer.
      * @param val an arbitrary {@code BigInteger}
@@ -17,11 +17,16 @@
 package java.net;
 
 import dalvik.annotation.compat.UnsupportedAppUsage;
+import java.util.concurrent.atomic.AtomicLong;
 import libcore.util.BasicLruCache;
 
 /**
- * Implements caching for {@code InetAddress}. We use a unified cache for both positive and negative
- * cache entries.
+ * Implements caching for {@code InetAddress}. Positive and negative entries are kept in separate
+ * caches so that a burst of failed lookups can't evict the addresses of hosts that do resolve.
+ *
+ * Each cache is split into a fixed number of independently locked stripes, selected by the hash
+ * of the key, so concurrent lookups of different hosts don't all contend on a single monitor.
+ * The LRU order is only maintained per stripe.
  *
  * TODO: benchmark and optimize InetAddress until we get to the point where we can just rely on
  * the C library level caching. The main thing caching at this level buys us is avoiding repeated
@@ -29,18 +34,44 @@ import libcore.util.BasicLruCache;
  */
 class AddressCache {
     /**
-     * When the cache contains more entries than this, we start dropping the oldest ones.
-     * This should be a power of two to avoid wasted space in our custom map.
+     * The default number of positive entries. When a stripe holds more than its share of this,
+     * we start dropping its oldest entries.
+     */
+    private static final int DEFAULT_MAX_ENTRIES = 256;
+
+    /**
+     * The default number of negative entries. Failed lookups are usually retried soon after and
+     * rarely worth keeping around in large numbers.
+     */
+    private static final int DEFAULT_MAX_NEGATIVE_ENTRIES = 64;
+
+    /**
+     * The number of independently locked stripes in each cache. This must be a power of two.
      */
-    private static final int MAX_ENTRIES = 16;
+    private static final int STRIPE_COUNT = 16;
+
+    // The default TTL for the Java-level cache is short, just 2s.
+    private static final long DEFAULT_TTL_NANOS = 2 * 1000000000L;
 
-    // The TTL for the Java-level cache is short, just 2s.
-    private static final long TTL_NANOS = 2 * 1000000000L;
+    // The only entry of the cache field, see below.
+    private static final AddressCacheKey PLACEHOLDER_KEY = new AddressCacheKey("", 0);
+    private static final AddressCacheEntry PLACEHOLDER_ENTRY = new AddressCacheEntry("", 0);
 
-    // The actual cache.
+    private final Stripe[] positiveStripes;
+    private final Stripe[] negativeStripes;
+
+    // Apps flush the cache by calling evictAll() on this field through reflection. It holds a
+    // single placeholder entry, whose eviction clears the stripes. Nothing else is forwarded.
     @UnsupportedAppUsage
-    private final BasicLruCache<AddressCacheKey, AddressCacheEntry> cache
-            = new BasicLruCache<AddressCacheKey, AddressCacheEntry>(MAX_ENTRIES);
+    private final BasicLruCache<AddressCacheKey, AddressCacheEntry> cache = new EvictAllShim();
+
+    // Whether the placeholder was evicted and must be put back before the next entry is added.
+    // Only written while holding the lock of cache.
+    private volatile boolean placeholderEvicted;
+
+    // The TTL of a positive entry is capped at this, whatever the resolver says.
+    private final long maxTtlNanos;
+    private final long negativeTtlNanos;
 
     static class AddressCacheKey {
         @UnsupportedAppUsage
@@ -81,23 +112,127 @@ class AddressCache {
          * The absolute expiry time in nanoseconds. Nanoseconds from System.nanoTime is ideal
          * because -- unlike System.currentTimeMillis -- it can never go backwards.
          *
-         * We don't need to worry about overflow with a TTL_NANOS of 2s.
+         * We don't need to worry about overflow because the TTL is always capped by the owning
+         * cache's maximum TTL.
          */
         @UnsupportedAppUsage
         final long expiryNanos;
 
         @UnsupportedAppUsage
         AddressCacheEntry(Object value) {
+            this(value, DEFAULT_TTL_NANOS);
+        }
+
+        AddressCacheEntry(Object value, long ttlNanos) {
             this.value = value;
-            this.expiryNanos = System.nanoTime() + TTL_NANOS;
+            this.expiryNanos = System.nanoTime() + ttlNanos;
         }
     }
 
     /**
-     * Removes all entries from the cache.
+     * One independently locked segment of the cache. Statistics are kept per stripe so that
+     * lookups on different stripes don't contend on shared counters. Hits and misses are only
+     * counted on the positive stripes.
+     */
+    private static final class Stripe extends BasicLruCache<AddressCacheKey, AddressCacheEntry> {
+        final AtomicLong hitCount = new AtomicLong();
+        final AtomicLong missCount = new AtomicLong();
+        final AtomicLong evictionCount = new AtomicLong();
+
+        Stripe(int maxSize) {
+            super(maxSize);
+        }
+
+        @Override protected void entryEvicted(AddressCacheKey key, AddressCacheEntry value) {
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Forwards {@link #evictAll()} to {@link AddressCache#clear()}.
+     */
+    private final class EvictAllShim extends BasicLruCache<AddressCacheKey, AddressCacheEntry> {
+        EvictAllShim() {
+            super(1);
+            put(PLACEHOLDER_KEY, PLACEHOLDER_ENTRY);
+        }
+
+        @Override protected void entryEvicted(AddressCacheKey key, AddressCacheEntry value) {
+            if (key == PLACEHOLDER_KEY) {
+                clear();
+                placeholderEvicted = true;
+            }
+        }
+    }
+
+    private void restorePlaceholder() {
+        if (placeholderEvicted) {
+            synchronized (cache) {
+                if (placeholderEvicted) {
+                    cache.put(PLACEHOLDER_KEY, PLACEHOLDER_ENTRY);
+                    placeholderEvicted = false;
+                }
+            }
+        }
+    }
+
+    AddressCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_NEGATIVE_ENTRIES, DEFAULT_TTL_NANOS,
+                DEFAULT_TTL_NANOS);
+    }
+
+    /**
+     * Creates a cache holding roughly {@code maxEntries} positive and {@code maxNegativeEntries}
+     * negative entries. Positive entries live for at most {@code maxTtlNanos}, negative entries
+     * for exactly {@code negativeTtlNanos}.
+     */
+    AddressCache(int maxEntries, int maxNegativeEntries, long maxTtlNanos,
+            long negativeTtlNanos) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries <= 0");
+        }
+        if (maxNegativeEntries <= 0) {
+            throw new IllegalArgumentException("maxNegativeEntries <= 0");
+        }
+        if (maxTtlNanos < 0) {
+            throw new IllegalArgumentException("maxTtlNanos < 0");
+        }
+        if (negativeTtlNanos < 0) {
+            throw new IllegalArgumentException("negativeTtlNanos < 0");
+        }
+        this.positiveStripes = newStripes(maxEntries);
+        this.negativeStripes = newStripes(maxNegativeEntries);
+        this.maxTtlNanos = maxTtlNanos;
+        this.negativeTtlNanos = negativeTtlNanos;
+    }
+
+    private static Stripe[] newStripes(int maxEntries) {
+        int perStripe = Math.max(1, (maxEntries + STRIPE_COUNT - 1) / STRIPE_COUNT);
+        Stripe[] stripes = new Stripe[STRIPE_COUNT];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+        return stripes;
+    }
+
+    private static Stripe stripeFor(Stripe[] stripes, AddressCacheKey key) {
+        // Spread the high bits down, since String.hashCode is weak in the low bits for
+        // hostnames that share a suffix.
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & (STRIPE_COUNT - 1)];
+    }
+
+    /**
+     * Removes all entries from the cache. The hit, miss and eviction counts are not reset.
      */
     public void clear() {
-        cache.evictAll();
+        for (Stripe stripe : positiveStripes) {
+            stripe.evictAll();
+        }
+        for (Stripe stripe : negativeStripes) {
+            stripe.evictAll();
+        }
     }
 
     /**
@@ -106,13 +241,22 @@ class AddressCache {
      * UnknownHostException detail message if 'hostname' is known not to exist.
      */
     public Object get(String hostname, int netId) {
-        AddressCacheEntry entry = cache.get(new AddressCacheKey(hostname, netId));
-        // Do we have a valid cache entry?
-        if (entry != null && entry.expiryNanos >= System.nanoTime()) {
+        AddressCacheKey key = new AddressCacheKey(hostname, netId);
+        long now = System.nanoTime();
+        // Do we have a valid cache entry? A positive entry wins over a negative one, since
+        // we only ever add the latter after the former has expired.
+        Stripe positive = stripeFor(positiveStripes, key);
+        AddressCacheEntry entry = positive.get(key);
+        if (entry == null || entry.expiryNanos < now) {
+            entry = stripeFor(negativeStripes, key).get(key);
+        }
+        if (entry != null && entry.expiryNanos >= now) {
+            positive.hitCount.incrementAndGet();
             return entry.value;
         }
         // Either we didn't find anything, or it had expired.
         // No need to remove expired entries: the caller will provide a replacement shortly.
+        positive.missCount.incrementAndGet();
         return null;
     }
 
@@ -121,7 +265,22 @@ class AddressCache {
      * certain length of time.
      */
     public void put(String hostname, int netId, InetAddress[] addresses) {
-        cache.put(new AddressCacheKey(hostname, netId), new AddressCacheEntry(addresses));
+        put(hostname, netId, addresses, maxTtlNanos);
+    }
+
+    /**
+     * Associates the given 'addresses' with 'hostname' for 'ttlNanos', as reported by the
+     * resolver. The TTL is capped at this cache's maximum TTL.
+     */
+    public void put(String hostname, int netId, InetAddress[] addresses, long ttlNanos) {
+        if (ttlNanos <= 0) {
+            // The resolver told us not to cache this.
+            return;
+        }
+        restorePlaceholder();
+        AddressCacheKey key = new AddressCacheKey(hostname, netId);
+        stripeFor(positiveStripes, key).put(key,
+                new AddressCacheEntry(addresses, Math.min(ttlNanos, maxTtlNanos)));
     }
 
     /**
@@ -129,6 +288,49 @@ class AddressCache {
      * negative cache entry.)
      */
     public void putUnknownHost(String hostname, int netId, String detailMessage) {
-        cache.put(new AddressCacheKey(hostname, netId), new AddressCacheEntry(detailMessage));
+        if (negativeTtlNanos == 0) {
+            return;
+        }
+        restorePlaceholder();
+        AddressCacheKey key = new AddressCacheKey(hostname, netId);
+        stripeFor(negativeStripes, key).put(key,
+                new AddressCacheEntry(detailMessage, negativeTtlNanos));
+    }
+
+    /**
+     * Returns the number of calls to {@link #get} that returned a valid entry.
+     */
+    public long hitCount() {
+        long result = 0;
+        for (Stripe stripe : positiveStripes) {
+            result += stripe.hitCount.get();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of calls to {@link #get} that found nothing or an expired entry.
+     */
+    public long missCount() {
+        long result = 0;
+        for (Stripe stripe : positiveStripes) {
+            result += stripe.missCount.get();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of entries that were dropped to make room for newer ones. Entries
+     * removed by {@link #clear} are included.
+     */
+    public long evictionCount() {
+        long result = 0;
+        for (Stripe stripe : positiveStripes) {
+            result += stripe.evictionCount.get();
+        }
+        for (Stripe stripe : negativeStripes) {
+            result += stripe.evictionCount.get();
+        }
+        return result;
     }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package java.nio.charset;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import sun.nio.cs.ArrayDecoder;
+
+/**
+ * An ISO-8859-1 or US-ASCII decoder that works directly on the buffers it is given, rather
+ * than copying them through ICU like {@link CharsetDecoderICU}. Every byte maps to the char
+ * with the same value; for US-ASCII, bytes above 0x7f are malformed.
+ */
+final class CharsetDecoderLatin1 extends CharsetDecoder implements ArrayDecoder {
+    // These match CharsetDecoderICU for ICU's single-byte converters.
+    private static final float AVERAGE_CHARS_PER_BYTE = 1;
+    private static final float MAX_CHARS_PER_BYTE = 2;
+
+    private final boolean ascii;
+
+    /**
+     * @param ascii whether to decode US-ASCII rather than ISO-8859-1.
+     */
+    CharsetDecoderLatin1(Charset cs, boolean ascii) {
+        super(cs, AVERAGE_CHARS_PER_BYTE, MAX_CHARS_PER_BYTE);
+        this.ascii = ascii;
+    }
+
+    @Override protected CoderResult decodeLoop(ByteBuffer in, CharBuffer out) {
+        if (in.hasArray() && out.hasArray()) {
+            return decodeArrayLoop(in, out);
+        }
+        return decodeBufferLoop(in, out);
+    }
+
+    private CoderResult decodeArrayLoop(ByteBuffer in, CharBuffer out) {
+        byte[] src = in.array();
+        int sp = in.arrayOffset() + in.position();
+        int sl = in.arrayOffset() + in.limit();
+        char[] dst = out.array();
+        int dp = out.arrayOffset() + out.position();
+        int dl = out.arrayOffset() + out.limit();
+
+        int n = Math.min(sl - sp, dl - dp);
+        CoderResult result = (n < sl - sp) ? CoderResult.OVERFLOW : CoderResult.UNDERFLOW;
+        if (ascii) {
+            int copied = CharsetDecoderUtf8.decodeAscii(src, sp, dst, dp, n);
+            if (copied < n) {
+                result = CoderResult.malformedForLength(1);
+            }
+            n = copied;
+        } else {
+            for (int i = 0; i < n; i++) {
+                dst[dp + i] = (char) (src[sp + i] & 0xff);
+            }
+        }
+        in.position(sp + n - in.arrayOffset());
+        out.position(dp + n - out.arrayOffset());
+        return result;
+    }
+
+    private CoderResult decodeBufferLoop(ByteBuffer in, CharBuffer out) {
+        int sp = in.position();
+        int sl = in.limit();
+        int dp = out.position();
+        int n = Math.min(sl - sp, out.remaining());
+        CoderResult result = (n < sl - sp) ? CoderResult.OVERFLOW : CoderResult.UNDERFLOW;
+        int i = 0;
+        if (ascii) {
+            // The mask is the same in either byte order.
+            while (i + 8 <= n && (in.getLong(sp + i) & CharsetDecoderUtf8.NON_ASCII_MASK) == 0) {
+                for (int j = 0; j < 8; j++, i++) {
+                    out.put(dp + i, (char) in.get(sp + i));
+                }
+            }
+            for (; i < n; i++) {
+                byte b = in.get(sp + i);
+                if (b < 0) {
+                    result = CoderResult.malformedForLength(1);
+                    break;
+                }
+                out.put(dp + i, (char) b);
+            }
+        } else {
+            for (; i < n; i++) {
+                out.put(dp + i, (char) (in.get(sp + i) & 0xff));
+            }
+        }
+        in.position(sp + i);
+        out.position(dp + i);
+        return result;
+    }
+
+    /**
+     * Decodes {@code src[off, off + len)} into {@code dst} and returns the number of chars
+     * written. For US-ASCII, each byte above 0x7f is replaced by the first char of the
+     * replacement if malformed input is to be replaced; otherwise -1 is returned.
+     */
+    @Override
+    public int decode(byte[] src, int off, int len, char[] dst) {
+        if (!ascii) {
+            for (int i = 0; i < len; i++) {
+                dst[i] = (char) (src[off + i] & 0xff);
+            }
+            return len;
+        }
+        int i = 0;
+        while (i < len) {
+            i += CharsetDecoderUtf8.decodeAscii(src, off + i, dst, i, len - i);
+            if (i < len) {
+                if (malformedInputAction() != CodingErrorAction.REPLACE) {
+                    return -1;
+                }
+                dst[i++] = replacement().charAt(0);
+            }
+        }
+        return len;
+    }
+}
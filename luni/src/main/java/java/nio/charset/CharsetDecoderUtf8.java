@@ -0,0 +1,506 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package java.nio.charset;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import libcore.io.Memory;
+import sun.nio.cs.ArrayDecoder;
+
+/**
+ * A UTF-8 decoder that works directly on the buffers it is given, rather than copying them
+ * through ICU like {@link CharsetDecoderICU}.
+ *
+ * <p>Malformed input is reported one maximal subpart at a time, as ICU does: a sequence that
+ * is cut short by an invalid byte is malformed for the length of its valid prefix.
+ *
+ * <p>Also like ICU, a sequence that is split across calls to {@link #decode(ByteBuffer,
+ * CharBuffer, boolean)} is decoded correctly even if the caller does not keep the unconsumed
+ * end of one input buffer for the next: the start of the sequence is consumed and kept here.
+ */
+final class CharsetDecoderUtf8 extends CharsetDecoder implements ArrayDecoder {
+    // These match CharsetDecoderICU for ICU's UTF-8 converter.
+    private static final float AVERAGE_CHARS_PER_BYTE = 1.0f / 3;
+    private static final float MAX_CHARS_PER_BYTE = 2;
+
+    /** The high bit of each byte of a long; ASCII bytes have it clear. */
+    static final long NON_ASCII_MASK = 0x8080808080808080L;
+
+    // The start of a sequence that was consumed by an earlier call to decodeLoop.
+    private final byte[] pending = new byte[4];
+    private int pendingCount;
+
+    CharsetDecoderUtf8(Charset cs) {
+        super(cs, AVERAGE_CHARS_PER_BYTE, MAX_CHARS_PER_BYTE);
+    }
+
+    /**
+     * Copies the ASCII bytes at the start of {@code src[sp, sp + n)} to {@code dst} as chars,
+     * eight at a time while possible. Returns the number copied.
+     */
+    static int decodeAscii(byte[] src, int sp, char[] dst, int dp, int n) {
+        int i = 0;
+        for (; i + 8 <= n; i += 8) {
+            long word = Memory.peekLong(src, sp + i, ByteOrder.LITTLE_ENDIAN);
+            if ((word & NON_ASCII_MASK) != 0) {
+                break;
+            }
+            for (int j = 0; j < 8; j++) {
+                dst[dp + i + j] = (char) ((word >>> (j * 8)) & 0x7f);
+            }
+        }
+        for (; i < n && src[sp + i] >= 0; i++) {
+            dst[dp + i] = (char) src[sp + i];
+        }
+        return i;
+    }
+
+    private static boolean isContinuation(int b) {
+        return (b & 0xc0) == 0x80;
+    }
+
+    /**
+     * Returns whether {@code b2} may follow {@code b1}, the first byte of a three-byte
+     * sequence. Overlong encodings and surrogates are rejected.
+     */
+    private static boolean isValidSecondOfThree(int b1, int b2) {
+        if (b1 == 0xe0) {
+            return b2 >= 0xa0 && b2 <= 0xbf;
+        } else if (b1 == 0xed) {
+            return b2 >= 0x80 && b2 <= 0x9f;
+        }
+        return isContinuation(b2);
+    }
+
+    /**
+     * Returns whether {@code b2} may follow {@code b1}, the first byte of a four-byte
+     * sequence. Overlong encodings and code points above U+10FFFF are rejected.
+     */
+    private static boolean isValidSecondOfFour(int b1, int b2) {
+        if (b1 == 0xf0) {
+            return b2 >= 0x90 && b2 <= 0xbf;
+        } else if (b1 == 0xf4) {
+            return b2 >= 0x80 && b2 <= 0x8f;
+        }
+        return isContinuation(b2);
+    }
+
+    /** Returns the length of the sequence that starts with {@code b1}, a valid first byte. */
+    private static int sequenceLength(int b1) {
+        return (b1 < 0xe0) ? 2 : (b1 < 0xf0) ? 3 : 4;
+    }
+
+    @Override protected CoderResult decodeLoop(ByteBuffer in, CharBuffer out) {
+        if (pendingCount > 0) {
+            CoderResult result = decodePending(in, out);
+            if (result != null) {
+                return result;
+            }
+        }
+        if (in.hasArray() && out.hasArray()) {
+            return decodeArrayLoop(in, out);
+        }
+        return decodeBufferLoop(in, out);
+    }
+
+    @Override protected CoderResult implFlush(CharBuffer out) {
+        if (pendingCount == 0) {
+            return CoderResult.UNDERFLOW;
+        }
+        int b1 = pending[0] & 0xff;
+        if (pendingCount == sequenceLength(b1)) {
+            // The sequence is complete; the last call only lacked room for its output.
+            CoderResult result = decodePending(ByteBuffer.allocate(0), out);
+            return (result != null) ? result : CoderResult.UNDERFLOW;
+        }
+        // The input ended in the middle of a sequence.
+        CoderResult result = malformedPending(out);
+        return (result != null) ? result : CoderResult.UNDERFLOW;
+    }
+
+    @Override protected void implReset() {
+        pendingCount = 0;
+    }
+
+    /**
+     * Completes the pending sequence with bytes from {@code in}. Returns null once the pending
+     * sequence has been dealt with, or the result decodeLoop should return.
+     */
+    private CoderResult decodePending(ByteBuffer in, CharBuffer out) {
+        int b1 = pending[0] & 0xff;
+        int length = sequenceLength(b1);
+        while (pendingCount < length) {
+            if (!in.hasRemaining()) {
+                return CoderResult.UNDERFLOW;
+            }
+            int b = in.get(in.position()) & 0xff;
+            boolean valid;
+            if (pendingCount > 1 || length == 2) {
+                valid = isContinuation(b);
+            } else if (length == 3) {
+                valid = isValidSecondOfThree(b1, b);
+            } else {
+                valid = isValidSecondOfFour(b1, b);
+            }
+            if (!valid) {
+                return malformedPending(out);
+            }
+            pending[pendingCount++] = (byte) b;
+            in.position(in.position() + 1);
+        }
+        if (out.remaining() < ((length == 4) ? 2 : 1)) {
+            return CoderResult.OVERFLOW;
+        }
+        if (length == 2) {
+            out.put((char) (((b1 & 0x1f) << 6) | (pending[1] & 0x3f)));
+        } else if (length == 3) {
+            out.put((char) (((b1 & 0x0f) << 12) | ((pending[1] & 0x3f) << 6)
+                    | (pending[2] & 0x3f)));
+        } else {
+            int codePoint = ((b1 & 0x07) << 18) | ((pending[1] & 0x3f) << 12)
+                    | ((pending[2] & 0x3f) << 6) | (pending[3] & 0x3f);
+            out.put(Character.highSurrogate(codePoint));
+            out.put(Character.lowSurrogate(codePoint));
+        }
+        pendingCount = 0;
+        return null;
+    }
+
+    /**
+     * Handles the pending bytes as a malformed subpart. They were consumed by an earlier call,
+     * so they cannot be left in the input for CharsetDecoder to skip or replace; act on them
+     * here instead, as ICU does. Returns null if decoding can continue, or the result to return.
+     */
+    private CoderResult malformedPending(CharBuffer out) {
+        CodingErrorAction action = malformedInputAction();
+        if (action == CodingErrorAction.REPORT) {
+            CoderResult result = CoderResult.malformedForLength(pendingCount);
+            pendingCount = 0;
+            return result;
+        }
+        if (action == CodingErrorAction.REPLACE) {
+            if (out.remaining() < replacement().length()) {
+                return CoderResult.OVERFLOW;
+            }
+            out.put(replacement());
+        }
+        pendingCount = 0;
+        return null;
+    }
+
+    /** Consumes {@code in[sp, sl)}, the start of a sequence, into {@link #pending}. */
+    private void savePending(ByteBuffer in, int sp, int sl) {
+        for (pendingCount = 0; sp < sl; sp++) {
+            pending[pendingCount++] = in.get(sp);
+        }
+    }
+
+    private CoderResult decodeArrayLoop(ByteBuffer in, CharBuffer out) {
+        byte[] src = in.array();
+        int sp = in.arrayOffset() + in.position();
+        int sl = in.arrayOffset() + in.limit();
+        char[] dst = out.array();
+        int dp = out.arrayOffset() + out.position();
+        int dl = out.arrayOffset() + out.limit();
+
+        CoderResult result = CoderResult.UNDERFLOW;
+        boolean truncated = false;
+        while (sp < sl) {
+            if (dp >= dl) {
+                result = CoderResult.OVERFLOW;
+                break;
+            }
+            int b1 = src[sp];
+            if (b1 >= 0) {
+                int n = decodeAscii(src, sp, dst, dp, Math.min(sl - sp, dl - dp));
+                sp += n;
+                dp += n;
+                continue;
+            }
+            b1 &= 0xff;
+            if (b1 < 0xc2) {
+                result = CoderResult.malformedForLength(1);
+                break;
+            } else if (b1 < 0xe0) {
+                if (sl - sp < 2) {
+                    truncated = true;
+                    break;
+                }
+                int b2 = src[sp + 1];
+                if (!isContinuation(b2)) {
+                    result = CoderResult.malformedForLength(1);
+                    break;
+                }
+                dst[dp++] = (char) (((b1 & 0x1f) << 6) | (b2 & 0x3f));
+                sp += 2;
+            } else if (b1 < 0xf0) {
+                if (sl - sp < 2) {
+                    truncated = true;
+                    break;
+                }
+                int b2 = src[sp + 1] & 0xff;
+                if (!isValidSecondOfThree(b1, b2)) {
+                    result = CoderResult.malformedForLength(1);
+                    break;
+                }
+                if (sl - sp < 3) {
+                    truncated = true;
+                    break;
+                }
+                int b3 = src[sp + 2];
+                if (!isContinuation(b3)) {
+                    result = CoderResult.malformedForLength(2);
+                    break;
+                }
+                dst[dp++] = (char) (((b1 & 0x0f) << 12) | ((b2 & 0x3f) << 6) | (b3 & 0x3f));
+                sp += 3;
+            } else if (b1 < 0xf5) {
+                if (sl - sp < 2) {
+                    truncated = true;
+                    break;
+                }
+                int b2 = src[sp + 1] & 0xff;
+                if (!isValidSecondOfFour(b1, b2)) {
+                    result = CoderResult.malformedForLength(1);
+                    break;
+                }
+                if (sl - sp < 3) {
+                    truncated = true;
+                    break;
+                }
+                int b3 = src[sp + 2];
+                if (!isContinuation(b3)) {
+                    result = CoderResult.malformedForLength(2);
+                    break;
+                }
+                if (sl - sp < 4) {
+                    truncated = true;
+                    break;
+                }
+                int b4 = src[sp + 3];
+                if (!isContinuation(b4)) {
+                    result = CoderResult.malformedForLength(3);
+                    break;
+                }
+                if (dl - dp < 2) {
+                    result = CoderResult.OVERFLOW;
+                    break;
+                }
+                int codePoint = ((b1 & 0x07) << 18) | ((b2 & 0x3f) << 12) | ((b3 & 0x3f) << 6)
+                        | (b4 & 0x3f);
+                dst[dp++] = Character.highSurrogate(codePoint);
+                dst[dp++] = Character.lowSurrogate(codePoint);
+                sp += 4;
+            } else {
+                result = CoderResult.malformedForLength(1);
+                break;
+            }
+        }
+        in.position(sp - in.arrayOffset());
+        out.position(dp - out.arrayOffset());
+        if (truncated) {
+            savePending(in, in.position(), in.limit());
+            in.position(in.limit());
+        }
+        return result;
+    }
+
+    private CoderResult decodeBufferLoop(ByteBuffer in, CharBuffer out) {
+        int sp = in.position();
+        int sl = in.limit();
+        int dp = out.position();
+        int dl = out.limit();
+
+        CoderResult result = CoderResult.UNDERFLOW;
+        boolean truncated = false;
+        while (sp < sl) {
+            if (dp >= dl) {
+                result = CoderResult.OVERFLOW;
+                break;
+            }
+            int b1 = in.get(sp);
+            if (b1 >= 0) {
+                // The mask is the same in either byte order.
+                while (sp + 8 <= sl && dl - dp >= 8 && (in.getLong(sp) & NON_ASCII_MASK) == 0) {
+                    for (int j = 0; j < 8; j++) {
+                        out.put(dp++, (char) in.get(sp++));
+                    }
+                }
+                while (sp < sl && dp < dl && (b1 = in.get(sp)) >= 0) {
+                    out.put(dp++, (char) b1);
+                    sp++;
+                }
+                continue;
+            }
+            b1 &= 0xff;
+            if (b1 < 0xc2) {
+                result = CoderResult.malformedForLength(1);
+                break;
+            } else if (b1 < 0xe0) {
+                if (sl - sp < 2) {
+                    truncated = true;
+                    break;
+                }
+                int b2 = in.get(sp + 1);
+                if (!isContinuation(b2)) {
+                    result = CoderResult.malformedForLength(1);
+                    break;
+                }
+                out.put(dp++, (char) (((b1 & 0x1f) << 6) | (b2 & 0x3f)));
+                sp += 2;
+            } else if (b1 < 0xf0) {
+                if (sl - sp < 2) {
+                    truncated = true;
+                    break;
+                }
+                int b2 = in.get(sp + 1) & 0xff;
+                if (!isValidSecondOfThree(b1, b2)) {
+                    result = CoderResult.malformedForLength(1);
+                    break;
+                }
+                if (sl - sp < 3) {
+                    truncated = true;
+                    break;
+                }
+                int b3 = in.get(sp + 2);
+                if (!isContinuation(b3)) {
+                    result = CoderResult.malformedForLength(2);
+                    break;
+                }
+                out.put(dp++, (char) (((b1 & 0x0f) << 12) | ((b2 & 0x3f) << 6) | (b3 & 0x3f)));
+                sp += 3;
+            } else if (b1 < 0xf5) {
+                if (sl - sp < 2) {
+                    truncated = true;
+                    break;
+                }
+                int b2 = in.get(sp + 1) & 0xff;
+                if (!isValidSecondOfFour(b1, b2)) {
+                    result = CoderResult.malformedForLength(1);
+                    break;
+                }
+                if (sl - sp < 3) {
+                    truncated = true;
+                    break;
+                }
+                int b3 = in.get(sp + 2);
+                if (!isContinuation(b3)) {
+                    result = CoderResult.malformedForLength(2);
+                    break;
+                }
+                if (sl - sp < 4) {
+                    truncated = true;
+                    break;
+                }
+                int b4 = in.get(sp + 3);
+                if (!isContinuation(b4)) {
+                    result = CoderResult.malformedForLength(3);
+                    break;
+                }
+                if (dl - dp < 2) {
+                    result = CoderResult.OVERFLOW;
+                    break;
+                }
+                int codePoint = ((b1 & 0x07) << 18) | ((b2 & 0x3f) << 12) | ((b3 & 0x3f) << 6)
+                        | (b4 & 0x3f);
+                out.put(dp++, Character.highSurrogate(codePoint));
+                out.put(dp++, Character.lowSurrogate(codePoint));
+                sp += 4;
+            } else {
+                result = CoderResult.malformedForLength(1);
+                break;
+            }
+        }
+        if (truncated) {
+            savePending(in, sp, sl);
+            sp = sl;
+        }
+        in.position(sp);
+        out.position(dp);
+        return result;
+    }
+
+    /**
+     * Decodes {@code src[off, off + len)} into {@code dst}, which must have room for
+     * {@code len * maxCharsPerByte()} chars, and returns the number of chars written. Each
+     * malformed subpart, including a truncated sequence at the end, is replaced by the first
+     * char of the replacement if malformed input is to be replaced; otherwise -1 is returned.
+     */
+    @Override
+    public int decode(byte[] src, int off, int len, char[] dst) {
+        int sp = off;
+        int sl = off + len;
+        int dp = 0;
+        while (sp < sl) {
+            int b1 = src[sp];
+            if (b1 >= 0) {
+                int n = decodeAscii(src, sp, dst, dp, sl - sp);
+                sp += n;
+                dp += n;
+                continue;
+            }
+            b1 &= 0xff;
+            // The length of the valid sequence, or of the malformed subpart if negative.
+            int length;
+            if (b1 < 0xc2 || b1 >= 0xf5) {
+                length = -1;
+            } else if (b1 < 0xe0) {
+                length = (sp + 1 < sl && isContinuation(src[sp + 1])) ? 2 : -1;
+            } else if (b1 < 0xf0) {
+                if (sp + 1 >= sl || !isValidSecondOfThree(b1, src[sp + 1] & 0xff)) {
+                    length = -1;
+                } else if (sp + 2 >= sl || !isContinuation(src[sp + 2])) {
+                    length = -2;
+                } else {
+                    length = 3;
+                }
+            } else {
+                if (sp + 1 >= sl || !isValidSecondOfFour(b1, src[sp + 1] & 0xff)) {
+                    length = -1;
+                } else if (sp + 2 >= sl || !isContinuation(src[sp + 2])) {
+                    length = -2;
+                } else if (sp + 3 >= sl || !isContinuation(src[sp + 3])) {
+                    length = -3;
+                } else {
+                    length = 4;
+                }
+            }
+            if (length < 0) {
+                if (malformedInputAction() != CodingErrorAction.REPLACE) {
+                    return -1;
+                }
+                dst[dp++] = replacement().charAt(0);
+                sp -= length;
+            } else if (length == 2) {
+                dst[dp++] = (char) (((b1 & 0x1f) << 6) | (src[sp + 1] & 0x3f));
+                sp += 2;
+            } else if (length == 3) {
+                dst[dp++] = (char) (((b1 & 0x0f) << 12) | ((src[sp + 1] & 0x3f) << 6)
+                        | (src[sp + 2] & 0x3f));
+                sp += 3;
+            } else {
+                int codePoint = ((b1 & 0x07) << 18) | ((src[sp + 1] & 0x3f) << 12)
+                        | ((src[sp + 2] & 0x3f) << 6) | (src[sp + 3] & 0x3f);
+                dst[dp++] = Character.highSurrogate(codePoint);
+                dst[dp++] = Character.lowSurrogate(codePoint);
+                sp += 4;
+            }
+        }
+        return dp;
+    }
+}
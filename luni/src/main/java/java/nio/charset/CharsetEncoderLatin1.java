@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package java.nio.charset;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import sun.nio.cs.ArrayEncoder;
+
+/**
+ * An ISO-8859-1 or US-ASCII encoder that works directly on the buffers it is given, rather
+ * than copying them through ICU like {@link CharsetEncoderICU}. Chars above the charset's
+ * range, including whole surrogate pairs, are unmappable; unpaired surrogates are malformed.
+ */
+final class CharsetEncoderLatin1 extends CharsetEncoder implements ArrayEncoder {
+    // These match CharsetEncoderICU for ICU's single-byte converters.
+    private static final float AVERAGE_BYTES_PER_CHAR = 1;
+    private static final float MAX_BYTES_PER_CHAR = 1;
+
+    private final char maxChar;
+
+    private byte replacementByte = (byte) '?';
+
+    /**
+     * @param ascii whether to encode US-ASCII rather than ISO-8859-1.
+     */
+    CharsetEncoderLatin1(Charset cs, boolean ascii) {
+        // Like CharsetEncoderICU, use the RI's replacement.
+        super(cs, AVERAGE_BYTES_PER_CHAR, MAX_BYTES_PER_CHAR, new byte[] { (byte) '?' }, true);
+        this.maxChar = ascii ? (char) 0x7f : (char) 0xff;
+    }
+
+    @Override protected void implReplaceWith(byte[] newReplacement) {
+        replacementByte = newReplacement[0];
+    }
+
+    @Override protected CoderResult encodeLoop(CharBuffer in, ByteBuffer out) {
+        int sp = in.position();
+        int sl = in.limit();
+        int dp = out.position();
+        int n = Math.min(sl - sp, out.remaining());
+        int i = 0;
+        if (in.hasArray() && out.hasArray()) {
+            char[] src = in.array();
+            int so = in.arrayOffset() + sp;
+            byte[] dst = out.array();
+            int dO = out.arrayOffset() + dp;
+            char c;
+            while (i < n && (c = src[so + i]) <= maxChar) {
+                dst[dO + i++] = (byte) c;
+            }
+        } else {
+            char c;
+            while (i < n && (c = in.get(sp + i)) <= maxChar) {
+                out.put(dp + i++, (byte) c);
+            }
+        }
+        in.position(sp + i);
+        out.position(dp + i);
+        if (i < n) {
+            return unmappableResult(in.get(sp + i), sp + i + 1 < sl, in, sp + i + 1);
+        }
+        return (n < sl - sp) ? CoderResult.OVERFLOW : CoderResult.UNDERFLOW;
+    }
+
+    /**
+     * Returns the result for {@code c}, which is not encodable, given whether another char
+     * follows it at {@code in.get(next)}.
+     */
+    private static CoderResult unmappableResult(char c, boolean hasNext, CharBuffer in,
+            int next) {
+        if (!Character.isSurrogate(c)) {
+            return CoderResult.unmappableForLength(1);
+        }
+        if (Character.isLowSurrogate(c)) {
+            return CoderResult.malformedForLength(1);
+        }
+        if (!hasNext) {
+            // Wait for the low surrogate.
+            return CoderResult.UNDERFLOW;
+        }
+        return Character.isLowSurrogate(in.get(next))
+                ? CoderResult.unmappableForLength(2)
+                : CoderResult.malformedForLength(1);
+    }
+
+    /**
+     * Encodes {@code src[off, off + len)} into {@code dst} and returns the number of bytes
+     * written. Each char or surrogate pair that cannot be encoded is replaced by the first byte
+     * of the replacement if such input is to be replaced; otherwise -1 is returned.
+     */
+    @Override
+    public int encode(char[] src, int off, int len, byte[] dst) {
+        int sp = off;
+        int sl = off + len;
+        int dp = 0;
+        while (sp < sl) {
+            char c = src[sp++];
+            if (c <= maxChar) {
+                dst[dp++] = (byte) c;
+                continue;
+            }
+            boolean pair = Character.isHighSurrogate(c) && sp < sl
+                    && Character.isLowSurrogate(src[sp]);
+            CodingErrorAction action = (pair || !Character.isSurrogate(c))
+                    ? unmappableCharacterAction() : malformedInputAction();
+            if (action != CodingErrorAction.REPLACE) {
+                return -1;
+            }
+            if (pair) {
+                sp++;
+            }
+            dst[dp++] = replacementByte;
+        }
+        return dp;
+    }
+}
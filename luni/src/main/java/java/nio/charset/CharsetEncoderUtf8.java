@@ -0,0 +1,292 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package java.nio.charset;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import sun.nio.cs.ArrayEncoder;
+
+/**
+ * A UTF-8 encoder that works directly on the buffers it is given, rather than copying them
+ * through ICU like {@link CharsetEncoderICU}. Unpaired surrogates are malformed.
+ *
+ * <p>Like ICU, and unlike the RI, a surrogate pair that is split across calls to {@link
+ * #encode(CharBuffer, ByteBuffer, boolean)} is encoded correctly even if the caller does not
+ * keep the unconsumed end of one input buffer for the next.
+ */
+final class CharsetEncoderUtf8 extends CharsetEncoder implements ArrayEncoder {
+    // These match CharsetEncoderICU for ICU's UTF-8 converter.
+    private static final float AVERAGE_BYTES_PER_CHAR = 2;
+    private static final float MAX_BYTES_PER_CHAR = 3;
+
+    private byte replacementByte = (byte) '?';
+
+    // A high surrogate that was consumed by an earlier call to encodeLoop, or 0.
+    private char pendingHigh;
+
+    CharsetEncoderUtf8(Charset cs) {
+        // Like CharsetEncoderICU, use the RI's replacement rather than U+FFFD.
+        super(cs, AVERAGE_BYTES_PER_CHAR, MAX_BYTES_PER_CHAR, new byte[] { (byte) '?' }, true);
+    }
+
+    @Override protected void implReplaceWith(byte[] newReplacement) {
+        replacementByte = newReplacement[0];
+    }
+
+    @Override protected CoderResult encodeLoop(CharBuffer in, ByteBuffer out) {
+        if (pendingHigh != 0) {
+            if (!in.hasRemaining()) {
+                return CoderResult.UNDERFLOW;
+            }
+            char d = in.get(in.position());
+            if (!Character.isLowSurrogate(d)) {
+                CoderResult result = malformedPending(out);
+                if (result != null) {
+                    return result;
+                }
+            } else {
+                if (out.remaining() < 4) {
+                    return CoderResult.OVERFLOW;
+                }
+                int codePoint = Character.toCodePoint(pendingHigh, d);
+                out.put((byte) (0xf0 | (codePoint >> 18)));
+                out.put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+                out.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+                out.put((byte) (0x80 | (codePoint & 0x3f)));
+                in.position(in.position() + 1);
+                pendingHigh = 0;
+            }
+        }
+        if (in.hasArray() && out.hasArray()) {
+            return encodeArrayLoop(in, out);
+        }
+        return encodeBufferLoop(in, out);
+    }
+
+    @Override protected CoderResult implFlush(ByteBuffer out) {
+        if (pendingHigh == 0) {
+            return CoderResult.UNDERFLOW;
+        }
+        // The input ended after a high surrogate.
+        CoderResult result = malformedPending(out);
+        return (result != null) ? result : CoderResult.UNDERFLOW;
+    }
+
+    @Override protected void implReset() {
+        pendingHigh = 0;
+    }
+
+    /**
+     * Handles the pending high surrogate as malformed. It was consumed by an earlier call, so
+     * it cannot be left in the input for CharsetEncoder to skip or replace; act on it here
+     * instead, as ICU does. Returns null if encoding can continue, or the result to return.
+     */
+    private CoderResult malformedPending(ByteBuffer out) {
+        CodingErrorAction action = malformedInputAction();
+        if (action == CodingErrorAction.REPORT) {
+            pendingHigh = 0;
+            return CoderResult.malformedForLength(1);
+        }
+        if (action == CodingErrorAction.REPLACE) {
+            byte[] replacement = replacement();
+            if (out.remaining() < replacement.length) {
+                return CoderResult.OVERFLOW;
+            }
+            out.put(replacement);
+        }
+        pendingHigh = 0;
+        return null;
+    }
+
+    private CoderResult encodeArrayLoop(CharBuffer in, ByteBuffer out) {
+        char[] src = in.array();
+        int sp = in.arrayOffset() + in.position();
+        int sl = in.arrayOffset() + in.limit();
+        byte[] dst = out.array();
+        int dp = out.arrayOffset() + out.position();
+        int dl = out.arrayOffset() + out.limit();
+
+        CoderResult result = CoderResult.UNDERFLOW;
+        while (sp < sl) {
+            char c = src[sp];
+            if (c < 0x80) {
+                if (dp >= dl) {
+                    result = CoderResult.OVERFLOW;
+                    break;
+                }
+                int n = Math.min(sl - sp, dl - dp);
+                int end = sp + n;
+                do {
+                    dst[dp++] = (byte) c;
+                } while (++sp < end && (c = src[sp]) < 0x80);
+            } else if (c < 0x800) {
+                if (dl - dp < 2) {
+                    result = CoderResult.OVERFLOW;
+                    break;
+                }
+                dst[dp++] = (byte) (0xc0 | (c >> 6));
+                dst[dp++] = (byte) (0x80 | (c & 0x3f));
+                sp++;
+            } else if (Character.isSurrogate(c)) {
+                if (!Character.isHighSurrogate(c)) {
+                    result = CoderResult.malformedForLength(1);
+                    break;
+                }
+                if (sl - sp < 2) {
+                    // Keep the high surrogate until the low surrogate arrives.
+                    pendingHigh = c;
+                    sp++;
+                    break;
+                }
+                char d = src[sp + 1];
+                if (!Character.isLowSurrogate(d)) {
+                    result = CoderResult.malformedForLength(1);
+                    break;
+                }
+                if (dl - dp < 4) {
+                    result = CoderResult.OVERFLOW;
+                    break;
+                }
+                int codePoint = Character.toCodePoint(c, d);
+                dst[dp++] = (byte) (0xf0 | (codePoint >> 18));
+                dst[dp++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                dst[dp++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                dst[dp++] = (byte) (0x80 | (codePoint & 0x3f));
+                sp += 2;
+            } else {
+                if (dl - dp < 3) {
+                    result = CoderResult.OVERFLOW;
+                    break;
+                }
+                dst[dp++] = (byte) (0xe0 | (c >> 12));
+                dst[dp++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                dst[dp++] = (byte) (0x80 | (c & 0x3f));
+                sp++;
+            }
+        }
+        in.position(sp - in.arrayOffset());
+        out.position(dp - out.arrayOffset());
+        return result;
+    }
+
+    private CoderResult encodeBufferLoop(CharBuffer in, ByteBuffer out) {
+        int sp = in.position();
+        int sl = in.limit();
+        int dp = out.position();
+        int dl = out.limit();
+
+        CoderResult result = CoderResult.UNDERFLOW;
+        while (sp < sl) {
+            char c = in.get(sp);
+            if (c < 0x80) {
+                if (dp >= dl) {
+                    result = CoderResult.OVERFLOW;
+                    break;
+                }
+                out.put(dp++, (byte) c);
+                sp++;
+            } else if (c < 0x800) {
+                if (dl - dp < 2) {
+                    result = CoderResult.OVERFLOW;
+                    break;
+                }
+                out.put(dp++, (byte) (0xc0 | (c >> 6)));
+                out.put(dp++, (byte) (0x80 | (c & 0x3f)));
+                sp++;
+            } else if (Character.isSurrogate(c)) {
+                if (!Character.isHighSurrogate(c)) {
+                    result = CoderResult.malformedForLength(1);
+                    break;
+                }
+                if (sl - sp < 2) {
+                    // Keep the high surrogate until the low surrogate arrives.
+                    pendingHigh = c;
+                    sp++;
+                    break;
+                }
+                char d = in.get(sp + 1);
+                if (!Character.isLowSurrogate(d)) {
+                    result = CoderResult.malformedForLength(1);
+                    break;
+                }
+                if (dl - dp < 4) {
+                    result = CoderResult.OVERFLOW;
+                    break;
+                }
+                int codePoint = Character.toCodePoint(c, d);
+                out.put(dp++, (byte) (0xf0 | (codePoint >> 18)));
+                out.put(dp++, (byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+                out.put(dp++, (byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+                out.put(dp++, (byte) (0x80 | (codePoint & 0x3f)));
+                sp += 2;
+            } else {
+                if (dl - dp < 3) {
+                    result = CoderResult.OVERFLOW;
+                    break;
+                }
+                out.put(dp++, (byte) (0xe0 | (c >> 12)));
+                out.put(dp++, (byte) (0x80 | ((c >> 6) & 0x3f)));
+                out.put(dp++, (byte) (0x80 | (c & 0x3f)));
+                sp++;
+            }
+        }
+        in.position(sp);
+        out.position(dp);
+        return result;
+    }
+
+    /**
+     * Encodes {@code src[off, off + len)} into {@code dst}, which must have room for
+     * {@code len * maxBytesPerChar()} bytes, and returns the number of bytes written. Each
+     * unpaired surrogate is replaced by the first byte of the replacement if malformed input is
+     * to be replaced; otherwise -1 is returned.
+     */
+    @Override
+    public int encode(char[] src, int off, int len, byte[] dst) {
+        int sp = off;
+        int sl = off + len;
+        int dp = 0;
+        while (sp < sl) {
+            char c = src[sp++];
+            if (c < 0x80) {
+                dst[dp++] = (byte) c;
+            } else if (c < 0x800) {
+                dst[dp++] = (byte) (0xc0 | (c >> 6));
+                dst[dp++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && sp < sl
+                        && Character.isLowSurrogate(src[sp])) {
+                    int codePoint = Character.toCodePoint(c, src[sp++]);
+                    dst[dp++] = (byte) (0xf0 | (codePoint >> 18));
+                    dst[dp++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    dst[dp++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    dst[dp++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else {
+                    if (malformedInputAction() != CodingErrorAction.REPLACE) {
+                        return -1;
+                    }
+                    dst[dp++] = replacementByte;
+                }
+            } else {
+                dst[dp++] = (byte) (0xe0 | (c >> 12));
+                dst[dp++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                dst[dp++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return dp;
+    }
+}
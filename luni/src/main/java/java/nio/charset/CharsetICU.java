@@ -23,11 +23,31 @@ final class CharsetICU extends Charset {
     }
 
     public CharsetDecoder newDecoder() {
-        return CharsetDecoderICU.newInstance(this, icuCanonicalName);
+        // The most common charsets are decoded in Java, without copying through ICU.
+        switch (name()) {
+            case "UTF-8":
+                return new CharsetDecoderUtf8(this);
+            case "ISO-8859-1":
+                return new CharsetDecoderLatin1(this, false);
+            case "US-ASCII":
+                return new CharsetDecoderLatin1(this, true);
+            default:
+                return CharsetDecoderICU.newInstance(this, icuCanonicalName);
+        }
     }
 
     public CharsetEncoder newEncoder() {
-        return CharsetEncoderICU.newInstance(this, icuCanonicalName);
+        // The most common charsets are encoded in Java, without copying through ICU.
+        switch (name()) {
+            case "UTF-8":
+                return new CharsetEncoderUtf8(this);
+            case "ISO-8859-1":
+                return new CharsetEncoderLatin1(this, false);
+            case "US-ASCII":
+                return new CharsetEncoderLatin1(this, true);
+            default:
+                return CharsetEncoderICU.newInstance(this, icuCanonicalName);
+        }
     }
 
     public boolean contains(Charset cs) {
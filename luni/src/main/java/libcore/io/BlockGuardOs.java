@@ -57,7 +57,7 @@ public class BlockGuardOs extends ForwardingOs {
     }
 
     @Override public FileDescriptor accept(FileDescriptor fd, SocketAddress peerAddress) throws ErrnoException, SocketException {
-        BlockGuard.getThreadPolicy().onNetwork();
+        onNetwork();
         final FileDescriptor acceptFd = super.accept(fd, peerAddress);
         if (isInetSocket(acceptFd)) {
             tagSocket(acceptFd);
@@ -66,21 +66,21 @@ public class BlockGuardOs extends ForwardingOs {
     }
 
     @Override public boolean access(String path, int mode) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onReadFromDisk();
+        onReadFromDisk();
         BlockGuard.getVmPolicy().onPathAccess(path);
         return super.access(path, mode);
     }
 
     @UnsupportedAppUsage
     @Override public void chmod(String path, int mode) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
+        onWriteToDisk();
         BlockGuard.getVmPolicy().onPathAccess(path);
         super.chmod(path, mode);
     }
 
     @UnsupportedAppUsage
     @Override public void chown(String path, int uid, int gid) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
+        onWriteToDisk();
         BlockGuard.getVmPolicy().onPathAccess(path);
         super.chown(path, uid, gid);
     }
@@ -96,7 +96,7 @@ public class BlockGuardOs extends ForwardingOs {
                     // If the fd is a socket with SO_LINGER set, we might block indefinitely.
                     // We allow non-linger sockets so that apps can close their network
                     // connections in methods like onDestroy which will run on the UI thread.
-                    BlockGuard.getThreadPolicy().onNetwork();
+                    onNetwork();
                 }
             }
         } catch (ErrnoException ignored) {
@@ -108,6 +108,56 @@ public class BlockGuardOs extends ForwardingOs {
         super.close(fd);
     }
 
+    // The thread policy checks below skip the call into the policy when the calling thread's
+    // own policy is BlockGuard.LAX_POLICY, whose methods do nothing.
+
+    private static void onReadFromDisk() {
+        BlockGuard.Policy policy = BlockGuard.getThreadPolicy();
+        if (policy != BlockGuard.LAX_POLICY) {
+            policy.onReadFromDisk();
+        }
+    }
+
+    private static void onWriteToDisk() {
+        BlockGuard.Policy policy = BlockGuard.getThreadPolicy();
+        if (policy != BlockGuard.LAX_POLICY) {
+            policy.onWriteToDisk();
+        }
+    }
+
+    private static void onNetwork() {
+        BlockGuard.Policy policy = BlockGuard.getThreadPolicy();
+        if (policy != BlockGuard.LAX_POLICY) {
+            policy.onNetwork();
+        }
+    }
+
+    /**
+     * Returns the time at which an I/O system call starts if I/O statistics are being collected,
+     * or 0 otherwise.
+     */
+    private static long startIo() {
+        return IoTracker.isStatsEnabled() ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the I/O system call that started at {@code start} if it was timed, and returns
+     * {@code result}.
+     */
+    private static int endIo(FileDescriptor fd, IoTracker.Mode mode, int result, long start) {
+        if (start != 0) {
+            IoTracker.recordSyscall(fd, mode, result, System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    private static int endIo(int fdType, IoTracker.Mode mode, int result, long start) {
+        if (start != 0) {
+            IoTracker.recordSyscall(fdType, mode, result, System.nanoTime() - start);
+        }
+        return result;
+    }
+
     private static boolean isInetSocket(FileDescriptor fd) throws ErrnoException{
         return isInetDomain(Libcore.os.getsockoptInt(fd, SOL_SOCKET, SO_DOMAIN));
     }
@@ -132,7 +182,7 @@ public class BlockGuardOs extends ForwardingOs {
             skipGuard = isUdpSocket(fd);
         } catch (ErrnoException ignored) {
         }
-        if (!skipGuard) BlockGuard.getThreadPolicy().onNetwork();
+        if (!skipGuard) onNetwork();
         super.connect(fd, address, port);
     }
 
@@ -143,19 +193,19 @@ public class BlockGuardOs extends ForwardingOs {
             skipGuard = isUdpSocket(fd);
         } catch (ErrnoException ignored) {
         }
-        if (!skipGuard) BlockGuard.getThreadPolicy().onNetwork();
+        if (!skipGuard) onNetwork();
         super.connect(fd, address);
     }
 
     @UnsupportedAppUsage
     @Override public void fchmod(FileDescriptor fd, int mode) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
+        onWriteToDisk();
         super.fchmod(fd, mode);
     }
 
     @UnsupportedAppUsage
     @Override public void fchown(FileDescriptor fd, int uid, int gid) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
+        onWriteToDisk();
         super.fchown(fd, uid, gid);
     }
 
@@ -163,29 +213,29 @@ public class BlockGuardOs extends ForwardingOs {
 
     @UnsupportedAppUsage
     @Override public void fdatasync(FileDescriptor fd) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
+        onWriteToDisk();
         super.fdatasync(fd);
     }
 
     @UnsupportedAppUsage
     @Override public StructStat fstat(FileDescriptor fd) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onReadFromDisk();
+        onReadFromDisk();
         return super.fstat(fd);
     }
 
     @UnsupportedAppUsage
     @Override public StructStatVfs fstatvfs(FileDescriptor fd) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onReadFromDisk();
+        onReadFromDisk();
         return super.fstatvfs(fd);
     }
 
     @Override public void fsync(FileDescriptor fd) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
+        onWriteToDisk();
         super.fsync(fd);
     }
 
     @Override public void ftruncate(FileDescriptor fd, long length) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
+        onWriteToDisk();
         super.ftruncate(fd, length);
     }
 
@@ -195,21 +245,21 @@ public class BlockGuardOs extends ForwardingOs {
         // thread.
         boolean isNumericHost = (hints.ai_flags & AI_NUMERICHOST) != 0;
         if (!isNumericHost) {
-            BlockGuard.getThreadPolicy().onNetwork();
+            onNetwork();
         }
         return super.android_getaddrinfo(node, hints, netId);
     }
 
     @UnsupportedAppUsage
     @Override public void lchown(String path, int uid, int gid) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
+        onWriteToDisk();
         BlockGuard.getVmPolicy().onPathAccess(path);
         super.lchown(path, uid, gid);
     }
 
     @UnsupportedAppUsage
     @Override public void link(String oldPath, String newPath) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
+        onWriteToDisk();
         BlockGuard.getVmPolicy().onPathAccess(oldPath);
         BlockGuard.getVmPolicy().onPathAccess(newPath);
         super.link(oldPath, newPath);
@@ -217,37 +267,37 @@ public class BlockGuardOs extends ForwardingOs {
 
     @UnsupportedAppUsage
     @Override public long lseek(FileDescriptor fd, long offset, int whence) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onReadFromDisk();
+        onReadFromDisk();
         return super.lseek(fd, offset, whence);
     }
 
     @UnsupportedAppUsage
     @Override public StructStat lstat(String path) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onReadFromDisk();
+        onReadFromDisk();
         BlockGuard.getVmPolicy().onPathAccess(path);
         return super.lstat(path);
     }
 
     @UnsupportedAppUsage
     @Override public void mkdir(String path, int mode) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
+        onWriteToDisk();
         BlockGuard.getVmPolicy().onPathAccess(path);
         super.mkdir(path, mode);
     }
 
     @UnsupportedAppUsage
     @Override public void mkfifo(String path, int mode) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
+        onWriteToDisk();
         BlockGuard.getVmPolicy().onPathAccess(path);
         super.mkfifo(path, mode);
     }
 
     @UnsupportedAppUsage
     @Override public FileDescriptor open(String path, int flags, int mode) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onReadFromDisk();
+        onReadFromDisk();
         BlockGuard.getVmPolicy().onPathAccess(path);
         if ((flags & O_ACCMODE) != O_RDONLY) {
-            BlockGuard.getThreadPolicy().onWriteToDisk();
+            onWriteToDisk();
         }
         return super.open(path, flags, mode);
     }
@@ -256,114 +306,131 @@ public class BlockGuardOs extends ForwardingOs {
         // Greater than 0 is a timeout in milliseconds and -1 means "block forever",
         // but 0 means "poll and return immediately", which shouldn't be subject to BlockGuard.
         if (timeoutMs != 0) {
-            BlockGuard.getThreadPolicy().onNetwork();
+            onNetwork();
         }
         return super.poll(fds, timeoutMs);
     }
 
     @UnsupportedAppUsage
     @Override public void posix_fallocate(FileDescriptor fd, long offset, long length) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
+        onWriteToDisk();
         super.posix_fallocate(fd, offset, length);
     }
 
     @UnsupportedAppUsage
     @Override public int pread(FileDescriptor fd, ByteBuffer buffer, long offset) throws ErrnoException, InterruptedIOException {
-        BlockGuard.getThreadPolicy().onReadFromDisk();
-        return super.pread(fd, buffer, offset);
+        onReadFromDisk();
+        long start = startIo();
+        return endIo(fd, IoTracker.Mode.READ, super.pread(fd, buffer, offset), start);
     }
 
     @UnsupportedAppUsage
     @Override public int pread(FileDescriptor fd, byte[] bytes, int byteOffset, int byteCount, long offset) throws ErrnoException, InterruptedIOException {
-        BlockGuard.getThreadPolicy().onReadFromDisk();
-        return super.pread(fd, bytes, byteOffset, byteCount, offset);
+        onReadFromDisk();
+        long start = startIo();
+        return endIo(fd, IoTracker.Mode.READ,
+                super.pread(fd, bytes, byteOffset, byteCount, offset), start);
     }
 
     @UnsupportedAppUsage
     @Override public int pwrite(FileDescriptor fd, ByteBuffer buffer, long offset) throws ErrnoException, InterruptedIOException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
-        return super.pwrite(fd, buffer, offset);
+        onWriteToDisk();
+        long start = startIo();
+        return endIo(fd, IoTracker.Mode.WRITE, super.pwrite(fd, buffer, offset), start);
     }
 
     @UnsupportedAppUsage
     @Override public int pwrite(FileDescriptor fd, byte[] bytes, int byteOffset, int byteCount, long offset) throws ErrnoException, InterruptedIOException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
-        return super.pwrite(fd, bytes, byteOffset, byteCount, offset);
+        onWriteToDisk();
+        long start = startIo();
+        return endIo(fd, IoTracker.Mode.WRITE,
+                super.pwrite(fd, bytes, byteOffset, byteCount, offset), start);
     }
 
     @UnsupportedAppUsage
     @Override public int read(FileDescriptor fd, ByteBuffer buffer) throws ErrnoException, InterruptedIOException {
-        BlockGuard.getThreadPolicy().onReadFromDisk();
-        return super.read(fd, buffer);
+        onReadFromDisk();
+        long start = startIo();
+        return endIo(fd, IoTracker.Mode.READ, super.read(fd, buffer), start);
     }
 
     @UnsupportedAppUsage
     @Override public int read(FileDescriptor fd, byte[] bytes, int byteOffset, int byteCount) throws ErrnoException, InterruptedIOException {
-        BlockGuard.getThreadPolicy().onReadFromDisk();
-        return super.read(fd, bytes, byteOffset, byteCount);
+        onReadFromDisk();
+        long start = startIo();
+        return endIo(fd, IoTracker.Mode.READ, super.read(fd, bytes, byteOffset, byteCount), start);
     }
 
     @UnsupportedAppUsage
     @Override public String readlink(String path) throws ErrnoException {
-      BlockGuard.getThreadPolicy().onReadFromDisk();
+      onReadFromDisk();
       BlockGuard.getVmPolicy().onPathAccess(path);
       return super.readlink(path);
     }
 
     @UnsupportedAppUsage
     @Override public String realpath(String path) throws ErrnoException {
-      BlockGuard.getThreadPolicy().onReadFromDisk();
+      onReadFromDisk();
       BlockGuard.getVmPolicy().onPathAccess(path);
       return super.realpath(path);
     }
 
     @UnsupportedAppUsage
     @Override public int readv(FileDescriptor fd, Object[] buffers, int[] offsets, int[] byteCounts) throws ErrnoException, InterruptedIOException {
-        BlockGuard.getThreadPolicy().onReadFromDisk();
-        return super.readv(fd, buffers, offsets, byteCounts);
+        onReadFromDisk();
+        long start = startIo();
+        return endIo(fd, IoTracker.Mode.READ, super.readv(fd, buffers, offsets, byteCounts), start);
     }
 
     @Override public int recvfrom(FileDescriptor fd, ByteBuffer buffer, int flags, InetSocketAddress srcAddress) throws ErrnoException, SocketException {
-        BlockGuard.getThreadPolicy().onNetwork();
-        return super.recvfrom(fd, buffer, flags, srcAddress);
+        onNetwork();
+        long start = startIo();
+        return endIo(IoTracker.FD_TYPE_SOCKET, IoTracker.Mode.READ,
+                super.recvfrom(fd, buffer, flags, srcAddress), start);
     }
 
     @Override public int recvfrom(FileDescriptor fd, byte[] bytes, int byteOffset, int byteCount, int flags, InetSocketAddress srcAddress) throws ErrnoException, SocketException {
-        BlockGuard.getThreadPolicy().onNetwork();
-        return super.recvfrom(fd, bytes, byteOffset, byteCount, flags, srcAddress);
+        onNetwork();
+        long start = startIo();
+        return endIo(IoTracker.FD_TYPE_SOCKET, IoTracker.Mode.READ,
+                super.recvfrom(fd, bytes, byteOffset, byteCount, flags, srcAddress), start);
     }
 
     @UnsupportedAppUsage
     @Override public void remove(String path) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
+        onWriteToDisk();
         BlockGuard.getVmPolicy().onPathAccess(path);
         super.remove(path);
     }
 
     @UnsupportedAppUsage
     @Override public void rename(String oldPath, String newPath) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
+        onWriteToDisk();
         BlockGuard.getVmPolicy().onPathAccess(oldPath);
         BlockGuard.getVmPolicy().onPathAccess(newPath);
         super.rename(oldPath, newPath);
     }
 
     @Override public long sendfile(FileDescriptor outFd, FileDescriptor inFd, Int64Ref offset, long byteCount) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
+        onWriteToDisk();
         return super.sendfile(outFd, inFd, offset, byteCount);
     }
 
     @Override public int sendto(FileDescriptor fd, ByteBuffer buffer, int flags, InetAddress inetAddress, int port) throws ErrnoException, SocketException {
-        BlockGuard.getThreadPolicy().onNetwork();
-        return super.sendto(fd, buffer, flags, inetAddress, port);
+        onNetwork();
+        long start = startIo();
+        return endIo(IoTracker.FD_TYPE_SOCKET, IoTracker.Mode.WRITE,
+                super.sendto(fd, buffer, flags, inetAddress, port), start);
     }
 
     @Override public int sendto(FileDescriptor fd, byte[] bytes, int byteOffset, int byteCount, int flags, InetAddress inetAddress, int port) throws ErrnoException, SocketException {
         // We permit datagrams without hostname lookups.
         if (inetAddress != null) {
-            BlockGuard.getThreadPolicy().onNetwork();
+            onNetwork();
         }
-        return super.sendto(fd, bytes, byteOffset, byteCount, flags, inetAddress, port);
+        long start = startIo();
+        return endIo(IoTracker.FD_TYPE_SOCKET, IoTracker.Mode.WRITE,
+                super.sendto(fd, bytes, byteOffset, byteCount, flags, inetAddress, port), start);
     }
 
     @Override public FileDescriptor socket(int domain, int type, int protocol) throws ErrnoException {
@@ -384,21 +451,21 @@ public class BlockGuardOs extends ForwardingOs {
 
     @UnsupportedAppUsage
     @Override public StructStat stat(String path) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onReadFromDisk();
+        onReadFromDisk();
         BlockGuard.getVmPolicy().onPathAccess(path);
         return super.stat(path);
     }
 
     @UnsupportedAppUsage
     @Override public StructStatVfs statvfs(String path) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onReadFromDisk();
+        onReadFromDisk();
         BlockGuard.getVmPolicy().onPathAccess(path);
         return super.statvfs(path);
     }
 
     @UnsupportedAppUsage
     @Override public void symlink(String oldPath, String newPath) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
+        onWriteToDisk();
         BlockGuard.getVmPolicy().onPathAccess(oldPath);
         BlockGuard.getVmPolicy().onPathAccess(newPath);
         super.symlink(oldPath, newPath);
@@ -406,69 +473,76 @@ public class BlockGuardOs extends ForwardingOs {
 
     @UnsupportedAppUsage
     @Override public int write(FileDescriptor fd, ByteBuffer buffer) throws ErrnoException, InterruptedIOException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
-        return super.write(fd, buffer);
+        onWriteToDisk();
+        long start = startIo();
+        return endIo(fd, IoTracker.Mode.WRITE, super.write(fd, buffer), start);
     }
 
     @UnsupportedAppUsage
     @Override public int write(FileDescriptor fd, byte[] bytes, int byteOffset, int byteCount) throws ErrnoException, InterruptedIOException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
-        return super.write(fd, bytes, byteOffset, byteCount);
+        onWriteToDisk();
+        long start = startIo();
+        return endIo(fd, IoTracker.Mode.WRITE,
+                super.write(fd, bytes, byteOffset, byteCount), start);
     }
 
     @UnsupportedAppUsage
     @Override public int writev(FileDescriptor fd, Object[] buffers, int[] offsets, int[] byteCounts) throws ErrnoException, InterruptedIOException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
-        return super.writev(fd, buffers, offsets, byteCounts);
+        onWriteToDisk();
+        long start = startIo();
+        return endIo(fd, IoTracker.Mode.WRITE,
+                super.writev(fd, buffers, offsets, byteCounts), start);
     }
 
     @Override public void execv(String filename, String[] argv) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onReadFromDisk();
+        onReadFromDisk();
         BlockGuard.getVmPolicy().onPathAccess(filename);
         super.execv(filename, argv);
     }
 
     @Override public void execve(String filename, String[] argv, String[] envp)
             throws ErrnoException {
-        BlockGuard.getThreadPolicy().onReadFromDisk();
+        onReadFromDisk();
         BlockGuard.getVmPolicy().onPathAccess(filename);
         super.execve(filename, argv, envp);
     }
 
     @Override public byte[] getxattr(String path, String name) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onReadFromDisk();
+        onReadFromDisk();
         BlockGuard.getVmPolicy().onPathAccess(path);
         return super.getxattr(path, name);
     }
 
     @Override public void msync(long address, long byteCount, int flags) throws ErrnoException {
         if ((flags & OsConstants.MS_SYNC) != 0) {
-            BlockGuard.getThreadPolicy().onWriteToDisk();
+            onWriteToDisk();
         }
         super.msync(address, byteCount, flags);
     }
 
     @Override public void removexattr(String path, String name) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
+        onWriteToDisk();
         BlockGuard.getVmPolicy().onPathAccess(path);
         super.removexattr(path, name);
     }
 
     @Override public void setxattr(String path, String name, byte[] value, int flags)
             throws ErrnoException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
+        onWriteToDisk();
         BlockGuard.getVmPolicy().onPathAccess(path);
         super.setxattr(path, name, value, flags);
     }
 
     @Override public int sendto(FileDescriptor fd, byte[] bytes, int byteOffset, int byteCount,
             int flags, SocketAddress address) throws ErrnoException, SocketException {
-        BlockGuard.getThreadPolicy().onNetwork();
-        return super.sendto(fd, bytes, byteOffset, byteCount, flags, address);
+        onNetwork();
+        long start = startIo();
+        return endIo(IoTracker.FD_TYPE_SOCKET, IoTracker.Mode.WRITE,
+                super.sendto(fd, bytes, byteOffset, byteCount, flags, address), start);
     }
 
     @Override public void unlink(String pathname) throws ErrnoException {
-        BlockGuard.getThreadPolicy().onWriteToDisk();
+        onWriteToDisk();
         BlockGuard.getVmPolicy().onPathAccess(pathname);
         super.unlink(pathname);
     }
@@ -476,8 +550,8 @@ public class BlockGuardOs extends ForwardingOs {
     @Override public long splice(FileDescriptor fdIn, Int64Ref offIn, FileDescriptor fdOut, Int64Ref offOut, long len, int flags) throws ErrnoException {
         // It's infeasible to figure out if splice will result in read or write (would require fstat to figure out which fd is pipe).
         // So, signal both read and write.
-        BlockGuard.getThreadPolicy().onWriteToDisk();
-        BlockGuard.getThreadPolicy().onReadFromDisk();
+        onWriteToDisk();
+        onReadFromDisk();
         return super.splice(fdIn, offIn, fdOut, offOut, len, flags);
     }
 }
@@ -17,6 +17,8 @@
 package libcore.io;
 
 import dalvik.annotation.compat.UnsupportedAppUsage;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 
 /**
  * Iterates over big- or little-endian bytes. See {@link MemoryMappedFile#bigEndianIterator} and
@@ -83,4 +85,72 @@ public abstract class BufferIterator {
      * @throws IndexOutOfBoundsException if the read would be outside of the buffer
      */
     public abstract short readShort();
+
+    /**
+     * Returns the 64-bit long at the current position, and advances the current position eight
+     * bytes.
+     *
+     * @throws IndexOutOfBoundsException if the read would be outside of the buffer
+     */
+    public abstract long readLong();
+
+    /**
+     * Copies {@code longCount} 64-bit longs from the current position into {@code dst}, starting
+     * at {@code dstOffset}, and advances the current position {@code 8 * longCount} bytes.
+     *
+     * @throws IndexOutOfBoundsException if the read / write would be outside of the buffer / array
+     */
+    public abstract void readLongArray(long[] dst, int dstOffset, int longCount);
+
+    /**
+     * Returns a read-only view of the next {@code intCount} 32-bit ints, and advances the current
+     * position {@code 4 * intCount} bytes. The default implementation copies the ints; subclasses
+     * backed by native memory may return a view of that memory instead, which must then not be
+     * used once the memory is released.
+     *
+     * @throws IndexOutOfBoundsException if the read would be outside of the buffer
+     */
+    public IntBuffer asIntBuffer(int intCount) {
+        int[] ints = new int[intCount];
+        readIntArray(ints, 0, intCount);
+        return IntBuffer.wrap(ints).asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a read-only view of the next {@code longCount} 64-bit longs, and advances the
+     * current position {@code 8 * longCount} bytes. See {@link #asIntBuffer} for the caveats.
+     *
+     * @throws IndexOutOfBoundsException if the read would be outside of the buffer
+     */
+    public LongBuffer asLongBuffer(int longCount) {
+        long[] longs = new long[longCount];
+        readLongArray(longs, 0, longCount);
+        return LongBuffer.wrap(longs).asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the unsigned LEB128 ("varint") encoded 32-bit int at the current position, and
+     * advances the current position past it. Each byte holds seven bits of the value, least
+     * significant first, with the top bit set on every byte but the last.
+     *
+     * @throws IndexOutOfBoundsException if the read would be outside of the buffer
+     * @throws IllegalStateException if the encoding is longer than five bytes or does not fit
+     *     in an int. The current position is left after the bytes that were read.
+     */
+    public int readVarint() {
+        int result = 0;
+        int shift = 0;
+        while (true) {
+            int b = readByte() & 0xff;
+            // The fifth byte may only contribute the top four bits, and must be the last.
+            if (shift == 28 && (b & 0xf0) != 0) {
+                throw new IllegalStateException("Malformed varint before pos=" + pos());
+            }
+            result |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+        }
+    }
 }
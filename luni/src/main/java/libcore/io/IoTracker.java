@@ -17,12 +17,29 @@
 package libcore.io;
 
 import dalvik.system.BlockGuard;
+import java.io.FileDescriptor;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
- * Used to detect unbuffered I/O.
+ * Used to detect unbuffered I/O, and to collect process-wide histograms of read and write
+ * system call sizes and latencies (see {@link BlockGuard#setIoStatsEnabled}).
  * @hide
  */
 public final class IoTracker {
+    /** File descriptors that are not sockets: regular files, pipes, devices... */
+    public static final int FD_TYPE_FILE = 0;
+    /** Socket file descriptors. */
+    public static final int FD_TYPE_SOCKET = 1;
+
+    /** Histograms have one bucket per power of two, see {@link #bucket}. */
+    public static final int BUCKET_COUNT = 32;
+
+    private static volatile boolean statsEnabled;
+
+    // Indexed by histogramIndex(fdType, mode) + bucket.
+    private static final AtomicLongArray sizeHistograms = new AtomicLongArray(4 * BUCKET_COUNT);
+    private static final AtomicLongArray latencyHistograms = new AtomicLongArray(4 * BUCKET_COUNT);
+
     private int opCount;
     private int totalByteCount;
     private boolean isOpen = true;
@@ -60,4 +77,68 @@ public final class IoTracker {
         READ,
         WRITE
     }
+
+    public static boolean isStatsEnabled() {
+        return statsEnabled;
+    }
+
+    public static void setStatsEnabled(boolean enabled) {
+        statsEnabled = enabled;
+    }
+
+    /**
+     * Records a system call that transferred {@code byteCount} bytes through {@code fd} in
+     * {@code latencyNanos}. Callers should check {@link #isStatsEnabled} first so that they only
+     * time the call when needed.
+     */
+    public static void recordSyscall(FileDescriptor fd, Mode mode, int byteCount,
+            long latencyNanos) {
+        recordSyscall(fd.isSocket$() ? FD_TYPE_SOCKET : FD_TYPE_FILE, mode, byteCount,
+                latencyNanos);
+    }
+
+    public static void recordSyscall(int fdType, Mode mode, int byteCount, long latencyNanos) {
+        int index = histogramIndex(fdType, mode);
+        sizeHistograms.incrementAndGet(index + bucket(Math.max(byteCount, 0)));
+        latencyHistograms.incrementAndGet(index + bucket(Math.max(latencyNanos, 0)));
+    }
+
+    public static long[] getSizeHistogram(int fdType, Mode mode) {
+        return copy(sizeHistograms, histogramIndex(fdType, mode));
+    }
+
+    public static long[] getLatencyHistogram(int fdType, Mode mode) {
+        return copy(latencyHistograms, histogramIndex(fdType, mode));
+    }
+
+    public static void resetStats() {
+        for (int i = 0; i < sizeHistograms.length(); i++) {
+            sizeHistograms.set(i, 0);
+            latencyHistograms.set(i, 0);
+        }
+    }
+
+    /**
+     * Returns the bucket for {@code value}: 0 for 0, and otherwise the number of significant
+     * bits, so that bucket {@code i} holds values in {@code [2^(i-1), 2^i)}. Values too large
+     * for the last bucket are counted in it.
+     */
+    static int bucket(long value) {
+        return Math.min(64 - Long.numberOfLeadingZeros(value), BUCKET_COUNT - 1);
+    }
+
+    private static int histogramIndex(int fdType, Mode mode) {
+        if (fdType != FD_TYPE_FILE && fdType != FD_TYPE_SOCKET) {
+            throw new IllegalArgumentException("fdType: " + fdType);
+        }
+        return (fdType * 2 + mode.ordinal()) * BUCKET_COUNT;
+    }
+
+    private static long[] copy(AtomicLongArray histograms, int index) {
+        long[] result = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            result[i] = histograms.get(index + i);
+        }
+        return result;
+    }
 }
@@ -16,6 +16,12 @@
 
 package libcore.io;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DirectByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
 /**
  * Iterates over big- or little-endian bytes on the native heap.
  * See {@link MemoryMappedFile#bigEndianIterator} and {@link MemoryMappedFile#littleEndianIterator}.
@@ -104,6 +110,65 @@ public final class NioBufferIterator extends BufferIterator {
         return result;
     }
 
+    public long readLong() {
+        file.checkNotClosed();
+        checkReadBounds(position, length, Long.BYTES);
+        long result = Memory.peekLong(address + position, swap);
+        position += Long.BYTES;
+        return result;
+    }
+
+    public void readLongArray(long[] dst, int dstOffset, int longCount) {
+        checkDstBounds(dstOffset, dst.length, longCount);
+        file.checkNotClosed();
+        final int byteCount = checkedByteCount(longCount, Long.BYTES);
+        checkReadBounds(position, length, byteCount);
+        Memory.peekLongArray(address + position, dst, dstOffset, longCount, swap);
+        position += byteCount;
+    }
+
+    /**
+     * Returns a read-only view directly over the mapped memory; no data is copied. The view must
+     * not be used after the {@link MemoryMappedFile} is closed.
+     */
+    @Override
+    public IntBuffer asIntBuffer(int intCount) {
+        return mappedView(checkedByteCount(intCount, Integer.BYTES)).asIntBuffer();
+    }
+
+    /**
+     * Returns a read-only view directly over the mapped memory; no data is copied. The view must
+     * not be used after the {@link MemoryMappedFile} is closed.
+     */
+    @Override
+    public LongBuffer asLongBuffer(int longCount) {
+        return mappedView(checkedByteCount(longCount, Long.BYTES)).asLongBuffer();
+    }
+
+    private ByteBuffer mappedView(int byteCount) {
+        file.checkNotClosed();
+        checkReadBounds(position, length, byteCount);
+        // The unmapper is null: the memory belongs to the MemoryMappedFile, not to the view.
+        ByteBuffer view = new DirectByteBuffer(byteCount, address + position,
+                null /* fd */, null /* unmapper */, true /* isReadOnly */);
+        ByteOrder nativeOrder = ByteOrder.nativeOrder();
+        if (swap) {
+            view.order(nativeOrder == ByteOrder.BIG_ENDIAN
+                    ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        } else {
+            view.order(nativeOrder);
+        }
+        position += byteCount;
+        return view;
+    }
+
+    private static int checkedByteCount(int count, int elementSize) {
+        if (count < 0 || count > Integer.MAX_VALUE / elementSize) {
+            throw new IndexOutOfBoundsException("Invalid count=" + count);
+        }
+        return count * elementSize;
+    }
+
     private static void checkReadBounds(int position, int length, int byteCount) {
         if (position < 0 || byteCount < 0) {
             throw new IndexOutOfBoundsException(
@@ -18,9 +18,13 @@ package libcore.io;
 
 import libcore.util.ArrayUtils;
 
+import android.system.ErrnoException;
 import dalvik.annotation.compat.UnsupportedAppUsage;
 import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -28,6 +32,11 @@ import java.io.Reader;
 import java.io.StringWriter;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static android.system.OsConstants.EINVAL;
+import static android.system.OsConstants.ENOSYS;
+import static android.system.OsConstants.S_ISFIFO;
+import static android.system.OsConstants.S_ISREG;
+
 /** @hide */
 @libcore.api.CorePlatformApi
 public final class Streams {
@@ -195,6 +204,10 @@ public final class Streams {
     @UnsupportedAppUsage
     @libcore.api.CorePlatformApi
     public static int copy(InputStream in, OutputStream out) throws IOException {
+        long copied = copyInKernel(in, out);
+        if (copied >= 0) {
+            return (int) copied;
+        }
         int total = 0;
         byte[] buffer = new byte[8192];
         int c;
@@ -205,6 +218,55 @@ public final class Streams {
         return total;
     }
 
+    /** The most bytes to ask sendfile(2) or splice(2) for at once. */
+    private static final int KERNEL_COPY_CHUNK = 1024 * 1024;
+
+    /**
+     * Copies all of the bytes from {@code in} to {@code out} without bringing them into user
+     * space, if both streams are plain file descriptor streams: sendfile(2) is used when reading
+     * from a regular file, and splice(2) when either side is a pipe. Returns the number of bytes
+     * copied, or -1 if nothing was copied and the caller should copy through a buffer instead.
+     */
+    private static long copyInKernel(InputStream in, OutputStream out) throws IOException {
+        // Subclasses may transform the data or, in the case of socket input streams, implement
+        // timeouts, so only exact classes qualify. Socket output streams write straight to
+        // their descriptor.
+        if (in.getClass() != FileInputStream.class) {
+            return -1;
+        }
+        Class<?> outClass = out.getClass();
+        if (outClass != FileOutputStream.class
+                && !outClass.getName().equals("java.net.SocketOutputStream")) {
+            return -1;
+        }
+        FileDescriptor inFd = ((FileInputStream) in).getFD();
+        FileDescriptor outFd = ((FileOutputStream) out).getFD();
+        long total = 0;
+        try {
+            int inMode = Libcore.os.fstat(inFd).st_mode;
+            boolean useSendfile = S_ISREG(inMode);
+            if (!useSendfile && !S_ISFIFO(inMode) && !S_ISFIFO(Libcore.os.fstat(outFd).st_mode)) {
+                return -1;
+            }
+            while (true) {
+                long n = useSendfile
+                        ? Libcore.os.sendfile(outFd, inFd, null, KERNEL_COPY_CHUNK)
+                        : Libcore.os.splice(inFd, null, outFd, null, KERNEL_COPY_CHUNK, 0);
+                if (n == 0) {
+                    return total;
+                }
+                total += n;
+            }
+        } catch (ErrnoException errnoException) {
+            // EINVAL is what both calls return for combinations of descriptors they don't
+            // support, such as an output file opened with O_APPEND.
+            if (total == 0 && (errnoException.errno == EINVAL || errnoException.errno == ENOSYS)) {
+                return -1;
+            }
+            throw errnoException.rethrowAsIOException();
+        }
+    }
+
     /**
      * Returns the ASCII characters up to but not including the next "\r\n", or
      * "\n".
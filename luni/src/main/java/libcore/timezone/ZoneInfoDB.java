@@ -23,12 +23,10 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 import libcore.io.BufferIterator;
 import libcore.io.MemoryMappedFile;
-import libcore.util.BasicLruCache;
+import libcore.util.ConcurrentLruCache;
 import libcore.util.ZoneInfo;
 
 /**
@@ -85,27 +83,32 @@ public final class ZoneInfoDB {
 
     /**
      * The 'ids' array contains time zone ids sorted alphabetically, for binary searching.
-     * The other two arrays are in the same order. 'byteOffsets' gives the byte offset
-     * of each time zone, and 'rawUtcOffsetsCache' gives the time zone's raw UTC offset.
+     * 'byteOffsets' is in the same order and gives the byte offset of each time zone.
      */
     private String[] ids;
     private int[] byteOffsets;
-    private int[] rawUtcOffsetsCache; // Access this via getRawUtcOffsets instead.
+
+    /**
+     * An index over the raw UTC offsets of all time zones, built lazily by
+     * {@link #ensureRawUtcOffsetIndex()}. 'sortedRawUtcOffsets' is sorted in ascending order,
+     * and 'idsByRawUtcOffset' gives the id of the time zone with that offset. Ids with the same
+     * offset are sorted alphabetically.
+     */
+    private int[] sortedRawUtcOffsets;
+    private String[] idsByRawUtcOffset;
 
     /**
      * ZoneInfo objects are worth caching because they are expensive to create.
-     * See http://b/8270865 for context.
+     * See http://b/8270865 for context. Apps that deal with many time zones at once, such as
+     * those formatting times for users around the world, need more than a handful of entries.
+     * The size can be overridden with the {@code libcore.timezone.cache_size} system property.
      */
-    private final static int CACHE_SIZE = 1;
-    private final BasicLruCache<String, ZoneInfo> cache =
-        new BasicLruCache<String, ZoneInfo>(CACHE_SIZE) {
+    private static final int DEFAULT_CACHE_SIZE = 32;
+    private final ConcurrentLruCache<String, ZoneInfo> cache =
+        new ConcurrentLruCache<String, ZoneInfo>(getCacheSize()) {
       @Override
       protected ZoneInfo create(String id) {
-        try {
-          return makeTimeZoneUncached(id);
-        } catch (IOException e) {
-          throw new IllegalStateException("Unable to load timezone for ID=" + id, e);
-        }
+        return makeTimeZoneUncachedOrThrow(id);
       }
     };
 
@@ -173,7 +176,9 @@ public final class ZoneInfoDB {
       version = "missing";
       zoneTab = "# Emergency fallback data.\n";
       ids = new String[] { "GMT" };
-      byteOffsets = rawUtcOffsetsCache = new int[1];
+      byteOffsets = new int[1];
+      sortedRawUtcOffsets = new int[1];
+      idsByRawUtcOffset = ids;
     }
 
     /**
@@ -317,6 +322,19 @@ public final class ZoneInfoDB {
       return ZoneInfo.readTimeZone(id, it, System.currentTimeMillis());
     }
 
+    private ZoneInfo makeTimeZoneUncachedOrThrow(String id) {
+      try {
+        return makeTimeZoneUncached(id);
+      } catch (IOException e) {
+        throw new IllegalStateException("Unable to load timezone for ID=" + id, e);
+      }
+    }
+
+    private static int getCacheSize() {
+      int cacheSize = Integer.getInteger("libcore.timezone.cache_size", DEFAULT_CACHE_SIZE);
+      return cacheSize > 0 ? cacheSize : DEFAULT_CACHE_SIZE;
+    }
+
     public String[] getAvailableIDs() {
       checkNotClosed();
       return ids.clone();
@@ -324,30 +342,51 @@ public final class ZoneInfoDB {
 
     public String[] getAvailableIDs(int rawUtcOffset) {
       checkNotClosed();
-      List<String> matches = new ArrayList<String>();
-      int[] rawUtcOffsets = getRawUtcOffsets();
-      for (int i = 0; i < rawUtcOffsets.length; ++i) {
-        if (rawUtcOffsets[i] == rawUtcOffset) {
-          matches.add(ids[i]);
+      ensureRawUtcOffsetIndex();
+      // Find the first entry with an offset >= rawUtcOffset...
+      int low = 0;
+      int high = sortedRawUtcOffsets.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (sortedRawUtcOffsets[mid] < rawUtcOffset) {
+          low = mid + 1;
+        } else {
+          high = mid;
         }
       }
-      return matches.toArray(new String[matches.size()]);
+      // ...and the run of entries with exactly that offset.
+      int end = low;
+      while (end < sortedRawUtcOffsets.length && sortedRawUtcOffsets[end] == rawUtcOffset) {
+        ++end;
+      }
+      return Arrays.copyOfRange(idsByRawUtcOffset, low, end);
     }
 
-    private synchronized int[] getRawUtcOffsets() {
-      if (rawUtcOffsetsCache != null) {
-        return rawUtcOffsetsCache;
+    private synchronized void ensureRawUtcOffsetIndex() {
+      if (sortedRawUtcOffsets != null) {
+        return;
       }
-      rawUtcOffsetsCache = new int[ids.length];
+      // Pack each offset with the index of its id so that a single sort orders entries by
+      // offset and then, because 'ids' is sorted, alphabetically.
+      long[] keys = new long[ids.length];
       for (int i = 0; i < ids.length; ++i) {
-        // This creates a TimeZone, which is quite expensive. Hence the cache.
+        // This creates a TimeZone, which is quite expensive. Hence the index.
         // Note that icu4c does the same (without the cache), so if you're
         // switching this code over to icu4j you should check its performance.
         // Telephony shouldn't care, but someone converting a bunch of calendar
-        // events might.
-        rawUtcOffsetsCache[i] = cache.get(ids[i]).getRawOffset();
+        // events might. This deliberately bypasses 'cache' so as not to flush it.
+        int rawUtcOffset = makeTimeZoneUncachedOrThrow(ids[i]).getRawOffset();
+        keys[i] = ((long) rawUtcOffset << 32) | i;
+      }
+      Arrays.sort(keys);
+      int[] offsets = new int[keys.length];
+      String[] idsByOffset = new String[keys.length];
+      for (int i = 0; i < keys.length; ++i) {
+        offsets[i] = (int) (keys[i] >> 32);
+        idsByOffset[i] = ids[(int) keys[i]];
       }
-      return rawUtcOffsetsCache;
+      idsByRawUtcOffset = idsByOffset;
+      sortedRawUtcOffsets = offsets;
     }
 
     @libcore.api.CorePlatformApi
@@ -382,7 +421,8 @@ public final class ZoneInfoDB {
         // Clear state that takes up appreciable heap.
         ids = null;
         byteOffsets = null;
-        rawUtcOffsetsCache = null;
+        sortedRawUtcOffsets = null;
+        idsByRawUtcOffset = null;
         cache.evictAll();
 
         // Remove the mapped file (if needed).
@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A variant of {@link BasicLruCache} for caches that are read from many threads at once.
+ *
+ * <p>Reads never take a lock. Instead of maintaining a strict access order, each entry has a
+ * "referenced" bit that is set when it is read, and eviction uses the CLOCK algorithm: a hand
+ * sweeps over the entries, clearing set bits and evicting the first entry whose bit is already
+ * clear. Recently read entries therefore get a second chance, which approximates LRU closely
+ * enough for caches of this kind. Only writers that push the cache over its maximum size
+ * serialize, on an internal eviction lock.
+ *
+ * <p>The number of entries may briefly exceed the maximum size while concurrent writers are
+ * waiting to evict.
+ * @hide
+ */
+public class ConcurrentLruCache<K, V> {
+    private final ConcurrentHashMap<K, Node<V>> map;
+    private final int maxSize;
+
+    private final Object evictionLock = new Object();
+    // @GuardedBy("evictionLock")
+    private Iterator<Map.Entry<K, Node<V>>> clockHand;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    private static final class Node<V> {
+        final V value;
+        // Set on insertion and on every read, cleared as the clock hand passes over it.
+        volatile boolean referenced = true;
+
+        Node(V value) {
+            this.value = value;
+        }
+    }
+
+    public ConcurrentLruCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        this.maxSize = maxSize;
+        this.map = new ConcurrentHashMap<K, Node<V>>();
+    }
+
+    /**
+     * Returns the value for {@code key} if it exists in the cache or can be
+     * created by {@code #create}. If a value was returned, it is marked as
+     * recently used. This returns null if a value is not cached and cannot
+     * be created.
+     *
+     * <p>If another thread caches a value for {@code key} while {@code #create}
+     * is running, that value is returned and the created one is discarded.
+     */
+    public final V get(K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        Node<V> node = map.get(key);
+        if (node != null) {
+            // Avoid dirtying the cache line when the bit is already set.
+            if (!node.referenced) {
+                node.referenced = true;
+            }
+            hitCount.increment();
+            return node.value;
+        }
+        missCount.increment();
+
+        V result = create(key);
+        if (result == null) {
+            return null;
+        }
+
+        Node<V> previous = map.putIfAbsent(key, new Node<V>(result));
+        if (previous != null) {
+            return previous.value;
+        }
+        trimToSize(maxSize);
+        return result;
+    }
+
+    /**
+     * Caches {@code value} for {@code key}.
+     *
+     * @return the previous value mapped by {@code key}. Although that entry is
+     *     no longer cached, it has not been passed to {@link #entryEvicted}.
+     */
+    public final V put(K key, V value) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        } else if (value == null) {
+            throw new NullPointerException("value == null");
+        }
+
+        Node<V> previous = map.put(key, new Node<V>(value));
+        trimToSize(maxSize);
+        return previous != null ? previous.value : null;
+    }
+
+    private void trimToSize(int maxSize) {
+        if (map.size() <= maxSize) {
+            return;
+        }
+        synchronized (evictionLock) {
+            // Readers may keep setting bits behind the hand. Once it has passed over as many
+            // entries as there are in the cache, evict whatever it points at next.
+            int secondChances = map.size();
+            while (map.size() > maxSize) {
+                if (clockHand == null || !clockHand.hasNext()) {
+                    clockHand = map.entrySet().iterator();
+                    if (!clockHand.hasNext()) {
+                        // Emptied by another thread.
+                        break;
+                    }
+                }
+                Map.Entry<K, Node<V>> entry = clockHand.next();
+                Node<V> node = entry.getValue();
+                if (node.referenced && maxSize > 0 && secondChances > 0) {
+                    node.referenced = false;
+                    secondChances--;
+                    continue;
+                }
+                K key = entry.getKey();
+                // The entry may have been replaced since the iterator saw it.
+                if (map.remove(key, node)) {
+                    evictionCount.increment();
+                    entryEvicted(key, node.value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Called for entries that have been chosen for eviction and are removed.
+     * The default implementation does nothing. This is called while holding
+     * the eviction lock, so implementations should be quick.
+     */
+    protected void entryEvicted(K key, V value) {}
+
+    /**
+     * Called after a cache miss to compute a value for the corresponding key.
+     * Returns the computed value or null if no value can be computed. The
+     * default implementation returns null. This is called without holding
+     * any locks, and may be called concurrently for the same key.
+     */
+    protected V create(K key) {
+        return null;
+    }
+
+    /**
+     * Returns a copy of the current contents of the cache, in no particular
+     * order.
+     */
+    public final Map<K, V> snapshot() {
+        Map<K, V> result = new LinkedHashMap<K, V>();
+        for (Map.Entry<K, Node<V>> entry : map.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().value);
+        }
+        return result;
+    }
+
+    /**
+     * Clear the cache, calling {@link #entryEvicted} on each removed entry.
+     */
+    public final void evictAll() {
+        trimToSize(0);
+    }
+
+    /**
+     * Returns the number of entries in the cache.
+     */
+    public final int size() {
+        return map.size();
+    }
+
+    /**
+     * Returns the number of calls to {@link #get} that found a cached value.
+     */
+    public final long hitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Returns the number of calls to {@link #get} that didn't find a cached
+     * value, whether or not {@link #create} then produced one.
+     */
+    public final long missCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Returns the number of entries passed to {@link #entryEvicted}.
+     */
+    public final long evictionCount() {
+        return evictionCount.sum();
+    }
+}
@@ -20,6 +20,10 @@ import dalvik.system.VMRuntime;
 import sun.misc.Cleaner;
 
 import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * A NativeAllocationRegistry is used to associate native allocations with
@@ -58,6 +62,18 @@ public class NativeAllocationRegistry {
     // Bit mask for "is_malloced" information.
     private static final long IS_MALLOCED = 0x1;
 
+    // Whether registrations are counted, see setAccountingEnabled().
+    private static volatile boolean accountingEnabled = false;
+
+    // Counters for each label, see getAllocationStats(). Registries sharing a label share
+    // counters, so this stays bounded even if registries are created per object.
+    private static final ConcurrentHashMap<String, Accounting> accountingByLabel =
+            new ConcurrentHashMap<>();
+
+    // The counters this registry's allocations are recorded in. Created on the first
+    // registration made while accounting is enabled, labelled with the referent's class.
+    private volatile Accounting accounting;
+
     /**
      * Return a NativeAllocationRegistry for native memory that is mostly
      * allocated by means other than the system memory allocator. For example,
@@ -237,12 +253,21 @@ public class NativeAllocationRegistry {
 
         CleanerThunk thunk;
         CleanerRunner result;
+        boolean registered = false;
         try {
-            thunk = new CleanerThunk();
+            thunk = new CleanerThunk(accountingEnabled ? getAccounting(referent) : null);
             Cleaner cleaner = Cleaner.create(referent, thunk);
             result = new CleanerRunner(cleaner);
             registerNativeAllocation(this.size);
+            registered = true;
+            // Counting may allocate, so it must also happen before the cleaner is enabled.
+            if (thunk.accounting != null) {
+                thunk.accounting.recordAllocation(size & ~IS_MALLOCED);
+            }
         } catch (VirtualMachineError vme /* probably OutOfMemoryError */) {
+            if (registered) {
+                registerNativeFree(this.size);
+            }
             applyFreeFunction(freeFunction, nativePtr);
             throw vme;
         } // Other exceptions are impossible.
@@ -255,15 +280,21 @@ public class NativeAllocationRegistry {
 
     private class CleanerThunk implements Runnable {
         private long nativePtr;
+        // Where the allocation was counted, or null if accounting was disabled at the time.
+        private final Accounting accounting;
 
-        public CleanerThunk() {
+        public CleanerThunk(Accounting accounting) {
             this.nativePtr = 0;
+            this.accounting = accounting;
         }
 
         public void run() {
             if (nativePtr != 0) {
                 applyFreeFunction(freeFunction, nativePtr);
                 registerNativeFree(size);
+                if (accounting != null) {
+                    accounting.recordFree(size & ~IS_MALLOCED);
+                }
             }
         }
 
@@ -284,6 +315,148 @@ public class NativeAllocationRegistry {
         }
     }
 
+    private Accounting getAccounting(Object referent) {
+        Accounting result = accounting;
+        if (result == null) {
+            String label = referent.getClass().getName();
+            result = accountingByLabel.get(label);
+            if (result == null) {
+                Accounting newAccounting = new Accounting(label);
+                result = accountingByLabel.putIfAbsent(label, newAccounting);
+                if (result == null) {
+                    result = newAccounting;
+                }
+            }
+            accounting = result;
+        }
+        return result;
+    }
+
+    /**
+     * Enables or disables counting of the allocations registered with, and freed by, all
+     * registries. Allocations registered while this is disabled are never counted, even once
+     * they are freed, so that the counters stay consistent.
+     */
+    @libcore.api.CorePlatformApi
+    public static void setAccountingEnabled(boolean enabled) {
+        accountingEnabled = enabled;
+    }
+
+    /**
+     * Returns the counters of all registries that registered an allocation while accounting was
+     * enabled. Registries are labelled with the class of the first referent they registered;
+     * registries with the same label are reported together.
+     */
+    @libcore.api.CorePlatformApi
+    public static List<AllocationStats> getAllocationStats() {
+        List<AllocationStats> result = new ArrayList<>();
+        for (Accounting accounting : accountingByLabel.values()) {
+            result.add(accounting.snapshot());
+        }
+        return result;
+    }
+
+    /**
+     * A snapshot of the allocations counted for a label. Byte counts are based on the sizes the
+     * registries were created with, so they are zero for malloc-based registries created
+     * without an estimate.
+     */
+    @libcore.api.CorePlatformApi
+    public static final class AllocationStats {
+        private final String label;
+        private final long allocatedCount;
+        private final long freedCount;
+        private final long allocatedBytes;
+        private final long freedBytes;
+
+        AllocationStats(String label, long allocatedCount, long freedCount,
+                long allocatedBytes, long freedBytes) {
+            this.label = label;
+            this.allocatedCount = allocatedCount;
+            this.freedCount = freedCount;
+            this.allocatedBytes = allocatedBytes;
+            this.freedBytes = freedBytes;
+        }
+
+        /** Returns the name of the class of the referents. */
+        @libcore.api.CorePlatformApi
+        public String getLabel() {
+            return label;
+        }
+
+        /** Returns the number of allocations registered. */
+        @libcore.api.CorePlatformApi
+        public long getAllocatedCount() {
+            return allocatedCount;
+        }
+
+        /** Returns the number of allocations freed. */
+        @libcore.api.CorePlatformApi
+        public long getFreedCount() {
+            return freedCount;
+        }
+
+        /** Returns the number of allocations registered and not yet freed. */
+        @libcore.api.CorePlatformApi
+        public long getLiveCount() {
+            return allocatedCount - freedCount;
+        }
+
+        /** Returns the estimated number of bytes registered. */
+        @libcore.api.CorePlatformApi
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        /** Returns the estimated number of bytes freed. */
+        @libcore.api.CorePlatformApi
+        public long getFreedBytes() {
+            return freedBytes;
+        }
+
+        /** Returns the estimated number of bytes registered and not yet freed. */
+        @libcore.api.CorePlatformApi
+        public long getLiveBytes() {
+            return allocatedBytes - freedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return label + ": " + getLiveCount() + " live (" + getLiveBytes() + " bytes), "
+                    + allocatedCount + " allocated, " + freedCount + " freed";
+        }
+    }
+
+    private static final class Accounting {
+        private final String label;
+        private final LongAdder allocatedCount = new LongAdder();
+        private final LongAdder freedCount = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+        private final LongAdder freedBytes = new LongAdder();
+
+        Accounting(String label) {
+            this.label = label;
+        }
+
+        void recordAllocation(long bytes) {
+            allocatedCount.increment();
+            allocatedBytes.add(bytes);
+        }
+
+        void recordFree(long bytes) {
+            freedCount.increment();
+            freedBytes.add(bytes);
+        }
+
+        AllocationStats snapshot() {
+            // Read frees first, so that concurrent updates can't make live counts negative.
+            long freed = freedCount.sum();
+            long freedSize = freedBytes.sum();
+            return new AllocationStats(label, allocatedCount.sum(), freed,
+                    allocatedBytes.sum(), freedSize);
+        }
+    }
+
     // Inform the garbage collector of the allocation. We do this differently for
     // malloc-based allocations.
     private static void registerNativeAllocation(long size) {
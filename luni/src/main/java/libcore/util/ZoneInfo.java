@@ -25,12 +25,14 @@ package libcore.util;
 import dalvik.annotation.compat.UnsupportedAppUsage;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.TimeZone;
 import libcore.io.BufferIterator;
+import libcore.io.Memory;
 import libcore.timezone.ZoneInfoDB;
 
 /**
@@ -76,6 +78,9 @@ public final class ZoneInfo extends TimeZone {
 
     private static final long UNIX_OFFSET = 62167219200000L;
 
+    // The size in bytes of a tzfile ttinfo record.
+    private static final int SIZEOF_TTINFO = 6;
+
     private static final int[] NORMAL = new int[] {
         0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334,
     };
@@ -259,11 +264,17 @@ public final class ZoneInfo extends TimeZone {
             }
         }
 
+        // Each ttinfo record is a 4 byte gmt offset, a 1 byte isdst flag and a 1 byte
+        // abbreviation index. Read them all in one go and decode them from the array, rather
+        // than making three bounds-checked reads per record.
+        byte[] ttinfos = new byte[tzh_typecnt * SIZEOF_TTINFO];
+        it.readByteArray(ttinfos, 0, ttinfos.length);
         int[] gmtOffsets = new int[tzh_typecnt];
         byte[] isDsts = new byte[tzh_typecnt];
         for (int i = 0; i < tzh_typecnt; ++i) {
-            gmtOffsets[i] = it.readInt();
-            byte isDst = it.readByte();
+            int offset = i * SIZEOF_TTINFO;
+            gmtOffsets[i] = Memory.peekInt(ttinfos, offset, ByteOrder.BIG_ENDIAN);
+            byte isDst = ttinfos[offset + 4];
             if (isDst != 0 && isDst != 1) {
                 throw new IOException(id + " dst at " + i + " is not 0 or 1, is " + isDst);
             }
@@ -275,7 +286,6 @@ public final class ZoneInfo extends TimeZone {
             // for en_US, we wouldn't be able to provide correct abbreviations for other locales,
             // nor would we be able to provide correct long forms (such as "Yukon Standard Time")
             // for any locale. (The RI doesn't do any better than us here either.)
-            it.skip(1);
         }
 
         return new ZoneInfo(id, transitions64, type, gmtOffsets, isDsts, currentTimeMillis);
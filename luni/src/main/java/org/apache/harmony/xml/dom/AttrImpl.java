@@ -55,6 +55,20 @@ public final class AttrImpl extends NodeImpl implements Attr {
         setName(this, name);
     }
 
+    /**
+     * Creates an attribute of {@code document}'s NodeStore. The name has
+     * already been validated.
+     */
+    AttrImpl(DocumentImpl document, boolean namespaceAware, String namespaceURI,
+            String prefix, String localName, String value) {
+        super(document);
+        this.namespaceAware = namespaceAware;
+        this.namespaceURI = namespaceURI;
+        this.prefix = prefix;
+        this.localName = localName;
+        this.value = value;
+    }
+
     @Override
     public String getLocalName() {
         return namespaceAware ? localName : null;
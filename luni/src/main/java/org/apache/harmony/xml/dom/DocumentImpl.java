@@ -72,6 +72,12 @@ public final class DocumentImpl extends InnerNodeImpl implements Document {
      */
     private WeakHashMap<NodeImpl, Map<String, UserData>> nodeToUserData;
 
+    /**
+     * The nodes of a compactly parsed document that have not been created
+     * yet, or null.
+     */
+    NodeStore nodeStore;
+
     public DocumentImpl(DOMImplementationImpl impl, String namespaceURI,
             String qualifiedName, DocumentType doctype, String inputEncoding) {
         super(null);
@@ -292,10 +298,16 @@ public final class DocumentImpl extends InnerNodeImpl implements Document {
         if (!userData.isEmpty()) {
             getUserDataMap(node).putAll(userData);
         }
+
+        // Create any children and attributes that are still in the old
+        // document's NodeStore before the node leaves it.
+        NodeList list = node.getChildNodes();
+        if (node instanceof ElementImpl) {
+            ((ElementImpl) node).attributes();
+        }
         node.document = this;
 
         // change the document on all child nodes
-        NodeList list = node.getChildNodes();
         for (int i = 0; i < list.getLength(); i++) {
             changeDocumentToThis((NodeImpl) list.item(i));
         }
@@ -360,7 +372,7 @@ public final class DocumentImpl extends InnerNodeImpl implements Document {
     }
 
     public DocumentType getDoctype() {
-        for (LeafNodeImpl child : children) {
+        for (LeafNodeImpl child : children()) {
             if (child instanceof DocumentType) {
                 return (DocumentType) child;
             }
@@ -370,7 +382,7 @@ public final class DocumentImpl extends InnerNodeImpl implements Document {
     }
 
     public Element getDocumentElement() {
-        for (LeafNodeImpl child : children) {
+        for (LeafNodeImpl child : children()) {
             if (child instanceof Element) {
                 return (Element) child;
             }
@@ -46,7 +46,9 @@ public class ElementImpl extends InnerNodeImpl implements Element {
     @UnsupportedAppUsage
     String localName;
 
-    private List<AttrImpl> attributes = new ArrayList<AttrImpl>();
+    // Null until the attributes of an element from a NodeStore are first
+    // accessed; use attributes() instead.
+    List<AttrImpl> attributes = new ArrayList<AttrImpl>();
 
     ElementImpl(DocumentImpl document, String namespaceURI, String qualifiedName) {
         super(document);
@@ -58,7 +60,33 @@ public class ElementImpl extends InnerNodeImpl implements Element {
         setName(this, name);
     }
 
+    /**
+     * Creates an element of {@code document}'s NodeStore. The name has
+     * already been validated.
+     */
+    ElementImpl(DocumentImpl document, int nodeId, boolean namespaceAware,
+            String namespaceURI, String prefix, String localName) {
+        super(document, nodeId);
+        this.namespaceAware = namespaceAware;
+        this.namespaceURI = namespaceURI;
+        this.prefix = prefix;
+        this.localName = localName;
+        this.attributes = null;
+    }
+
+    /**
+     * Returns the attributes of this element, creating them first if they are
+     * still in the document's NodeStore.
+     */
+    List<AttrImpl> attributes() {
+        if (attributes == null) {
+            attributes = document.nodeStore.createAttributes(this, nodeId);
+        }
+        return attributes;
+    }
+
     private int indexOfAttribute(String name) {
+        List<AttrImpl> attributes = attributes();
         for (int i = 0; i < attributes.size(); i++) {
             AttrImpl attr = attributes.get(i);
             if (Objects.equals(name, attr.getNodeName())) {
@@ -70,6 +98,7 @@ public class ElementImpl extends InnerNodeImpl implements Element {
     }
 
     private int indexOfAttributeNS(String namespaceURI, String localName) {
+        List<AttrImpl> attributes = attributes();
         for (int i = 0; i < attributes.size(); i++) {
             AttrImpl attr = attributes.get(i);
             if (Objects.equals(namespaceURI, attr.getNamespaceURI())
@@ -108,7 +137,7 @@ public class ElementImpl extends InnerNodeImpl implements Element {
             return null;
         }
 
-        return attributes.get(i);
+        return attributes().get(i);
     }
 
     public AttrImpl getAttributeNodeNS(String namespaceURI, String localName) {
@@ -118,7 +147,7 @@ public class ElementImpl extends InnerNodeImpl implements Element {
             return null;
         }
 
-        return attributes.get(i);
+        return attributes().get(i);
     }
 
     @Override
@@ -132,7 +161,7 @@ public class ElementImpl extends InnerNodeImpl implements Element {
      * navigation of large documents.
      */
     Element getElementById(String name) {
-        for (Attr attr : attributes) {
+        for (Attr attr : attributes()) {
             if (attr.isId() && name.equals(attr.getValue())) {
                 return this;
             }
@@ -148,7 +177,7 @@ public class ElementImpl extends InnerNodeImpl implements Element {
             return this;
         }
 
-        for (NodeImpl node : children) {
+        for (NodeImpl node : children()) {
             if (node.getNodeType() == Node.ELEMENT_NODE) {
                 Element element = ((ElementImpl) node).getElementById(name);
                 if (element != null) {
@@ -212,14 +241,14 @@ public class ElementImpl extends InnerNodeImpl implements Element {
 
     @Override
     public boolean hasAttributes() {
-        return !attributes.isEmpty();
+        return !attributes().isEmpty();
     }
 
     public void removeAttribute(String name) throws DOMException {
         int i = indexOfAttribute(name);
 
         if (i != -1) {
-            attributes.remove(i);
+            attributes().remove(i);
         }
     }
 
@@ -228,7 +257,7 @@ public class ElementImpl extends InnerNodeImpl implements Element {
         int i = indexOfAttributeNS(namespaceURI, localName);
 
         if (i != -1) {
-            attributes.remove(i);
+            attributes().remove(i);
         }
     }
 
@@ -239,7 +268,7 @@ public class ElementImpl extends InnerNodeImpl implements Element {
             throw new DOMException(DOMException.NOT_FOUND_ERR, null);
         }
 
-        attributes.remove(oldAttrImpl);
+        attributes().remove(oldAttrImpl);
         oldAttrImpl.ownerElement = null;
 
         return oldAttrImpl;
@@ -283,11 +312,11 @@ public class ElementImpl extends InnerNodeImpl implements Element {
 
         int i = indexOfAttribute(newAttr.getName());
         if (i != -1) {
-            oldAttrImpl = attributes.get(i);
-            attributes.remove(i);
+            oldAttrImpl = attributes().get(i);
+            attributes().remove(i);
         }
 
-        attributes.add(newAttrImpl);
+        attributes().add(newAttrImpl);
         newAttrImpl.ownerElement = this;
 
         return oldAttrImpl;
@@ -308,11 +337,11 @@ public class ElementImpl extends InnerNodeImpl implements Element {
 
         int i = indexOfAttributeNS(newAttr.getNamespaceURI(), newAttr.getLocalName());
         if (i != -1) {
-            oldAttrImpl = attributes.get(i);
-            attributes.remove(i);
+            oldAttrImpl = attributes().get(i);
+            attributes().remove(i);
         }
 
-        attributes.add(newAttrImpl);
+        attributes().add(newAttrImpl);
         newAttrImpl.ownerElement = this;
 
         return oldAttrImpl;
@@ -326,7 +355,7 @@ public class ElementImpl extends InnerNodeImpl implements Element {
     public class ElementAttrNamedNodeMapImpl implements NamedNodeMap {
 
         public int getLength() {
-            return ElementImpl.this.attributes.size();
+            return ElementImpl.this.attributes().size();
         }
 
         private int indexOfItem(String name) {
@@ -346,7 +375,7 @@ public class ElementImpl extends InnerNodeImpl implements Element {
         }
 
         public Node item(int index) {
-            return ElementImpl.this.attributes.get(index);
+            return ElementImpl.this.attributes().get(index);
         }
 
         public Node removeNamedItem(String name) throws DOMException {
@@ -356,7 +385,7 @@ public class ElementImpl extends InnerNodeImpl implements Element {
                 throw new DOMException(DOMException.NOT_FOUND_ERR, null);
             }
 
-            return ElementImpl.this.attributes.remove(i);
+            return ElementImpl.this.attributes().remove(i);
         }
 
         public Node removeNamedItemNS(String namespaceURI, String localName)
@@ -367,7 +396,7 @@ public class ElementImpl extends InnerNodeImpl implements Element {
                 throw new DOMException(DOMException.NOT_FOUND_ERR, null);
             }
 
-            return ElementImpl.this.attributes.remove(i);
+            return ElementImpl.this.attributes().remove(i);
         }
 
         public Node setNamedItem(Node arg) throws DOMException {
@@ -41,21 +41,46 @@ import org.w3c.dom.NodeList;
  */
 public abstract class InnerNodeImpl extends LeafNodeImpl {
 
-    // Maintained by LeafNodeImpl and ElementImpl.
+    // Maintained by LeafNodeImpl and ElementImpl. Null until the children of
+    // a node from a NodeStore are first accessed; use children() instead.
     List<LeafNodeImpl> children = new ArrayList<LeafNodeImpl>();
 
+    // The id of this node in its document's NodeStore, if it came from one.
+    int nodeId;
+
     protected InnerNodeImpl(DocumentImpl document) {
         super(document);
     }
 
+    /**
+     * Creates a node whose children are created from {@code document}'s
+     * NodeStore when they are first accessed.
+     */
+    InnerNodeImpl(DocumentImpl document, int nodeId) {
+        super(document);
+        this.children = null;
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * Returns the children of this node, creating them first if they are
+     * still in the document's NodeStore.
+     */
+    final List<LeafNodeImpl> children() {
+        if (children == null) {
+            children = document.nodeStore.createChildren(this, nodeId);
+        }
+        return children;
+    }
+
     public Node appendChild(Node newChild) throws DOMException {
-        return insertChildAt(newChild, children.size());
+        return insertChildAt(newChild, children().size());
     }
 
     public NodeList getChildNodes() {
         NodeListImpl list = new NodeListImpl();
 
-        for (NodeImpl node : children) {
+        for (NodeImpl node : children()) {
             list.add(node);
         }
 
@@ -63,10 +88,12 @@ public abstract class InnerNodeImpl extends LeafNodeImpl {
     }
 
     public Node getFirstChild() {
+        List<LeafNodeImpl> children = children();
         return (!children.isEmpty() ? children.get(0) : null);
     }
 
     public Node getLastChild() {
+        List<LeafNodeImpl> children = children();
         return (!children.isEmpty() ? children.get(children.size() - 1) : null);
     }
 
@@ -79,7 +106,7 @@ public abstract class InnerNodeImpl extends LeafNodeImpl {
     }
 
     public boolean hasChildNodes() {
-        return children.size() != 0;
+        return children().size() != 0;
     }
 
     public Node insertBefore(Node newChild, Node refChild) throws DOMException {
@@ -127,7 +154,7 @@ public abstract class InnerNodeImpl extends LeafNodeImpl {
             toInsert.parent.refreshIndices(oldIndex);
         }
 
-        children.add(index, toInsert);
+        children().add(index, toInsert);
         toInsert.parent = this;
         refreshIndices(index);
 
@@ -166,6 +193,7 @@ public abstract class InnerNodeImpl extends LeafNodeImpl {
     }
 
     private void refreshIndices(int fromIndex) {
+        List<LeafNodeImpl> children = children();
         for (int i = fromIndex; i < children.size(); i++) {
             children.get(i).index = i;
         }
@@ -182,7 +210,7 @@ public abstract class InnerNodeImpl extends LeafNodeImpl {
         }
 
         int index = oldChildImpl.index;
-        children.remove(index);
+        children().remove(index);
         oldChildImpl.parent = null;
         refreshIndices(index);
 
@@ -233,7 +261,7 @@ public abstract class InnerNodeImpl extends LeafNodeImpl {
     }
 
     void getElementsByTagName(NodeListImpl out, String name) {
-        for (NodeImpl node : children) {
+        for (NodeImpl node : children()) {
             if (node.getNodeType() == Node.ELEMENT_NODE) {
                 ElementImpl element = (ElementImpl) node;
                 if (matchesNameOrWildcard(name, element.getNodeName())) {
@@ -245,7 +273,7 @@ public abstract class InnerNodeImpl extends LeafNodeImpl {
     }
 
     void getElementsByTagNameNS(NodeListImpl out, String namespaceURI, String localName) {
-        for (NodeImpl node : children) {
+        for (NodeImpl node : children()) {
             if (node.getNodeType() == Node.ELEMENT_NODE) {
                 ElementImpl element = (ElementImpl) node;
                 if (matchesNameOrWildcard(namespaceURI, element.getNamespaceURI())
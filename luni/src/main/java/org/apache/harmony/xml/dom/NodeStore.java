@@ -0,0 +1,487 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.harmony.xml.dom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import libcore.internal.StringPool;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Node;
+
+/**
+ * Compact storage for the nodes of a parsed document. Each node is a record in
+ * parallel arrays indexed by its id, and all character data shares a single
+ * array. The document itself is node 0.
+ *
+ * <p>Node objects are created from the records on demand, one level at a
+ * time: accessing the children of a node creates objects for its children,
+ * and accessing the attributes of an element creates its attributes. Once
+ * created, nodes are ordinary DOM nodes and may be modified freely. The
+ * document drops its store when every node has been created.
+ *
+ * <p>Element and attribute names are kept once per document, with the strings
+ * the parser interned through its {@link StringPool}, and are validated once
+ * each. Attribute values are interned through a {@link StringPool} too.
+ *
+ * <p>Because reading such a document may create nodes, it must not be read
+ * from multiple threads at once without synchronization.
+ *
+ * @hide
+ */
+public final class NodeStore {
+
+    private static final int DOCUMENT_ID = 0;
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final DocumentImpl document;
+    private final boolean namespaceAware;
+
+    /*
+     * The records. The meaning of names and values depends on the type:
+     *
+     *   type                    names[id]       values
+     *   ELEMENT_NODE            name index      valueLengths[id]: attribute count
+     *   ATTRIBUTE_NODE          name index      value
+     *   TEXT_NODE, CDATA_SECTION_NODE, COMMENT_NODE
+     *                           unused          data
+     *   PROCESSING_INSTRUCTION_NODE
+     *                           target length   target followed by data
+     *   ENTITY_REFERENCE_NODE   unused          name
+     *   DOCUMENT_TYPE_NODE      unused          unused; see doctype
+     *
+     * The attributes of an element are the records that immediately follow it;
+     * they are not linked into the tree.
+     */
+    private byte[] types;
+    private int[] names;
+    private int[] firstChildren;
+    private int[] nextSiblings;
+    private int[] valueStarts;
+    private int[] valueLengths;
+    private int size;
+
+    /** The last child of each node. Only used while the store is built. */
+    private int[] lastChildren;
+
+    private char[] chars;
+    private int charCount;
+
+    /** The distinct element and attribute names, in parallel arrays. */
+    private byte[] nameTypes;
+    private String[] nameNamespaces;
+    private String[] namePrefixes;
+    private String[] nameLocalNames;
+    private int nameCount;
+
+    /** An open-addressing hash table of name indices plus one. */
+    private int[] nameSlots;
+
+    private DocumentTypeImpl doctype;
+    private boolean hasDocumentElement;
+
+    private final StringPool valuePool = new StringPool();
+
+    /** The number of child and attribute lists that have not been created. */
+    private int pendingLists;
+
+    /**
+     * Creates an empty store for {@code document}, which must have no
+     * children. Use the {@code append} methods to add nodes and {@link
+     * #attach} to give them to the document.
+     */
+    public NodeStore(DocumentImpl document, boolean namespaceAware) {
+        this.document = document;
+        this.namespaceAware = namespaceAware;
+        types = new byte[INITIAL_CAPACITY];
+        names = new int[INITIAL_CAPACITY];
+        firstChildren = new int[INITIAL_CAPACITY];
+        nextSiblings = new int[INITIAL_CAPACITY];
+        valueStarts = new int[INITIAL_CAPACITY];
+        valueLengths = new int[INITIAL_CAPACITY];
+        lastChildren = new int[INITIAL_CAPACITY];
+        chars = new char[INITIAL_CAPACITY * 8];
+        nameTypes = new byte[16];
+        nameNamespaces = new String[16];
+        namePrefixes = new String[16];
+        nameLocalNames = new String[16];
+        nameSlots = new int[32];
+        newRecord(NONE, Node.DOCUMENT_NODE);
+        pendingLists = 1;
+    }
+
+    /** Returns the id of the document node. */
+    public int getDocumentId() {
+        return DOCUMENT_ID;
+    }
+
+    /**
+     * Appends an element to {@code parent} and returns its id. The element's
+     * attributes must be appended before any other node. If this store is not
+     * namespace aware, {@code namespaceURI} and {@code prefix} must be null
+     * and {@code localName} is the qualified name.
+     *
+     * @throws DOMException if the name is not valid, or if {@code parent} is
+     *     the document and it already has an element.
+     */
+    public int appendElement(int parent, String namespaceURI, String prefix, String localName) {
+        if (parent == DOCUMENT_ID) {
+            if (hasDocumentElement) {
+                throw new DOMException(DOMException.HIERARCHY_REQUEST_ERR,
+                        "Only one root element allowed");
+            }
+            hasDocumentElement = true;
+        }
+        int name = internName(Node.ELEMENT_NODE, namespaceURI, prefix, localName);
+        int id = newRecord(parent, Node.ELEMENT_NODE);
+        names[id] = name;
+        return id;
+    }
+
+    /**
+     * Appends an attribute to {@code element}, which must be the last element
+     * appended. An existing attribute of the same name is replaced.
+     *
+     * @throws DOMException if the name is not valid.
+     */
+    public void appendAttribute(int element, String namespaceURI, String prefix,
+            String localName, String value) {
+        int name = internName(Node.ATTRIBUTE_NODE, namespaceURI, prefix, localName);
+        int end = element + 1 + valueLengths[element];
+        for (int i = element + 1; i < end; i++) {
+            if (sameAttributeName(names[i], name)) {
+                // Like Element.setAttributeNode(), remove the old attribute and
+                // append the new one.
+                removeAttributeRecord(i, end);
+                valueLengths[element]--;
+                break;
+            }
+        }
+        int id = newRecord(NONE, Node.ATTRIBUTE_NODE);
+        names[id] = name;
+        appendValue(id, value);
+        valueLengths[element]++;
+    }
+
+    /**
+     * Appends text to the last child of {@code parent} if that is a text node
+     * (and not a CDATA section). Returns false if it is not.
+     */
+    public boolean appendToLastText(int parent, String text) {
+        int last = lastChildren[parent];
+        if (last == NONE || types[last] != Node.TEXT_NODE) {
+            return false;
+        }
+        // The last text node's data is always at the end of chars.
+        ensureCharCapacity(text.length());
+        text.getChars(0, text.length(), chars, charCount);
+        charCount += text.length();
+        valueLengths[last] += text.length();
+        return true;
+    }
+
+    /**
+     * Appends a text, CDATA section or comment node to {@code parent}.
+     */
+    public void appendCharacterData(int parent, short type, String data) {
+        int id = newRecord(parent, type);
+        appendValue(id, data);
+    }
+
+    public void appendProcessingInstruction(int parent, String target, String data) {
+        int id = newRecord(parent, Node.PROCESSING_INSTRUCTION_NODE);
+        appendValue(id, target + data);
+        names[id] = target.length();
+    }
+
+    public void appendEntityReference(int parent, String name) {
+        int id = newRecord(parent, Node.ENTITY_REFERENCE_NODE);
+        appendValue(id, name);
+    }
+
+    public void appendDocumentType(DocumentTypeImpl doctype) {
+        if (this.doctype != null) {
+            throw new DOMException(DOMException.HIERARCHY_REQUEST_ERR,
+                    "Only one DOCTYPE element allowed");
+        }
+        this.doctype = doctype;
+        newRecord(DOCUMENT_ID, Node.DOCUMENT_TYPE_NODE);
+    }
+
+    /**
+     * Trims this store and makes it the source of the document's children.
+     * Nothing may be appended afterwards.
+     */
+    public void attach() {
+        types = Arrays.copyOf(types, size);
+        names = Arrays.copyOf(names, size);
+        firstChildren = Arrays.copyOf(firstChildren, size);
+        nextSiblings = Arrays.copyOf(nextSiblings, size);
+        valueStarts = Arrays.copyOf(valueStarts, size);
+        valueLengths = Arrays.copyOf(valueLengths, size);
+        lastChildren = null;
+        chars = Arrays.copyOf(chars, charCount);
+        nameSlots = null;
+
+        document.nodeStore = this;
+        document.children = null;
+        document.nodeId = DOCUMENT_ID;
+    }
+
+    /**
+     * Creates the children of the node {@code id}, whose object is {@code
+     * parent}.
+     */
+    List<LeafNodeImpl> createChildren(InnerNodeImpl parent, int id) {
+        List<LeafNodeImpl> children = new ArrayList<LeafNodeImpl>();
+        for (int child = firstChildren[id]; child != NONE; child = nextSiblings[child]) {
+            LeafNodeImpl node = createNode(child);
+            node.parent = parent;
+            node.index = children.size();
+            children.add(node);
+        }
+        listCreated();
+        return children;
+    }
+
+    /**
+     * Creates the attributes of the element {@code id}, whose object is {@code
+     * element}.
+     */
+    List<AttrImpl> createAttributes(ElementImpl element, int id) {
+        int count = valueLengths[id];
+        List<AttrImpl> attributes = new ArrayList<AttrImpl>(count);
+        for (int i = id + 1; i <= id + count; i++) {
+            int name = names[i];
+            AttrImpl attr = new AttrImpl(document, namespaceAware, nameNamespaces[name],
+                    namePrefixes[name], nameLocalNames[name],
+                    valuePool.get(chars, valueStarts[i], valueLengths[i]));
+            attr.ownerElement = element;
+            attributes.add(attr);
+        }
+        listCreated();
+        return attributes;
+    }
+
+    private LeafNodeImpl createNode(int id) {
+        switch (types[id]) {
+            case Node.ELEMENT_NODE:
+                int name = names[id];
+                ElementImpl element = new ElementImpl(document, id, namespaceAware,
+                        nameNamespaces[name], namePrefixes[name], nameLocalNames[name]);
+                // Elements without children or attributes get their (empty)
+                // lists right away, so that the store can be dropped sooner.
+                if (firstChildren[id] == NONE) {
+                    element.children = new ArrayList<LeafNodeImpl>();
+                    listCreated();
+                }
+                if (valueLengths[id] == 0) {
+                    element.attributes = new ArrayList<AttrImpl>();
+                    listCreated();
+                }
+                return element;
+            case Node.TEXT_NODE:
+                return new TextImpl(document, value(id));
+            case Node.CDATA_SECTION_NODE:
+                return new CDATASectionImpl(document, value(id));
+            case Node.COMMENT_NODE:
+                return new CommentImpl(document, value(id));
+            case Node.PROCESSING_INSTRUCTION_NODE:
+                int targetLength = names[id];
+                return new ProcessingInstructionImpl(document,
+                        new String(chars, valueStarts[id], targetLength),
+                        new String(chars, valueStarts[id] + targetLength,
+                                valueLengths[id] - targetLength));
+            case Node.ENTITY_REFERENCE_NODE:
+                return new EntityReferenceImpl(document, value(id));
+            case Node.DOCUMENT_TYPE_NODE:
+                return doctype;
+            default:
+                throw new AssertionError(types[id]);
+        }
+    }
+
+    private String value(int id) {
+        return new String(chars, valueStarts[id], valueLengths[id]);
+    }
+
+    private void listCreated() {
+        if (--pendingLists == 0) {
+            document.nodeStore = null;
+        }
+    }
+
+    private int newRecord(int parent, short type) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            names = Arrays.copyOf(names, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            valueStarts = Arrays.copyOf(valueStarts, capacity);
+            valueLengths = Arrays.copyOf(valueLengths, capacity);
+            lastChildren = Arrays.copyOf(lastChildren, capacity);
+        }
+        int id = size++;
+        types[id] = (byte) type;
+        names[id] = 0;
+        firstChildren[id] = NONE;
+        nextSiblings[id] = NONE;
+        lastChildren[id] = NONE;
+        valueStarts[id] = charCount;
+        valueLengths[id] = 0;
+        if (parent != NONE) {
+            int last = lastChildren[parent];
+            if (last == NONE) {
+                firstChildren[parent] = id;
+            } else {
+                nextSiblings[last] = id;
+            }
+            lastChildren[parent] = id;
+        }
+        if (type == Node.ELEMENT_NODE) {
+            // Its children and its attributes.
+            pendingLists += 2;
+        }
+        return id;
+    }
+
+    /**
+     * Removes the attribute record {@code i}, moving the records after it up
+     * to {@code end}, which must be the end of the store.
+     */
+    private void removeAttributeRecord(int i, int end) {
+        int count = end - i - 1;
+        System.arraycopy(names, i + 1, names, i, count);
+        System.arraycopy(valueStarts, i + 1, valueStarts, i, count);
+        System.arraycopy(valueLengths, i + 1, valueLengths, i, count);
+        size--;
+    }
+
+    private void appendValue(int id, String value) {
+        int length = value.length();
+        ensureCharCapacity(length);
+        value.getChars(0, length, chars, charCount);
+        valueStarts[id] = charCount;
+        valueLengths[id] = length;
+        charCount += length;
+    }
+
+    private void ensureCharCapacity(int length) {
+        if (chars.length - charCount < length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + length));
+        }
+    }
+
+    private boolean sameAttributeName(int a, int b) {
+        if (a == b) {
+            return true;
+        }
+        if (namespaceAware) {
+            return Objects.equals(nameNamespaces[a], nameNamespaces[b])
+                    && nameLocalNames[a].equals(nameLocalNames[b]);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index of the given name, adding it if it is new. New names
+     * are validated by creating a node with that name like the non-compact
+     * DocumentBuilder does, so that the same names are rejected.
+     */
+    private int internName(short type, String namespaceURI, String prefix, String localName) {
+        int mask = nameSlots.length - 1;
+        int hash = hashName(type, namespaceURI, prefix, localName);
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int name = nameSlots[slot] - 1;
+            if (name == NONE) {
+                validateName(type, namespaceURI, prefix, localName);
+                name = addName(type, namespaceURI, prefix, localName);
+                nameSlots[slot] = name + 1;
+                if (nameCount * 2 > nameSlots.length) {
+                    rehashNames();
+                }
+                return name;
+            }
+            if (nameTypes[name] == type
+                    && nameLocalNames[name].equals(localName)
+                    && Objects.equals(namePrefixes[name], prefix)
+                    && Objects.equals(nameNamespaces[name], namespaceURI)) {
+                return name;
+            }
+        }
+    }
+
+    private static int hashName(int type, String namespaceURI, String prefix, String localName) {
+        int hash = ((localName.hashCode() * 31 + Objects.hashCode(prefix)) * 31
+                + Objects.hashCode(namespaceURI)) * 31 + type;
+        return hash ^ (hash >>> 16);
+    }
+
+    private void validateName(short type, String namespaceURI, String prefix, String localName) {
+        if (type == Node.ELEMENT_NODE) {
+            if (namespaceAware) {
+                document.createElementNS(namespaceURI, localName).setPrefix(prefix);
+            } else {
+                document.createElement(localName);
+            }
+        } else {
+            if (namespaceAware) {
+                document.createAttributeNS(namespaceURI, localName).setPrefix(prefix);
+            } else {
+                document.createAttribute(localName);
+            }
+        }
+    }
+
+    private int addName(short type, String namespaceURI, String prefix, String localName) {
+        if (nameCount == nameTypes.length) {
+            int capacity = nameCount * 2;
+            nameTypes = Arrays.copyOf(nameTypes, capacity);
+            nameNamespaces = Arrays.copyOf(nameNamespaces, capacity);
+            namePrefixes = Arrays.copyOf(namePrefixes, capacity);
+            nameLocalNames = Arrays.copyOf(nameLocalNames, capacity);
+        }
+        int name = nameCount++;
+        nameTypes[name] = (byte) type;
+        nameNamespaces[name] = namespaceURI;
+        namePrefixes[name] = prefix;
+        nameLocalNames[name] = localName;
+        return name;
+    }
+
+    private void rehashNames() {
+        int[] oldSlots = nameSlots;
+        nameSlots = new int[oldSlots.length * 2];
+        int mask = nameSlots.length - 1;
+        for (int entry : oldSlots) {
+            if (entry == 0) {
+                continue;
+            }
+            int name = entry - 1;
+            int hash = hashName(nameTypes[name], nameNamespaces[name], namePrefixes[name],
+                    nameLocalNames[name]);
+            int slot = hash & mask;
+            while (nameSlots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            nameSlots[slot] = entry;
+        }
+    }
+}
@@ -34,6 +34,19 @@ public class DocumentBuilderFactoryImpl extends DocumentBuilderFactory {
     private static final String VALIDATION =
             "http://xml.org/sax/features/validation";
 
+    /**
+     * A feature that makes parsed documents store their nodes compactly,
+     * creating node objects only when they are accessed. Such documents use
+     * much less memory when only parts of them are read, but must not be read
+     * from multiple threads at once.
+     *
+     * @hide
+     */
+    public static final String COMPACT_DOM =
+            "http://android.com/xml/features/compact-dom";
+
+    private boolean compact;
+
     @Override
     public Object getAttribute(String name) throws IllegalArgumentException {
         throw new IllegalArgumentException(name);
@@ -49,6 +62,8 @@ public class DocumentBuilderFactoryImpl extends DocumentBuilderFactory {
             return isNamespaceAware();
         } else if (VALIDATION.equals(name)) {
             return isValidating();
+        } else if (COMPACT_DOM.equals(name)) {
+            return compact;
         } else {
             throw new ParserConfigurationException(name);
         }
@@ -71,6 +86,7 @@ public class DocumentBuilderFactoryImpl extends DocumentBuilderFactory {
          */
         DocumentBuilderImpl builder = new DocumentBuilderImpl();
         builder.setCoalescing(isCoalescing());
+        builder.setCompact(compact);
         builder.setIgnoreComments(isIgnoringComments());
         builder.setIgnoreElementContentWhitespace(isIgnoringElementContentWhitespace());
         builder.setNamespaceAware(isNamespaceAware());
@@ -97,6 +113,8 @@ public class DocumentBuilderFactoryImpl extends DocumentBuilderFactory {
             setNamespaceAware(value);
         } else if (VALIDATION.equals(name)) {
             setValidating(value);
+        } else if (COMPACT_DOM.equals(name)) {
+            compact = value;
         } else {
             throw new ParserConfigurationException(name);
         }
@@ -26,6 +26,7 @@ import org.apache.harmony.xml.dom.CDATASectionImpl;
 import org.apache.harmony.xml.dom.DOMImplementationImpl;
 import org.apache.harmony.xml.dom.DocumentImpl;
 import org.apache.harmony.xml.dom.DocumentTypeImpl;
+import org.apache.harmony.xml.dom.NodeStore;
 import org.apache.harmony.xml.dom.TextImpl;
 import org.w3c.dom.Attr;
 import org.w3c.dom.DOMImplementation;
@@ -51,6 +52,7 @@ class DocumentBuilderImpl extends DocumentBuilder {
     private static DOMImplementationImpl dom = DOMImplementationImpl.getInstance();
 
     private boolean coalescing;
+    private boolean compact;
     private EntityResolver entityResolver;
     private ErrorHandler errorHandler;
     private boolean ignoreComments;
@@ -60,6 +62,7 @@ class DocumentBuilderImpl extends DocumentBuilder {
 
     @Override public void reset() {
         coalescing = false;
+        compact = false;
         entityResolver = null;
         errorHandler = null;
         ignoreComments = false;
@@ -125,7 +128,14 @@ class DocumentBuilderImpl extends DocumentBuilder {
                 throw new SAXParseException("Unexpected end of document", null);
             }
 
-            parse(parser, document, document, XmlPullParser.END_DOCUMENT);
+            if (compact) {
+                NodeStore store = new NodeStore(document, namespaceAware);
+                parseCompact(parser, document, store, store.getDocumentId(),
+                        XmlPullParser.END_DOCUMENT);
+                store.attach();
+            } else {
+                parse(parser, document, document, XmlPullParser.END_DOCUMENT);
+            }
 
             parser.require(XmlPullParser.END_DOCUMENT, null, null);
         } catch (XmlPullParserException ex) {
@@ -330,6 +340,122 @@ class DocumentBuilderImpl extends DocumentBuilder {
         }
     }
 
+    /**
+     * Like {@link #parse(KXmlParser, DocumentImpl, Node, int)}, but adds the
+     * nodes to {@code store} rather than creating them.
+     *
+     * @param node The id of the node we're currently on in the store.
+     */
+    private void parseCompact(KXmlParser parser, DocumentImpl document, NodeStore store,
+            int node, int endToken) throws XmlPullParserException, IOException {
+
+        int token = parser.getEventType();
+
+        while (token != endToken && token != XmlPullParser.END_DOCUMENT) {
+            if (token == XmlPullParser.PROCESSING_INSTRUCTION) {
+                String text = parser.getText();
+
+                int dot = text.indexOf(' ');
+
+                String target = (dot != -1 ? text.substring(0, dot) : text);
+                String data = (dot != -1 ? text.substring(dot + 1) : "");
+
+                store.appendProcessingInstruction(node, target, data);
+            } else if (token == XmlPullParser.DOCDECL) {
+                String name = parser.getRootElementName();
+                String publicId = parser.getPublicId();
+                String systemId = parser.getSystemId();
+                store.appendDocumentType(
+                        new DocumentTypeImpl(document, name, publicId, systemId));
+
+            } else if (token == XmlPullParser.COMMENT) {
+                if (!ignoreComments) {
+                    store.appendCharacterData(node, Node.COMMENT_NODE, parser.getText());
+                }
+            } else if (token == XmlPullParser.IGNORABLE_WHITESPACE) {
+                if (!ignoreElementContentWhitespace && node != store.getDocumentId()) {
+                    appendText(store, node, token, parser.getText());
+                }
+            } else if (token == XmlPullParser.TEXT || token == XmlPullParser.CDSECT) {
+                appendText(store, node, token, parser.getText());
+            } else if (token == XmlPullParser.ENTITY_REF) {
+                String entity = parser.getName();
+
+                String resolved = resolvePredefinedOrCharacterEntity(entity);
+                if (resolved != null) {
+                    appendText(store, node, token, resolved);
+                } else {
+                    store.appendEntityReference(node, entity);
+                }
+            } else if (token == XmlPullParser.START_TAG) {
+                if (namespaceAware) {
+                    String namespace = parser.getNamespace();
+                    String name = parser.getName();
+                    String prefix = parser.getPrefix();
+
+                    if ("".equals(namespace)) {
+                        namespace = null;
+                    }
+
+                    int element = store.appendElement(node, namespace, prefix, name);
+
+                    for (int i = 0; i < parser.getAttributeCount(); i++) {
+                        String attrNamespace = parser.getAttributeNamespace(i);
+                        String attrPrefix = parser.getAttributePrefix(i);
+                        String attrName = parser.getAttributeName(i);
+                        String attrValue = parser.getAttributeValue(i);
+
+                        if ("".equals(attrNamespace)) {
+                            attrNamespace = null;
+                        }
+
+                        store.appendAttribute(element, attrNamespace, attrPrefix, attrName,
+                                attrValue);
+                    }
+
+                    token = parser.nextToken();
+                    parseCompact(parser, document, store, element, XmlPullParser.END_TAG);
+
+                    parser.require(XmlPullParser.END_TAG, namespace, name);
+
+                } else {
+                    String name = parser.getName();
+
+                    int element = store.appendElement(node, null, null, name);
+
+                    for (int i = 0; i < parser.getAttributeCount(); i++) {
+                        store.appendAttribute(element, null, null, parser.getAttributeName(i),
+                                parser.getAttributeValue(i));
+                    }
+
+                    token = parser.nextToken();
+                    parseCompact(parser, document, store, element, XmlPullParser.END_TAG);
+
+                    parser.require(XmlPullParser.END_TAG, "", name);
+                }
+            }
+
+            token = parser.nextToken();
+        }
+    }
+
+    /**
+     * @param token the XML pull parser token type, such as XmlPullParser.CDSECT
+     *      or XmlPullParser.ENTITY_REF.
+     */
+    private void appendText(NodeStore store, int parent, int token, String text) {
+        if (text.isEmpty()) {
+            return;
+        }
+        if (coalescing || token != XmlPullParser.CDSECT) {
+            if (store.appendToLastText(parent, text)) {
+                return;
+            }
+        }
+        store.appendCharacterData(parent,
+                token == XmlPullParser.CDSECT ? Node.CDATA_SECTION_NODE : Node.TEXT_NODE, text);
+    }
+
     /**
      * @param token the XML pull parser token type, such as XmlPullParser.CDSECT
      *      or XmlPullParser.ENTITY_REF.
@@ -375,6 +501,14 @@ class DocumentBuilderImpl extends DocumentBuilder {
         coalescing = value;
     }
 
+    /**
+     * Controls whether this DocumentBuilder builds compact documents, whose
+     * nodes are only created when they are accessed.
+     */
+    public void setCompact(boolean value) {
+        compact = value;
+    }
+
     /**
      * Controls whether this DocumentBuilder ignores element content whitespace.
      */
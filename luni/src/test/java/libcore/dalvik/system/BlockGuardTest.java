@@ -31,6 +31,7 @@ import java.util.List;
 import java.util.Set;
 
 import dalvik.system.BlockGuard;
+import libcore.io.IoTracker;
 
 public class BlockGuardTest extends TestCase {
 
@@ -305,6 +306,59 @@ public class BlockGuardTest extends TestCase {
         recorder.expectAndClear("onExplicitGc");
     }
 
+    public void testThreadPolicyIsPerThread() throws Exception {
+        BlockGuard.Policy[] otherThreadPolicy = new BlockGuard.Policy[1];
+        Thread thread = new Thread(() -> otherThreadPolicy[0] = BlockGuard.getThreadPolicy());
+        thread.start();
+        thread.join();
+        assertSame(BlockGuard.LAX_POLICY, otherThreadPolicy[0]);
+        assertSame(recorder, BlockGuard.getThreadPolicy());
+
+        BlockGuard.setThreadPolicy(BlockGuard.LAX_POLICY);
+        assertSame(BlockGuard.LAX_POLICY, BlockGuard.getThreadPolicy());
+        BlockGuard.setThreadPolicy(recorder);
+        assertSame(recorder, BlockGuard.getThreadPolicy());
+    }
+
+    public void testIoStats() throws Exception {
+        File f = File.createTempFile("foo", "bar");
+        BlockGuard.resetIoStats();
+        BlockGuard.setIoStatsEnabled(true);
+        try (FileOutputStream fos = new FileOutputStream(f)) {
+            fos.write(new byte[100]);
+            fos.write(new byte[1000]);
+        } finally {
+            BlockGuard.setIoStatsEnabled(false);
+        }
+
+        // The histograms are process-wide, so other threads may have added to them.
+        long[] sizes = BlockGuard.getIoSizeHistogram(IoTracker.FD_TYPE_FILE, true /* write */);
+        assertEquals(IoTracker.BUCKET_COUNT, sizes.length);
+        assertTrue(sizes[7] >= 1);  // [64, 128)
+        assertTrue(sizes[10] >= 1);  // [512, 1024)
+        assertTrue(sum(BlockGuard.getIoLatencyHistogram(IoTracker.FD_TYPE_FILE, true)) >= 2);
+
+        // Nothing is recorded while disabled.
+        long readsBefore = sum(BlockGuard.getIoSizeHistogram(IoTracker.FD_TYPE_FILE, false));
+        try (FileInputStream fis = new FileInputStream(f)) {
+            fis.read(new byte[100]);
+        }
+        assertEquals(readsBefore,
+                sum(BlockGuard.getIoSizeHistogram(IoTracker.FD_TYPE_FILE, false)));
+
+        BlockGuard.resetIoStats();
+        assertEquals(0, sum(BlockGuard.getIoSizeHistogram(IoTracker.FD_TYPE_FILE, true)));
+        f.delete();
+    }
+
+    private static long sum(long[] histogram) {
+        long sum = 0;
+        for (long count : histogram) {
+            sum += count;
+        }
+        return sum;
+    }
+
     private static class RecordingPolicy implements BlockGuard.Policy {
         private final List<String> violations = new ArrayList<>();
         private Set<Check> checksList;
@@ -16,6 +16,10 @@
 
 package libcore.java.lang.ref;
 
+import dalvik.system.VMDebug;
+import java.lang.Daemons;
+import java.lang.ref.Reference;
+import java.lang.reflect.Field;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -140,6 +144,112 @@ public final class FinalizeTest extends TestCase {
         assertTrue(count.get() > 0);
     }
 
+    public void testObjectsAllocatedOnManyThreadsAreFinalized() throws Exception {
+        final int threadCount = 8;
+        final int perThread = 1000;
+        final AtomicInteger finalized = new AtomicInteger();
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            threads[t] = new Thread() {
+                @Override public void run() {
+                    for (int i = 0; i < perThread; i++) {
+                        new Object() {
+                            @Override protected void finalize() throws Throwable {
+                                finalized.incrementAndGet();
+                            }
+                        };
+                    }
+                    // Looks up the sentinel while other threads are registering objects.
+                    FinalizationTester.induceFinalization();
+                }
+
+                // Registration must not depend on overridable Thread methods.
+                @Override public long getId() {
+                    return finalized.get();
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < 10 && finalized.get() < threadCount * perThread; i++) {
+            FinalizationTester.induceFinalization();
+        }
+        assertEquals(threadCount * perThread, finalized.get());
+    }
+
+    public void testRunFinalizationWithSeveralWorkers() throws Exception {
+        // Takes effect without restarting the daemons, which other tests rely on.
+        Daemons.setFinalizerWorkerCount(3);
+        try {
+            AtomicInteger finalized = new AtomicInteger();
+            for (int round = 0; round < 5; round++) {
+                finalized.set(0);
+                allocateCountingSlowToFinalize(finalized, 30);
+                FinalizationTester.induceFinalization();
+                // runFinalization() must not return while another worker is still running a
+                // finalizer that was enqueued before its sentinel.
+                assertEquals(30, finalized.get());
+            }
+        } finally {
+            Daemons.setFinalizerWorkerCount(1);
+        }
+    }
+
+    /** Do not inline this method; that could break non-precise GCs. See FinalizationTester. */
+    private static void allocateCountingSlowToFinalize(final AtomicInteger finalized, int count) {
+        for (int i = 0; i < count; i++) {
+            new Object() {
+                @Override protected void finalize() throws Throwable {
+                    Thread.sleep(5);
+                    finalized.incrementAndGet();
+                }
+            };
+        }
+    }
+
+    public void testLegacyHeadFieldIsMaintained() throws Exception {
+        Field head = Class.forName("java.lang.ref.FinalizerReference").getDeclaredField("head");
+        head.setAccessible(true);
+        // Each reference lands on the list held by head with probability 1/16.
+        Object[] live = new Object[256];
+        for (int i = 0; i < live.length; i++) {
+            live[i] = new SlowToFinalize();
+        }
+        assertNotNull(head.get(null));
+        Reference.reachabilityFence(live);
+    }
+
+    static class SlowToFinalize {
+        @Override protected void finalize() throws Throwable {
+            Thread.sleep(2);
+        }
+    }
+
+    public void testFinalizerStats() throws Exception {
+        VMDebug.setFinalizerStatsEnabled(true);
+        try {
+            allocateSlowToFinalize(10);
+            FinalizationTester.induceFinalization();
+        } finally {
+            VMDebug.setFinalizerStatsEnabled(false);
+        }
+        long[] stats = VMDebug.getFinalizerStats().get(SlowToFinalize.class.getName());
+        assertNotNull(stats);
+        assertTrue(stats[0] >= 10);
+        assertTrue(stats[1] >= 10 * 2_000_000L);
+        assertTrue(stats[2] >= 2_000_000L);
+        assertTrue(stats[2] <= stats[1]);
+    }
+
+    /** Do not inline this method; that could break non-precise GCs. See FinalizationTester. */
+    private static void allocateSlowToFinalize(int count) {
+        for (int i = 0; i < count; i++) {
+            new SlowToFinalize();
+        }
+    }
+
     public void createChainedFinalizer(final AtomicInteger counter, final AtomicBoolean keepGoing) {
         new Object() {
             @Override protected void finalize() throws Throwable {
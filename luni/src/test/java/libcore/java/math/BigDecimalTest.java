@@ -413,6 +413,39 @@ public final class BigDecimalTest extends TestCase {
         assertEquals("-9223372036854775810", bigMultiply(-(Long.MIN_VALUE / 2) + 1, -2).toString());
     }
 
+    /** Tests operations that rescale an operand to near 2^63. */
+    public void testRescaling_near64BitOverflow() {
+        BigDecimal max = valueOf(Long.MAX_VALUE, 2);
+        assertEquals("92233720368547758.08", max.add(valueOf(1, 2)).toString());
+        assertEquals("92233720368547758.17", max.add(new BigDecimal("0.1")).toString());
+        assertEquals("-92233720368547758.17", max.negate().subtract(new BigDecimal("0.1")).toString());
+        assertEquals("922337203685477580.70", valueOf(Long.MAX_VALUE, 1).setScale(2).toString());
+        assertEquals("922337203685477580.7", valueOf(Long.MAX_VALUE, 1)
+                .divide(BigDecimal.ONE, 1, RoundingMode.UNNECESSARY).toString());
+        assertEquals("0.10", valueOf(Long.MAX_VALUE, 1)
+                .divide(valueOf(Long.MAX_VALUE), 2, RoundingMode.DOWN).toString());
+    }
+
+    /** Tests comparisons of values with different scales whose rescaling overflows a long. */
+    public void testCompareTo_differentScales() {
+        assertEquals(0, valueOf(12, 1).compareTo(valueOf(120, 2)));
+        assertEquals(-1, valueOf(Long.MAX_VALUE / 10, 0).compareTo(valueOf(Long.MAX_VALUE, 1)));
+        assertEquals(1, valueOf(Long.MAX_VALUE, 0).compareTo(valueOf(Long.MAX_VALUE, 1)));
+        assertEquals(-1, valueOf(Long.MAX_VALUE, 1).compareTo(valueOf(Long.MAX_VALUE, 0)));
+        assertEquals(-1, valueOf(Long.MIN_VALUE, 0).compareTo(valueOf(Long.MIN_VALUE, 3)));
+        assertEquals(1, valueOf(Long.MIN_VALUE, 3).compareTo(valueOf(Long.MIN_VALUE, 0)));
+    }
+
+    public void testToString_longValues() {
+        assertEquals("-9223372036854775808", valueOf(Long.MIN_VALUE).toString());
+        assertEquals("-922337203685477.5808", valueOf(Long.MIN_VALUE, 4).toString());
+        assertEquals("0.000009223372036854775807", valueOf(Long.MAX_VALUE, 24).toString());
+        assertEquals("9.223372036854775807E-7", valueOf(Long.MAX_VALUE, 25).toString());
+        assertEquals("-9.223372036854775808E+21", valueOf(Long.MIN_VALUE, -3).toString());
+        assertEquals("-9223372036854775808000", valueOf(Long.MIN_VALUE, -3).toPlainString());
+        assertEquals("-9.223372036854775808E+21", valueOf(Long.MIN_VALUE, -3).toEngineeringString());
+    }
+
     private static BigDecimal bigMultiply(long a, long b) {
         BigDecimal bigA = valueOf(a);
         BigDecimal bigB = valueOf(b);
@@ -226,4 +226,74 @@ public class BigIntegerTest extends junit.framework.TestCase {
         try_gcd_variants(large, BigInteger.valueOf(5), BigInteger.ONE);
         try_gcd_variants(large, BigInteger.ZERO, large);
     }
+
+    /**
+     * Tests multiplication and division of operands long enough to use the Karatsuba,
+     * Toom-Cook and Burnikel-Ziegler algorithms, and of operands long enough to use BoringSSL.
+     */
+    public void test_multiplyAndDivide_longOperands() throws Exception {
+        Random r = new Random(42);
+        int[] bitLengths = { 1, 64, 2600, 7700, 9000, 17000 };
+        for (int xBits : bitLengths) {
+            for (int yBits : bitLengths) {
+                BigInteger x = new BigInteger(xBits, r).setBit(xBits - 1);
+                BigInteger y = new BigInteger(yBits, r).setBit(yBits - 1);
+                BigInteger z = new BigInteger(yBits, r).mod(y);
+                BigInteger product = x.multiply(y);
+                assertEquals(product, y.multiply(x));
+                assertEquals(product.negate(), x.negate().multiply(y));
+                // (x + y)^2 - (x - y)^2 == 4xy
+                BigInteger sum = x.add(y);
+                BigInteger difference = x.subtract(y);
+                assertEquals(product.shiftLeft(2),
+                        sum.multiply(sum).subtract(difference.multiply(difference)));
+
+                BigInteger dividend = product.add(z);
+                BigInteger[] qr = dividend.divideAndRemainder(y);
+                assertEquals(x, qr[0]);
+                assertEquals(z, qr[1]);
+                qr = dividend.negate().divideAndRemainder(y);
+                assertEquals(x.negate(), qr[0]);
+                assertEquals(z.negate(), qr[1]);
+                assertEquals(x.negate(), dividend.divide(y.negate()));
+                assertEquals(z, dividend.remainder(y.negate()));
+                assertEquals(z.signum() == 0 ? z : y.subtract(z), dividend.negate().mod(y));
+            }
+        }
+    }
+
+    public void test_divide_byZero() throws Exception {
+        BigInteger x = BigInteger.ONE.shiftLeft(3000).add(BigInteger.ONE);
+        try {
+            x.divide(BigInteger.ZERO);
+            fail();
+        } catch (ArithmeticException expected) {
+        }
+        try {
+            x.divideAndRemainder(BigInteger.ZERO);
+            fail();
+        } catch (ArithmeticException expected) {
+        }
+    }
+
+    public void test_modPow_oddModulus() throws Exception {
+        Random r = new Random(42);
+        for (int bits : new int[] { 64, 512, 1024, 2048 }) {
+            BigInteger p = BigInteger.probablePrime(bits, r);
+            BigInteger base = new BigInteger(bits + 100, r);
+            // Fermat's little theorem.
+            assertEquals(BigInteger.ONE, base.modPow(p.subtract(BigInteger.ONE), p));
+            assertEquals(base.mod(p), base.modPow(p, p));
+
+            BigInteger expected = BigInteger.ONE;
+            for (int i = 0; i < 37; i++) {
+                expected = expected.multiply(base).mod(p);
+            }
+            BigInteger exponent = BigInteger.valueOf(37);
+            assertEquals(expected, base.modPow(exponent, p));
+            assertEquals(expected.negate().mod(p), base.negate().modPow(exponent, p));
+            assertEquals(BigInteger.ONE,
+                    base.modPow(exponent.negate(), p).multiply(expected).mod(p));
+        }
+    }
 }
@@ -0,0 +1,314 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.java.net;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import junit.framework.TestCase;
+import libcore.util.BasicLruCache;
+
+/**
+ * Tests for the package-private {@code java.net.AddressCache}, reached through reflection.
+ */
+public class AddressCacheTest extends TestCase {
+    private static final long TTL_NANOS = 60 * 1000000000L;
+
+    private static final int NETID_UNSET = 0;
+
+    private static final InetAddress[] ADDRESSES = new InetAddress[] {
+            InetAddress.getLoopbackAddress() };
+
+    public void testPutAndGet() throws Exception {
+        AddressCache cache = new AddressCache(16, 16, TTL_NANOS, TTL_NANOS);
+        assertNull(cache.get("example.com", NETID_UNSET));
+        cache.put("example.com", NETID_UNSET, ADDRESSES);
+        assertSame(ADDRESSES, cache.get("example.com", NETID_UNSET));
+        // Entries are per network.
+        assertNull(cache.get("example.com", 100));
+    }
+
+    public void testNegativeEntries() throws Exception {
+        AddressCache cache = new AddressCache(16, 16, TTL_NANOS, TTL_NANOS);
+        cache.putUnknownHost("unknown.example.com", NETID_UNSET, "detail");
+        assertEquals("detail", cache.get("unknown.example.com", NETID_UNSET));
+    }
+
+    public void testNegativeEntriesDoNotEvictPositiveOnes() throws Exception {
+        AddressCache cache = new AddressCache(16, 16, TTL_NANOS, TTL_NANOS);
+        cache.put("example.com", NETID_UNSET, ADDRESSES);
+        for (int i = 0; i < 1000; i++) {
+            cache.putUnknownHost("unknown" + i + ".example.com", NETID_UNSET, "detail");
+        }
+        assertSame(ADDRESSES, cache.get("example.com", NETID_UNSET));
+    }
+
+    public void testPositiveEntryWinsOverNegativeOne() throws Exception {
+        AddressCache cache = new AddressCache(16, 16, TTL_NANOS, TTL_NANOS);
+        cache.putUnknownHost("example.com", NETID_UNSET, "detail");
+        cache.put("example.com", NETID_UNSET, ADDRESSES);
+        assertSame(ADDRESSES, cache.get("example.com", NETID_UNSET));
+    }
+
+    public void testTtlIsCapped() throws Exception {
+        AddressCache cache = new AddressCache(16, 16, 1000000L /* 1ms */, TTL_NANOS);
+        // The resolver's TTL is longer than the cache allows.
+        cache.put("example.com", NETID_UNSET, ADDRESSES, TTL_NANOS);
+        Thread.sleep(20);
+        assertNull(cache.get("example.com", NETID_UNSET));
+    }
+
+    public void testNonPositiveTtlIsNotCached() throws Exception {
+        AddressCache cache = new AddressCache(16, 16, TTL_NANOS, TTL_NANOS);
+        cache.put("example.com", NETID_UNSET, ADDRESSES, 0);
+        assertNull(cache.get("example.com", NETID_UNSET));
+    }
+
+    public void testZeroNegativeTtlDisablesNegativeCaching() throws Exception {
+        AddressCache cache = new AddressCache(16, 16, TTL_NANOS, 0);
+        cache.putUnknownHost("unknown.example.com", NETID_UNSET, "detail");
+        assertNull(cache.get("unknown.example.com", NETID_UNSET));
+    }
+
+    public void testNegativeEntriesExpire() throws Exception {
+        AddressCache cache = new AddressCache(16, 16, TTL_NANOS, 1000000L /* 1ms */);
+        cache.putUnknownHost("unknown.example.com", NETID_UNSET, "detail");
+        Thread.sleep(20);
+        assertNull(cache.get("unknown.example.com", NETID_UNSET));
+    }
+
+    public void testClear() throws Exception {
+        AddressCache cache = new AddressCache(16, 16, TTL_NANOS, TTL_NANOS);
+        cache.put("example.com", NETID_UNSET, ADDRESSES);
+        cache.putUnknownHost("unknown.example.com", NETID_UNSET, "detail");
+        cache.clear();
+        assertNull(cache.get("example.com", NETID_UNSET));
+        assertNull(cache.get("unknown.example.com", NETID_UNSET));
+    }
+
+    public void testLegacyCacheFieldEvictAllClears() throws Exception {
+        AddressCache cache = new AddressCache(16, 16, TTL_NANOS, TTL_NANOS);
+        // Apps flush the cache this way through reflection.
+        Field field = AddressCache.CLASS.getDeclaredField("cache");
+        field.setAccessible(true);
+        BasicLruCache<?, ?> legacy = (BasicLruCache<?, ?>) field.get(cache.instance);
+        for (int round = 0; round < 2; round++) {
+            cache.put("example.com", NETID_UNSET, ADDRESSES);
+            cache.putUnknownHost("unknown.example.com", NETID_UNSET, "detail");
+            legacy.evictAll();
+            assertNull(cache.get("example.com", NETID_UNSET));
+            assertNull(cache.get("unknown.example.com", NETID_UNSET));
+        }
+    }
+
+    public void testHitAndMissCounts() throws Exception {
+        AddressCache cache = new AddressCache(16, 16, TTL_NANOS, TTL_NANOS);
+        cache.get("example.com", NETID_UNSET);
+        cache.put("example.com", NETID_UNSET, ADDRESSES);
+        cache.get("example.com", NETID_UNSET);
+        cache.get("example.com", NETID_UNSET);
+        cache.putUnknownHost("unknown.example.com", NETID_UNSET, "detail");
+        // A negative entry is a hit too.
+        cache.get("unknown.example.com", NETID_UNSET);
+        assertEquals(3, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    public void testSizeIsBounded() throws Exception {
+        // Each of the 16 stripes holds a single entry.
+        AddressCache cache = new AddressCache(16, 16, TTL_NANOS, TTL_NANOS);
+        for (int i = 0; i < 100; i++) {
+            cache.put("host" + i + ".example.com", NETID_UNSET, ADDRESSES);
+        }
+        assertTrue(cache.evictionCount() >= 100 - 16);
+        int retained = 0;
+        for (int i = 0; i < 100; i++) {
+            if (cache.get("host" + i + ".example.com", NETID_UNSET) != null) {
+                retained++;
+            }
+        }
+        assertTrue(retained <= 16);
+        // The most recently added entry is always kept.
+        assertSame(ADDRESSES, cache.get("host99.example.com", NETID_UNSET));
+    }
+
+    public void testClearCountsEvictions() throws Exception {
+        AddressCache cache = new AddressCache(16, 16, TTL_NANOS, TTL_NANOS);
+        cache.put("example.com", NETID_UNSET, ADDRESSES);
+        cache.putUnknownHost("unknown.example.com", NETID_UNSET, "detail");
+        long before = cache.evictionCount();
+        cache.clear();
+        assertEquals(before + 2, cache.evictionCount());
+    }
+
+    public void testInvalidArguments() throws Exception {
+        assertConstructorThrowsIae(0, 16, TTL_NANOS, TTL_NANOS);
+        assertConstructorThrowsIae(16, 0, TTL_NANOS, TTL_NANOS);
+        assertConstructorThrowsIae(16, 16, -1, TTL_NANOS);
+        assertConstructorThrowsIae(16, 16, TTL_NANOS, -1);
+    }
+
+    public void testConcurrentAccess() throws Exception {
+        final AddressCache cache = new AddressCache(256, 64, TTL_NANOS, TTL_NANOS);
+        final int threadCount = 8;
+        final int perThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        String host = "host" + thread + "-" + (i % 4) + ".example.com";
+                        Object cached = cache.get(host, NETID_UNSET);
+                        if (cached != null) {
+                            assertSame(ADDRESSES, cached);
+                        } else {
+                            cache.put(host, NETID_UNSET, ADDRESSES);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(threadCount * perThread, cache.hitCount() + cache.missCount());
+    }
+
+    private static void assertConstructorThrowsIae(int maxEntries, int maxNegativeEntries,
+            long maxTtlNanos, long negativeTtlNanos) throws Exception {
+        try {
+            new AddressCache(maxEntries, maxNegativeEntries, maxTtlNanos, negativeTtlNanos);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    /**
+     * Calls through to a {@code java.net.AddressCache}, rethrowing what it throws.
+     */
+    private static final class AddressCache {
+        private static final Class<?> CLASS;
+        private static final Constructor<?> CONSTRUCTOR;
+        private static final Method GET;
+        private static final Method PUT;
+        private static final Method PUT_WITH_TTL;
+        private static final Method PUT_UNKNOWN_HOST;
+        private static final Method CLEAR;
+        private static final Method HIT_COUNT;
+        private static final Method MISS_COUNT;
+        private static final Method EVICTION_COUNT;
+        static {
+            try {
+                CLASS = Class.forName("java.net.AddressCache");
+                CONSTRUCTOR = CLASS.getDeclaredConstructor(
+                        int.class, int.class, long.class, long.class);
+                GET = CLASS.getDeclaredMethod("get", String.class, int.class);
+                PUT = CLASS.getDeclaredMethod(
+                        "put", String.class, int.class, InetAddress[].class);
+                PUT_WITH_TTL = CLASS.getDeclaredMethod(
+                        "put", String.class, int.class, InetAddress[].class, long.class);
+                PUT_UNKNOWN_HOST = CLASS.getDeclaredMethod(
+                        "putUnknownHost", String.class, int.class, String.class);
+                CLEAR = CLASS.getDeclaredMethod("clear");
+                HIT_COUNT = CLASS.getDeclaredMethod("hitCount");
+                MISS_COUNT = CLASS.getDeclaredMethod("missCount");
+                EVICTION_COUNT = CLASS.getDeclaredMethod("evictionCount");
+                CONSTRUCTOR.setAccessible(true);
+                for (Method method : new Method[] { GET, PUT, PUT_WITH_TTL, PUT_UNKNOWN_HOST,
+                        CLEAR, HIT_COUNT, MISS_COUNT, EVICTION_COUNT }) {
+                    method.setAccessible(true);
+                }
+            } catch (ReflectiveOperationException e) {
+                throw new AssertionError(e);
+            }
+        }
+
+        private final Object instance;
+
+        AddressCache(int maxEntries, int maxNegativeEntries, long maxTtlNanos,
+                long negativeTtlNanos) throws Exception {
+            try {
+                instance = CONSTRUCTOR.newInstance(
+                        maxEntries, maxNegativeEntries, maxTtlNanos, negativeTtlNanos);
+            } catch (InvocationTargetException e) {
+                throw rethrow(e);
+            }
+        }
+
+        Object get(String hostname, int netId) throws Exception {
+            return invoke(GET, hostname, netId);
+        }
+
+        void put(String hostname, int netId, InetAddress[] addresses) throws Exception {
+            invoke(PUT, hostname, netId, addresses);
+        }
+
+        void put(String hostname, int netId, InetAddress[] addresses, long ttlNanos)
+                throws Exception {
+            invoke(PUT_WITH_TTL, hostname, netId, addresses, ttlNanos);
+        }
+
+        void putUnknownHost(String hostname, int netId, String detailMessage)
+                throws Exception {
+            invoke(PUT_UNKNOWN_HOST, hostname, netId, detailMessage);
+        }
+
+        void clear() throws Exception {
+            invoke(CLEAR);
+        }
+
+        long hitCount() throws Exception {
+            return (Long) invoke(HIT_COUNT);
+        }
+
+        long missCount() throws Exception {
+            return (Long) invoke(MISS_COUNT);
+        }
+
+        long evictionCount() throws Exception {
+            return (Long) invoke(EVICTION_COUNT);
+        }
+
+        private Object invoke(Method method, Object... args) throws Exception {
+            try {
+                return method.invoke(instance, args);
+            } catch (InvocationTargetException e) {
+                throw rethrow(e);
+            }
+        }
+
+        private static Exception rethrow(InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            return (Exception) cause;
+        }
+    }
+}
@@ -36,6 +36,7 @@ import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.HashSet;
+import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -249,6 +250,33 @@ public class AsynchronousFileChannelTest {
         afc.close();
     }
 
+    @Test
+    public void testRead_FutureDirectBuffer() throws Throwable {
+        // Reads of data that was just written are served from the page cache, so this also
+        // covers reads that complete without going through the executor.
+        byte[] contents = new byte[64 * 1024];
+        new Random(0).nextBytes(contents);
+        File temp = createTemporaryFile(contents);
+
+        AsynchronousFileChannel afc = AsynchronousFileChannel.open(temp.toPath(),
+                StandardOpenOption.READ);
+        ByteBuffer buf = ByteBuffer.allocateDirect(4096);
+        for (int position = 0; position < contents.length; position += 3000) {
+            buf.clear();
+            int expected = Math.min(buf.capacity(), contents.length - position);
+            assertEquals(expected, (int) afc.read(buf, position).get());
+            assertEquals(expected, buf.position());
+            for (int i = 0; i < expected; i++) {
+                assertEquals(contents[position + i], buf.get(i));
+            }
+        }
+
+        buf.clear();
+        assertEquals(-1, (int) afc.read(buf, contents.length).get());
+        assertEquals(0, buf.position());
+        afc.close();
+    }
+
     static class RecordingHandler implements CompletionHandler<Integer, String> {
         public String attachment;
         public int result;
@@ -28,7 +28,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
+import java.nio.channels.Pipe;
 import java.nio.file.FileSystem;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
@@ -36,6 +38,10 @@ import java.nio.file.attribute.FileAttribute;
 import java.nio.file.spi.FileSystemProvider;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import libcore.io.IoUtils;
 import libcore.junit.junit3.TestCaseWithRules;
 import libcore.junit.util.ResourceLeakageDetector;
@@ -118,6 +124,68 @@ public class FileChannelTest extends TestCaseWithRules {
         assertEquals("abcdABCD", new String(IoUtils.readFileAsString(tmp.getPath())));
     }
 
+    public void test_writev_interleavedHeapBuffers() throws Exception {
+        File tmp = File.createTempFile("FileChannelTest", "tmp");
+        FileChannel fc = new FileOutputStream(tmp).getChannel();
+        // Heap buffers share a single shadow buffer; make sure each one still lands in order
+        // and has its position advanced.
+        ByteBuffer[] buffers = new ByteBuffer[] {
+                ByteBuffer.wrap("ab".getBytes("US-ASCII")),
+                ByteBuffer.allocateDirect(2).put("cd".getBytes("US-ASCII")),
+                ByteBuffer.wrap("xxefg".getBytes("US-ASCII"), 2, 3),
+                ByteBuffer.allocate(0),
+                ByteBuffer.wrap("h".getBytes("US-ASCII")),
+        };
+        buffers[1].flip();
+        assertEquals(8, fc.write(buffers));
+        fc.close();
+        for (ByteBuffer buffer : buffers) {
+            assertEquals(0, buffer.remaining());
+        }
+        assertEquals("abcdefgh", new String(IoUtils.readFileAsString(tmp.getPath())));
+    }
+
+    public void test_transferFrom_pipe() throws Exception {
+        File tmp = File.createTempFile("FileChannelTest", "tmp");
+        Pipe pipe = Pipe.open();
+        try (FileChannel fc = new RandomAccessFile(tmp, "rw").getChannel()) {
+            fc.write(ByteBuffer.wrap("0123456789".getBytes("US-ASCII")));
+            fc.position(1);
+            pipe.sink().write(ByteBuffer.wrap("abcdef".getBytes("US-ASCII")));
+            pipe.sink().close();
+            // Only count bytes are transferred, at the given position, without moving
+            // the channel's own position.
+            assertEquals(4, fc.transferFrom(pipe.source(), 3, 4));
+            assertEquals(1, fc.position());
+            // The rest of the pipe runs to end of stream.
+            assertEquals(2, fc.transferFrom(pipe.source(), 7, 100));
+        } finally {
+            pipe.source().close();
+        }
+        assertEquals("012abcdef9", new String(IoUtils.readFileAsString(tmp.getPath())));
+    }
+
+    public void test_transferFrom_pipeClosedDuringTransfer() throws Exception {
+        File tmp = File.createTempFile("FileChannelTest", "tmp");
+        Pipe pipe = Pipe.open();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (FileChannel fc = new RandomAccessFile(tmp, "rw").getChannel()) {
+            // Nothing is ever written to the pipe, so the transfer blocks until it is closed.
+            Future<Long> transfer = executor.submit(() -> fc.transferFrom(pipe.source(), 0, 10));
+            Thread.sleep(100);
+            pipe.source().close();
+            try {
+                transfer.get();
+                fail();
+            } catch (ExecutionException expected) {
+                assertTrue(expected.getCause() instanceof ClosedChannelException);
+            }
+        } finally {
+            executor.shutdown();
+            pipe.sink().close();
+        }
+    }
+
     public void test_append() throws Exception {
         File tmp = File.createTempFile("FileChannelTest", "tmp");
         FileOutputStream fos = new FileOutputStream(tmp, true);
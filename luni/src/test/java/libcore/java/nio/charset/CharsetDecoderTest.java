@@ -120,4 +120,48 @@ public class CharsetDecoderTest extends junit.framework.TestCase {
         assertTrue(cr.isUnderflow());
         assertEquals(5, out.position());
     }
+
+    public void testUtf8MalformedSubparts() throws Exception {
+        CharsetDecoder decoder = Charset.forName("UTF-8").newDecoder();
+        decoder.onMalformedInput(CodingErrorAction.REPLACE);
+        // Each maximal subpart of an ill-formed sequence is replaced by one U+FFFD.
+        byte[] bytes = {
+                'a', (byte) 0xe2, (byte) 0x98, 'b', (byte) 0xed, (byte) 0xa0, (byte) 0x80,
+                (byte) 0xf0, (byte) 0x9f, (byte) 0x98, (byte) 0xc0, (byte) 0xf0, (byte) 0x80,
+                (byte) 0xf0, (byte) 0x9f, (byte) 0x98, (byte) 0x80, (byte) 0xe2 };
+        assertEquals("a\ufffdb\ufffd\ufffd\ufffd\ufffd\ufffd\ufffd\ufffd\ud83d\ude00\ufffd",
+                decoder.decode(ByteBuffer.wrap(bytes)).toString());
+    }
+
+    public void testDirectBuffers() throws Exception {
+        String s = "ASCII text long enough for the word-at-a-time path \u00e9\u00ff";
+        assertEquals(s + "\u20ac\ud83d\ude00", decodeDirect("UTF-8", s + "\u20ac\ud83d\ude00"));
+        assertEquals(s, decodeDirect("ISO-8859-1", s));
+        assertEquals("ASCII only, but longer than eight bytes", decodeDirect("US-ASCII",
+                "ASCII only, but longer than eight bytes"));
+    }
+
+    private static String decodeDirect(String charsetName, String s) throws Exception {
+        byte[] bytes = s.getBytes(charsetName);
+        ByteBuffer in = ByteBuffer.allocateDirect(bytes.length);
+        in.put(bytes).flip();
+        CharBuffer out = ByteBuffer.allocateDirect(bytes.length * 2).asCharBuffer();
+        CharsetDecoder decoder = Charset.forName(charsetName).newDecoder();
+        assertEquals(CoderResult.UNDERFLOW, decoder.decode(in, out, true));
+        assertEquals(CoderResult.UNDERFLOW, decoder.flush(out));
+        assertFalse(in.hasRemaining());
+        out.flip();
+        return out.toString();
+    }
+
+    public void testUsAsciiMalformed() throws Exception {
+        CharsetDecoder decoder = Charset.forName("US-ASCII").newDecoder();
+        ByteBuffer in = ByteBuffer.wrap(new byte[] { 'a', 'b', (byte) 0x80, 'c' });
+        CharBuffer out = CharBuffer.allocate(8);
+        CoderResult cr = decoder.decode(in, out, true);
+        assertTrue(cr.isMalformed());
+        assertEquals(1, cr.length());
+        assertEquals(2, in.position());
+        assertEquals(2, out.position());
+    }
 }
@@ -140,6 +140,33 @@ public class CharsetEncoderTest extends junit.framework.TestCase {
         assertEquals(expectedPosition, bb.position());
     }
 
+    public void testUtf8SplitSurrogates() throws Exception {
+        // UTF-8 is encoded without ICU, but must behave the same way.
+        CharsetEncoder e = Charset.forName("UTF-8").newEncoder();
+        ByteBuffer bb = ByteBuffer.allocate(128);
+        CoderResult cr = e.encode(CharBuffer.wrap(new char[] { '\ud83d' }), bb, false);
+        assertEquals(CoderResult.UNDERFLOW, cr);
+        assertEquals(0, bb.position());
+        cr = e.encode(CharBuffer.wrap(new char[] { '\ude00' }), bb, true);
+        assertEquals(CoderResult.UNDERFLOW, cr);
+        assertEquals(CoderResult.UNDERFLOW, e.flush(bb));
+        assertEquals(4, bb.position());
+        assertEquals((byte) 0xf0, bb.get(0));
+        assertEquals((byte) 0x9f, bb.get(1));
+        assertEquals((byte) 0x98, bb.get(2));
+        assertEquals((byte) 0x80, bb.get(3));
+    }
+
+    public void testUtf8UnpairedHighSurrogateAtEnd() throws Exception {
+        CharsetEncoder e = Charset.forName("UTF-8").newEncoder();
+        ByteBuffer bb = ByteBuffer.allocate(128);
+        assertEquals(CoderResult.UNDERFLOW,
+                e.encode(CharBuffer.wrap(new char[] { 'a', '\ud83d' }), bb, true));
+        CoderResult cr = e.flush(bb);
+        assertTrue(cr.isMalformed());
+        assertEquals(1, bb.position());
+    }
+
     public void testFlushWithoutEndOfInput() throws Exception {
         Charset cs = Charset.forName("UTF-32BE");
         CharsetEncoder e = cs.newEncoder();
@@ -68,4 +68,22 @@ public class CharsetTest extends junit.framework.TestCase {
             assertTrue(!ct.failed);
         }
     }
+
+    public void test_forNameAliasesReturnSameInstance() {
+        // Lookups of more distinct names than any per-thread cache holds, in turn, must still
+        // resolve every alias to the canonical instance.
+        String[][] aliases = {
+            { "UTF-8", "UTF8", "utf-8" },
+            { "ISO-8859-1", "8859_1", "latin1" },
+            { "US-ASCII", "ASCII", "us-ascii" },
+        };
+        for (int round = 0; round < 3; ++round) {
+            for (String[] names : aliases) {
+                Charset canonical = Charset.forName(names[0]);
+                for (String name : names) {
+                    assertSame(name, canonical, Charset.forName(name));
+                }
+            }
+        }
+    }
 }
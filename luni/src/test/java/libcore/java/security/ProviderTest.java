@@ -842,6 +842,57 @@ public class ProviderTest extends TestCase {
         assertNull(Security.getProvider(provider.getName()));
     }
 
+    // Service lookups are cached, so make sure a repeated lookup notices every kind of change.
+    public void testGetInstance_RepeatedLookupSeesProviderChanges() throws Exception {
+        MockProvider provider = new MockProvider("MockProvider");
+        try {
+            Security.insertProviderAt(provider, 1);
+            assertSecureRandomUnavailable("SecureRandom1");
+
+            provider.put("SecureRandom.SecureRandom1", SecureRandom1.class.getName());
+            assertSame(provider, SecureRandom.getInstance("SecureRandom1").getProvider());
+
+            provider.remove("SecureRandom.SecureRandom1");
+            assertSecureRandomUnavailable("SecureRandom1");
+
+            provider.putServiceForTest(new Provider.Service(provider, "SecureRandom",
+                    "SecureRandom1", SecureRandom1.class.getName(), null, null));
+            assertSame(provider, SecureRandom.getInstance("SecureRandom1").getProvider());
+        } finally {
+            Security.removeProvider(provider.getName());
+        }
+        assertSecureRandomUnavailable("SecureRandom1");
+    }
+
+    public void testGetService_SeesChangesAfterLookup() throws Exception {
+        MockProvider provider = new MockProvider("MockProvider");
+        provider.put("SecureRandom.SecureRandom1", SecureRandom1.class.getName());
+        Set<Provider.Service> services = provider.getServices();
+        assertEquals(1, services.size());
+        assertEquals(SecureRandom1.class.getName(),
+                provider.getService("SecureRandom", "SecureRandom1").getClassName());
+
+        Provider.Service service = new Provider.Service(provider, "SecureRandom",
+                "SecureRandom1", SecureRandom2.class.getName(), null, null);
+        provider.putServiceForTest(service);
+        assertSame(service, provider.getService("SecureRandom", "SecureRandom1"));
+        assertEquals(2, provider.getServices().size());
+        // Sets returned earlier do not change.
+        assertEquals(1, services.size());
+
+        provider.clear();
+        assertNull(provider.getService("SecureRandom", "SecureRandom1"));
+        assertTrue(provider.getServices().isEmpty());
+    }
+
+    private static void assertSecureRandomUnavailable(String algorithm) {
+        try {
+            SecureRandom.getInstance(algorithm);
+            fail("Found SecureRandom." + algorithm);
+        } catch (NoSuchAlgorithmException expected) {
+        }
+    }
+
     public static class MyCertStoreSpi extends CertStoreSpi {
         public MyCertStoreSpi(CertStoreParameters params) throws InvalidAlgorithmParameterException {
             super(params);
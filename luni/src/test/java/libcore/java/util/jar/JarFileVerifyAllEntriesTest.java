@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package libcore.java.util.jar;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import junit.framework.TestCase;
+import tests.support.resource.Support_Resources;
+
+public class JarFileVerifyAllEntriesTest extends TestCase {
+
+    private File resources;
+    private ForkJoinPool pool;
+
+    @Override public void setUp() throws Exception {
+        super.setUp();
+        resources = Support_Resources.createTempFolder();
+        pool = new ForkJoinPool(4);
+    }
+
+    @Override public void tearDown() throws Exception {
+        pool.shutdown();
+        super.tearDown();
+    }
+
+    public void test_verifyAllEntries() throws Exception {
+        File file = Support_Resources.copyFile(resources, null, "Integrate.jar");
+        try (JarFile jarFile = new JarFile(file)) {
+            jarFile.verifyAllEntries(pool);
+            // The signers are known without reading the entry.
+            JarEntry entry = jarFile.getJarEntry("Test.class");
+            assertNotNull(entry.getCodeSigners());
+            assertNotNull(entry.getCertificates());
+            // Reading it still works.
+            readFully(jarFile, entry);
+        }
+    }
+
+    public void test_verifyAllEntries_reopen() throws Exception {
+        File file = Support_Resources.copyFile(resources, null, "Integrate.jar");
+        try (JarFile jarFile = new JarFile(file)) {
+            jarFile.verifyAllEntries(pool);
+        }
+        // The entries verified above are not digested again, so nothing is submitted to a
+        // pool that rejects all tasks.
+        ForkJoinPool shutDownPool = new ForkJoinPool(1);
+        shutDownPool.shutdown();
+        try (JarFile jarFile = new JarFile(file)) {
+            jarFile.verifyAllEntries(shutDownPool);
+            JarEntry entry = jarFile.getJarEntry("Test.class");
+            assertNotNull(entry.getCodeSigners());
+            readFully(jarFile, entry);
+        }
+    }
+
+    public void test_verifyAllEntries_modifiedAfterVerification() throws Exception {
+        File file = Support_Resources.copyFile(resources, null, "Integrate.jar");
+        try (JarFile jarFile = new JarFile(file)) {
+            jarFile.verifyAllEntries(pool);
+        }
+        // Overwrite the file in place with a tampered copy of the same size, and set its
+        // modification time back.
+        byte[] original = Files.readAllBytes(file.toPath());
+        byte[] tampered = padWithComment(readResource("Modified_Class.jar"), original.length);
+        long lastModified = file.lastModified();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(tampered);
+        }
+        assertTrue(file.setLastModified(lastModified));
+        assertEquals(original.length, file.length());
+
+        try (JarFile jarFile = new JarFile(file)) {
+            jarFile.verifyAllEntries(pool);
+            fail();
+        } catch (SecurityException expected) {
+        }
+    }
+
+    public void test_verifyAllEntries_modifiedEntry() throws Exception {
+        // The content of Test.class doesn't match its digest in the manifest.
+        File file = Support_Resources.copyFile(resources, null, "Modified_Class.jar");
+        try (JarFile jarFile = new JarFile(file)) {
+            jarFile.verifyAllEntries(pool);
+            fail();
+        } catch (SecurityException expected) {
+        }
+    }
+
+    public void test_verifyAllEntries_unsigned() throws Exception {
+        File file = Support_Resources.copyFile(resources, null, "hyts_patch.jar");
+        try (JarFile jarFile = new JarFile(file)) {
+            jarFile.verifyAllEntries(pool);
+            assertNull(jarFile.getJarEntry("foo/bar/A.class").getCodeSigners());
+        }
+    }
+
+    public void test_verifyAllEntries_withoutVerification() throws Exception {
+        File file = Support_Resources.copyFile(resources, null, "Modified_Class.jar");
+        try (JarFile jarFile = new JarFile(file, false)) {
+            jarFile.verifyAllEntries(pool);
+            assertNull(jarFile.getJarEntry("Test.class").getCodeSigners());
+        }
+    }
+
+    private byte[] readResource(String name) throws Exception {
+        File file = Support_Resources.copyFile(resources, null, name);
+        return Files.readAllBytes(file.toPath());
+    }
+
+    /**
+     * Returns a copy of a zip file without a comment, grown to {@code length} bytes by giving
+     * it one.
+     */
+    private static byte[] padWithComment(byte[] zip, int length) {
+        int commentLength = length - zip.length;
+        assertTrue(commentLength >= 0);
+        byte[] result = Arrays.copyOf(zip, length);
+        // The comment length is the last field of the end of central directory record.
+        result[zip.length - 2] = (byte) commentLength;
+        result[zip.length - 1] = (byte) (commentLength >>> 8);
+        return result;
+    }
+
+    private static void readFully(JarFile jarFile, JarEntry entry) throws Exception {
+        byte[] buffer = new byte[1024];
+        try (InputStream in = jarFile.getInputStream(entry)) {
+            while (in.read(buffer) != -1) {
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.java.util.regex;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+import java.util.regex.PatternCache;
+import java.util.regex.PatternSyntaxException;
+import junit.framework.TestCase;
+
+public class PatternCacheTest extends TestCase {
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        PatternCache.setEnabled(true);
+        PatternCache.clear();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        PatternCache.setEnabled(true);
+        super.tearDown();
+    }
+
+    public void testReusesCompiledPattern() {
+        Pattern first = PatternCache.compile("[a-z]+\\d");
+        assertSame(first, PatternCache.compile("[a-z]+\\d"));
+        assertNotSame(first, PatternCache.compile("[a-z]+\\d", Pattern.CASE_INSENSITIVE));
+        assertEquals(Pattern.CASE_INSENSITIVE,
+                PatternCache.compile("[a-z]+\\d", Pattern.CASE_INSENSITIVE).flags());
+        assertEquals(0, PatternCache.compile("[a-z]+\\d").flags());
+    }
+
+    public void testStringMethodsUseCache() {
+        long hits = PatternCache.hitCount();
+        for (int i = 0; i < 3; i++) {
+            assertEquals("a_b_c", "a1b22c".replaceAll("\\d+", "_"));
+            assertEquals("a_b22c", "a1b22c".replaceFirst("\\d+", "_"));
+            assertTrue("a1b22c".matches("(\\w\\d+)+c"));
+            assertEquals(Arrays.asList("a", "b", "c"), Arrays.asList("a1b22c".split("\\d+")));
+        }
+        // Only the first use of each of the two expressions has to compile it.
+        assertEquals(hits + 10, PatternCache.hitCount());
+    }
+
+    public void testInvalidPatternIsNotCached() {
+        int size = PatternCache.size();
+        try {
+            "abc".replaceAll("(", "");
+            fail();
+        } catch (PatternSyntaxException expected) {
+        }
+        assertEquals(size, PatternCache.size());
+    }
+
+    public void testDisabled() {
+        PatternCache.setEnabled(false);
+        assertEquals(0, PatternCache.size());
+        assertNotSame(PatternCache.compile("x+"), PatternCache.compile("x+"));
+        assertEquals(0, PatternCache.size());
+    }
+}
@@ -24,6 +24,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Random;
@@ -622,6 +624,100 @@ public abstract class AbstractZipFileTest extends TestCaseWithRules {
         zipFile.close();
     }
 
+    public void testReadStoredEntriesInChunks() throws IOException {
+        final File f = createTemporaryZipFile();
+        ZipOutputStream out = createZipOutputStream(f);
+        byte[][] contents = new byte[3][];
+        for (int i = 0; i < contents.length; i++) {
+            contents[i] = new byte[1000 + i * 517];
+            new Random(i).nextBytes(contents[i]);
+            ZipEntry ze = new ZipEntry("stored" + i);
+            ze.setMethod(ZipEntry.STORED);
+            CRC32 crc = new CRC32();
+            crc.update(contents[i]);
+            ze.setCrc(crc.getValue());
+            ze.setSize(contents[i].length);
+            out.putNextEntry(ze);
+            out.write(contents[i]);
+            out.closeEntry();
+        }
+        out.close();
+
+        try (ZipFile zipFile = new ZipFile(f)) {
+            // Read the entries out of order, a few odd-sized chunks at a time.
+            for (int i = contents.length - 1; i >= 0; i--) {
+                InputStream is = zipFile.getInputStream(zipFile.getEntry("stored" + i));
+                byte[] actual = new byte[contents[i].length];
+                int total = 0;
+                int read;
+                while ((read = is.read(actual, total, Math.min(77, actual.length - total))) > 0) {
+                    total += read;
+                }
+                assertEquals(-1, is.read());
+                assertEquals(contents[i].length, total);
+                assertTrue(Arrays.equals(contents[i], actual));
+                is.close();
+            }
+        }
+    }
+
+    public void testGetEntryByNonAsciiName() throws IOException {
+        final File f = createTemporaryZipFile();
+        // Plain names, names with supplementary characters, which are encoded differently
+        // by JNI, and directories looked up without their trailing slash.
+        String[] names = { "ascii.txt", "caf\u00e9.txt", "emoji-\uD83D\uDE00.txt", "dir/" };
+        ZipOutputStream out = createZipOutputStream(f);
+        for (String name : names) {
+            out.putNextEntry(new ZipEntry(name));
+            out.write(name.getBytes("UTF-8"));
+            out.closeEntry();
+        }
+        out.close();
+
+        try (ZipFile zipFile = new ZipFile(f)) {
+            for (String name : names) {
+                assertEquals(name, zipFile.getEntry(name).getName());
+            }
+            assertEquals("dir/", zipFile.getEntry("dir").getName());
+            assertNull(zipFile.getEntry("caf\u00e9"));
+            assertNull(zipFile.getEntry("emoji-\uD83D\uDE01.txt"));
+            assertNull(zipFile.getEntry("ascii.txt\u0000"));
+        }
+    }
+
+    public void testReadAfterFileTruncatedWhileOpen() throws IOException {
+        final File f = createTemporaryZipFile();
+        ZipOutputStream out = createZipOutputStream(f);
+        byte[] contents = new byte[64 * 1024];
+        new Random(0).nextBytes(contents);
+        ZipEntry ze = new ZipEntry("stored");
+        ze.setMethod(ZipEntry.STORED);
+        CRC32 crc = new CRC32();
+        crc.update(contents);
+        ze.setCrc(crc.getValue());
+        ze.setSize(contents.length);
+        out.putNextEntry(ze);
+        out.write(contents);
+        out.closeEntry();
+        out.close();
+
+        try (ZipFile zipFile = new ZipFile(f)) {
+            InputStream is = zipFile.getInputStream(zipFile.getEntry("stored"));
+            try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+                raf.setLength(1024);
+            }
+            // Reading past the new end of the file must fail with an exception, not a crash.
+            byte[] buffer = new byte[contents.length];
+            try {
+                while (is.read(buffer) != -1) {
+                }
+                fail();
+            } catch (IOException expected) {
+            }
+            is.close();
+        }
+    }
+
     public void testReadTruncatedZipFile() throws IOException {
         final File f = createTemporaryZipFile();
         try (FileOutputStream fos = new FileOutputStream(f)) {
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.java.util.zip;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZStreamPool;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import libcore.io.Streams;
+import libcore.junit.junit3.TestCaseWithRules;
+import libcore.junit.util.ResourceLeakageDetector;
+import org.junit.Rule;
+import org.junit.rules.TestRule;
+
+public final class ZStreamPoolTest extends TestCaseWithRules {
+    @Rule
+    public TestRule resourceLeakageDetectorRule = ResourceLeakageDetector.getRule();
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        ZStreamPool.setEnabled(true);
+        ZStreamPool.clear();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ZStreamPool.setEnabled(true);
+        ZStreamPool.setIdleTimeoutMillis(10 * 1000);
+        super.tearDown();
+    }
+
+    public void testGzipRoundTripReusesPooledInstances() throws Exception {
+        byte[] data = randomBytes(64 * 1024);
+        assertTrue(Arrays.equals(data, gunzip(gzip(data))));
+        assertEquals(2, ZStreamPool.idleCount());
+        assertTrue(ZStreamPool.retainedNativeBytes() > 0);
+
+        long hits = ZStreamPool.hitCount();
+        // The recycled inflater and deflater must behave exactly like fresh ones.
+        for (int i = 0; i < 4; i++) {
+            byte[] more = randomBytes(1024 * (i + 1));
+            assertTrue(Arrays.equals(more, gunzip(gzip(more))));
+        }
+        assertEquals(hits + 8, ZStreamPool.hitCount());
+        assertEquals(2, ZStreamPool.idleCount());
+    }
+
+    public void testUseAfterCloseDoesNotTouchPooledInflater() throws Exception {
+        byte[] compressed = gzip("hello".getBytes(StandardCharsets.UTF_8));
+        GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed));
+        in.close();
+        try {
+            in.read();
+            fail();
+        } catch (IOException expected) {
+        }
+        assertEquals(1, ZStreamPool.idleCount());
+    }
+
+    public void testSubclassesDoNotReturnToPool() throws Exception {
+        byte[] compressed = gzip("hello".getBytes(StandardCharsets.UTF_8));
+        ZStreamPool.clear();
+        InflaterExposingStream in = new InflaterExposingStream(new ByteArrayInputStream(compressed));
+        Streams.readFully(in);
+        in.close();
+        assertEquals(0, ZStreamPool.idleCount());
+        try {
+            in.inflater().getRemaining();
+            fail();
+        } catch (NullPointerException expected) {
+            // The inflater was ended rather than pooled.
+        }
+    }
+
+    public void testIdleInstancesAreTrimmed() throws Exception {
+        byte[] data = randomBytes(4096);
+        assertTrue(Arrays.equals(data, gunzip(gzip(data))));
+        assertEquals(2, ZStreamPool.idleCount());
+        ZStreamPool.trim();
+        assertEquals(2, ZStreamPool.idleCount());
+
+        ZStreamPool.setIdleTimeoutMillis(0);
+        Thread.sleep(5);
+        ZStreamPool.trim();
+        assertEquals(0, ZStreamPool.idleCount());
+        assertEquals(0, ZStreamPool.retainedNativeBytes());
+    }
+
+    public void testPoolIsBounded() throws Exception {
+        GZIPInputStream[] streams = new GZIPInputStream[16];
+        byte[] compressed = gzip("hello".getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < streams.length; i++) {
+            streams[i] = new GZIPInputStream(new ByteArrayInputStream(compressed));
+        }
+        for (GZIPInputStream in : streams) {
+            in.close();
+        }
+        assertTrue(ZStreamPool.idleCount() < streams.length);
+    }
+
+    public void testZipFileStreamReturnsToPool() throws Exception {
+        File file = createZipFile();
+        try (ZipFile zipFile = new ZipFile(file)) {
+            InputStream in = zipFile.getInputStream(zipFile.getEntry("entry"));
+            ZStreamPool.clear();
+            Streams.readFully(in);
+            in.close();
+            assertEquals(1, ZStreamPool.idleCount());
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testZipFileStreamClosedWithZipFileDoesNotReturnToPool() throws Exception {
+        File file = createZipFile();
+        try {
+            ZipFile zipFile = new ZipFile(file);
+            InputStream in = zipFile.getInputStream(zipFile.getEntry("entry"));
+            ZStreamPool.clear();
+            // ZipFile.close() ends the inflater of every stream that is still open.
+            zipFile.close();
+            in.close();
+            assertEquals(0, ZStreamPool.idleCount());
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testDisabled() throws Exception {
+        ZStreamPool.setEnabled(false);
+        assertEquals(0, ZStreamPool.idleCount());
+        long misses = ZStreamPool.missCount();
+        byte[] data = randomBytes(4096);
+        assertTrue(Arrays.equals(data, gunzip(gzip(data))));
+        assertEquals(0, ZStreamPool.idleCount());
+        assertEquals(misses, ZStreamPool.missCount());
+    }
+
+    private static File createZipFile() throws IOException {
+        File file = File.createTempFile("ZStreamPoolTest", ".zip");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            out.putNextEntry(new ZipEntry("entry"));
+            out.write(randomBytes(4096));
+            out.closeEntry();
+        }
+        return file;
+    }
+
+    private static final class InflaterExposingStream extends GZIPInputStream {
+        InflaterExposingStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        Inflater inflater() {
+            return inf;
+        }
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] data) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return Streams.readFully(in);
+        }
+    }
+}
@@ -26,6 +26,7 @@ import java.io.FileOutputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.IntBuffer;
+import java.nio.LongBuffer;
 import java.util.Arrays;
 import java.util.function.Function;
 import libcore.io.BufferIterator;
@@ -439,6 +440,124 @@ public class MemoryMappedFileTest extends TestCase {
         }
     }
 
+    public void testReadLongArray() throws Exception {
+        checkReadLongArray(MemoryMappedFile::bigEndianIterator, ByteOrder.BIG_ENDIAN);
+        checkReadLongArray(MemoryMappedFile::littleEndianIterator, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void checkReadLongArray(
+            Function<MemoryMappedFile, BufferIterator> iteratorFactory,
+            ByteOrder byteOrdering) throws Exception {
+
+        byte[] testBytes = createBytes(25);
+        File file = createFile(testBytes);
+        try {
+            MemoryMappedFile mappedFile = MemoryMappedFile.mmapRO(file.getPath());
+            BufferIterator iterator = iteratorFactory.apply(mappedFile);
+            LongBuffer expectedLongs = ByteBuffer.wrap(testBytes).order(byteOrdering).asLongBuffer();
+
+            assertEquals(expectedLongs.get(0), iterator.readLong());
+            assertEquals(Long.BYTES, iterator.pos());
+
+            // Odd offset.
+            iterator.seek(1);
+            long[] dst = new long[4];
+            iterator.readLongArray(dst, 1, 3);
+            ByteBuffer oddBytes = ByteBuffer.wrap(testBytes, 1, 24).slice().order(byteOrdering);
+            assertEquals(0L, dst[0]);
+            for (int i = 0; i < 3; i++) {
+                assertEquals(oddBytes.getLong(i * Long.BYTES), dst[i + 1]);
+            }
+            assertEquals(25, iterator.pos());
+
+            // Partly after bounds.
+            iterator.seek(18);
+            try {
+                iterator.readLong();
+                fail();
+            } catch (IndexOutOfBoundsException expected) {
+            }
+            try {
+                iterator.readLongArray(dst, 0, 1);
+                fail();
+            } catch (IndexOutOfBoundsException expected) {
+            }
+            assertEquals(18, iterator.pos());
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testAsIntBuffer() throws Exception {
+        checkAsIntBuffer(MemoryMappedFile::bigEndianIterator, ByteOrder.BIG_ENDIAN);
+        checkAsIntBuffer(MemoryMappedFile::littleEndianIterator, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void checkAsIntBuffer(
+            Function<MemoryMappedFile, BufferIterator> iteratorFactory,
+            ByteOrder byteOrdering) throws Exception {
+
+        byte[] testBytes = createBytes(20);
+        File file = createFile(testBytes);
+        try (MemoryMappedFile mappedFile = MemoryMappedFile.mmapRO(file.getPath())) {
+            BufferIterator iterator = iteratorFactory.apply(mappedFile);
+            iterator.seek(2);
+            IntBuffer ints = iterator.asIntBuffer(4);
+            assertEquals(18, iterator.pos());
+            assertTrue(ints.isReadOnly());
+            assertEquals(4, ints.remaining());
+            IntBuffer expectedInts = ByteBuffer.wrap(testBytes, 2, 16).slice()
+                    .order(byteOrdering).asIntBuffer();
+            assertEquals(expectedInts, ints);
+
+            LongBuffer longs = iterator.asLongBuffer(0);
+            assertEquals(0, longs.remaining());
+
+            try {
+                iterator.asLongBuffer(1);
+                fail();
+            } catch (IndexOutOfBoundsException expected) {
+            }
+            assertEquals(18, iterator.pos());
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testReadVarint() throws Exception {
+        byte[] bytes = new byte[] {
+                0x00,
+                0x7f,
+                (byte) 0x80, 0x01,
+                (byte) 0xac, 0x02,
+                (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x0f,
+                // Too long.
+                (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x10,
+        };
+        File file = createFile(bytes);
+        try (MemoryMappedFile mappedFile = MemoryMappedFile.mmapRO(file.getPath())) {
+            BufferIterator iterator = mappedFile.bigEndianIterator();
+            assertEquals(0, iterator.readVarint());
+            assertEquals(127, iterator.readVarint());
+            assertEquals(128, iterator.readVarint());
+            assertEquals(300, iterator.readVarint());
+            assertEquals(-1, iterator.readVarint());
+            assertEquals(11, iterator.pos());
+            try {
+                iterator.readVarint();
+                fail();
+            } catch (IllegalStateException expected) {
+            }
+            try {
+                iterator.readVarint();
+                fail();
+            } catch (IndexOutOfBoundsException expected) {
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
     public void testReadByteArray() throws Exception {
         checkReadByteArray(MemoryMappedFile::bigEndianIterator);
         checkReadByteArray(MemoryMappedFile::littleEndianIterator);
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.libcore.io;
+
+import android.system.Os;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import junit.framework.TestCase;
+import libcore.io.IoUtils;
+import libcore.io.Streams;
+
+public class StreamsTest extends TestCase {
+    private File source;
+    private File destination;
+    private byte[] data;
+
+    @Override
+    protected void setUp() throws Exception {
+        data = new byte[100 * 1024];
+        new Random(0).nextBytes(data);
+        source = File.createTempFile("StreamsTest", "source");
+        try (FileOutputStream out = new FileOutputStream(source)) {
+            out.write(data);
+        }
+        destination = File.createTempFile("StreamsTest", "destination");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        source.delete();
+        destination.delete();
+    }
+
+    public void testCopy_fileToFile() throws Exception {
+        try (FileInputStream in = new FileInputStream(source);
+                FileOutputStream out = new FileOutputStream(destination)) {
+            // Copying must start at the current position of the input.
+            assertEquals(10, in.skip(10));
+            assertEquals(data.length - 10, Streams.copy(in, out));
+            assertEquals(-1, in.read());
+        }
+        assertTrue(Arrays.equals(Arrays.copyOfRange(data, 10, data.length), readDestination()));
+    }
+
+    public void testCopy_fileToAppendingFile() throws Exception {
+        try (FileOutputStream out = new FileOutputStream(destination)) {
+            out.write(data, 0, 10);
+        }
+        // sendfile(2) does not support O_APPEND, so this has to fall back to a buffer.
+        try (FileInputStream in = new FileInputStream(source);
+                FileOutputStream out = new FileOutputStream(destination, true)) {
+            assertEquals(data.length, Streams.copy(in, out));
+        }
+        byte[] copied = readDestination();
+        assertEquals(data.length + 10, copied.length);
+        assertTrue(Arrays.equals(data, Arrays.copyOfRange(copied, 10, copied.length)));
+    }
+
+    public void testCopy_pipeToFile() throws Exception {
+        FileDescriptor[] pipe = Os.pipe();
+        Thread writer = new Thread(() -> {
+            try {
+                new FileOutputStream(pipe[1]).write(data);
+                // Streams built from a FileDescriptor don't own it, so close the write end
+                // explicitly to signal end of stream.
+                IoUtils.close(pipe[1]);
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+        });
+        writer.start();
+        try (FileInputStream in = new FileInputStream(pipe[0]);
+                FileOutputStream out = new FileOutputStream(destination)) {
+            assertEquals(data.length, Streams.copy(in, out));
+        } finally {
+            writer.join();
+            IoUtils.closeQuietly(pipe[0]);
+            IoUtils.closeQuietly(pipe[1]);
+        }
+        assertTrue(Arrays.equals(data, readDestination()));
+    }
+
+    public void testCopy_nonFileStreams() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(data.length, Streams.copy(new ByteArrayInputStream(data), out));
+        assertTrue(Arrays.equals(data, out.toByteArray()));
+    }
+
+    private byte[] readDestination() throws Exception {
+        try (FileInputStream in = new FileInputStream(destination)) {
+            return Streams.readFully(in);
+        }
+    }
+}
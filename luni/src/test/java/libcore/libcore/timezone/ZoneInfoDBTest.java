@@ -20,6 +20,9 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import libcore.timezone.TimeZoneDataFiles;
 import libcore.timezone.testing.ZoneInfoTestHelper;
@@ -247,6 +250,24 @@ public class ZoneInfoDBTest extends junit.framework.TestCase {
     }
   }
 
+  public void testGetAvailableIDs_rawUtcOffset() throws Exception {
+    try (ZoneInfoDB.TzData data = ZoneInfoDB.TzData.loadTzData(SYSTEM_TZDATA_FILE)) {
+      // Compare against a linear scan over every zone.
+      int[] rawUtcOffsets = { -12 * 3600000, -5 * 3600000, 0, 3600000, 19800000, 14 * 3600000 };
+      for (int rawUtcOffset : rawUtcOffsets) {
+        List<String> expected = new ArrayList<>();
+        for (String id : data.getAvailableIDs()) {
+          if (data.makeTimeZone(id).getRawOffset() == rawUtcOffset) {
+            expected.add(id);
+          }
+        }
+        assertEquals(expected, Arrays.asList(data.getAvailableIDs(rawUtcOffset)));
+      }
+      // No zone has an offset of a single millisecond.
+      assertEquals(0, data.getAvailableIDs(1).length);
+    }
+  }
+
   private static File makeCorruptFile() throws Exception {
     return makeTemporaryFile("invalid content".getBytes());
   }
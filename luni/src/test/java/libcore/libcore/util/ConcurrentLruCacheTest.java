@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.libcore.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import junit.framework.TestCase;
+
+import libcore.util.ConcurrentLruCache;
+
+public final class ConcurrentLruCacheTest extends TestCase {
+
+    public void testCreateOnCacheMiss() {
+        ConcurrentLruCache<String, String> cache = newCreatingCache();
+        String created = cache.get("aa");
+        assertEquals("created-aa", created);
+        assertEquals(0, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    public void testNoCreateOnCacheHit() {
+        ConcurrentLruCache<String, String> cache = newCreatingCache();
+        cache.put("aa", "put-aa");
+        assertEquals("put-aa", cache.get("aa"));
+        assertEquals(1, cache.hitCount());
+        assertEquals(0, cache.missCount());
+    }
+
+    public void testCreateReturningNullIsNotCached() {
+        ConcurrentLruCache<String, String> cache = newCreatingCache();
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.missCount());
+    }
+
+    public void testConstructorDoesNotAllowZeroCacheSize() {
+        try {
+            new ConcurrentLruCache<String, String>(0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    public void testCannotPutNullKey() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(3);
+        try {
+            cache.put(null, "A");
+            fail();
+        } catch (NullPointerException expected) {
+        }
+    }
+
+    public void testCannotPutNullValue() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(3);
+        try {
+            cache.put("a", null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+    }
+
+    public void testEvictionWithSingletonCache() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(1);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        assertSnapshot(cache, "b", "B");
+        assertEquals(1, cache.evictionCount());
+    }
+
+    public void testEntryEvictedWhenFull() {
+        final List<String> evictionLog = new ArrayList<String>();
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(3) {
+            @Override protected void entryEvicted(String key, String value) {
+                evictionLog.add(key + "=" + value);
+            }
+        };
+
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        assertEquals(0, evictionLog.size());
+
+        cache.put("d", "D");
+        assertEquals(1, evictionLog.size());
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.evictionCount());
+    }
+
+    /**
+     * An entry that has been read since the clock hand last passed over it is
+     * given a second chance.
+     */
+    public void testRecentlyReadEntryIsNotEvicted() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(3);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+
+        // Every entry starts out referenced, so the hand clears all of the bits
+        // before evicting one of them.
+        cache.put("d", "D");
+        assertEquals(3, cache.size());
+
+        // Reading one of the survivors gives it a second chance over the two
+        // that weren't read, so the next eviction picks one of those.
+        String survivor = cache.snapshot().keySet().iterator().next();
+        cache.get(survivor);
+        cache.put("e", "E");
+        assertTrue(cache.snapshot().containsKey(survivor));
+        assertTrue(cache.snapshot().containsKey("e"));
+        assertEquals(3, cache.size());
+    }
+
+    public void testPutDoesNotCauseEviction() {
+        final List<String> evictionLog = new ArrayList<String>();
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(3) {
+            @Override protected void entryEvicted(String key, String value) {
+                evictionLog.add(key + "=" + value);
+            }
+        };
+
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        assertEquals("B", cache.put("b", "B2"));
+        assertEquals(0, evictionLog.size());
+        assertSnapshot(cache, "a", "A", "b", "B2", "c", "C");
+    }
+
+    public void testEvictAll() {
+        final List<String> evictionLog = new ArrayList<String>();
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(10) {
+            @Override protected void entryEvicted(String key, String value) {
+                evictionLog.add(key + "=" + value);
+            }
+        };
+
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        cache.get("a");
+        cache.evictAll();
+        assertSnapshot(cache);
+        assertEquals(3, evictionLog.size());
+        assertTrue(evictionLog.contains("a=A"));
+    }
+
+    public void testConcurrentAccessStaysBounded() throws Exception {
+        final ConcurrentLruCache<Integer, Integer> cache =
+                new ConcurrentLruCache<Integer, Integer>(16) {
+            @Override protected Integer create(Integer key) {
+                return key;
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int t = 0; t < 4; t++) {
+                final int seed = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        Integer key = (i * 31 + seed) % 64;
+                        assertEquals(key, cache.get(key));
+                    }
+                    return null;
+                }));
+            }
+            // Rethrows any assertion that failed on a worker thread.
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(cache.size() <= 16);
+        assertEquals(40000, cache.hitCount() + cache.missCount());
+    }
+
+    private ConcurrentLruCache<String, String> newCreatingCache() {
+        return new ConcurrentLruCache<String, String>(3) {
+            @Override protected String create(String key) {
+                return (key.length() > 1) ? ("created-" + key) : null;
+            }
+        };
+    }
+
+    private <T> void assertSnapshot(ConcurrentLruCache<T, T> cache, T... keysAndValues) {
+        Map<T, T> expected = new HashMap<T, T>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            expected.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        // assert using maps because the snapshot is unordered
+        assertEquals(expected, new HashMap<T, T>(cache.snapshot()));
+    }
+}
@@ -155,6 +155,58 @@ public class NativeAllocationRegistryTest extends TestCase {
         Runtime.getRuntime().gc();
     }
 
+    private static class AccountedReferent {
+    }
+
+    public void testAccounting() {
+        if (isNativeBridgedABI()) {
+            // See the explanation in testNativeAllocation.
+            System.logI("Skipping test for native bridged ABI");
+            return;
+        }
+        long size = 4096;
+        NativeAllocationRegistry registry = NativeAllocationRegistry.createNonmalloced(
+                classLoader, getNativeFinalizer(), size);
+        NativeAllocationRegistry.setAccountingEnabled(true);
+        Runnable[] cleaners = new Runnable[3];
+        Object[] referents = new Object[cleaners.length];
+        try {
+            for (int i = 0; i < cleaners.length; i++) {
+                referents[i] = new AccountedReferent();
+                cleaners[i] = registry.registerNativeAllocation(
+                        referents[i], doNativeAllocation(size));
+            }
+        } finally {
+            NativeAllocationRegistry.setAccountingEnabled(false);
+        }
+        // Allocations made while accounting is off are not counted, even when freed.
+        Object uncounted = new AccountedReferent();
+        registry.registerNativeAllocation(uncounted, doNativeAllocation(size)).run();
+        cleaners[0].run();
+
+        NativeAllocationRegistry.AllocationStats stats = findStats(
+                AccountedReferent.class.getName());
+        assertNotNull(stats);
+        assertEquals(3, stats.getAllocatedCount());
+        assertEquals(1, stats.getFreedCount());
+        assertEquals(2, stats.getLiveCount());
+        assertEquals(2 * size, stats.getLiveBytes());
+
+        cleaners[1].run();
+        cleaners[2].run();
+        assertEquals(0, findStats(AccountedReferent.class.getName()).getLiveCount());
+    }
+
+    private static NativeAllocationRegistry.AllocationStats findStats(String label) {
+        for (NativeAllocationRegistry.AllocationStats stats
+                : NativeAllocationRegistry.getAllocationStats()) {
+            if (stats.getLabel().equals(label)) {
+                return stats;
+            }
+        }
+        return null;
+    }
+
     public void testNullArguments() {
         final NativeAllocationRegistry registry
             = new NativeAllocationRegistry(classLoader, getNativeFinalizer(), 1024);
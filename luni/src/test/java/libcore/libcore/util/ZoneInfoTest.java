@@ -816,5 +816,18 @@ public class ZoneInfoTest extends TestCase {
       skip(2);
       return value;
     }
+
+    @Override
+    public long readLong() {
+      return buffer.getLong();
+    }
+
+    @Override
+    public void readLongArray(long[] dst, int dstOffset, int longCount) {
+      buffer.asLongBuffer().get(dst, dstOffset, longCount);
+      // Using a separate view does not update the position of this buffer so do it
+      // explicitly.
+      skip(8 * longCount);
+    }
   }
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package libcore.sun.security.util;
+
+import junit.framework.TestCase;
+
+import java.security.Principal;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import sun.security.util.Cache;
+import sun.security.x509.X509CertImpl;
+
+public class CacheTest extends TestCase {
+
+    public void test_ShardedMemoryCache() {
+        Cache.ShardedMemoryCache<Object, String> cache = Cache.newShardedHardMemoryCache(1000);
+        for (int i = 0; i < 100; i++) {
+            cache.put(key(i), "value" + i);
+        }
+        assertEquals(100, cache.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("value" + i, cache.get(key(i)));
+        }
+        assertNull(cache.get(key(100)));
+        assertEquals(100, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        cache.remove(key(0));
+        assertNull(cache.get(key(0)));
+        assertEquals(99, cache.size());
+
+        final Map<Object, String> visited = new HashMap<>();
+        cache.accept(visited::putAll);
+        assertEquals(99, visited.size());
+        assertEquals("value1", visited.get(key(1)));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    public void test_ShardedMemoryCache_maxSize() {
+        Cache.ShardedMemoryCache<Object, String> cache = Cache.newShardedSoftMemoryCache(64);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(key(i), "value" + i);
+        }
+        assertTrue(cache.size() <= 64);
+
+        cache.setCapacity(16);
+        assertTrue(cache.size() <= 16);
+    }
+
+    public void test_EqualByteArray() {
+        assertEquals(key(1), key(1));
+        assertEquals(key(1).hashCode(), key(1).hashCode());
+        assertFalse(key(1).equals(key(2)));
+        // The same bytes in another order.
+        Cache.EqualByteArray ab = new Cache.EqualByteArray(new byte[] { 1, 2 });
+        Cache.EqualByteArray ba = new Cache.EqualByteArray(new byte[] { 2, 1 });
+        assertFalse(ab.equals(ba));
+        assertFalse(ab.hashCode() == ba.hashCode());
+    }
+
+    public void test_X509CertInfo_sharesNames() throws Exception {
+        byte[] encoded = Base64.getMimeDecoder().decode(SELF_SIGNED_CERT);
+        X509CertImpl first = new X509CertImpl(encoded);
+        X509CertImpl second = new X509CertImpl(encoded.clone());
+        assertNotSame(first, second);
+        Principal name = first.getSubjectDN();
+        // Equal name encodings are parsed once, whether in the same certificate or another one.
+        assertSame(name, first.getIssuerDN());
+        assertSame(name, second.getSubjectDN());
+        assertSame(name, second.getIssuerDN());
+    }
+
+    private static Cache.EqualByteArray key(int i) {
+        return new Cache.EqualByteArray(new byte[] { 0x30, (byte) i, (byte) (i >> 8) });
+    }
+
+    // Self-signed, with subject and issuer CN=CacheTest, O=Android.
+    private static final String SELF_SIGNED_CERT = ""
+            + "MIICKjCCAZOgAwIBAgIUNPcHxhcemOppCrrNPY4pehYKTMwwDQYJKoZIhvcNAQEL\n"
+            + "BQAwJjESMBAGA1UEAwwJQ2FjaGVUZXN0MRAwDgYDVQQKDAdBbmRyb2lkMCAXDTI2\n"
+            + "MTAxNTIwMDcyN1oYDzIxMjYwOTIxMjAwNzI3WjAmMRIwEAYDVQQDDAlDYWNoZVRl\n"
+            + "c3QxEDAOBgNVBAoMB0FuZHJvaWQwgZ8wDQYJKoZIhvcNAQEBBQADgY0AMIGJAoGB\n"
+            + "ANfNbGNyjPmscScNVN9RiKAAht7cIYvgJeILMpE3XKSp5ruQZbdTSIePurKVAwto\n"
+            + "FlYniwYtySqa9xHEAVUWDGbI2ZdRFi/S8TTxZH32956j3f7mR2FHkeWJ1RhUE90i\n"
+            + "QwiWrF46iQSKkdEY9YOBA+g0AidlnSDC/UIQq+5lIYm7AgMBAAGjUzBRMB0GA1Ud\n"
+            + "DgQWBBQqhOSEMO7zCM/W3o/mbBIIwSPEaTAfBgNVHSMEGDAWgBQqhOSEMO7zCM/W\n"
+            + "3o/mbBIIwSPEaTAPBgNVHRMBAf8EBTADAQH/MA0GCSqGSIb3DQEBCwUAA4GBANQP\n"
+            + "uRvlVs5T1mOSxTpwVBklfQlpzWm4MCqRhTpbK2OgHlpyi7TSExO0jvU1Zt9AeYJQ\n"
+            + "umE/JuFQ/BCm5k3hPbU001F+hBnIGayx77rTIyC7B1L2LTWER+rXsrspnQnX103i\n"
+            + "a0cPuXJ6qTESjb1HpdUd0zDYjqi508m68hx9LTHS\n";
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package libcore.sun.security.util;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+
+import sun.security.util.DerInputStream;
+import sun.security.util.DerOutputStream;
+import sun.security.util.DerValue;
+
+public class DerValueTest extends TestCase {
+
+    public void test_toByteArray() throws Exception {
+        for (int length : new int[] { 0, 1, 127, 128, 255, 256, 65535, 65536 }) {
+            byte[] value = new byte[length];
+            for (int i = 0; i < length; i++) {
+                value[i] = (byte) i;
+            }
+            DerValue derValue = new DerValue(DerValue.tag_OctetString, value);
+            assertToByteArray(derValue);
+            // toByteArray() does not consume the value.
+            assertTrue(Arrays.equals(value, derValue.getOctetString()));
+        }
+    }
+
+    public void test_toByteArray_nested() throws Exception {
+        DerOutputStream elements = new DerOutputStream();
+        elements.putInteger(42);
+        elements.putOctetString(new byte[200]);
+        elements.putNull();
+        DerOutputStream sequence = new DerOutputStream();
+        sequence.write(DerValue.tag_Sequence, elements);
+        byte[] encoded = sequence.toByteArray();
+
+        DerValue[] values = new DerInputStream(encoded).getSequence(3);
+        assertEquals(3, values.length);
+        for (DerValue value : values) {
+            assertToByteArray(value);
+        }
+        assertTrue(Arrays.equals(encoded, new DerValue(encoded).toByteArray()));
+        assertEquals(42, values[0].getInteger());
+    }
+
+    private static void assertToByteArray(DerValue value) throws Exception {
+        DerOutputStream out = new DerOutputStream();
+        value.encode(out);
+        value.getData().reset();
+        assertTrue(Arrays.equals(out.toByteArray(), value.toByteArray()));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package libcore.sun.security.x509;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+
+import sun.security.util.DerInputStream;
+import sun.security.util.DerOutputStream;
+import sun.security.util.DerValue;
+import sun.security.x509.BasicConstraintsExtension;
+import sun.security.x509.CertificateExtensions;
+import sun.security.x509.Extension;
+import sun.security.x509.KeyUsageExtension;
+import sun.security.x509.PKIXExtensions;
+import sun.security.x509.SubjectKeyIdentifierExtension;
+
+public class CertificateExtensionsTest extends TestCase {
+
+    public void test_decode() throws Exception {
+        CertificateExtensions extensions = decode(
+                new BasicConstraintsExtension(false, true, 3),
+                new KeyUsageExtension(new boolean[] { true, false, false, false, false, true }),
+                new SubjectKeyIdentifierExtension(new byte[] { 1, 2, 3, 4 }));
+
+        assertEquals(3, extensions.getAllExtensions().size());
+        BasicConstraintsExtension basicConstraints = (BasicConstraintsExtension)
+                extensions.get(BasicConstraintsExtension.NAME);
+        assertEquals(3, basicConstraints.get(BasicConstraintsExtension.PATH_LEN));
+        assertTrue(extensions.get(KeyUsageExtension.NAME) instanceof KeyUsageExtension);
+        assertTrue(extensions.get(SubjectKeyIdentifierExtension.NAME)
+                instanceof SubjectKeyIdentifierExtension);
+        assertTrue(extensions.getUnparseableExtensions().isEmpty());
+    }
+
+    public void test_decode_equalsOriginal() throws Exception {
+        CertificateExtensions original = new CertificateExtensions();
+        BasicConstraintsExtension basicConstraints = new BasicConstraintsExtension(true, true, 0);
+        SubjectKeyIdentifierExtension keyIdentifier =
+                new SubjectKeyIdentifierExtension(new byte[] { 5, 6, 7 });
+        original.set(BasicConstraintsExtension.NAME, basicConstraints);
+        original.set(SubjectKeyIdentifierExtension.NAME, keyIdentifier);
+
+        CertificateExtensions decoded = decode(basicConstraints, keyIdentifier);
+        assertEquals(original, decoded);
+        assertEquals(original.hashCode(), decoded.hashCode());
+        assertEquals(original.toString(), decoded.toString());
+    }
+
+    public void test_decode_unparseableNonCritical() throws Exception {
+        // A SubjectKeyIdentifier must hold an OCTET STRING, not a NULL.
+        Extension broken = Extension.newExtension(
+                PKIXExtensions.SubjectKey_Id, false, new byte[] { DerValue.tag_Null, 0 });
+        CertificateExtensions extensions =
+                decode(new BasicConstraintsExtension(false, true, 1), broken);
+
+        try {
+            extensions.get(SubjectKeyIdentifierExtension.NAME);
+            fail();
+        } catch (IOException expected) {
+        }
+        assertEquals(1, extensions.getAllExtensions().size());
+        assertTrue(extensions.getUnparseableExtensions().containsKey(
+                PKIXExtensions.SubjectKey_Id.toString()));
+    }
+
+    public void test_decode_unparseableCritical() throws Exception {
+        Extension broken = Extension.newExtension(
+                PKIXExtensions.SubjectKey_Id, true, new byte[] { DerValue.tag_Null, 0 });
+        try {
+            decode(broken);
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    public void test_decode_duplicate() throws Exception {
+        try {
+            decode(new BasicConstraintsExtension(false, true, 1),
+                    new BasicConstraintsExtension(false, false, 0));
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    private static CertificateExtensions decode(Extension... extensions) throws Exception {
+        DerOutputStream extOut = new DerOutputStream();
+        for (Extension extension : extensions) {
+            extension.encode(extOut);
+        }
+        DerOutputStream seq = new DerOutputStream();
+        seq.write(DerValue.tag_Sequence, extOut);
+        return new CertificateExtensions(new DerInputStream(seq.toByteArray()));
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.xml;
+
+import java.io.StringReader;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import junit.framework.TestCase;
+import org.w3c.dom.Attr;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+/**
+ * Tests that documents parsed with the compact DOM feature behave like
+ * ordinary documents.
+ */
+public class CompactDomTest extends TestCase {
+
+    private static final String COMPACT_DOM = "http://android.com/xml/features/compact-dom";
+
+    private static final String XML = "<?xml version=\"1.0\"?>\n"
+            + "<!DOCTYPE config>\n"
+            + "<?app-config version=\"3\"?>\n"
+            + "<config xmlns=\"http://example.com/config\""
+            + " xmlns:x=\"http://example.com/extra\" name=\"main\">\n"
+            + "  <!-- settings -->\n"
+            + "  <item key=\"a\" x:flag=\"on\">one &amp; two</item>\n"
+            + "  <item key=\"b\"><![CDATA[<three>]]>four&#x35;</item>\n"
+            + "  <x:empty/>\n"
+            + "  <group id=\"g1\"><item key=\"c\"/><item key=\"d\">five</item></group>\n"
+            + "</config>\n";
+
+    public void testSameAsDefault() throws Exception {
+        for (boolean namespaceAware : new boolean[] { false, true }) {
+            for (boolean coalescing : new boolean[] { false, true }) {
+                Document expected = parse(XML, false, namespaceAware, coalescing);
+                Document actual = parse(XML, true, namespaceAware, coalescing);
+                assertTrue(expected.isEqualNode(actual));
+                assertTrue(actual.isEqualNode(expected));
+            }
+        }
+    }
+
+    public void testNamespacesAndAttributes() throws Exception {
+        Document document = parse(XML, true, true, false);
+        Element root = document.getDocumentElement();
+        assertEquals("http://example.com/config", root.getNamespaceURI());
+        assertEquals("main", root.getAttribute("name"));
+
+        Element item = (Element) root.getElementsByTagNameNS("*", "item").item(0);
+        assertEquals("a", item.getAttribute("key"));
+        Attr flag = item.getAttributeNodeNS("http://example.com/extra", "flag");
+        assertEquals("x", flag.getPrefix());
+        assertEquals("on", flag.getValue());
+        assertSame(item, flag.getOwnerElement());
+        assertSame(document, flag.getOwnerDocument());
+        assertEquals("one & two", item.getTextContent());
+
+        Node empty = root.getElementsByTagNameNS("http://example.com/extra", "empty").item(0);
+        assertEquals("x:empty", empty.getNodeName());
+        assertFalse(empty.hasChildNodes());
+        assertFalse(empty.hasAttributes());
+    }
+
+    public void testTextAndCdata() throws Exception {
+        Element item = (Element) parse(XML, true, true, false)
+                .getElementsByTagNameNS("*", "item").item(1);
+        NodeList children = item.getChildNodes();
+        assertEquals(2, children.getLength());
+        assertEquals(Node.CDATA_SECTION_NODE, children.item(0).getNodeType());
+        assertEquals("<three>", children.item(0).getNodeValue());
+        assertEquals(Node.TEXT_NODE, children.item(1).getNodeType());
+        assertEquals("four5", children.item(1).getNodeValue());
+
+        Element root = parse("<a>one<![CDATA[<two>]]>three</a>", true, true, true)
+                .getDocumentElement();
+        assertEquals(1, root.getChildNodes().getLength());
+        assertEquals(Node.TEXT_NODE, root.getFirstChild().getNodeType());
+        assertEquals("one<two>three", root.getFirstChild().getNodeValue());
+    }
+
+    public void testNavigation() throws Exception {
+        Document document = parse(XML, true, true, false);
+        assertEquals("config", document.getDoctype().getName());
+        Node pi = document.getDoctype().getNextSibling();
+        assertEquals(Node.PROCESSING_INSTRUCTION_NODE, pi.getNodeType());
+        assertEquals("app-config", pi.getNodeName());
+        assertEquals("version=\"3\"", pi.getNodeValue());
+
+        Element group = (Element) document.getElementsByTagName("group").item(0);
+        Node last = group.getLastChild();
+        assertEquals("d", ((Element) last).getAttribute("key"));
+        assertSame(group, last.getParentNode());
+        assertSame(group.getFirstChild(), last.getPreviousSibling());
+    }
+
+    public void testMutation() throws Exception {
+        Document document = parse(XML, true, true, false);
+        Element root = document.getDocumentElement();
+        Element group = (Element) root.getElementsByTagNameNS("*", "group").item(0);
+        Element added = document.createElementNS("http://example.com/config", "item");
+        added.setAttribute("key", "e");
+        group.insertBefore(added, group.getFirstChild());
+        group.removeChild(group.getLastChild());
+        group.setAttribute("id", "g2");
+        root.removeChild(root.getElementsByTagNameNS("*", "empty").item(0));
+
+        NodeList items = group.getChildNodes();
+        assertEquals(2, items.getLength());
+        assertEquals("e", ((Element) items.item(0)).getAttribute("key"));
+        assertEquals("c", ((Element) items.item(1)).getAttribute("key"));
+        assertEquals("g2", group.getAttribute("id"));
+        assertEquals(0, root.getElementsByTagNameNS("*", "empty").getLength());
+    }
+
+    public void testAdoptNode() throws Exception {
+        Document source = parse(XML, true, true, false);
+        Document target = parse("<target/>", true, true, false);
+        Node group = source.getElementsByTagName("group").item(0);
+        Node adopted = target.adoptNode(group);
+        target.getDocumentElement().appendChild(adopted);
+
+        assertSame(group, adopted);
+        Element item = (Element) adopted.getLastChild();
+        assertSame(target, item.getOwnerDocument());
+        assertSame(target, item.getAttributeNode("key").getOwnerDocument());
+        assertEquals("five", item.getTextContent());
+        assertEquals(0, source.getElementsByTagName("group").getLength());
+    }
+
+    public void testImportNode() throws Exception {
+        Document source = parse(XML, true, true, false);
+        Document target = parse("<target/>", false, true, false);
+        Node copy = target.importNode(source.getDocumentElement(), true);
+        assertTrue(copy.isEqualNode(source.getDocumentElement()));
+    }
+
+    public void testMultipleRootsRejected() throws Exception {
+        try {
+            parse("<a/><b/>", true, true, false);
+            fail();
+        } catch (DOMException expected) {
+        }
+    }
+
+    private static Document parse(String xml, boolean compact, boolean namespaceAware,
+            boolean coalescing) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(namespaceAware);
+        factory.setCoalescing(coalescing);
+        factory.setFeature(COMPACT_DOM, compact);
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        return builder.parse(new InputSource(new StringReader(xml)));
+    }
+}
@@ -37,6 +37,7 @@ import java.util.Locale;
 import java.util.Objects;
 import java.util.StringJoiner;
 import java.util.regex.Pattern;
+import java.util.regex.PatternCache;
 import java.util.regex.PatternSyntaxException;
 
 import libcore.util.CharsetUtils;
@@ -2209,7 +2210,9 @@ public final class String
      * @spec JSR-51
      */
     public boolean matches(String regex) {
-        return Pattern.matches(regex, this);
+        // Android-changed: Reuse compiled patterns from PatternCache.
+        // return Pattern.matches(regex, this);
+        return PatternCache.compile(regex).matcher(this).matches();
     }
 
     /**
@@ -2266,7 +2269,9 @@ public final class String
      * @spec JSR-51
      */
     public String replaceFirst(String regex, String replacement) {
-        return Pattern.compile(regex).matcher(this).replaceFirst(replacement);
+        // Android-changed: Reuse compiled patterns from PatternCache.
+        // return Pattern.compile(regex).matcher(this).replaceFirst(replacement);
+        return PatternCache.compile(regex).matcher(this).replaceFirst(replacement);
     }
 
     /**
@@ -2311,7 +2316,9 @@ public final class String
      * @spec JSR-51
      */
     public String replaceAll(String regex, String replacement) {
-        return Pattern.compile(regex).matcher(this).replaceAll(replacement);
+        // Android-changed: Reuse compiled patterns from PatternCache.
+        // return Pattern.compile(regex).matcher(this).replaceAll(replacement);
+        return PatternCache.compile(regex).matcher(this).replaceAll(replacement);
     }
 
     /**
@@ -2480,7 +2487,9 @@ public final class String
             return fast;
         }
         // END Android-changed: Replace custom fast-path with use of new Pattern.fastSplit method.
-        return Pattern.compile(regex).split(this, limit);
+        // Android-changed: Reuse compiled patterns from PatternCache.
+        // return Pattern.compile(regex).split(this, limit);
+        return PatternCache.compile(regex).split(this, limit);
     }
 
     /**
@@ -930,6 +930,52 @@ public class Throwable implements Serializable {
     @FastNative
     private static native StackTraceElement[] nativeGetStackTrace(Object stackState);
 
+    // BEGIN Android-added: Identify a captured stack without building its elements.
+    /**
+     * Returns a hash of at most {@code maxFrames} frames of the stack captured by
+     * {@code t}, starting {@code skip} frames below the top. The hash is computed
+     * from the frames as the runtime recorded them, without creating any
+     * {@link StackTraceElement}s, so two equal stacks have the same hash. Returns
+     * 0 if the recorded frames are not available, for example because the stack
+     * trace has already been built or set.
+     *
+     * @hide
+     */
+    public static long getStackTraceHash(Throwable t, int skip, int maxFrames) {
+        // The runtime records an Object[] whose first element is an int[] or a
+        // long[], depending on the pointer size, holding the method of each frame
+        // followed by the dex pc of each frame.
+        Object state = t.backtrace;
+        if (!(state instanceof Object[]) || ((Object[]) state).length == 0) {
+            return 0;
+        }
+        Object methodsAndPcs = ((Object[]) state)[0];
+        // FNV-1a over the method and dex pc of each frame.
+        long hash = 0xcbf29ce484222325L;
+        if (methodsAndPcs instanceof long[]) {
+            long[] frames = (long[]) methodsAndPcs;
+            int depth = frames.length / 2;
+            int to = Math.min(depth, skip + maxFrames);
+            for (int i = skip; i < to; i++) {
+                hash = (hash ^ frames[i]) * 0x100000001b3L;
+                hash = (hash ^ frames[depth + i]) * 0x100000001b3L;
+            }
+        } else if (methodsAndPcs instanceof int[]) {
+            int[] frames = (int[]) methodsAndPcs;
+            int depth = frames.length / 2;
+            int to = Math.min(depth, skip + maxFrames);
+            for (int i = skip; i < to; i++) {
+                hash = (hash ^ frames[i]) * 0x100000001b3L;
+                hash = (hash ^ frames[depth + i]) * 0x100000001b3L;
+            }
+        } else {
+            return 0;
+        }
+        // Keep 0 for "not available".
+        return hash != 0 ? hash : 1;
+    }
+    // END Android-added: Identify a captured stack without building its elements.
+
 
     /**
      * Reads a {@code Throwable} from a stream, enforcing
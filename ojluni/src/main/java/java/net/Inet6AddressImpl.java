@@ -138,6 +138,7 @@ class Inet6AddressImpl implements InetAddressImpl {
                 address.holder().hostName = host;
                 address.holder().originalHostName = host;
             }
+            // getaddrinfo doesn't report the record TTLs, so this uses the cache's default.
             addressCache.put(host, netId, addresses);
             return addresses;
         } catch (GaiException gaiException) {
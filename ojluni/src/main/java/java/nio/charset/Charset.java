@@ -36,7 +36,6 @@ import java.security.AccessControlException;
 import java.security.PrivilegedAction;
 import java.util.AbstractMap;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Locale;
@@ -47,6 +46,7 @@ import java.util.ServiceLoader;
 import java.util.ServiceConfigurationError;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import sun.misc.ASCIICaseInsensitiveComparator;
 import sun.nio.cs.ThreadLocalCoders;
 import sun.security.action.GetPropertyAction;
@@ -328,9 +328,48 @@ public abstract class Charset
     // cache1/2 usage is explained in the lookup method
     //
     private static volatile Map.Entry<String, Charset> cache1 = null; // "Level 1" cache
-    private static final HashMap<String, Charset> cache2 = new HashMap<>(); // "Level 2" cache
+    // Android-changed: Use a ConcurrentHashMap so that level 2 lookups take no lock.
+    // private static final HashMap<String, Charset> cache2 = new HashMap<>(); // "Level 2" cache
+    private static final ConcurrentHashMap<String, Charset> cache2 =
+            new ConcurrentHashMap<>(); // "Level 2" cache
+
+    // BEGIN Android-added: Per-thread cache of recently used charsets.
+    // Threads that alternate between a few charsets keep replacing the shared level 1 entry;
+    // each thread remembers the last few charsets it looked up in front of the level 2 cache.
+    private static final int THREAD_CACHE_SIZE = 4;
+
+    private static final class ThreadCache {
+        final String[] names = new String[THREAD_CACHE_SIZE];
+        final Charset[] charsets = new Charset[THREAD_CACHE_SIZE];
+
+        Charset get(String charsetName) {
+            for (int i = 0; i < THREAD_CACHE_SIZE; i++) {
+                if (charsetName.equals(names[i])) {
+                    return charsets[i];
+                }
+            }
+            return null;
+        }
+
+        void put(String charsetName, Charset cs) {
+            System.arraycopy(names, 0, names, 1, THREAD_CACHE_SIZE - 1);
+            System.arraycopy(charsets, 0, charsets, 1, THREAD_CACHE_SIZE - 1);
+            names[0] = charsetName;
+            charsets[0] = cs;
+        }
+    }
+
+    private static final ThreadLocal<ThreadCache> threadCache = new ThreadLocal<ThreadCache>() {
+        @Override
+        protected ThreadCache initialValue() {
+            return new ThreadCache();
+        }
+    };
+    // END Android-added: Per-thread cache of recently used charsets.
 
     private static void cache(String charsetName, Charset cs) {
+        // Android-changed: Readers of cache2 take no lock; writers still serialize so that
+        // every name maps to the same canonical instance.
         synchronized(cache2) {
             String canonicalName = cs.name();
             Charset canonicalCharset = cache2.get(canonicalName);
@@ -349,6 +388,8 @@ public abstract class Charset
         }
 
         cache1 = new AbstractMap.SimpleImmutableEntry<>(charsetName, cs);
+        // Android-added: Per-thread cache of recently used charsets.
+        threadCache.get().put(charsetName, cs);
     }
 
     // Creates an iterator that walks over the available providers, ignoring
@@ -499,12 +540,25 @@ public abstract class Charset
 
     private static Charset lookup2(String charsetName) {
         Charset cs;
+        // BEGIN Android-changed: Check the per-thread cache, then read cache2 without a lock.
+        /*
         synchronized (cache2) {
             if ((cs = cache2.get(charsetName)) != null) {
                 cache1 = new AbstractMap.SimpleImmutableEntry<>(charsetName, cs);
                 return cs;
             }
         }
+        */
+        ThreadCache tc = threadCache.get();
+        if ((cs = tc.get(charsetName)) != null) {
+            return cs;
+        }
+        if ((cs = cache2.get(charsetName)) != null) {
+            cache1 = new AbstractMap.SimpleImmutableEntry<>(charsetName, cs);
+            tc.put(charsetName, cs);
+            return cs;
+        }
+        // END Android-changed: Check the per-thread cache, then read cache2 without a lock.
 
         // Android-changed: Drop support for "standard" and "extended"
         // providers.
@@ -29,6 +29,7 @@ package java.security;
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.util.Locale.ENGLISH;
 
@@ -101,6 +102,11 @@ public abstract class Provider extends Properties {
     // TODO: Change ProviderTest to no longer require this mechanism
     private volatile boolean registered = false;
 
+    // Android-added: Count changes to the services of all providers.
+    // sun.security.jca.ProviderList caches service lookups and compares this count to tell
+    // whether a cached result may be stale.
+    private static final AtomicInteger serviceChangeCount = new AtomicInteger();
+
     private static final sun.security.util.Debug debug =
         sun.security.util.Debug.getInstance
         ("provider", "Provider");
@@ -690,6 +696,55 @@ public abstract class Provider extends Properties {
     // Unmodifiable set of all services. Initialized on demand.
     private transient Set<Service> serviceSet;
 
+    // BEGIN Android-added: Lock-free service lookups.
+    // Immutable view of the services for getService() and getServices() to read without
+    // holding the lock. Built on demand under the lock and cleared whenever the services
+    // change, so writers stay synchronized while readers only pay for a volatile read once
+    // a provider has stopped changing.
+    private static final class ServiceSnapshot {
+        // serviceMap entries take precedence over legacyMap entries, as in getService()
+        final Map<ServiceKey,Service> services;
+        final Set<Service> serviceSet;
+
+        ServiceSnapshot(Map<ServiceKey,Service> services, Set<Service> serviceSet) {
+            this.services = services;
+            this.serviceSet = serviceSet;
+        }
+    }
+
+    private transient volatile ServiceSnapshot serviceSnapshot;
+
+    // Called with the lock held before the services change. The snapshot is cleared before
+    // the count is increased so that anyone who sees the new count also sees no snapshot.
+    private void servicesUpdated() {
+        serviceSnapshot = null;
+        serviceChangeCount.incrementAndGet();
+    }
+
+    private synchronized ServiceSnapshot getServiceSnapshot() {
+        checkInitialized();
+        ServiceSnapshot snapshot = serviceSnapshot;
+        if (snapshot == null) {
+            Set<Service> set = implGetServices();
+            Map<ServiceKey,Service> services;
+            if (serviceMap == null || serviceMap.isEmpty()) {
+                // ensureLegacyParsed() replaces legacyMap rather than changing it
+                services = (legacyMap != null) ? legacyMap
+                        : Collections.<ServiceKey,Service>emptyMap();
+            } else {
+                services = new HashMap<>();
+                if (legacyMap != null) {
+                    services.putAll(legacyMap);
+                }
+                services.putAll(serviceMap);
+            }
+            snapshot = new ServiceSnapshot(services, set);
+            serviceSnapshot = snapshot;
+        }
+        return snapshot;
+    }
+    // END Android-added: Lock-free service lookups.
+
     // register the id attributes for this provider
     // this is to ensure that equals() and hashCode() do not incorrectly
     // report to different provider objects as the same
@@ -727,6 +782,8 @@ public abstract class Provider extends Properties {
         }
 
         legacyChanged = true;
+        // Android-added: Lock-free service lookups.
+        servicesUpdated();
         if (legacyStrings == null) {
             legacyStrings = new LinkedHashMap<String,String>();
         }
@@ -792,6 +849,8 @@ public abstract class Provider extends Properties {
 
     private void implReplaceAll(BiFunction<? super Object, ? super Object, ? extends Object> function) {
         legacyChanged = true;
+        // Android-added: Lock-free service lookups.
+        servicesUpdated();
         if (legacyStrings == null) {
             legacyStrings = new LinkedHashMap<String,String>();
         } else {
@@ -876,15 +935,23 @@ public abstract class Provider extends Properties {
         if (legacyStrings != null) {
             legacyStrings.clear();
         }
+        // BEGIN Android-changed: Lock-free service lookups.
+        // A service snapshot may still be reading legacyMap.
+        /*
         if (legacyMap != null) {
             legacyMap.clear();
         }
+        */
+        legacyMap = null;
+        // END Android-changed: Lock-free service lookups.
         if (serviceMap != null) {
             serviceMap.clear();
         }
         legacyChanged = false;
         servicesChanged = false;
         serviceSet = null;
+        // Android-added: Lock-free service lookups.
+        servicesUpdated();
         super.clear();
         putId();
         // Android-added: Provider registration
@@ -932,11 +999,17 @@ public abstract class Provider extends Properties {
             return;
         }
         serviceSet = null;
+        // BEGIN Android-changed: Lock-free service lookups.
+        // A service snapshot may still be reading legacyMap, so replace it instead of clearing it.
+        /*
         if (legacyMap == null) {
             legacyMap = new LinkedHashMap<ServiceKey,Service>();
         } else {
             legacyMap.clear();
         }
+        */
+        legacyMap = new LinkedHashMap<ServiceKey,Service>();
+        // END Android-changed: Lock-free service lookups.
         for (Map.Entry<String,String> entry : legacyStrings.entrySet()) {
             parseLegacyPut(entry.getKey(), entry.getValue());
         }
@@ -1063,14 +1136,25 @@ public abstract class Provider extends Properties {
      *
      * @since 1.5
      */
+    // BEGIN Android-changed: Lock-free service lookups.
+    /*
     public synchronized Service getService(String type, String algorithm) {
         checkInitialized();
+    */
+    public Service getService(String type, String algorithm) {
+        ServiceSnapshot snapshot = serviceSnapshot;
+        if (snapshot == null) {
+            snapshot = getServiceSnapshot();
+        }
+        // END Android-changed: Lock-free service lookups.
         // avoid allocating a new key object if possible
         ServiceKey key = previousKey;
         if (key.matches(type, algorithm) == false) {
             key = new ServiceKey(type, algorithm, false);
             previousKey = key;
         }
+        // BEGIN Android-changed: Lock-free service lookups.
+        /*
         if (serviceMap != null) {
             Service service = serviceMap.get(key);
             if (service != null) {
@@ -1079,6 +1163,9 @@ public abstract class Provider extends Properties {
         }
         ensureLegacyParsed();
         return (legacyMap != null) ? legacyMap.get(key) : null;
+        */
+        return snapshot.services.get(key);
+        // END Android-changed: Lock-free service lookups.
     }
 
     // ServiceKey from previous getService() call
@@ -1099,8 +1186,22 @@ public abstract class Provider extends Properties {
      *
      * @since 1.5
      */
+    // BEGIN Android-changed: Lock-free service lookups.
+    /*
     public synchronized Set<Service> getServices() {
         checkInitialized();
+    */
+    public Set<Service> getServices() {
+        ServiceSnapshot snapshot = serviceSnapshot;
+        if (snapshot == null) {
+            snapshot = getServiceSnapshot();
+        }
+        return snapshot.serviceSet;
+    }
+
+    // Returns the set of all services. Called with the lock held.
+    private Set<Service> implGetServices() {
+    // END Android-changed: Lock-free service lookups.
         if (legacyChanged || servicesChanged) {
             serviceSet = null;
         }
@@ -1164,6 +1265,8 @@ public abstract class Provider extends Properties {
             serviceMap = new LinkedHashMap<ServiceKey,Service>();
         }
         servicesChanged = true;
+        // Android-added: Lock-free service lookups.
+        servicesUpdated();
         String type = s.getType();
         String algorithm = s.getAlgorithm();
         ServiceKey key = new ServiceKey(type, algorithm, true);
@@ -1271,6 +1374,8 @@ public abstract class Provider extends Properties {
             return;
         }
         servicesChanged = true;
+        // Android-added: Lock-free service lookups.
+        servicesUpdated();
         serviceMap.remove(key);
         for (String alias : s.getAliases()) {
             serviceMap.remove(new ServiceKey(type, alias, false));
@@ -1435,6 +1540,11 @@ public abstract class Provider extends Properties {
         // Reference to the cached implementation Class object
         private volatile Reference<Class<?>> classRef;
 
+        // Android-added: Cache the implementation constructor.
+        // The implementation class is loaded by the provider's class loader, which the provider
+        // keeps reachable anyway, so a strong reference keeps nothing extra alive.
+        private volatile Constructor<?> implConstructor;
+
         // flag indicating whether this service has its attributes for
         // supportedKeyFormats or supportedKeyClasses set
         // if null, the values have not been initialized
@@ -1629,10 +1739,15 @@ public abstract class Provider extends Properties {
                             ("constructorParameter not used with " + type
                             + " engines");
                     }
+                    // BEGIN Android-changed: Cache the implementation constructor.
+                    /*
                     Class<?> clazz = getImplClass();
                     Class<?>[] empty = {};
                     Constructor<?> con = clazz.getConstructor(empty);
                     return con.newInstance();
+                    */
+                    return getImplConstructor(null).newInstance();
+                    // END Android-changed: Cache the implementation constructor.
                 } else {
                     Class<?> paramClass = cap.getConstructorParameterClass();
                     if (constructorParameter != null) {
@@ -1644,9 +1759,14 @@ public abstract class Provider extends Properties {
                             + " for engine type " + type);
                         }
                     }
+                    // BEGIN Android-changed: Cache the implementation constructor.
+                    /*
                     Class<?> clazz = getImplClass();
                     Constructor<?> cons = clazz.getConstructor(paramClass);
                     return cons.newInstance(constructorParameter);
+                    */
+                    return getImplConstructor(paramClass).newInstance(constructorParameter);
+                    // END Android-changed: Cache the implementation constructor.
                 }
             } catch (NoSuchAlgorithmException e) {
                 throw e;
@@ -1663,6 +1783,23 @@ public abstract class Provider extends Properties {
             }
         }
 
+        // BEGIN Android-added: Cache the implementation constructor.
+        // return the public constructor of the implementation class that takes paramClass,
+        // or no arguments if paramClass is null. The engine type of a service never changes,
+        // so neither does the constructor it needs.
+        private Constructor<?> getImplConstructor(Class<?> paramClass)
+                throws NoSuchAlgorithmException, NoSuchMethodException {
+            Constructor<?> con = implConstructor;
+            if (con == null) {
+                Class<?> clazz = getImplClass();
+                con = (paramClass == null)
+                        ? clazz.getConstructor() : clazz.getConstructor(paramClass);
+                implConstructor = con;
+            }
+            return con;
+        }
+        // END Android-added: Cache the implementation constructor.
+
         // return the implementation Class object for this service
         private Class<?> getImplClass() throws NoSuchAlgorithmException {
             try {
@@ -1919,8 +2056,19 @@ public abstract class Provider extends Properties {
         // parse legacy strings the first time that a service is requested.
         ensureLegacyParsed();
         // This call to getServices will update fields so that further calls will just return a
-        // stored field, if the services didn't change in the meantime.
+        // stored field, if the services didn't change in the meantime. It also publishes the
+        // snapshot that getService() and getServices() read without taking the lock.
         getServices();
     }
     // END Android-added: Provider registration
+
+    // Android-added: Count changes to the services of all providers.
+    /**
+     * Returns a count that changes whenever the services of any provider change.
+     *
+     * @hide
+     */
+    public static int getServiceChangeCount() {
+        return serviceChangeCount.get();
+    }
 }
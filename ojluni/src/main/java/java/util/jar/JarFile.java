@@ -35,6 +35,11 @@ import java.util.zip.*;
 import java.security.CodeSigner;
 import java.security.cert.Certificate;
 import java.security.AccessController;
+// Android-added: Verify all the signed entries at once, in parallel.
+import java.util.concurrent.ForkJoinPool;
+import android.system.ErrnoException;
+import android.system.StructStat;
+import libcore.io.Libcore;
 import sun.misc.IOUtils;
 import sun.security.action.GetPropertyAction;
 import sun.security.util.ManifestEntryVerifier;
@@ -475,6 +480,75 @@ class JarFile extends ZipFile {
             jv);
     }
 
+    // BEGIN Android-added: Verify all the signed entries at once, in parallel.
+    /**
+     * Verifies the digests of all the signed entries of this jar file up
+     * front, reading and digesting them in parallel on {@code pool}.
+     * Afterwards {@link JarEntry#getCodeSigners()} and
+     * {@link JarEntry#getCertificates()} return the signers of every entry
+     * without it having been read first. Does nothing if the jar file is not
+     * signed or was opened without verification.
+     *
+     * <p>The verified entries are remembered for the file, identified by its
+     * device, inode, modification time, status change time and size, so doing
+     * this again for the same file reopened later does not digest them again.
+     * Reading an entry through {@link #getInputStream} still checks its
+     * digest.
+     *
+     * @param pool the pool to digest the entries on
+     * @throws SecurityException if any of the entries is incorrectly signed
+     * @throws IOException if an I/O error has occurred
+     * @hide
+     */
+    public void verifyAllEntries(ForkJoinPool pool) throws IOException {
+        JarVerifier verifier;
+        Object fileIdentity;
+        // The entries are read on the pool, which needs this lock, so only
+        // hold it while setting up the verifier.
+        synchronized (this) {
+            maybeInstantiateVerifier();
+            if (jv != null && !jvInitialized) {
+                initializeVerifier();
+                jvInitialized = true;
+            }
+            verifier = jv;
+            fileIdentity = verifier != null ? getFileIdentity() : null;
+        }
+        if (verifier != null) {
+            verifier.verifyAll(this, getManifestFromReference(), pool, fileIdentity);
+        }
+    }
+
+    /**
+     * Returns an input stream for the entry that does not verify it.
+     */
+    InputStream getUnverifiedInputStream(ZipEntry ze) throws IOException {
+        return super.getInputStream(ze);
+    }
+
+    /**
+     * Returns an object equal to the one returned for the same file as long
+     * as it isn't modified, or null if the file can't be stat'd. The file
+     * opened is stat'd rather than its path, which may have been replaced
+     * since. The status change time is included because, unlike the
+     * modification time, it can't be set back by the writer.
+     */
+    private Object getFileIdentity() {
+        // The descriptor belongs to the native zip file, so it must not be
+        // closed here.
+        FileDescriptor fd = new FileDescriptor();
+        fd.setInt$(getFileDescriptor());
+        try {
+            StructStat st = Libcore.os.fstat(fd);
+            return Arrays.asList(getName(), st.st_dev, st.st_ino,
+                    st.st_mtim.tv_sec, st.st_mtim.tv_nsec,
+                    st.st_ctim.tv_sec, st.st_ctim.tv_nsec, st.st_size);
+        } catch (ErrnoException e) {
+            return null;
+        }
+    }
+    // END Android-added: Verify all the signed entries at once, in parallel.
+
     // Statics for hand-coded Boyer-Moore search
     private static final char[] CLASSPATH_CHARS = {'c','l','a','s','s','-','p','a','t','h'};
     // The bad character shift for "class-path"
@@ -31,6 +31,10 @@ import java.net.URL;
 import java.util.*;
 import java.security.*;
 import java.security.cert.CertificateException;
+// Android-added: Verify all the signed entries at once, in parallel.
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.zip.ZipEntry;
 
 import sun.misc.JarIndex;
@@ -436,6 +440,108 @@ class JarVerifier {
         }
     }
 
+    // BEGIN Android-added: Verify all the signed entries at once, in parallel.
+    /*
+     * Names of the entries whose digests were verified, by the identity of
+     * the file they were read from. Guarded by itself.
+     */
+    private static final int MAX_VERIFIED_FILES = 16;
+    private static final Map<Object, Set<String>> verifiedFiles =
+            new LinkedHashMap<Object, Set<String>>(MAX_VERIFIED_FILES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Object, Set<String>> eldest) {
+                    return size() > MAX_VERIFIED_FILES;
+                }
+            };
+
+    /**
+     * Verifies the digests of all the signed entries that have not been
+     * verified yet, reading and digesting them in parallel on the given pool,
+     * and moves their signers to verifiedSigners as reading each of them would.
+     * Must be called after doneWithMeta(), without holding the lock on jar.
+     *
+     * If fileIdentity is not null and the entries of a file with the same
+     * identity were verified before, they are not digested again. Reading an
+     * entry through a VerifierStream still checks its digest.
+     *
+     * @throws SecurityException if the digest of an entry doesn't match
+     */
+    void verifyAll(JarFile jar, Manifest man, ForkJoinPool pool,
+            Object fileIdentity) throws IOException {
+        if (fileIdentity != null) {
+            Set<String> verified;
+            synchronized (verifiedFiles) {
+                verified = verifiedFiles.get(fileIdentity);
+            }
+            if (verified != null) {
+                for (String name : verified) {
+                    CodeSigner[] signers = sigFileSigners.remove(name);
+                    if (signers != null) {
+                        verifiedSigners.put(name, signers);
+                    }
+                }
+            }
+        }
+
+        // The tasks remove the names from sigFileSigners as they finish.
+        String[] names = sigFileSigners.keySet().toArray(new String[0]);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(names.length);
+        for (String name : names) {
+            JarEntry je = jar.getJarEntry(name);
+            if (je != null && !je.isDirectory()) {
+                tasks.add(pool.submit(() -> {
+                    verifyEntry(jar, man, name, je);
+                    return null;
+                }));
+            }
+        }
+        try {
+            for (ForkJoinTask<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("jar verification interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            for (ForkJoinTask<?> task : tasks) {
+                task.cancel(false);
+            }
+        }
+
+        if (fileIdentity != null) {
+            Set<String> verified = new HashSet<>(verifiedSigners.keySet());
+            synchronized (verifiedFiles) {
+                verifiedFiles.put(fileIdentity, verified);
+            }
+        }
+    }
+
+    private void verifyEntry(JarFile jar, Manifest man, String name,
+            JarEntry je) throws IOException {
+        ManifestEntryVerifier mev = new ManifestEntryVerifier(man);
+        mev.setEntry(name, je);
+        // Read straight from the zip file; the digests don't need buffering.
+        try (InputStream is = jar.getUnverifiedInputStream(je)) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = is.read(buffer, 0, buffer.length)) != -1) {
+                mev.update(buffer, 0, n);
+            }
+        }
+        mev.verify(verifiedSigners, sigFileSigners);
+    }
+    // END Android-added: Verify all the signed entries at once, in parallel.
+
     static class VerifierStream extends java.io.InputStream {
 
         private InputStream is;
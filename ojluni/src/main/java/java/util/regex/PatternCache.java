@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  The Android Open Source
+ * Project designates this particular file as subject to the "Classpath"
+ * exception as provided by The Android Open Source Project in the LICENSE
+ * file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package java.util.regex;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A small, process-wide cache of compiled {@link Pattern} instances used by the regular
+ * expression methods of {@link String}, which would otherwise compile (and allocate a native
+ * ICU pattern for) the same expression on every call.
+ *
+ * <p>Patterns are immutable and safe for use by multiple threads, so a single table is shared
+ * by all threads. It is direct-mapped: each expression hashes to one slot, lookups and updates
+ * take no lock, and a new expression simply replaces whatever occupied its slot. The number of
+ * retained native patterns is therefore bounded by {@link #CAPACITY}; they stay registered with
+ * the {@code NativeAllocationRegistry} like any other pattern, so the runtime continues to
+ * account for their native memory. Expressions longer than {@link #MAX_REGEX_LENGTH} characters
+ * are never cached because their native size is unbounded.
+ *
+ * <p>Caching can be turned off by setting the {@code libcore.regex.pattern_cache} system
+ * property to {@code false}.
+ *
+ * @hide
+ */
+public final class PatternCache {
+
+    /** Number of slots in the table. Must be a power of two. */
+    private static final int CAPACITY = 32;
+
+    /** Length of the longest expression that is cached. */
+    private static final int MAX_REGEX_LENGTH = 256;
+
+    private static final class Entry {
+        final String regex;
+        final int flags;
+        final Pattern pattern;
+
+        Entry(String regex, int flags, Pattern pattern) {
+            this.regex = regex;
+            this.flags = flags;
+            this.pattern = pattern;
+        }
+    }
+
+    private static final AtomicReferenceArray<Entry> table = new AtomicReferenceArray<>(CAPACITY);
+
+    private static final LongAdder hitCount = new LongAdder();
+    private static final LongAdder missCount = new LongAdder();
+
+    private static volatile boolean enabled =
+            !"false".equals(System.getProperty("libcore.regex.pattern_cache"));
+
+    private PatternCache() {
+    }
+
+    /**
+     * Returns a pattern equivalent to {@code Pattern.compile(regex)}, reusing a previously
+     * compiled one if possible.
+     */
+    public static Pattern compile(String regex) {
+        return compile(regex, 0);
+    }
+
+    /**
+     * Returns a pattern equivalent to {@code Pattern.compile(regex, flags)}, reusing a previously
+     * compiled one if possible.
+     */
+    public static Pattern compile(String regex, int flags) {
+        if (!enabled || regex.length() > MAX_REGEX_LENGTH) {
+            return Pattern.compile(regex, flags);
+        }
+        int h = regex.hashCode() * 31 + flags;
+        int slot = (h ^ (h >>> 16)) & (CAPACITY - 1);
+        Entry e = table.get(slot);
+        if (e != null && e.flags == flags && e.regex.equals(regex)) {
+            hitCount.increment();
+            return e.pattern;
+        }
+        missCount.increment();
+        // Invalid expressions throw here and are not cached.
+        Pattern pattern = Pattern.compile(regex, flags);
+        table.set(slot, new Entry(regex, flags, pattern));
+        return pattern;
+    }
+
+    /**
+     * Enables or disables caching. Disabling it also drops all cached patterns.
+     */
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+        if (!enable) {
+            clear();
+        }
+    }
+
+    /**
+     * Drops all cached patterns, letting their native memory be freed by the next collection.
+     */
+    public static void clear() {
+        for (int i = 0; i < CAPACITY; i++) {
+            table.set(i, null);
+        }
+    }
+
+    /**
+     * Returns the number of lookups that reused a cached pattern.
+     */
+    public static long hitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Returns the number of lookups that had to compile a pattern.
+     */
+    public static long missCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Returns the number of patterns currently retained by the cache.
+     */
+    public static int size() {
+        int size = 0;
+        for (int i = 0; i < CAPACITY; i++) {
+            if (table.get(i) != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+}
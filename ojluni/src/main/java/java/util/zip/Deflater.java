@@ -583,6 +583,13 @@ class Deflater {
             throw new NullPointerException("Deflater has been closed");
     }
 
+    // Android-added: ended() for ZStreamPool, mirroring Inflater.ended().
+    boolean ended() {
+        synchronized (zsRef) {
+            return zsRef.address() == 0;
+        }
+    }
+
     // Android-changed: initIDs handled in register method.
     // private native static void initIDs();
     private native static long init(int level, int strategy, boolean nowrap);
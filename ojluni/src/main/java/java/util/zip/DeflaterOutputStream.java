@@ -145,6 +145,35 @@ class DeflaterOutputStream extends FilterOutputStream {
 
     boolean usesDefaultDeflater = false;
 
+    // BEGIN Android-added: Return default deflaters to ZStreamPool on close.
+    /**
+     * Whether {@link #def} was obtained from {@link ZStreamPool} and may be handed back to it,
+     * rather than ended, when this stream is closed.
+     */
+    boolean usesPooledDeflater = false;
+
+    /**
+     * The {@code nowrap} setting {@link #def} was obtained with, if {@link #usesPooledDeflater}.
+     */
+    boolean pooledDeflaterNoWrap = false;
+
+    /**
+     * Ends {@link #def}, or hands it back to {@link ZStreamPool} if it was obtained from there
+     * and no code outside of the platform can observe it after this stream is closed.
+     */
+    void endDeflater() {
+        if (usesPooledDeflater && ZStreamPool.isPoolable(this)) {
+            Deflater pooled = def;
+            // Make any use after close fail as it would have with an ended deflater, instead
+            // of touching a deflater that may already belong to another stream.
+            def = null;
+            ZStreamPool.releaseDeflater(pooled, pooledDeflaterNoWrap);
+        } else {
+            def.end();
+        }
+    }
+    // END Android-added: Return default deflaters to ZStreamPool on close.
+
 
     /**
      * Creates a new output stream with a default compressor, a default
@@ -160,8 +189,12 @@ class DeflaterOutputStream extends FilterOutputStream {
      * @since 1.7
      */
     public DeflaterOutputStream(OutputStream out, boolean syncFlush) {
-        this(out, new Deflater(), 512, syncFlush);
+        // Android-changed: Take the default deflater from ZStreamPool.
+        // this(out, new Deflater(), 512, syncFlush);
+        this(out, ZStreamPool.obtainDeflater(false), 512, syncFlush);
         usesDefaultDeflater = true;
+        // Android-added: Return the deflater to ZStreamPool on close.
+        usesPooledDeflater = true;
     }
 
     /**
@@ -238,7 +271,9 @@ class DeflaterOutputStream extends FilterOutputStream {
         if (!closed) {
             finish();
             if (usesDefaultDeflater)
-                def.end();
+                // Android-changed: Return default deflaters to ZStreamPool on close.
+                // def.end();
+                endDeflater();
             out.close();
             closed = true;
         }
@@ -74,15 +74,23 @@ class GZIPInputStream extends InflaterInputStream {
      * @exception IllegalArgumentException if {@code size <= 0}
      */
     public GZIPInputStream(InputStream in, int size) throws IOException {
-        super(in, new Inflater(true), size);
+        // Android-changed: Take the inflater from ZStreamPool.
+        // super(in, new Inflater(true), size);
+        super(in, ZStreamPool.obtainInflater(true), size);
         // Android-removed: Unconditionally close external inflaters (b/26462400)
         // usesDefaultInflater = true;
+        // BEGIN Android-added: Return the inflater to ZStreamPool on close.
+        usesPooledInflater = true;
+        pooledInflaterNoWrap = true;
+        // END Android-added: Return the inflater to ZStreamPool on close.
         // BEGIN Android-changed: Do not rely on finalization to inf.end().
         // readHeader(in);
         try {
             readHeader(in);
         } catch (Exception e) {
-            inf.end();
+            // Android-changed: Return the inflater to ZStreamPool.
+            // inf.end();
+            endInflater();
             throw e;
         }
         // END Android-changed: Do not rely on finalization to inf.end().
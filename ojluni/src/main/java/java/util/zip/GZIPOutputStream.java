@@ -87,10 +87,16 @@ class GZIPOutputStream extends DeflaterOutputStream {
     public GZIPOutputStream(OutputStream out, int size, boolean syncFlush)
         throws IOException
     {
-        super(out, new Deflater(Deflater.DEFAULT_COMPRESSION, true),
+        // Android-changed: Take the deflater from ZStreamPool.
+        // super(out, new Deflater(Deflater.DEFAULT_COMPRESSION, true),
+        super(out, ZStreamPool.obtainDeflater(true),
               size,
               syncFlush);
         usesDefaultDeflater = true;
+        // BEGIN Android-added: Return the deflater to ZStreamPool on close.
+        usesPooledDeflater = true;
+        pooledDeflaterNoWrap = true;
+        // END Android-added: Return the deflater to ZStreamPool on close.
         writeHeader();
         crc.reset();
     }
@@ -123,11 +123,43 @@ class InflaterInputStream extends FilterInputStream {
      * @param in the input stream
      */
     public InflaterInputStream(InputStream in) {
-        this(in, new Inflater());
+        // Android-changed: Take the default inflater from ZStreamPool.
+        // this(in, new Inflater());
+        this(in, ZStreamPool.obtainInflater(false));
         // Android-changed: Unconditionally close external inflaters (b/26462400)
         // usesDefaultInflater = true;
+        usesPooledInflater = true;
     }
 
+    // BEGIN Android-added: Return default inflaters to ZStreamPool on close.
+    /**
+     * Whether {@link #inf} was obtained from {@link ZStreamPool} and may be handed back to it,
+     * rather than ended, when this stream is closed.
+     */
+    boolean usesPooledInflater = false;
+
+    /**
+     * The {@code nowrap} setting {@link #inf} was obtained with, if {@link #usesPooledInflater}.
+     */
+    boolean pooledInflaterNoWrap = false;
+
+    /**
+     * Ends {@link #inf}, or hands it back to {@link ZStreamPool} if it was obtained from there
+     * and no code outside of the platform can observe it after this stream is closed.
+     */
+    void endInflater() {
+        if (usesPooledInflater && ZStreamPool.isPoolable(this)) {
+            Inflater pooled = inf;
+            // Make any use after close fail as it would have with an ended inflater, instead
+            // of touching an inflater that may already belong to another stream.
+            inf = null;
+            ZStreamPool.releaseInflater(pooled, pooledInflaterNoWrap);
+        } else {
+            inf.end();
+        }
+    }
+    // END Android-added: Return default inflaters to ZStreamPool on close.
+
     private byte[] singleByteBuf = new byte[1];
 
     /**
@@ -251,7 +283,9 @@ class InflaterInputStream extends FilterInputStream {
         if (!closed) {
             // Android-changed: Unconditionally close external inflaters (b/26462400)
             //if (usesDefaultInflater)
-            inf.end();
+            // Android-changed: Return default inflaters to ZStreamPool on close.
+            // inf.end();
+            endInflater();
             in.close();
             closed = true;
         }
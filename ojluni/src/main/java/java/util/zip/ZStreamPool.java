@@ -0,0 +1,365 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  The Android Open Source
+ * Project designates this particular file as subject to the "Classpath"
+ * exception as provided by The Android Open Source Project in the LICENSE
+ * file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package java.util.zip;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarInputStream;
+import java.util.jar.JarOutputStream;
+
+/**
+ * A bounded, process-wide pool of {@link Inflater} and {@link Deflater} instances used by the
+ * {@code java.util.zip} and {@code java.util.jar} streams that create their own (de)compressor.
+ *
+ * <p>Each instance owns a native zlib stream (around 7KB for an inflater plus its 32KB window,
+ * and around 256KB for a deflater at the default level) which is otherwise only freed by
+ * {@code end()} or by the finalizer. Reusing them avoids both the native allocation and the
+ * finalizer work for short-lived streams such as those used to decode gzip HTTP responses.
+ *
+ * <p>The pool is small, and an instance that stays idle for longer than the idle timeout (10
+ * seconds by default) is ended the next time the pool is used. {@link #clear()} ends all idle
+ * instances at once, for callers that learn the process should release memory.
+ *
+ * <p>Streams only hand their (de)compressor back to the pool when their runtime class is one
+ * of the platform stream classes: a subclass can still reach the protected {@code inf} /
+ * {@code def} field after {@code close()}, so its instance is ended instead. Pooling can be
+ * turned off by setting the {@code libcore.zip.stream_pool} system property to
+ * {@code false}.
+ *
+ * @hide
+ */
+public final class ZStreamPool {
+
+    /** Maximum number of idle inflaters kept for each value of {@code nowrap}. */
+    private static final int MAX_IDLE_INFLATERS = 4;
+
+    /** Maximum number of idle deflaters kept for each value of {@code nowrap}. */
+    private static final int MAX_IDLE_DEFLATERS = 1;
+
+    /** Approximate native footprint of an idle inflater: the z_stream state and its window. */
+    private static final long INFLATER_NATIVE_BYTES = 44 * 1024;
+
+    /** Approximate native footprint of an idle deflater at the default level. */
+    private static final long DEFLATER_NATIVE_BYTES = 256 * 1024;
+
+    private static final long DEFAULT_IDLE_TIMEOUT_NANOS = 10 * 1000000000L;
+
+    private static final byte[] EMPTY_INPUT = new byte[0];
+
+    private static volatile boolean enabled =
+            !"false".equals(System.getProperty("libcore.zip.stream_pool"));
+
+    private static volatile long idleTimeoutNanos = DEFAULT_IDLE_TIMEOUT_NANOS;
+
+    // Indexed by nowrap ? 1 : 0, oldest first. All pools and counters are guarded by the
+    // class lock.
+    private static final ArrayDeque<Idle<Inflater>>[] idleInflaters = newPools();
+    private static final ArrayDeque<Idle<Deflater>>[] idleDeflaters = newPools();
+
+    private static long hitCount;
+    private static long missCount;
+
+    private ZStreamPool() {
+    }
+
+    /**
+     * An idle instance and the time it was handed back to the pool.
+     */
+    private static final class Idle<T> {
+        final T value;
+        final long releasedNanos;
+
+        Idle(T value, long releasedNanos) {
+            this.value = value;
+            this.releasedNanos = releasedNanos;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ArrayDeque<Idle<T>>[] newPools() {
+        return new ArrayDeque[] { new ArrayDeque<Idle<T>>(), new ArrayDeque<Idle<T>>() };
+    }
+
+    /**
+     * Returns a reset inflater from the pool, or a new one if none is idle.
+     */
+    static Inflater obtainInflater(boolean nowrap) {
+        if (enabled) {
+            List<Object> expired;
+            Inflater result = null;
+            synchronized (ZStreamPool.class) {
+                long now = System.nanoTime();
+                expired = removeExpired(idleInflaters, now, null);
+                expired = removeExpired(idleDeflaters, now, expired);
+                ArrayDeque<Idle<Inflater>> pool = idleInflaters[nowrap ? 1 : 0];
+                Idle<Inflater> idle;
+                while ((idle = pool.pollLast()) != null) {
+                    if (!idle.value.ended()) {
+                        result = idle.value;
+                        break;
+                    }
+                }
+                if (result != null) {
+                    hitCount++;
+                } else {
+                    missCount++;
+                }
+            }
+            end(expired);
+            if (result != null) {
+                return result;
+            }
+        }
+        return new Inflater(nowrap);
+    }
+
+    /**
+     * Resets {@code inf} and returns it to the pool, or ends it if the pool is full or disabled.
+     * The caller must not use {@code inf} afterwards.
+     */
+    static void releaseInflater(Inflater inf, boolean nowrap) {
+        if (enabled && !inf.ended()) {
+            inf.reset();
+            List<Object> expired;
+            boolean pooled = false;
+            synchronized (ZStreamPool.class) {
+                long now = System.nanoTime();
+                expired = removeExpired(idleInflaters, now, null);
+                expired = removeExpired(idleDeflaters, now, expired);
+                ArrayDeque<Idle<Inflater>> pool = idleInflaters[nowrap ? 1 : 0];
+                if (pool.size() < MAX_IDLE_INFLATERS) {
+                    pool.addLast(new Idle<>(inf, now));
+                    pooled = true;
+                }
+            }
+            end(expired);
+            if (pooled) {
+                return;
+            }
+        }
+        inf.end();
+    }
+
+    /**
+     * Returns a reset deflater with the default level and strategy from the pool, or a new
+     * one if none is idle.
+     */
+    static Deflater obtainDeflater(boolean nowrap) {
+        if (enabled) {
+            List<Object> expired;
+            Deflater result = null;
+            synchronized (ZStreamPool.class) {
+                long now = System.nanoTime();
+                expired = removeExpired(idleInflaters, now, null);
+                expired = removeExpired(idleDeflaters, now, expired);
+                ArrayDeque<Idle<Deflater>> pool = idleDeflaters[nowrap ? 1 : 0];
+                Idle<Deflater> idle;
+                while ((idle = pool.pollLast()) != null) {
+                    if (!idle.value.ended()) {
+                        result = idle.value;
+                        break;
+                    }
+                }
+                if (result != null) {
+                    hitCount++;
+                } else {
+                    missCount++;
+                }
+            }
+            end(expired);
+            if (result != null) {
+                return result;
+            }
+        }
+        return new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap);
+    }
+
+    /**
+     * Resets {@code def} and returns it to the pool, or ends it if the pool is full or disabled.
+     * The caller must not use {@code def} afterwards.
+     */
+    static void releaseDeflater(Deflater def, boolean nowrap) {
+        if (enabled && !def.ended()) {
+            def.reset();
+            def.setInput(EMPTY_INPUT);
+            def.setLevel(Deflater.DEFAULT_COMPRESSION);
+            def.setStrategy(Deflater.DEFAULT_STRATEGY);
+            List<Object> expired;
+            boolean pooled = false;
+            synchronized (ZStreamPool.class) {
+                long now = System.nanoTime();
+                expired = removeExpired(idleInflaters, now, null);
+                expired = removeExpired(idleDeflaters, now, expired);
+                ArrayDeque<Idle<Deflater>> pool = idleDeflaters[nowrap ? 1 : 0];
+                if (pool.size() < MAX_IDLE_DEFLATERS) {
+                    pool.addLast(new Idle<>(def, now));
+                    pooled = true;
+                }
+            }
+            end(expired);
+            if (pooled) {
+                return;
+            }
+        }
+        def.end();
+    }
+
+    /**
+     * Removes the instances that have been idle for longer than the idle timeout from
+     * {@code pools} and adds them to {@code expired}, which is created if it is null and
+     * needed. Returns {@code expired}. Must be called with the class lock held.
+     */
+    private static <T> List<Object> removeExpired(ArrayDeque<Idle<T>>[] pools, long now,
+            List<Object> expired) {
+        long timeout = idleTimeoutNanos;
+        for (ArrayDeque<Idle<T>> pool : pools) {
+            Idle<T> oldest;
+            while ((oldest = pool.peekFirst()) != null && now - oldest.releasedNanos > timeout) {
+                if (expired == null) {
+                    expired = new ArrayList<>();
+                }
+                expired.add(pool.pollFirst().value);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Ends the given inflaters and deflaters, if any. Called without the class lock held.
+     */
+    private static void end(List<Object> streams) {
+        if (streams == null) {
+            return;
+        }
+        for (Object stream : streams) {
+            if (stream instanceof Inflater) {
+                ((Inflater) stream).end();
+            } else {
+                ((Deflater) stream).end();
+            }
+        }
+    }
+
+    /**
+     * Returns whether {@code stream} may hand its (de)compressor back to the pool on close.
+     * Only the exact platform classes qualify, since a subclass can keep using the protected
+     * {@code inf} or {@code def} field after {@code close()}.
+     */
+    static boolean isPoolable(Object stream) {
+        Class<?> c = stream.getClass();
+        return c == InflaterInputStream.class
+                || c == GZIPInputStream.class
+                || c == ZipInputStream.class
+                || c == JarInputStream.class
+                || ZipFile.isZipFileInflaterInputStream(c)
+                || c == DeflaterOutputStream.class
+                || c == GZIPOutputStream.class
+                || c == ZipOutputStream.class
+                || c == JarOutputStream.class;
+    }
+
+    /**
+     * Enables or disables pooling. Disabling it ends all idle instances.
+     */
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+        if (!enable) {
+            clear();
+        }
+    }
+
+    /**
+     * Sets how long an instance may stay idle before it is ended, in milliseconds.
+     */
+    public static void setIdleTimeoutMillis(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("millis < 0: " + millis);
+        }
+        idleTimeoutNanos = millis * 1000000L;
+    }
+
+    /**
+     * Ends all idle instances.
+     */
+    public static void clear() {
+        List<Object> idle = new ArrayList<>();
+        synchronized (ZStreamPool.class) {
+            drain(idleInflaters, idle);
+            drain(idleDeflaters, idle);
+        }
+        end(idle);
+    }
+
+    /**
+     * Ends the instances that have been idle for longer than the idle timeout. This also
+     * happens whenever the pool is used.
+     */
+    public static void trim() {
+        List<Object> expired;
+        synchronized (ZStreamPool.class) {
+            long now = System.nanoTime();
+            expired = removeExpired(idleInflaters, now, null);
+            expired = removeExpired(idleDeflaters, now, expired);
+        }
+        end(expired);
+    }
+
+    private static <T> void drain(ArrayDeque<Idle<T>>[] pools, List<Object> out) {
+        for (ArrayDeque<Idle<T>> pool : pools) {
+            for (Idle<T> idle : pool) {
+                out.add(idle.value);
+            }
+            pool.clear();
+        }
+    }
+
+    /**
+     * Returns the number of times an idle instance was reused.
+     */
+    public static synchronized long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of times a new instance had to be created while pooling was enabled.
+     */
+    public static synchronized long missCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of idle instances currently held by the pool.
+     */
+    public static synchronized int idleCount() {
+        return idleInflaters[0].size() + idleInflaters[1].size()
+                + idleDeflaters[0].size() + idleDeflaters[1].size();
+    }
+
+    /**
+     * Returns an estimate of the native memory retained by idle instances, in bytes.
+     */
+    public static synchronized long retainedNativeBytes() {
+        return (idleInflaters[0].size() + idleInflaters[1].size()) * INFLATER_NATIVE_BYTES
+                + (idleDeflaters[0].size() + idleDeflaters[1].size()) * DEFLATER_NATIVE_BYTES;
+    }
+}
@@ -34,8 +34,6 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayDeque;
-import java.util.Deque;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -356,7 +354,9 @@ class ZipFile implements ZipConstants, Closeable {
         long jzentry = 0;
         synchronized (this) {
             ensureOpen();
-            jzentry = getEntry(jzfile, zc.getBytes(name), true);
+            // Android-changed: Look up entries by name without a byte[] copy of the name.
+            // jzentry = getEntry(jzfile, zc.getBytes(name), true);
+            jzentry = getEntry(name, true);
             if (jzentry != 0) {
                 ZipEntry ze = getZipEntry(name, jzentry);
                 freeEntry(jzfile, jzentry);
@@ -369,6 +369,34 @@ class ZipFile implements ZipConstants, Closeable {
     private static native long getEntry(long jzfile, byte[] name,
                                         boolean addSlash);
 
+    // BEGIN Android-added: Look up entries by name without a byte[] copy of the name.
+    /*
+     * Looks up the entry with the given name, encoded with this file's charset.
+     * When that is UTF-8 and the name has no NUL or surrogate characters, the
+     * JNI encoding of the name is its UTF-8 encoding, so the native code can
+     * encode it straight into a stack buffer.
+     */
+    private long getEntry(String name, boolean addSlash) {
+        if (zc.isUTF8() && isPlainUTF(name)) {
+            return getEntryByString(jzfile, name, addSlash);
+        }
+        return getEntry(jzfile, zc.getBytes(name), addSlash);
+    }
+
+    private static boolean isPlainUTF(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == 0 || Character.isSurrogate(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static native long getEntryByString(long jzfile, String name,
+                                                boolean addSlash);
+    // END Android-added: Look up entries by name without a byte[] copy of the name.
+
     // freeEntry releases the C jzentry struct.
     private static native void freeEntry(long jzfile, long jzentry);
 
@@ -408,8 +436,9 @@ class ZipFile implements ZipConstants, Closeable {
                 jzentry = getEntry(jzfile, zc.getBytesUTF8(entry.name), true);
             } else {
                 // Android-changed: Find entry by name, falling back to name/ if cannot be found.
+                // Android-changed: Look up entries by name without a byte[] copy of the name.
                 // jzentry = getEntry(jzfile, zc.getBytes(entry.name), false);
-                jzentry = getEntry(jzfile, zc.getBytes(entry.name), true);
+                jzentry = getEntry(entry.name, true);
             }
             if (jzentry == 0) {
                 return null;
@@ -443,6 +472,16 @@ class ZipFile implements ZipConstants, Closeable {
         }
     }
 
+    // BEGIN Android-added: Share inflaters across ZipFiles through ZStreamPool.
+    /**
+     * Returns whether {@code c} is the class of the streams returned by getInputStream()
+     * for compressed entries.
+     */
+    static boolean isZipFileInflaterInputStream(Class<?> c) {
+        return c == ZipFileInflaterInputStream.class;
+    }
+    // END Android-added: Share inflaters across ZipFiles through ZStreamPool.
+
     private class ZipFileInflaterInputStream extends InflaterInputStream {
         private volatile boolean closeRequested = false;
         private boolean eof = false;
@@ -452,6 +491,10 @@ class ZipFile implements ZipConstants, Closeable {
                 int size) {
             super(zfin, inf, size);
             this.zfin = zfin;
+            // BEGIN Android-added: Share inflaters across ZipFiles through ZStreamPool.
+            usesPooledInflater = true;
+            pooledInflaterNoWrap = true;
+            // END Android-added: Share inflaters across ZipFiles through ZStreamPool.
         }
 
         public void close() throws IOException {
@@ -459,14 +502,26 @@ class ZipFile implements ZipConstants, Closeable {
                 return;
             closeRequested = true;
 
-            super.close();
-            Inflater inf;
+            // BEGIN Android-changed: Share inflaters across ZipFiles through ZStreamPool.
+            // Only the thread that removes this stream from streams may hand the inflater back
+            // to the pool. If ZipFile.close() removed it first, it also ends the inflater.
+            // super.close();
+            // Inflater inf;
+            // synchronized (streams) {
+            //     inf = streams.remove(this);
+            // }
+            // if (inf != null) {
+            //     releaseInflater(inf);
+            // }
+            boolean removed;
             synchronized (streams) {
-                inf = streams.remove(this);
+                removed = streams.remove(this) != null;
             }
-            if (inf != null) {
-                releaseInflater(inf);
+            if (!removed) {
+                usesPooledInflater = false;
             }
+            super.close();
+            // END Android-changed: Share inflaters across ZipFiles through ZStreamPool.
         }
 
         // Override fill() method to provide an extra "dummy" byte
@@ -494,40 +549,25 @@ class ZipFile implements ZipConstants, Closeable {
         }
 
         protected void finalize() throws Throwable {
+            // BEGIN Android-added: Share inflaters across ZipFiles through ZStreamPool.
+            // The inflater became unreachable with this stream, so its own finalizer may
+            // already be queued to end it. Never hand it to another stream from here.
+            usesPooledInflater = false;
+            // END Android-added: Share inflaters across ZipFiles through ZStreamPool.
             close();
         }
     }
 
+    // BEGIN Android-changed: Share inflaters across ZipFiles through ZStreamPool.
+    // The per-ZipFile inflaterCache and releaseInflater() are gone: streams hand their
+    // inflater back to the pool when they are closed.
     /*
-     * Gets an inflater from the list of available inflaters or allocates
-     * a new one.
+     * Gets an inflater from ZStreamPool or allocates a new one.
      */
     private Inflater getInflater() {
-        Inflater inf;
-        synchronized (inflaterCache) {
-            while (null != (inf = inflaterCache.poll())) {
-                if (false == inf.ended()) {
-                    return inf;
-                }
-            }
-        }
-        return new Inflater(true);
+        return ZStreamPool.obtainInflater(true);
     }
-
-    /*
-     * Releases the specified inflater to the list of available inflaters.
-     */
-    private void releaseInflater(Inflater inf) {
-        if (false == inf.ended()) {
-            inf.reset();
-            synchronized (inflaterCache) {
-                inflaterCache.add(inf);
-            }
-        }
-    }
-
-    // List of available Inflater objects for decompression
-    private Deque<Inflater> inflaterCache = new ArrayDeque<>();
+    // END Android-changed: Share inflaters across ZipFiles through ZStreamPool.
 
     /**
      * Returns the path name of the ZIP file.
@@ -677,7 +717,7 @@ class ZipFile implements ZipConstants, Closeable {
         synchronized (this) {
             // Close streams, release their inflaters
             // BEGIN Android-added: null field check to avoid NullPointerException during finalize.
-            // If the constructor threw an exception then the streams / inflaterCache fields can
+            // If the constructor threw an exception then the streams field can
             // be null and close() can be called by the finalizer.
             if (streams != null) {
             // END Android-added: null field check to avoid NullPointerException during finalize.
@@ -686,6 +726,13 @@ class ZipFile implements ZipConstants, Closeable {
                         Map<InputStream, Inflater> copy = new HashMap<>(streams);
                         streams.clear();
                         for (Map.Entry<InputStream, Inflater> e : copy.entrySet()) {
+                            // BEGIN Android-added: Share inflaters across ZipFiles through ZStreamPool.
+                            // The stream may still be in use by another thread, so end its
+                            // inflater rather than handing it to an unrelated stream.
+                            if (e.getKey() instanceof InflaterInputStream) {
+                                ((InflaterInputStream) e.getKey()).usesPooledInflater = false;
+                            }
+                            // END Android-added: Share inflaters across ZipFiles through ZStreamPool.
                             e.getKey().close();
                             Inflater inf = e.getValue();
                             if (inf != null) {
@@ -696,20 +743,17 @@ class ZipFile implements ZipConstants, Closeable {
                 }
             // BEGIN Android-added: null field check to avoid NullPointerException during finalize.
             }
-
-            if (inflaterCache != null) {
-            // END Android-added: null field check to avoid NullPointerException during finalize.
-                // Release cached inflaters
-                Inflater inf;
-                synchronized (inflaterCache) {
-                    while (null != (inf = inflaterCache.poll())) {
-                        inf.end();
-                    }
-                }
-            // BEGIN Android-added: null field check to avoid NullPointerException during finalize.
-            }
             // END Android-added: null field check to avoid NullPointerException during finalize.
 
+            // Android-removed: Share inflaters across ZipFiles through ZStreamPool.
+            // Release cached inflaters
+            // Inflater inf;
+            // synchronized (inflaterCache) {
+            //     while (null != (inf = inflaterCache.poll())) {
+            //         inf.end();
+            //     }
+            // }
+
             if (jzfile != 0) {
                 // Close the zip file
                 long zf = this.jzfile;
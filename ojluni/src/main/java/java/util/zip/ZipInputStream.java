@@ -96,9 +96,15 @@ class ZipInputStream extends InflaterInputStream implements ZipConstants {
      * @since 1.7
      */
     public ZipInputStream(InputStream in, Charset charset) {
-        super(new PushbackInputStream(in, 512), new Inflater(true), 512);
+        // Android-changed: Take the inflater from ZStreamPool.
+        // super(new PushbackInputStream(in, 512), new Inflater(true), 512);
+        super(new PushbackInputStream(in, 512), ZStreamPool.obtainInflater(true), 512);
         // Android-changed: Unconditionally close external inflaters (b/26462400)
         // usesDefaultInflater = true;
+        // BEGIN Android-added: Return the inflater to ZStreamPool on close.
+        usesPooledInflater = true;
+        pooledInflaterNoWrap = true;
+        // END Android-added: Return the inflater to ZStreamPool on close.
         if(in == null) {
             throw new NullPointerException("in is null");
         }
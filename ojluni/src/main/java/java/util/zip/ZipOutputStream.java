@@ -132,11 +132,17 @@ class ZipOutputStream extends DeflaterOutputStream implements ZipConstants {
      * @since 1.7
      */
     public ZipOutputStream(OutputStream out, Charset charset) {
-        super(out, new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+        // Android-changed: Take the deflater from ZStreamPool.
+        // super(out, new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+        super(out, ZStreamPool.obtainDeflater(true));
         if (charset == null)
             throw new NullPointerException("charset is null");
         this.zc = ZipCoder.get(charset);
         usesDefaultDeflater = true;
+        // BEGIN Android-added: Return the deflater to ZStreamPool on close.
+        usesPooledDeflater = true;
+        pooledDeflaterNoWrap = true;
+        // END Android-added: Return the deflater to ZStreamPool on close.
     }
 
     /**
@@ -27,6 +27,7 @@
 package sun.nio.ch;
 
 import android.system.ErrnoException;
+import android.system.Int64Ref;
 
 import java.io.FileDescriptor;
 import java.io.IOException;
@@ -47,7 +48,6 @@ import java.nio.channels.WritableByteChannel;
 import java.security.AccessController;
 import java.util.ArrayList;
 import java.util.List;
-import libcore.io.Libcore;
 
 import dalvik.annotation.optimization.ReachabilitySensitive;
 import dalvik.system.BlockGuard;
@@ -55,6 +55,10 @@ import dalvik.system.CloseGuard;
 import sun.misc.Cleaner;
 import sun.security.action.GetPropertyAction;
 
+import static android.system.OsConstants.EAGAIN;
+import static android.system.OsConstants.EINVAL;
+import static android.system.OsConstants.ENOSYS;
+
 public class FileChannelImpl
     extends FileChannel
 {
@@ -742,6 +746,71 @@ public class FileChannelImpl
         }
     }
 
+    // BEGIN Android-added: Splice data from pipes straight into the file.
+    // Assume that splice() from a pipe to a file works; set this to false if
+    // we find out that the kernel does not implement it.
+    private static volatile boolean spliceSupported = true;
+
+    /*
+     * Moves up to count bytes from the pipe into this file at the given
+     * position with splice(2), so that they never reach user space. Returns
+     * IOStatus.UNSUPPORTED or IOStatus.UNSUPPORTED_CASE if the caller should
+     * fall back to copying through a buffer. Like a read() of the pipe, each
+     * splice holds the pipe's read lock, and throws ClosedChannelException if
+     * the pipe is closed before anything was moved.
+     */
+    private long transferFromPipe(SourceChannelImpl src, long position,
+                                  long count)
+        throws IOException
+    {
+        if (!spliceSupported)
+            return IOStatus.UNSUPPORTED;
+        // Like transferFromArbitraryChannel(), stop early only at end of
+        // stream, or when a non-blocking pipe runs dry.
+        Int64Ref offset = new Int64Ref(position);
+        long tw = 0;
+        int ti = -1;
+        try {
+            begin();
+            ti = threads.add();
+            if (!isOpen())
+                return -1;
+            BlockGuard.getThreadPolicy().onWriteToDisk();
+            while (tw < count && isOpen()) {
+                long n;
+                try {
+                    n = src.spliceTo(fd, offset, count - tw);
+                } catch (ErrnoException e) {
+                    if (e.errno == EAGAIN)
+                        break;
+                    if (tw == 0 && e.errno == ENOSYS) {
+                        spliceSupported = false;
+                        return IOStatus.UNSUPPORTED;
+                    }
+                    // EINVAL: for instance, this file was opened for append.
+                    if (tw == 0 && e.errno == EINVAL)
+                        return IOStatus.UNSUPPORTED_CASE;
+                    if (tw > 0)
+                        break;
+                    throw e.rethrowAsIOException();
+                } catch (IOException x) {
+                    // The pipe was closed.
+                    if (tw > 0)
+                        break;
+                    throw x;
+                }
+                if (n == 0)
+                    break;
+                tw += n;
+            }
+            return tw;
+        } finally {
+            threads.remove(ti);
+            end(tw > 0);
+        }
+    }
+    // END Android-added: Splice data from pipes straight into the file.
+
     public long transferFrom(ReadableByteChannel src,
                              long position, long count)
         throws IOException
@@ -759,6 +828,14 @@ public class FileChannelImpl
            return transferFromFileChannel((FileChannelImpl)src,
                                           position, count);
 
+        // BEGIN Android-added: Splice data from pipes straight into the file.
+        if (src instanceof SourceChannelImpl) {
+            long n = transferFromPipe((SourceChannelImpl) src, position, count);
+            if (n >= 0)
+                return n;
+        }
+        // END Android-added: Splice data from pipes straight into the file.
+
         return transferFromArbitraryChannel(src, position, count);
     }
 
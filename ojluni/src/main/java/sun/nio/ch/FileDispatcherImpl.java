@@ -61,6 +61,16 @@ class FileDispatcherImpl extends FileDispatcher {
         return pread0(fd, address, len, position);
     }
 
+    // BEGIN Android-added: Positional reads that never wait for the disk.
+    int preadNoWait(FileDescriptor fd, long address, int len, long position)
+        throws IOException
+    {
+        // No BlockGuard check: the read is only satisfied from memory and never waits for
+        // the disk, which is what StrictMode's disk read detection is concerned with.
+        return preadNoWait0(fd, address, len, position);
+    }
+    // END Android-added: Positional reads that never wait for the disk.
+
     long readv(FileDescriptor fd, long address, int len) throws IOException {
         // Android-added: BlockGuard support.
         BlockGuard.getThreadPolicy().onReadFromDisk();
@@ -151,6 +161,10 @@ class FileDispatcherImpl extends FileDispatcher {
     static native int pread0(FileDescriptor fd, long address, int len,
                              long position) throws IOException;
 
+    // Android-added: Positional reads that never wait for the disk.
+    static native int preadNoWait0(FileDescriptor fd, long address, int len,
+                                   long position) throws IOException;
+
     static native long readv0(FileDescriptor fd, long address, int len)
         throws IOException;
 
@@ -113,10 +113,36 @@ public class IOUtil {
         int iov_len = 0;
         try {
 
-            // Iterate over buffers to populate native iovec array.
+            // BEGIN Android-changed: Share one shadow buffer between all heap buffers.
+            // Rather than taking a temporary direct buffer per heap buffer, find
+            // out how many buffers fit in this write and how many heap bytes
+            // they hold, then copy all of those bytes into a single shadow buffer.
             int count = offset + length;
+            int end = offset;
+            int entries = 0;
+            long heapBytes = 0;
+            while (end < count && entries < IOV_MAX) {
+                ByteBuffer buf = bufs[end];
+                int pos = buf.position();
+                int lim = buf.limit();
+                int rem = (pos <= lim ? lim - pos : 0);
+                if (rem > 0) {
+                    if (!(buf instanceof DirectBuffer)) {
+                        // A gathering write may be partial, so stop here rather
+                        // than need a shadow buffer larger than an array.
+                        if (heapBytes + rem > Integer.MAX_VALUE && entries > 0)
+                            break;
+                        heapBytes += rem;
+                    }
+                    entries++;
+                }
+                end++;
+            }
+            ByteBuffer shadow = null;
+
+            // Iterate over buffers to populate native iovec array.
             int i = offset;
-            while (i < count && iov_len < IOV_MAX) {
+            while (i < end) {
                 ByteBuffer buf = bufs[i];
                 int pos = buf.position();
                 int lim = buf.limit();
@@ -125,15 +151,17 @@ public class IOUtil {
                 if (rem > 0) {
                     vec.setBuffer(iov_len, buf, pos, rem);
 
-                    // allocate shadow buffer to ensure I/O is done with direct buffer
+                    // copy into the shadow buffer to ensure I/O is done with direct buffer
                     if (!(buf instanceof DirectBuffer)) {
-                        ByteBuffer shadow = Util.getTemporaryDirectBuffer(rem);
+                        if (shadow == null) {
+                            shadow = Util.getTemporaryDirectBuffer((int) heapBytes);
+                            vec.setShadow(iov_len, shadow);
+                        }
+                        int shadowPos = shadow.position();
                         shadow.put(buf);
-                        shadow.flip();
-                        vec.setShadow(iov_len, shadow);
                         buf.position(pos);  // temporarily restore position in user buffer
                         buf = shadow;
-                        pos = shadow.position();
+                        pos = shadowPos;
                     }
 
                     vec.putBase(iov_len, ((DirectBuffer)buf).address() + pos);
@@ -142,6 +170,7 @@ public class IOUtil {
                 }
                 i++;
             }
+            // END Android-changed: Share one shadow buffer between all heap buffers.
             if (iov_len == 0)
                 return 0L;
 
@@ -227,6 +256,49 @@ public class IOUtil {
         return n;
     }
 
+    // BEGIN Android-added: Positional reads that never wait for the disk.
+    /**
+     * Reads from {@code fd} at {@code position} like {@link #read(FileDescriptor, ByteBuffer,
+     * long, NativeDispatcher)}, but only if that does not have to wait for the disk. Returns
+     * {@link IOStatus#UNAVAILABLE} if it would, or {@link IOStatus#UNSUPPORTED} if {@code nd}
+     * cannot tell.
+     */
+    static int readNoWait(FileDescriptor fd, ByteBuffer dst, long position,
+                          NativeDispatcher nd)
+        throws IOException
+    {
+        if (dst instanceof DirectBuffer)
+            return readNoWaitIntoNativeBuffer(fd, dst, position, nd);
+
+        ByteBuffer bb = Util.getTemporaryDirectBuffer(dst.remaining());
+        try {
+            int n = readNoWaitIntoNativeBuffer(fd, bb, position, nd);
+            bb.flip();
+            if (n > 0)
+                dst.put(bb);
+            return n;
+        } finally {
+            Util.offerFirstTemporaryDirectBuffer(bb);
+        }
+    }
+
+    private static int readNoWaitIntoNativeBuffer(FileDescriptor fd, ByteBuffer bb,
+                                                  long position, NativeDispatcher nd)
+        throws IOException
+    {
+        int pos = bb.position();
+        int lim = bb.limit();
+        int rem = (pos <= lim ? lim - pos : 0);
+
+        if (rem == 0)
+            return 0;
+        int n = nd.preadNoWait(fd, ((DirectBuffer)bb).address() + pos, rem, position);
+        if (n > 0)
+            bb.position(pos + n);
+        return n;
+    }
+    // END Android-added: Positional reads that never wait for the disk.
+
     static long read(FileDescriptor fd, ByteBuffer[] bufs, NativeDispatcher nd)
         throws IOException
     {
@@ -52,6 +52,20 @@ abstract class NativeDispatcher
         throw new IOException("Operation Unsupported");
     }
 
+    // BEGIN Android-added: Positional reads that never wait for the disk.
+    /**
+     * Like {@link #pread} but only returns data that can be read without blocking, such as
+     * data that is already in the page cache. Returns {@link IOStatus#UNAVAILABLE} if the read
+     * would have to wait for I/O, or {@link IOStatus#UNSUPPORTED} if the dispatcher or the
+     * kernel cannot make that guarantee.
+     */
+    int preadNoWait(FileDescriptor fd, long address, int len, long position)
+        throws IOException
+    {
+        return IOStatus.UNSUPPORTED;
+    }
+    // END Android-added: Positional reads that never wait for the disk.
+
     abstract long readv(FileDescriptor fd, long address, int len)
         throws IOException;
 
@@ -53,6 +53,21 @@ public class SimpleAsynchronousFileChannelImpl
     // Thread-safe set of IDs of native threads, for signalling
     private final NativeThreadSet threads = new NativeThreadSet(2);
 
+    // BEGIN Android-added: Complete reads served from the page cache on the calling thread.
+    // Reads whose data is already in memory are completed by the caller with a non-blocking
+    // preadv2(RWF_NOWAIT) instead of being queued behind a pool thread. This is opt-in because
+    // app seccomp filters before Android 13 do not allow preadv2.
+    private static final boolean NO_WAIT_READS = AccessController.doPrivileged(
+        new PrivilegedAction<Boolean>() {
+            public Boolean run() {
+                return Boolean.getBoolean("sun.nio.ch.asyncFileNoWaitReads");
+            }
+        });
+
+    // Cleared the first time the kernel or file system rejects RWF_NOWAIT.
+    private static volatile boolean noWaitReadsSupported = true;
+    // END Android-added: Complete reads served from the page cache on the calling thread.
+
 
     SimpleAsynchronousFileChannelImpl(FileDescriptor fdObj,
                                       boolean reading,
@@ -284,6 +299,29 @@ public class SimpleAsynchronousFileChannelImpl
         nd.release(fdObj, fli.position(), fli.size());
     }
 
+    // BEGIN Android-added: Complete reads served from the page cache on the calling thread.
+    /**
+     * Attempts to read into {@code dst} without waiting for the disk. Returns the number of
+     * bytes read or {@link IOStatus#EOF}; any other value means the read has not been done and
+     * must be handed to the executor, which also reports any error.
+     */
+    private int tryReadNoWait(ByteBuffer dst, long position) {
+        int ti = threads.add();
+        try {
+            begin();
+            int n = IOUtil.readNoWait(fdObj, dst, position, nd);
+            if (n == IOStatus.UNSUPPORTED)
+                noWaitReadsSupported = false;
+            return n;
+        } catch (IOException x) {
+            return IOStatus.UNAVAILABLE;
+        } finally {
+            end();
+            threads.remove(ti);
+        }
+    }
+    // END Android-added: Complete reads served from the page cache on the calling thread.
+
     @Override
     <A> Future<Integer> implRead(final ByteBuffer dst,
                                  final long position,
@@ -306,6 +344,18 @@ public class SimpleAsynchronousFileChannelImpl
             return null;
         }
 
+        // BEGIN Android-added: Complete reads served from the page cache on the calling thread.
+        if (NO_WAIT_READS && noWaitReadsSupported) {
+            int n = tryReadNoWait(dst, position);
+            if (n > 0 || n == IOStatus.EOF) {
+                if (handler == null)
+                    return CompletedFuture.withResult(n);
+                Invoker.invokeIndirectly(handler, attachment, n, null, executor);
+                return null;
+            }
+        }
+        // END Android-added: Complete reads served from the page cache on the calling thread.
+
         final PendingFuture<Integer,A> result = (handler == null) ?
             new PendingFuture<Integer,A>(this) : null;
         Runnable task = new Runnable() {
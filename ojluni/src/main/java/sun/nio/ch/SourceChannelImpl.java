@@ -26,10 +26,15 @@
 
 package sun.nio.ch;
 
+// Android-added: Splice from this pipe for FileChannelImpl.transferFrom().
+import android.system.ErrnoException;
+import android.system.Int64Ref;
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.channels.*;
 import java.nio.channels.spi.*;
+// Android-added: Splice from this pipe for FileChannelImpl.transferFrom().
+import libcore.io.Libcore;
 
 
 class SourceChannelImpl
@@ -210,4 +215,33 @@ class SourceChannelImpl
             }
         }
     }
+
+    // BEGIN Android-added: Splice from this pipe for FileChannelImpl.transferFrom().
+    /*
+     * Moves up to count bytes from this pipe into the file dst at the given
+     * offset with a single splice(2), holding the read lock as read() does.
+     * Returns the number of bytes moved, or 0 at end of stream. Throws
+     * ClosedChannelException, or one of its subclasses, if this channel is
+     * closed before or during the call.
+     */
+    long spliceTo(FileDescriptor dst, Int64Ref offset, long count)
+        throws ErrnoException, IOException
+    {
+        ensureOpen();
+        synchronized (lock) {
+            long n = 0;
+            try {
+                begin();
+                if (!isOpen())
+                    return 0;
+                thread = NativeThread.current();
+                n = Libcore.rawOs.splice(fd, null, dst, offset, count, 0);
+                return n;
+            } finally {
+                thread = 0;
+                end(n > 0);
+            }
+        }
+    }
+    // END Android-added: Splice from this pipe for FileChannelImpl.transferFrom().
 }
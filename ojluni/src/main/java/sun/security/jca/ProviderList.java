@@ -26,6 +26,7 @@
 package sun.security.jca;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import java.security.*;
 import java.security.Provider.Service;
@@ -139,6 +140,32 @@ public final class ProviderList {
     // flag indicating whether all configs have been loaded successfully
     private volatile boolean allLoaded;
 
+    // BEGIN Android-added: Cache the results of getService().
+    // Finding a service asks each provider in turn, and Provider.getService() is synchronized
+    // and usually has to allocate a key. GetInstance asks for the same few services over and
+    // over, so remember the service found (or that there was none) for each type and name.
+    // A cached result is used only while Provider.getServiceChangeCount() is unchanged; adding
+    // or removing a provider creates a new ProviderList with an empty cache.
+    private static final int MAX_CACHED_SERVICES = 256;
+
+    private static final class CachedService {
+        // null if no provider supports the algorithm
+        final Service service;
+        final int serviceChangeCount;
+
+        CachedService(Service service, int serviceChangeCount) {
+            this.service = service;
+            this.serviceChangeCount = serviceChangeCount;
+        }
+    }
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, CachedService>>
+            serviceCache = new ConcurrentHashMap<>();
+
+    // null until computed by isCacheable()
+    private volatile Boolean cacheable;
+    // END Android-added: Cache the results of getService().
+
     // List returned by providers()
     private final List<Provider> userList = new AbstractList<Provider>() {
         public int size() {
@@ -327,6 +354,68 @@ public final class ProviderList {
      * algorithm.
      */
     public Service getService(String type, String name) {
+        // BEGIN Android-changed: Cache the results of getService().
+        if (!isCacheable()) {
+            return findService(type, name);
+        }
+        ConcurrentHashMap<String, CachedService> byName = serviceCache.get(type);
+        if (byName == null) {
+            if (serviceCache.size() >= MAX_CACHED_SERVICES) {
+                return findService(type, name);
+            }
+            byName = new ConcurrentHashMap<>();
+            ConcurrentHashMap<String, CachedService> existing =
+                    serviceCache.putIfAbsent(type, byName);
+            if (existing != null) {
+                byName = existing;
+            }
+        }
+        // Read the count before looking, so that a result that races with a change to a
+        // provider is not used again.
+        int serviceChangeCount = Provider.getServiceChangeCount();
+        CachedService cached = byName.get(name);
+        if (cached != null && cached.serviceChangeCount == serviceChangeCount) {
+            return cached.service;
+        }
+        Service s = findService(type, name);
+        if (cached != null || byName.size() < MAX_CACHED_SERVICES) {
+            byName.put(name, new CachedService(s, serviceChangeCount));
+        }
+        return s;
+    }
+
+    // Results can only be cached once every provider is loaded, and only if every provider
+    // answers getService() from its registered services. A provider that overrides
+    // getService() may answer differently without telling anyone.
+    private boolean isCacheable() {
+        Boolean result = cacheable;
+        if (result != null) {
+            return result;
+        }
+        if (!allLoaded) {
+            return false;
+        }
+        result = Boolean.TRUE;
+        for (int i = 0; i < configs.length; i++) {
+            try {
+                Class<?> declaringClass = getProvider(i).getClass()
+                        .getMethod("getService", String.class, String.class)
+                        .getDeclaringClass();
+                if (declaringClass != Provider.class) {
+                    result = Boolean.FALSE;
+                    break;
+                }
+            } catch (NoSuchMethodException e) {
+                result = Boolean.FALSE;
+                break;
+            }
+        }
+        cacheable = result;
+        return result;
+    }
+
+    private Service findService(String type, String name) {
+        // END Android-changed: Cache the results of getService().
         for (int i = 0; i < configs.length; i++) {
             Provider p = getProvider(i);
             Service s = p.getService(type, name);
@@ -60,10 +60,18 @@ public class X509Factory {
 
     private static final int ENC_MAX_LENGTH = 4096 * 1024; // 4 MB MAX
 
+    // BEGIN Android-changed: Use sharded caches so threads don't share one lock.
+    /*
     private static final Cache<Object, X509CertImpl> certCache
         = Cache.newSoftMemoryCache(750);
     private static final Cache<Object, X509CRLImpl> crlCache
         = Cache.newSoftMemoryCache(750);
+    */
+    private static final Cache<Object, X509CertImpl> certCache
+        = Cache.newShardedSoftMemoryCache(750);
+    private static final Cache<Object, X509CRLImpl> crlCache
+        = Cache.newShardedSoftMemoryCache(750);
+    // END Android-changed: Use sharded caches so threads don't share one lock.
 
     // BEGIN Android-removed
     /*
@@ -148,7 +156,10 @@ public class X509Factory {
      * @throws CertificateException if failures occur while obtaining the DER
      *      encoding for certificate data.
      */
-    public static synchronized X509CertImpl intern(X509Certificate c)
+    // Android-changed: Not synchronized, certCache is thread-safe.
+    // Threads that intern the same certificate at once may each get their own
+    // X509CertImpl; all of them are equal.
+    public static X509CertImpl intern(X509Certificate c)
             throws CertificateException {
         if (c == null) {
             return null;
@@ -184,7 +195,8 @@ public class X509Factory {
      * @throws CRLException if failures occur while obtaining the DER
      *      encoding for CRL data.
      */
-    public static synchronized X509CRLImpl intern(X509CRL c)
+    // Android-changed: Not synchronized, crlCache is thread-safe.
+    public static X509CRLImpl intern(X509CRL c)
             throws CRLException {
         if (c == null) {
             return null;
@@ -213,7 +225,8 @@ public class X509Factory {
     /**
      * Get the X509CertImpl or X509CRLImpl from the cache.
      */
-    private static synchronized <K,V> V getFromCache(Cache<K,V> cache,
+    // Android-changed: Not synchronized, the caches are thread-safe.
+    private static <K,V> V getFromCache(Cache<K,V> cache,
             byte[] encoding) {
         Object key = new Cache.EqualByteArray(encoding);
         return cache.get(key);
@@ -222,7 +235,8 @@ public class X509Factory {
     /**
      * Add the X509CertImpl or X509CRLImpl to the cache.
      */
-    private static synchronized <V> void addToCache(Cache<Object, V> cache,
+    // Android-changed: Not synchronized, the caches are thread-safe.
+    private static <V> void addToCache(Cache<Object, V> cache,
             byte[] encoding, V value) {
         if (encoding.length > ENC_MAX_LENGTH) {
             return;
@@ -27,6 +27,7 @@ package sun.security.util;
 
 import java.util.*;
 import java.lang.ref.*;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Abstract base class and factory for caches. A cache is a key-value mapping.
@@ -157,6 +158,131 @@ public abstract class Cache<K,V> {
         return new MemoryCache<>(false, size, timeout);
     }
 
+    // BEGIN Android-added: Sharded memory caches.
+    /**
+     * Return a new sharded memory cache with the specified maximum size,
+     * unlimited lifetime for entries, with the values held by SoftReferences.
+     *
+     * @hide
+     */
+    public static <K,V> ShardedMemoryCache<K,V> newShardedSoftMemoryCache(
+            int size) {
+        return new ShardedMemoryCache<>(true, size);
+    }
+
+    /**
+     * Return a new sharded memory cache with the specified maximum size,
+     * unlimited lifetime for entries, with the values held by standard
+     * references.
+     *
+     * @hide
+     */
+    public static <K,V> ShardedMemoryCache<K,V> newShardedHardMemoryCache(
+            int size) {
+        return new ShardedMemoryCache<>(false, size);
+    }
+
+    /**
+     * A memory cache split into shards by the hash code of the key, each
+     * with its own lock, so that threads using different keys rarely wait
+     * for each other. Each shard is a memory cache with an equal part of
+     * the maximum size, so entries are replaced in LRU order per shard.
+     * Counts hits and misses for tests and diagnostics.
+     *
+     * @hide
+     */
+    public static final class ShardedMemoryCache<K,V> extends Cache<K,V> {
+
+        // log2 of the number of shards
+        private static final int SHARD_BITS = 4;
+
+        private final MemoryCache<K,V>[] shards;
+        private final LongAdder hitCount = new LongAdder();
+        private final LongAdder missCount = new LongAdder();
+
+        @SuppressWarnings("unchecked")
+        private ShardedMemoryCache(boolean soft, int maxSize) {
+            shards = new MemoryCache[1 << SHARD_BITS];
+            for (int i = 0; i < shards.length; i++) {
+                shards[i] = new MemoryCache<>(soft, shardSize(maxSize));
+            }
+        }
+
+        private int shardSize(int maxSize) {
+            // 0 means unlimited
+            return (maxSize <= 0) ? 0
+                    : (maxSize + shards.length - 1) / shards.length;
+        }
+
+        private MemoryCache<K,V> shardFor(Object key) {
+            int h = key.hashCode() * 0x9e3779b9;
+            return shards[h >>> (Integer.SIZE - SHARD_BITS)];
+        }
+
+        public int size() {
+            int size = 0;
+            for (MemoryCache<K,V> shard : shards) {
+                size += shard.size();
+            }
+            return size;
+        }
+
+        public void clear() {
+            for (MemoryCache<K,V> shard : shards) {
+                shard.clear();
+            }
+        }
+
+        public void put(K key, V value) {
+            shardFor(key).put(key, value);
+        }
+
+        public V get(Object key) {
+            V value = shardFor(key).get(key);
+            (value != null ? hitCount : missCount).increment();
+            return value;
+        }
+
+        public void remove(Object key) {
+            shardFor(key).remove(key);
+        }
+
+        public void setCapacity(int size) {
+            for (MemoryCache<K,V> shard : shards) {
+                shard.setCapacity(shardSize(size));
+            }
+        }
+
+        public void setTimeout(int timeout) {
+            for (MemoryCache<K,V> shard : shards) {
+                shard.setTimeout(timeout);
+            }
+        }
+
+        public void accept(CacheVisitor<K,V> visitor) {
+            Map<K,V> cached = new HashMap<>();
+            for (MemoryCache<K,V> shard : shards) {
+                shard.accept(cached::putAll);
+            }
+            visitor.visit(cached);
+        }
+
+        /**
+         * Return the number of calls to get() that found a value.
+         */
+        public long getHitCount() {
+            return hitCount.sum();
+        }
+
+        /**
+         * Return the number of calls to get() that found no value.
+         */
+        public long getMissCount() {
+            return missCount.sum();
+        }
+    }
+    // END Android-added: Sharded memory caches.
+
     /**
      * Utility class that wraps a byte array and implements the equals()
      * and hashCode() contract in a way suitable for Maps and caches.
@@ -173,10 +299,21 @@ public abstract class Cache<K,V> {
         public int hashCode() {
             int h = hash;
             if (h == 0) {
+                // BEGIN Android-changed: Hash all bits of every byte.
+                // The sum of the bytes ignored their order, so encodings that
+                // differed only in where their bytes were always collided.
+                /*
                 h = b.length + 1;
                 for (int i = 0; i < b.length; i++) {
                     h += (b[i] & 0xff) * 37;
                 }
+                */
+                // FNV-1a
+                h = 0x811c9dc5;
+                for (int i = 0; i < b.length; i++) {
+                    h = (h ^ (b[i] & 0xff)) * 0x01000193;
+                }
+                // END Android-changed: Hash all bits of every byte.
                 hash = h;
             }
             return h;
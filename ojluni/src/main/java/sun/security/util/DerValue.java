@@ -856,12 +856,58 @@ public class DerValue {
      * @return DER-encoded value, including tag and length.
      */
     public byte[] toByteArray() throws IOException {
+        // BEGIN Android-changed: Copy the value straight into an array of the exact size.
+        // Certificate parsing calls this for the whole certificate, the TBSCertificate and
+        // every name, and going through a DerOutputStream grew and copied the array several
+        // times for each of them. The result is the same as what encode() writes.
+        /*
         DerOutputStream out = new DerOutputStream();
 
         encode(out);
         data.reset();
         return out.toByteArray();
+        */
+        int headerLength = 1 + lengthOfLength(length);
+        byte[] result = new byte[headerLength + length];
+        result[0] = tag;
+        if (headerLength == 2) {
+            result[1] = (byte)length;
+        } else {
+            result[1] = (byte)(0x80 | (headerLength - 2));
+            for (int i = headerLength - 1, l = length; i > 1; i--, l >>>= 8) {
+                result[i] = (byte)l;
+            }
+        }
+        if (length > 0) {
+            // always synchronized on data
+            synchronized (data) {
+                buffer.reset();
+                if (buffer.read(result, headerLength, length) != length) {
+                    throw new IOException("short DER value read (toByteArray)");
+                }
+            }
+        }
+        data.reset();
+        return result;
+    }
+
+    /**
+     * Returns how many bytes {@link DerOutputStream#putLength} writes for the given length.
+     */
+    private static int lengthOfLength(int len) {
+        if (len < 128) {
+            return 1;
+        } else if (len < (1 << 8)) {
+            return 2;
+        } else if (len < (1 << 16)) {
+            return 3;
+        } else if (len < (1 << 24)) {
+            return 4;
+        } else {
+            return 5;
+        }
     }
+    // END Android-changed: Copy the value straight into an array of the exact size.
 
     /**
      * For "set" and "sequence" types, this function may be used
@@ -63,6 +63,13 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
 
     private Map<String,Extension> unparseableExtensions;
 
+    // BEGIN Android-added: Decode non-critical extensions on first use.
+    // Names of the extensions in map that are still the undecoded Extension
+    // read from the encoding. Guarded by map, like unparseableExtensions
+    // while there are any.
+    private Set<String> undecoded;
+    // END Android-added: Decode non-critical extensions on first use.
+
     /**
      * Default constructor.
      */
@@ -85,9 +92,97 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
 
         for (int i = 0; i < exts.length; i++) {
             Extension ext = new Extension(exts[i]);
+            // BEGIN Android-changed: Decode non-critical extensions on first use.
+            // Most of the extensions of a certificate are never looked at, and
+            // decoding them allocated more than parsing the rest of it. Critical
+            // ones are still decoded here, as failing to decode them fails the
+            // parse. A deferred extension is decoded before anything else that
+            // would be stored under its name, so duplicates are reported exactly
+            // as before.
+            // parseExtension(ext);
+            String name = OIDMap.getExtensionName(ext.getExtensionId());
+            if (name != null && undecoded != null && undecoded.contains(name)) {
+                decode(name);
+            }
+            if (name != null && !ext.isCritical() && !map.containsKey(name)) {
+                if (undecoded == null) {
+                    undecoded = new HashSet<String>();
+                }
+                map.put(name, ext);
+                undecoded.add(name);
+            } else {
+                parseExtension(ext);
+            }
+            // END Android-changed: Decode non-critical extensions on first use.
+        }
+    }
+
+    // BEGIN Android-added: Decode non-critical extensions on first use.
+    /**
+     * Replaces the undecoded extension stored under the given name, if any,
+     * with the decoded one, or moves it to the unparseable extensions.
+     */
+    private void decodeIfNeeded(String name) {
+        synchronized (map) {
+            if (undecoded != null && undecoded.contains(name)) {
+                decode(name);
+            }
+        }
+    }
+
+    /**
+     * Decodes all the extensions that have not been decoded yet.
+     */
+    private void decodeAll() {
+        synchronized (map) {
+            if (undecoded != null) {
+                for (String name : undecoded.toArray(new String[0])) {
+                    decode(name);
+                }
+            }
+        }
+    }
+
+    // Must be called with the lock on map held, unless from init.
+    private void decode(String name) {
+        undecoded.remove(name);
+        Extension ext = map.remove(name);
+        try {
             parseExtension(ext);
+        } catch (IOException e) {
+            // The extension is not critical, so treat it like one that its
+            // class failed to decode.
+            if (unparseableExtensions == null) {
+                unparseableExtensions = new TreeMap<String,Extension>();
+            }
+            unparseableExtensions.put(ext.getExtensionId().toString(),
+                    new UnparseableExtension(ext, e));
+        }
+        if (undecoded.isEmpty()) {
+            undecoded = null;
+        }
+    }
+
+    /**
+     * Returns the object identifiers of the critical or non-critical
+     * extensions, without decoding any. Unparseable extensions are never
+     * critical, and are included in the non-critical ones.
+     */
+    Set<String> getExtensionOIDs(boolean critical) {
+        Set<String> extSet = new TreeSet<>();
+        synchronized (map) {
+            for (Extension ex : map.values()) {
+                if (ex.isCritical() == critical) {
+                    extSet.add(ex.getExtensionId().toString());
+                }
+            }
+            if (!critical && unparseableExtensions != null) {
+                extSet.addAll(unparseableExtensions.keySet());
+            }
         }
+        return extSet;
     }
+    // END Android-added: Decode non-critical extensions on first use.
 
     private static Class[] PARAMS = {Boolean.class, Object.class};
 
@@ -166,6 +261,8 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
      */
     public void encode(OutputStream out, boolean isCertReq)
     throws CertificateException, IOException {
+        // Android-added: Decode non-critical extensions on first use.
+        decodeAll();
         DerOutputStream extOut = new DerOutputStream();
         Collection<Extension> allExts = map.values();
         Object[] objs = allExts.toArray();
@@ -200,6 +297,8 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
      * @exception IOException if the object could not be cached.
      */
     public void set(String name, Object obj) throws IOException {
+        // Android-added: Decode non-critical extensions on first use.
+        decodeIfNeeded(name);
         if (obj instanceof Extension) {
             map.put(name, (Extension)obj);
         } else {
@@ -213,6 +312,8 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
      * @exception IOException if named extension is not found.
      */
     public Extension get(String name) throws IOException {
+        // Android-added: Decode non-critical extensions on first use.
+        decodeIfNeeded(name);
         Extension obj = map.get(name);
         if (obj == null) {
             throw new IOException("No extension found with name " + name);
@@ -223,6 +324,8 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
     // Similar to get(String), but throw no exception, might return null.
     // Used in X509CertImpl::getExtension(OID).
     Extension getExtension(String name) {
+        // Android-added: Decode non-critical extensions on first use.
+        decodeIfNeeded(name);
         return map.get(name);
     }
 
@@ -232,6 +335,8 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
      * @exception IOException if named extension is not found.
      */
     public void delete(String name) throws IOException {
+        // Android-added: Decode non-critical extensions on first use.
+        decodeIfNeeded(name);
         Object obj = map.get(name);
         if (obj == null) {
             throw new IOException("No extension found with name " + name);
@@ -240,6 +345,8 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
     }
 
     public String getNameByOid(ObjectIdentifier oid) throws IOException {
+        // Android-added: Decode non-critical extensions on first use.
+        decodeAll();
         for (String name: map.keySet()) {
             if (map.get(name).getExtensionId().equals((Object)oid)) {
                 return name;
@@ -253,6 +360,8 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
      * attribute.
      */
     public Enumeration<Extension> getElements() {
+        // Android-added: Decode non-critical extensions on first use.
+        decodeAll();
         return Collections.enumeration(map.values());
     }
 
@@ -261,10 +370,14 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
      * @return a collection view of the extensions in this Certificate.
      */
     public Collection<Extension> getAllExtensions() {
+        // Android-added: Decode non-critical extensions on first use.
+        decodeAll();
         return map.values();
     }
 
     public Map<String,Extension> getUnparseableExtensions() {
+        // Android-added: Decode non-critical extensions on first use.
+        decodeAll();
         if (unparseableExtensions == null) {
             return Collections.emptyMap();
         } else {
@@ -306,6 +419,8 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
         Collection<Extension> otherC =
                 ((CertificateExtensions)other).getAllExtensions();
         Object[] objs = otherC.toArray();
+        // Android-added: Decode non-critical extensions on first use.
+        decodeAll();
 
         int len = objs.length;
         if (len != map.size())
@@ -335,6 +450,8 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
      * @return the hashcode value.
      */
     public int hashCode() {
+        // Android-added: Decode non-critical extensions on first use.
+        decodeAll();
         return map.hashCode() + getUnparseableExtensions().hashCode();
     }
 
@@ -347,6 +464,8 @@ public class CertificateExtensions implements CertAttrSet<Extension> {
      * @return  a string representation of this CertificateExtensions.
      */
     public String toString() {
+        // Android-added: Decode non-critical extensions on first use.
+        decodeAll();
         return map.toString();
     }
 
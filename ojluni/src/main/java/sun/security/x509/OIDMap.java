@@ -176,6 +176,8 @@ public class OIDMap {
     private static void addInternal(String name, ObjectIdentifier oid,
             Class clazz) {
         OIDInfo info = new OIDInfo(name, oid, clazz);
+        // Android-added: Remember the name the built-in extension class reports.
+        info.extensionName = name.substring(ROOT.length() + 1);
         oidMap.put(oid, info);
         nameMap.put(name, info);
     }
@@ -188,6 +190,8 @@ public class OIDMap {
         final ObjectIdentifier oid;
         final String name;
         private volatile Class<?> clazz;
+        // Android-added: The name the built-in extension class reports, or null.
+        String extensionName;
 
         OIDInfo(String name, ObjectIdentifier oid, Class<?> clazz) {
             this.name = name;
@@ -280,4 +284,20 @@ public class OIDMap {
         return (info == null) ? null : info.getClazz();
     }
 
+    // BEGIN Android-added: Name of a built-in extension without decoding it.
+    /**
+     * Return the name under which {@link CertificateExtensions} stores the
+     * decoded extension with the given object identifier, which is what its
+     * {@code getName()} returns. Only known for the extensions registered in
+     * the static initializer.
+     *
+     * @param oid the object identifier of the extension.
+     * @return the name or null if it is not known.
+     */
+    static String getExtensionName(ObjectIdentifier oid) {
+        OIDInfo info = oidMap.get(oid);
+        return (info == null) ? null : info.extensionName;
+    }
+    // END Android-added: Name of a built-in extension without decoding it.
+
 }
@@ -1293,6 +1293,8 @@ public class X509CertImpl extends X509Certificate implements DerEncoder {
             if (exts == null) {
                 return null;
             }
+            // BEGIN Android-changed: Don't decode the extensions to list them.
+            /*
             Set<String> extSet = new TreeSet<>();
             for (Extension ex : exts.getAllExtensions()) {
                 if (ex.isCritical()) {
@@ -1300,6 +1302,9 @@ public class X509CertImpl extends X509Certificate implements DerEncoder {
                 }
             }
             return extSet;
+            */
+            return exts.getExtensionOIDs(true);
+            // END Android-changed: Don't decode the extensions to list them.
         } catch (Exception e) {
             return null;
         }
@@ -1323,6 +1328,8 @@ public class X509CertImpl extends X509Certificate implements DerEncoder {
             if (exts == null) {
                 return null;
             }
+            // BEGIN Android-changed: Don't decode the extensions to list them.
+            /*
             Set<String> extSet = new TreeSet<>();
             for (Extension ex : exts.getAllExtensions()) {
                 if (!ex.isCritical()) {
@@ -1331,6 +1338,9 @@ public class X509CertImpl extends X509Certificate implements DerEncoder {
             }
             extSet.addAll(exts.getUnparseableExtensions().keySet());
             return extSet;
+            */
+            return exts.getExtensionOIDs(false);
+            // END Android-changed: Don't decode the extensions to list them.
         } catch (Exception e) {
             return null;
         }
@@ -1361,6 +1371,17 @@ public class X509CertImpl extends X509Certificate implements DerEncoder {
                 if (ex != null) {
                     return ex;
                 }
+                // BEGIN Android-added: Look up built-in extensions by name.
+                // This only decodes the extension asked for, where the loop
+                // below decodes all of them.
+                String name = OIDMap.getExtensionName(oid);
+                if (name != null) {
+                    ex = extensions.getExtension(name);
+                    if (ex != null && ex.getExtensionId().equals((Object)oid)) {
+                        return ex;
+                    }
+                }
+                // END Android-added: Look up built-in extensions by name.
                 for (Extension ex2: extensions.getAllExtensions()) {
                     if (ex2.getExtensionId().equals((Object)oid)) {
                         //XXXX May want to consider cloning this
@@ -96,6 +96,12 @@ public class X509CertInfo implements CertAttrSet<String> {
     // X509.v3 extensions
     protected CertificateExtensions     extensions = null;
 
+    // Android-added: Share parsed names between certificates.
+    // The issuer of one certificate in a chain is the subject of the next,
+    // and many certificates share an issuer. X500Name is immutable.
+    private static final Cache<Object, X500Name> nameCache =
+        Cache.newShardedSoftMemoryCache(750);
+
     // Attribute numbers for internal manipulation
     private static final int ATTR_VERSION = 1;
     private static final int ATTR_SERIAL = 2;
@@ -646,7 +652,9 @@ public class X509CertInfo implements CertAttrSet<String> {
         algId = new CertificateAlgorithmId(in);
 
         // Issuer name
-        issuer = new X500Name(in);
+        // Android-changed: Share parsed names between certificates.
+        // issuer = new X500Name(in);
+        issuer = parseName(in);
         if (issuer.isEmpty()) {
             throw new CertificateParsingException(
                 "Empty issuer DN not allowed in X509Certificates");
@@ -656,7 +664,9 @@ public class X509CertInfo implements CertAttrSet<String> {
         interval = new CertificateValidity(in);
 
         // subject name
-        subject = new X500Name(in);
+        // Android-changed: Share parsed names between certificates.
+        // subject = new X500Name(in);
+        subject = parseName(in);
         if ((version.compare(CertificateVersion.V1) == 0) &&
                 subject.isEmpty()) {
             throw new CertificateParsingException(
@@ -707,6 +717,27 @@ public class X509CertInfo implements CertAttrSet<String> {
 
     }
 
+    // BEGIN Android-added: Share parsed names between certificates.
+    /*
+     * Parses the next name from the stream, reusing the X500Name of any
+     * earlier certificate that had the same encoding.
+     */
+    private static X500Name parseName(DerInputStream in) throws IOException {
+        if (in.peekByte() != DerValue.tag_Sequence) {
+            // Let X500Name deal with, or reject, whatever this is.
+            return new X500Name(in);
+        }
+        byte[] encoding = in.getDerValue().toByteArray();
+        Object key = new Cache.EqualByteArray(encoding);
+        X500Name name = nameCache.get(key);
+        if (name == null) {
+            name = new X500Name(encoding);
+            nameCache.put(key, name);
+        }
+        return name;
+    }
+    // END Android-added: Share parsed names between certificates.
+
     /*
      * Verify if X.509 V3 Certificate is compliant with RFC 3280.
      */
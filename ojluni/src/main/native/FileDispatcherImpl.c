@@ -37,6 +37,8 @@
 #if defined(__linux__)
 #include <linux/fs.h>
 #include <sys/ioctl.h>
+// Android-added: Positional reads that never wait for the disk.
+#include <sys/syscall.h>
 #endif
 #include "nio.h"
 #include "nio_util.h"
@@ -82,6 +84,41 @@ FileDispatcherImpl_pread0(JNIEnv *env, jclass clazz, jobject fdo,
     return convertReturnVal(env, pread64(fd, buf, len, offset), JNI_TRUE);
 }
 
+// BEGIN Android-added: Positional reads that never wait for the disk.
+#ifndef RWF_NOWAIT
+#define RWF_NOWAIT 0x00000008
+#endif
+
+JNIEXPORT jint JNICALL
+FileDispatcherImpl_preadNoWait0(JNIEnv *env, jclass clazz, jobject fdo,
+                            jlong address, jint len, jlong offset)
+{
+#if defined(__linux__) && defined(__NR_preadv2)
+    jint fd = fdval(env, fdo);
+    struct iovec iov;
+    ssize_t n;
+
+    iov.iov_base = (void *)jlong_to_ptr(address);
+    iov.iov_len = (size_t)len;
+    // The raw syscall takes the offset split into two longs, low half first. There is no
+    // libc wrapper for preadv2 in older bionic releases.
+#if defined(__LP64__)
+    n = syscall(__NR_preadv2, fd, &iov, 1, (long)offset, 0L, RWF_NOWAIT);
+#else
+    n = syscall(__NR_preadv2, fd, &iov, 1, (long)(offset & 0xFFFFFFFF),
+                (long)((jlong)offset >> 32), RWF_NOWAIT);
+#endif
+    if (n < 0 && (errno == EOPNOTSUPP || errno == ENOSYS || errno == EINVAL)) {
+        // Kernels before 4.14 (or file systems without RWF_NOWAIT support) reject the flag.
+        return IOS_UNSUPPORTED;
+    }
+    return convertReturnVal(env, n, JNI_TRUE);
+#else
+    return IOS_UNSUPPORTED;
+#endif
+}
+// END Android-added: Positional reads that never wait for the disk.
+
 JNIEXPORT jlong JNICALL
 FileDispatcherImpl_readv0(JNIEnv *env, jclass clazz,
                               jobject fdo, jlong address, jint len)
@@ -301,6 +338,8 @@ static JNINativeMethod gMethods[] = {
   NATIVE_METHOD(FileDispatcherImpl, write0, "(Ljava/io/FileDescriptor;JI)I"),
   NATIVE_METHOD(FileDispatcherImpl, readv0, "(Ljava/io/FileDescriptor;JI)J"),
   NATIVE_METHOD(FileDispatcherImpl, pread0, "(Ljava/io/FileDescriptor;JIJ)I"),
+  // Android-added: Positional reads that never wait for the disk.
+  NATIVE_METHOD(FileDispatcherImpl, preadNoWait0, "(Ljava/io/FileDescriptor;JIJ)I"),
   NATIVE_METHOD(FileDispatcherImpl, read0, "(Ljava/io/FileDescriptor;JI)I"),
 };
 
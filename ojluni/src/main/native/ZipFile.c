@@ -190,6 +190,40 @@ ZipFile_getEntry(JNIEnv *env, jclass cls, jlong zfile,
     return ptr_to_jlong(ze);
 }
 
+// BEGIN Android-added: Look up entries by name without a byte[] copy of the name.
+/*
+ * The caller guarantees that the modified UTF-8 encoding of name is its
+ * standard UTF-8 encoding, i.e. that it contains no NUL and no surrogates.
+ */
+JNIEXPORT jlong JNICALL
+ZipFile_getEntryByString(JNIEnv *env, jclass cls, jlong zfile,
+                         jstring name, jboolean addSlash)
+{
+    jzfile *zip = jlong_to_ptr(zfile);
+    jsize len = (*env)->GetStringLength(env, name);
+    jsize ulen = (*env)->GetStringUTFLength(env, name);
+    char buf[MAXNAME+2], *path;
+    jzentry *ze;
+
+    if (ulen > MAXNAME) {
+        path = malloc(ulen + 2);
+        if (path == 0) {
+            JNU_ThrowOutOfMemoryError(env, 0);
+            return 0;
+        }
+    } else {
+        path = buf;
+    }
+    (*env)->GetStringUTFRegion(env, name, 0, len, path);
+    path[ulen] = '\0';
+    ze = ZIP_GetEntry2(zip, path, (jint)ulen, addSlash);
+    if (path != buf) {
+        free(path);
+    }
+    return ptr_to_jlong(ze);
+}
+// END Android-added: Look up entries by name without a byte[] copy of the name.
+
 JNIEXPORT void JNICALL
 ZipFile_freeEntry(JNIEnv *env, jclass cls, jlong zfile,
                                     jlong zentry)
@@ -396,6 +430,8 @@ JarFile_getMetaInfEntryNames(JNIEnv *env, jobject obj)
 static JNINativeMethod gMethods[] = {
   NATIVE_METHOD(ZipFile, getFileDescriptor, "(J)I"),
   NATIVE_METHOD(ZipFile, getEntry, "(J[BZ)J"),
+  // Android-added: Look up entries by name without a byte[] copy of the name.
+  NATIVE_METHOD(ZipFile, getEntryByString, "(JLjava/lang/String;Z)J"),
   NATIVE_METHOD(ZipFile, freeEntry, "(JJ)V"),
   NATIVE_METHOD(ZipFile, getNextEntry, "(JI)J"),
   NATIVE_METHOD(ZipFile, close, "(J)V"),
@@ -57,6 +57,16 @@ extern "C" {
 JNIEXPORT jlong JNICALL ZipFile_getEntry
   (JNIEnv *, jclass, jlong, jbyteArray, jboolean);
 
+// BEGIN Android-added: Look up entries by name without a byte[] copy of the name.
+/*
+ * Class:     java_util_zip_ZipFile
+ * Method:    getEntryByString
+ * Signature: (JLjava/lang/String;Z)J
+ */
+JNIEXPORT jlong JNICALL ZipFile_getEntryByString
+  (JNIEnv *, jclass, jlong, jstring, jboolean);
+// END Android-added: Look up entries by name without a byte[] copy of the name.
+
 /*
  * Class:     java_util_zip_ZipFile
  * Method:    freeEntry
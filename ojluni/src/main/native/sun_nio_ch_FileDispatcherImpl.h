@@ -58,6 +58,15 @@ JNIEXPORT jint JNICALL Java_sun_nio_ch_FileDispatcherImpl_read0
 JNIEXPORT jint JNICALL Java_sun_nio_ch_FileDispatcherImpl_pread0
   (JNIEnv *, jclass, jobject, jlong, jint, jlong);
 
+// Android-added: Positional reads that never wait for the disk.
+/*
+ * Class:     sun_nio_ch_FileDispatcherImpl
+ * Method:    preadNoWait0
+ * Signature: (Ljava/io/FileDescriptor;JIJ)I
+ */
+JNIEXPORT jint JNICALL Java_sun_nio_ch_FileDispatcherImpl_preadNoWait0
+  (JNIEnv *, jclass, jobject, jlong, jint, jlong);
+
 /*
  * Class:     sun_nio_ch_FileDispatcherImpl
  * Method:    readv0